@@ -35,8 +35,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URL;
+import java.util.Map;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
 
 /**
  * Packages a directy into a Jar and writes the concept index files.
@@ -48,10 +50,35 @@ public class JarPacker {
 
 	private File dir;
 
+	public JarPacker() {
+		this(null);
+	}
+
 	public JarPacker(File dir) {
 		this.dir = dir;
 	}
 
+	/**
+	 * Writes the given in-memory entries into a new jar file.
+	 * 
+	 * @param entries
+	 *            jar entry content by '/' separated path
+	 */
+	public void packageJar(File output, Manifest manifest,
+			Map<String, byte[]> entries) throws IOException {
+		FileOutputStream stream = new FileOutputStream(output);
+		JarOutputStream jar = new JarOutputStream(stream, manifest);
+		try {
+			for (Map.Entry<String, byte[]> e : entries.entrySet()) {
+				jar.putNextEntry(new JarEntry(e.getKey()));
+				jar.write(e.getValue());
+			}
+		} finally {
+			jar.close();
+			stream.close();
+		}
+	}
+
 	public void packageJar(File output) throws IOException {
 		FileOutputStream stream = new FileOutputStream(output);
 		JarOutputStream jar = new JarOutputStream(stream);
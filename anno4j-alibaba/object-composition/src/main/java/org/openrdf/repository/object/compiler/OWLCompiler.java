@@ -29,39 +29,51 @@
  */
 package org.openrdf.repository.object.compiler;
 
-import info.aduna.io.FileUtil;
-
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.lang.reflect.Method;
 import java.lang.reflect.UndeclaredThrowableException;
 import java.net.ConnectException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.net.URLConnection;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
 
+import org.apache.commons.codec.binary.Hex;
 import org.openrdf.annotations.Iri;
+import org.openrdf.model.BNode;
 import org.openrdf.model.Model;
 import org.openrdf.model.Namespace;
 import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
 import org.openrdf.model.URI;
+import org.openrdf.model.Value;
 import org.openrdf.model.impl.URIImpl;
 import org.openrdf.model.vocabulary.OWL;
 import org.openrdf.model.vocabulary.RDF;
@@ -88,35 +100,35 @@ import org.slf4j.LoggerFactory;
  */
 public class OWLCompiler {
 	private static final String META_INF_ANNOTATIONS = "META-INF/org.openrdf.annotations";
-	private static final String META_INF_BEHAVIOURS = "META-INF/org.openrdf.behaviours";
 	private static final String META_INF_CONCEPTS = "META-INF/org.openrdf.concepts";
 	private static final String META_INF_DATATYPES = "META-INF/org.openrdf.datatypes";
 	private static final String META_INF_ONTOLOGIES = "META-INF/org.openrdf.ontologies";
 
+	private static final String ONTOLOGY_DIGEST = "Ontology-Digest";
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
 	private class AnnotationBuilder implements Runnable {
 		private final RDFProperty bean;
-		private final List<String> content;
-		private final File target;
+		private final Map<String, String> sources;
 
-		AnnotationBuilder(File target, List<String> content,
-				RDFProperty bean) {
-			this.target = target;
-			this.content = content;
+		AnnotationBuilder(Map<String, String> sources, RDFProperty bean) {
+			this.sources = sources;
 			this.bean = bean;
 		}
 
 		public void run() {
 			try {
-				bean.generateAnnotationCode(target, resolver);
+				StringWriter source = new StringWriter();
+				bean.generateAnnotationCode(new PrintWriter(source), resolver);
 				URI uri = bean.getURI();
 				String pkg = resolver.getPackageName(uri);
 				String className = resolver.getSimpleName(uri);
 				if (pkg != null) {
 					className = pkg + '.' + className;
 				}
-				synchronized (content) {
+				synchronized (sources) {
 					logger.debug("Saving {}", className);
-					content.add(className);
+					sources.put(className, source.toString());
 					annotations.add(className);
 				}
 			} catch (Exception exc) {
@@ -130,18 +142,17 @@ public class OWLCompiler {
 
 	private class ConceptBuilder implements Runnable {
 		private final RDFClass bean;
-		private final List<String> content;
-		private final File target;
+		private final Map<String, String> sources;
 
-		ConceptBuilder(File target, List<String> content, RDFClass bean) {
-			this.target = target;
-			this.content = content;
+		ConceptBuilder(Map<String, String> sources, RDFClass bean) {
+			this.sources = sources;
 			this.bean = bean;
 		}
 
 		public void run() {
 			try {
-				bean.generateSourceCode(target, resolver);
+				StringWriter source = new StringWriter();
+				bean.generateSourceCode(new PrintWriter(source), resolver);
 				URI uri = bean.getURI();
 				String pkg = resolver.getPackageName(uri);
 				String className = resolver.getSimpleName(uri);
@@ -150,9 +161,9 @@ public class OWLCompiler {
 				}
 				boolean anon = resolver.isAnonymous(uri)
 						&& bean.isEmpty(resolver);
-				synchronized (content) {
+				synchronized (sources) {
 					logger.debug("Saving {}", className);
-					content.add(className);
+					sources.put(className, source.toString());
 					if (!anon) {
 						concepts.add(className);
 					}
@@ -168,13 +179,11 @@ public class OWLCompiler {
 
 	private final class DatatypeBuilder implements Runnable {
 		private final RDFClass bean;
-		private final List<String> content;
-		private final File target;
+		private final Map<String, String> sources;
 
-		DatatypeBuilder(List<String> content, RDFClass bean, File target) {
-			this.content = content;
+		DatatypeBuilder(Map<String, String> sources, RDFClass bean) {
+			this.sources = sources;
 			this.bean = bean;
-			this.target = target;
 		}
 
 		public void run() {
@@ -194,15 +203,16 @@ public class OWLCompiler {
 						return;
 					}
 				}
-				bean.generateSourceCode(target, resolver);
+				StringWriter source = new StringWriter();
+				bean.generateSourceCode(new PrintWriter(source), resolver);
 				String pkg = resolver.getPackageName(bean.getURI());
 				String className = resolver.getSimpleName(bean.getURI());
 				if (pkg != null) {
 					className = pkg + '.' + className;
 				}
-				synchronized (content) {
+				synchronized (sources) {
 					logger.debug("Saving {}", className);
-					content.add(className);
+					sources.put(className, source.toString());
 					datatypes.put(className, null);
 				}
 			} catch (Exception exc) {
@@ -223,24 +233,12 @@ public class OWLCompiler {
 		return ccl;
 	}
 
-	Runnable helper = new Runnable() {
-		public void run() {
-			try {
-				for (Runnable r = queue.take(); r != helper; r = queue.take()) {
-					r.run();
-				}
-			} catch (InterruptedException e) {
-				logger.error(e.toString(), e);
-			}
-		}
-	};
 	final Logger logger = LoggerFactory.getLogger(OWLCompiler.class);
-	BlockingQueue<Runnable> queue = new LinkedBlockingQueue<Runnable>();
 	private String[] baseClasses = new String[0];
 	Set<String> annotations = new TreeSet<String>();
 	Set<String> concepts = new TreeSet<String>();
 	Map<String, List<URI>> datatypes = new HashMap<String, List<URI>>();
-	Exception exception;
+	volatile Exception exception;
 	LiteralManager literals;
 	private RoleMapper mapper;
 	private String memPrefix;
@@ -255,6 +253,7 @@ public class OWLCompiler {
 	private OwlNormalizer normalizer;
 	private boolean pluralForms = false;
 	private boolean resolvingPrefix = false;
+	private int parallelism = Runtime.getRuntime().availableProcessors();
 
 	/**
 	 * Constructs a new compiler instance using the
@@ -313,6 +312,18 @@ public class OWLCompiler {
 		this.resolvingPrefix = resolvingPrefix;
 	}
 
+	/**
+	 * Maximum number of threads used to generate Java sources.
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public void setParallelism(int parallelism) {
+		assert parallelism > 0;
+		this.parallelism = parallelism;
+	}
+
 	/**
 	 * Assigns the schema that will be compiled.
 	 * 
@@ -381,7 +392,9 @@ public class OWLCompiler {
 	}
 
 	/**
-	 * Build concepts and behaviours, compile them and save them to this jar file
+	 * Build concepts and behaviours, compile them in memory and save them to
+	 * this jar file. If the jar was already created from an identical
+	 * ontology and configuration, it is reused as is.
 	 * 
 	 * @throws IllegalArgumentException
 	 *             if no concepts found
@@ -391,11 +404,31 @@ public class OWLCompiler {
 	 */
 	public ClassLoader createJar(File jar) throws IOException,
 			ObjectStoreConfigException {
-		File target = createTempDir(getClass().getSimpleName());
-		compile(target);
-		JarPacker packer = new JarPacker(target);
-		packer.packageJar(jar);
-		FileUtil.deleteDir(target);
+		String digest = getOntologyDigest();
+		if (digest.equals(readOntologyDigest(jar))) {
+			logger.info("Ontology unchanged, reusing {}", jar);
+		} else {
+			Map<String, String> sources = buildJavaSources();
+			Map<String, byte[]> entries = new TreeMap<String, byte[]>();
+			for (Map.Entry<String, String> e : sources.entrySet()) {
+				String path = e.getKey().replace('.', '/') + ".java";
+				entries.put(path, e.getValue().getBytes(UTF8));
+			}
+			if (!sources.isEmpty()) {
+				Map<String, byte[]> classes = compiler.compile(sources,
+						getClassPath());
+				for (Map.Entry<String, byte[]> e : classes.entrySet()) {
+					String path = e.getKey().replace('.', '/') + ".class";
+					entries.put(path, e.getValue());
+				}
+			}
+			entries.putAll(buildConceptResources());
+			Manifest manifest = new Manifest();
+			Attributes attributes = manifest.getMainAttributes();
+			attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+			attributes.putValue(ONTOLOGY_DIGEST, digest);
+			new JarPacker().packageJar(jar, manifest, entries);
+		}
 		return new URLClassLoader(new URL[] { jar.toURI().toURL() }, cl);
 	}
 
@@ -410,19 +443,18 @@ public class OWLCompiler {
 	 */
 	public List<String> compile(File dir) throws ObjectStoreConfigException,
 			IOException {
-		if (resolver == null) {
-			resolver = buildJavaNameResolver(pkgPrefix, memPrefix, ns, model,
-					normalizer, cl);
-		}
-		List<String> classes = buildJavaFiles(dir);
+		Map<String, String> sources = buildJavaSources();
+		saveJavaFiles(sources, dir);
 		saveConceptResources(dir);
-		if (!classes.isEmpty()) {
-			ClassPathBuilder cb = new ClassPathBuilder();
-			cb.append(getClass().getClassLoader()).append(cl);
-			List<File> classpath = cb.toFileList();
-			compiler.compile(classes, dir, classpath);
+		if (!sources.isEmpty()) {
+			Map<String, byte[]> classes = compiler.compile(sources,
+					getClassPath());
+			for (Map.Entry<String, byte[]> e : classes.entrySet()) {
+				String path = e.getKey().replace('.', '/') + ".class";
+				writeFile(new File(dir, path), e.getValue());
+			}
 		}
-		return classes;
+		return new ArrayList<String>(sources.keySet());
 	}
 
 	/**
@@ -436,6 +468,21 @@ public class OWLCompiler {
 	 */
 	public List<String> buildJavaFiles(File dir)
 			throws ObjectStoreConfigException, IOException {
+		Map<String, String> sources = buildJavaSources();
+		saveJavaFiles(sources, dir);
+		return new ArrayList<String>(sources.keySet());
+	}
+
+	/**
+	 * Build the Java source code of all concepts in memory. The sources are
+	 * generated in parallel on a pool of {@link #getParallelism()} threads.
+	 * 
+	 * @return Java source code by fully qualified class name
+	 * @throws IOException
+	 * @throws ObjectStoreConfigException
+	 */
+	public Map<String, String> buildJavaSources()
+			throws ObjectStoreConfigException, IOException {
 		if (resolver == null) {
 			resolver = buildJavaNameResolver(pkgPrefix, memPrefix, ns, model,
 					normalizer, cl);
@@ -454,16 +501,11 @@ public class OWLCompiler {
 				addBaseClass(bean);
 			}
 		}
-		List<Thread> threads = new ArrayList<Thread>();
-		for (int i = 0; i < 3; i++) {
-			threads.add(new Thread(helper));
-		}
-		for (Thread thread : threads) {
-			thread.start();
-		}
 		Set<String> usedNamespaces = new HashSet<String>();
-		List<String> content = new ArrayList<String>();
-        for (Resource o : model.filter(null, RDF.TYPE, RDFS.DATATYPE)
+		Map<String, String> sources = Collections
+				.synchronizedMap(new TreeMap<String, String>());
+		List<Runnable> builders = new ArrayList<Runnable>();
+		for (Resource o : model.filter(null, RDF.TYPE, RDFS.DATATYPE)
 				.subjects()) {
 			RDFClass bean = new RDFClass(model, o);
 			if (bean.getURI() == null)
@@ -472,7 +514,7 @@ public class OWLCompiler {
 				continue;
 			String namespace = bean.getURI().getNamespace();
 			usedNamespaces.add(namespace);
-			new DatatypeBuilder(content, bean, dir).run();
+			new DatatypeBuilder(sources, bean).run();
 		}
 		for (Resource o : model.filter(null, RDF.TYPE, OWL.ANNOTATIONPROPERTY)
 				.subjects()) {
@@ -483,7 +525,7 @@ public class OWLCompiler {
 				continue;
 			String namespace = bean.getURI().getNamespace();
 			usedNamespaces.add(namespace);
-			queue.add(new AnnotationBuilder(dir, content, bean));
+			builders.add(new AnnotationBuilder(sources, bean));
 		}
 		for (Resource o : model.filter(null, RDF.TYPE, OWL.CLASS).subjects()) {
 			if (model.contains(o, RDFS.SUBCLASSOF, MSG.MESSAGE))
@@ -501,34 +543,35 @@ public class OWLCompiler {
 			}
 			String namespace = bean.getURI().getNamespace();
 			usedNamespaces.add(namespace);
-			queue.add(new ConceptBuilder(dir, content, bean));
-		}
-		Set<String> methods = new HashSet<String>();
-		for (int i = 0, n = threads.size(); i < n; i++) {
-			queue.add(helper);
+			builders.add(new ConceptBuilder(sources, bean));
 		}
-		for (String namespace : usedNamespaces) {
-			if (JAVA_NS.equals(namespace))
-				continue;
-			RDFOntology ont = findOntology(namespace);
-			ont.generatePackageInfo(dir, namespace, resolver);
-			String pkg = resolver.getBoundPackageName(namespace);
-			if (pkg != null) {
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+			for (Runnable builder : builders) {
+				tasks.add(pool.submit(builder));
+			}
+			for (String namespace : usedNamespaces) {
+				if (JAVA_NS.equals(namespace))
+					continue;
+				String pkg = resolver.getBoundPackageName(namespace);
+				if (pkg == null)
+					continue;
+				RDFOntology ont = findOntology(namespace);
+				StringWriter source = new StringWriter();
+				ont.generatePackageInfo(new PrintWriter(source), namespace,
+						resolver);
 				String className = pkg + ".package-info";
-				synchronized (content) {
+				synchronized (sources) {
 					logger.debug("Saving {}", className);
-					content.add(className);
+					sources.put(className, source.toString());
 				}
 			}
-		}
-		for (Thread thread1 : threads) {
-			try {
-				thread1.join();
-			} catch (InterruptedException cause) {
-				InterruptedIOException e = new InterruptedIOException(cause.getMessage());
-				e.initCause(cause);
-				throw e;
+			for (ForkJoinTask<?> task : tasks) {
+				task.join();
 			}
+		} finally {
+			pool.shutdown();
 		}
 		if (exception != null)
 			try {
@@ -540,11 +583,7 @@ public class OWLCompiler {
 			} catch (Exception e) {
 				throw new UndeclaredThrowableException(e);
 			}
-		if (!methods.isEmpty()) {
-			printClasses(methods, dir, META_INF_BEHAVIOURS);
-			content.addAll(methods);
-		}
-		return content;
+		return sources;
 	}
 
 	/**
@@ -552,17 +591,169 @@ public class OWLCompiler {
 	 * must be called after {@link #buildJavaFiles(File)}.
 	 */
 	public void saveConceptResources(File dir) throws IOException {
+		for (Map.Entry<String, byte[]> e : buildConceptResources().entrySet()) {
+			writeFile(new File(dir, e.getKey()), e.getValue());
+		}
+	}
+
+	/**
+	 * The META-INF resources for concepts by jar entry path. This method must
+	 * be called after {@link #buildJavaSources()}.
+	 */
+	public Map<String, byte[]> buildConceptResources() throws IOException {
+		Map<String, byte[]> entries = new LinkedHashMap<String, byte[]>();
 		if (!annotations.isEmpty()) {
-			printClasses(annotations, dir, META_INF_ANNOTATIONS);
+			entries.put(META_INF_ANNOTATIONS, printClasses(annotations));
 		}
 		if (!concepts.isEmpty()) {
-			printClasses(concepts, dir, META_INF_CONCEPTS);
+			entries.put(META_INF_CONCEPTS, printClasses(concepts));
 		}
 		if (!datatypes.isEmpty()) {
-            printDatatypes(datatypes, dir, META_INF_DATATYPES);
-        }
+			entries.put(META_INF_DATATYPES, printDatatypes(datatypes));
+		}
 		if (ontologies != null) {
-			packOntologies(ontologies, dir, META_INF_ONTOLOGIES);
+			packOntologies(ontologies, entries, META_INF_ONTOLOGIES);
+		}
+		return entries;
+	}
+
+	private List<File> getClassPath() {
+		ClassPathBuilder cb = new ClassPathBuilder();
+		cb.append(getClass().getClassLoader()).append(cl);
+		return cb.toFileList();
+	}
+
+	private void saveJavaFiles(Map<String, String> sources, File dir)
+			throws IOException {
+		for (Map.Entry<String, String> e : sources.entrySet()) {
+			String path = e.getKey().replace('.', '/') + ".java";
+			writeFile(new File(dir, path), e.getValue().getBytes(UTF8));
+		}
+	}
+
+	private void writeFile(File file, byte[] content) throws IOException {
+		file.getParentFile().mkdirs();
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * A SHA-1 over the (normalised) schema, the class path and all settings
+	 * that influence the generated code. Blank nodes, like those of
+	 * restrictions, are replaced by a sorted serialisation of the statements
+	 * about them, as their labels are not stable across parses of the same
+	 * ontology.
+	 */
+	private String getOntologyDigest() {
+		if (model == null)
+			throw new IllegalStateException("setModel not called");
+		Map<BNode, String> bnodes = new HashMap<BNode, String>();
+		List<String> lines = new ArrayList<String>(model.size() + 16);
+		for (Statement st : model) {
+			lines.add(str(st.getSubject(), bnodes) + ' '
+					+ str(st.getPredicate(), bnodes) + ' '
+					+ str(st.getObject(), bnodes));
+		}
+		for (Namespace e : model.getNamespaces()) {
+			lines.add(e.getPrefix() + ':' + e.getName());
+		}
+		Collections.sort(lines);
+		lines.add(pkgPrefix);
+		lines.add(String.valueOf(memPrefix));
+		lines.add(Arrays.toString(baseClasses));
+		lines.add(String.valueOf(pluralForms));
+		lines.add(String.valueOf(resolvingPrefix));
+		lines.add(String.valueOf(ns));
+		lines.add(compiler.getVersion());
+		if (ontologies != null) {
+			for (URL url : ontologies.keySet()) {
+				lines.add(url.toExternalForm());
+			}
+		}
+		// existing roles on the class path change the generated code
+		for (File file : getClassPath()) {
+			addClassPathEntry(file, file.getAbsolutePath(), lines);
+		}
+		try {
+			MessageDigest md = MessageDigest.getInstance("SHA1");
+			for (String line : lines) {
+				md.update(line.getBytes(UTF8));
+				md.update((byte) '\n');
+			}
+			return new String(Hex.encodeHex(md.digest()));
+		} catch (NoSuchAlgorithmException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	/**
+	 * Adds the size and modification time of a jar, or of every file below a
+	 * directory, as the time of a directory does not change when a class
+	 * within a package is recompiled.
+	 */
+	private void addClassPathEntry(File file, String name, List<String> lines) {
+		File[] children = file.listFiles();
+		if (children == null) {
+			lines.add(name + ' ' + file.length() + ' ' + file.lastModified());
+		} else {
+			Arrays.sort(children);
+			lines.add(name + '/');
+			for (File child : children) {
+				addClassPathEntry(child, name + '/' + child.getName(), lines);
+			}
+		}
+	}
+
+	private String str(Value value, Map<BNode, String> bnodes) {
+		if (value instanceof BNode)
+			return str((BNode) value, bnodes, new HashSet<BNode>());
+		return value.toString();
+	}
+
+	/**
+	 * Serialises the statements about the blank node, and recursively about
+	 * the blank nodes they refer to, in sorted order. Cycles of blank nodes
+	 * are cut.
+	 */
+	private String str(BNode node, Map<BNode, String> bnodes, Set<BNode> path) {
+		String str = bnodes.get(node);
+		if (str != null)
+			return str;
+		if (!path.add(node))
+			return "_:";
+		List<String> properties = new ArrayList<String>();
+		for (Statement st : model.filter(node, null, null)) {
+			Value obj = st.getObject();
+			properties.add(st.getPredicate() + " " + (obj instanceof BNode
+					? str((BNode) obj, bnodes, path) : obj.toString()));
+		}
+		path.remove(node);
+		Collections.sort(properties);
+		str = properties.toString();
+		bnodes.put(node, str);
+		return str;
+	}
+
+	private String readOntologyDigest(File jar) {
+		if (!jar.isFile())
+			return null;
+		try {
+			JarFile file = new JarFile(jar);
+			try {
+				Manifest manifest = file.getManifest();
+				if (manifest == null)
+					return null;
+				return manifest.getMainAttributes().getValue(ONTOLOGY_DIGEST);
+			} finally {
+				file.close();
+			}
+		} catch (IOException e) {
+			logger.warn(e.toString());
+			return null;
 		}
 	}
 
@@ -626,20 +817,6 @@ public class OWLCompiler {
 		return true;
 	}
 
-	private File createTempDir(String name) throws IOException {
-		String tmpDirStr = System.getProperty("java.io.tmpdir");
-		if (tmpDirStr != null) {
-			File tmpDir = new File(tmpDirStr);
-			if (!tmpDir.exists()) {
-				tmpDir.mkdirs();
-			}
-		}
-		File tmp = File.createTempFile(name, "");
-		tmp.delete();
-		tmp.mkdir();
-		return tmp;
-	}
-
 	private JavaNameResolver buildJavaNameResolver(String pkgPrefix,
 			String memberPrefix, Collection<Map<String, String>> namespaces,
 			Model model, OwlNormalizer normalizer, ClassLoader cl) {
@@ -749,11 +926,9 @@ public class OWLCompiler {
 		return unknown;
 	}
 
-	private void printClasses(Collection<String> roles, File dir, String entry)
-			throws IOException {
-		File f = new File(dir, entry);
-		f.getParentFile().mkdirs();
-		PrintStream out = new PrintStream(new FileOutputStream(f));
+	private byte[] printClasses(Collection<String> roles) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		PrintStream out = new PrintStream(bytes, false, "UTF-8");
 		try {
 			for (String name : roles) {
 				out.println(name);
@@ -761,12 +936,12 @@ public class OWLCompiler {
 		} finally {
 			out.close();
 		}
+		return bytes.toByteArray();
 	}
 
-	private void printDatatypes(Map<String, List<URI>> datatypes, File dir, String META_INF_DATATYPES) throws FileNotFoundException {
-		File f = new File(dir, META_INF_DATATYPES);
-		f.getParentFile().mkdirs();
-		PrintStream out = new PrintStream(new FileOutputStream(f));
+	private byte[] printDatatypes(Map<String, List<URI>> datatypes) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		PrintStream out = new PrintStream(bytes, false, "UTF-8");
 		try {
 		    for (Map.Entry<String, List<URI>> entry : datatypes.entrySet()) {
 		        StringBuilder sb = new StringBuilder(entry.getKey());
@@ -787,13 +962,14 @@ public class OWLCompiler {
 		} finally {
 		    out.close();
 		}
+		return bytes.toByteArray();
 	}
 
-	private void packOntologies(Map<URL, RDFFormat> rdfSources, File dir, String META_INF_ONTOLOGIES)
+	private void packOntologies(Map<URL, RDFFormat> rdfSources,
+			Map<String, byte[]> entries, String META_INF_ONTOLOGIES)
 			throws IOException {
-		File list = new File(dir, META_INF_ONTOLOGIES);
-		list.getParentFile().mkdirs();
-		PrintStream inf = new PrintStream(new FileOutputStream(list));
+		ByteArrayOutputStream list = new ByteArrayOutputStream();
+		PrintStream inf = new PrintStream(list, false, "UTF-8");
 		try {
 			for (URL rdf : rdfSources.keySet()) {
 				try {
@@ -811,18 +987,13 @@ public class OWLCompiler {
 						if (format != null && !format.equals(RDFFormat.forFileName(name))) {
 							name += "." + format.getDefaultFileExtension();
 						}
-						File file = new File(dir, path + name);
-						file.getParentFile().mkdirs();
-						OutputStream out = new FileOutputStream(file);
-						try {
-							int read;
-							byte[] buf = new byte[1024];
-							while ((read = in.read(buf)) >= 0) {
-								out.write(buf, 0, read);
-							}
-						} finally {
-							out.close();
+						ByteArrayOutputStream out = new ByteArrayOutputStream();
+						int read;
+						byte[] buf = new byte[1024];
+						while ((read = in.read(buf)) >= 0) {
+							out.write(buf, 0, read);
 						}
+						entries.put(path + name, out.toByteArray());
 						inf.println(path + name);
 					} finally {
 						in.close();
@@ -834,6 +1005,7 @@ public class OWLCompiler {
 		} finally {
 			inf.close();
 		}
+		entries.put(META_INF_ONTOLOGIES, list.toByteArray());
 	}
 
 	private String getLocalName(String uri) {
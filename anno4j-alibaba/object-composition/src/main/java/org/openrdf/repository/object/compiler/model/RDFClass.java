@@ -31,6 +31,7 @@ package org.openrdf.repository.object.compiler.model;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintWriter;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -244,8 +245,18 @@ public class RDFClass extends RDFEntity {
 	public File generateSourceCode(File dir, JavaNameResolver resolver)
 			throws IOException, ObjectStoreConfigException {
 		File source = createSourceFile(dir, resolver);
+		generateSourceCode(new PrintWriter(source), resolver);
+		return source;
+	}
+
+	/**
+	 * Writes the Java source code of this class to the given writer, which is
+	 * closed afterwards.
+	 */
+	public void generateSourceCode(PrintWriter out, JavaNameResolver resolver)
+			throws ObjectStoreConfigException {
 		if (isDatatype()) {
-			JavaMessageBuilder builder = new JavaMessageBuilder(source, resolver);
+			JavaMessageBuilder builder = new JavaMessageBuilder(out, resolver);
 			String pkg = resolver.getPackageName(this.getURI());
 			String simple = resolver.getSimpleName(getURI());
 			if (pkg == null) {
@@ -258,7 +269,7 @@ public class RDFClass extends RDFEntity {
 			stringConstructor(builder);
 			builder.close();
 		} else {
-			JavaMessageBuilder builder = new JavaMessageBuilder(source, resolver);
+			JavaMessageBuilder builder = new JavaMessageBuilder(out, resolver);
 			interfaceHeader(builder);
 			constants(builder);
 			for (RDFProperty prop : getDeclaredProperties()) {
@@ -269,7 +280,6 @@ public class RDFClass extends RDFEntity {
 			}
 			builder.close();
 		}
-		return source;
 	}
 
 	public List<RDFProperty> getFunctionalDatatypeProperties() {
@@ -30,6 +30,7 @@ package org.openrdf.repository.object.compiler.model;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintWriter;
 
 import org.openrdf.annotations.Iri;
 import org.openrdf.annotations.Prefix;
@@ -57,10 +58,19 @@ public class RDFOntology extends RDFEntity {
 			ObjectStoreConfigException {
 		String pkg = resolver.getPackageName(new URIImpl(namespace));
 		File source = createSourceFile(dir, pkg, resolver);
-		JavaMessageBuilder builder = new JavaMessageBuilder(source, resolver);
+		generatePackageInfo(new PrintWriter(source), namespace, resolver);
+		return source;
+	}
+
+	/**
+	 * Writes the package-info source of the given namespace to the given
+	 * writer, which is closed afterwards.
+	 */
+	public void generatePackageInfo(PrintWriter out, String namespace,
+			JavaNameResolver resolver) throws ObjectStoreConfigException {
+		JavaMessageBuilder builder = new JavaMessageBuilder(out, resolver);
 		packageInfo(namespace, builder);
 		builder.close();
-		return source;
 	}
 
 	private void packageInfo(String namespace, JavaMessageBuilder builder)
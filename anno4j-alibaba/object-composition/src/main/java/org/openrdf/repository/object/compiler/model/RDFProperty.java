@@ -30,6 +30,7 @@ package org.openrdf.repository.object.compiler.model;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintWriter;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -58,10 +59,19 @@ public class RDFProperty extends RDFEntity {
 	public File generateAnnotationCode(File dir, JavaNameResolver resolver)
 			throws IOException, ObjectStoreConfigException {
 		File source = createSourceFile(dir, resolver);
-		JavaMessageBuilder builder = new JavaMessageBuilder(source, resolver);
+		generateAnnotationCode(new PrintWriter(source), resolver);
+		return source;
+	}
+
+	/**
+	 * Writes the Java annotation source of this property to the given writer,
+	 * which is closed afterwards.
+	 */
+	public void generateAnnotationCode(PrintWriter out,
+			JavaNameResolver resolver) throws ObjectStoreConfigException {
+		JavaMessageBuilder builder = new JavaMessageBuilder(out, resolver);
 		annotationHeader(builder);
 		builder.close();
-		return source;
 	}
 
 	private void annotationHeader(JavaMessageBuilder builder)
@@ -31,6 +31,7 @@ package org.openrdf.repository.object.compiler.source;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
@@ -70,7 +71,11 @@ public class JavaAnnotationBuilder extends JavaClassBuilder {
 
 	public JavaAnnotationBuilder(File source, JavaNameResolver resolver)
 			throws FileNotFoundException {
-		super(source);
+		this(new PrintWriter(source), resolver);
+	}
+
+	public JavaAnnotationBuilder(PrintWriter out, JavaNameResolver resolver) {
+		super(out);
 		assert resolver != null;
 		this.resolver = resolver;
 		for (String root : resolver.getRootPackages()) {
@@ -28,19 +28,36 @@
  */
 package org.openrdf.repository.object.compiler.source;
 
+import info.aduna.io.FileUtil;
+
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Writer;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -53,6 +70,8 @@ import org.slf4j.LoggerFactory;
  */
 public class JavaCompiler {
 
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
 	final Logger logger = LoggerFactory.getLogger(JavaCompiler.class);
 
 	private String version = "5";
@@ -83,6 +102,101 @@ public class JavaCompiler {
 		}
 	}
 
+	/**
+	 * Compiles the given sources in-process without writing them to disk.
+	 * Falls back to a temporary directory and the external compilers if no
+	 * system Java compiler is available (i.e. running on a JRE).
+	 * 
+	 * @param sources
+	 *            Java source code by fully qualified class name
+	 * @return class file contents by binary class name
+	 */
+	public Map<String, byte[]> compile(Map<String, String> sources,
+			List<File> classpath) throws IOException {
+		javax.tools.JavaCompiler tool = ToolProvider.getSystemJavaCompiler();
+		if (tool == null)
+			return compileOnDisk(sources, classpath);
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+		StandardJavaFileManager std = tool.getStandardFileManager(diagnostics,
+				null, UTF8);
+		std.setLocation(StandardLocation.CLASS_PATH, classpath);
+		MemoryFileManager fm = new MemoryFileManager(std);
+		try {
+			List<String> options = Arrays.asList("-nowarn", "-source",
+					version, "-target", version);
+			logger.debug("invoke javax.tools.JavaCompiler#getTask");
+			Boolean success = tool.getTask(null, fm, diagnostics, options,
+					null, fm.getCompilationUnits(sources)).call();
+			if (!Boolean.TRUE.equals(success)) {
+				for (Diagnostic<? extends JavaFileObject> d : diagnostics
+						.getDiagnostics()) {
+					if (d.getKind() == Diagnostic.Kind.ERROR) {
+						logger.error(d.toString());
+					}
+				}
+				throw new IOException("Could not compile");
+			}
+			return fm.getClassFiles();
+		} finally {
+			fm.close();
+		}
+	}
+
+	private Map<String, byte[]> compileOnDisk(Map<String, String> sources,
+			List<File> classpath) throws IOException {
+		File dir = File.createTempFile("javac", "src");
+		dir.delete();
+		dir.mkdirs();
+		try {
+			for (Map.Entry<String, String> e : sources.entrySet()) {
+				String filename = e.getKey().replace('.', File.separatorChar);
+				File file = new File(dir, filename + ".java");
+				file.getParentFile().mkdirs();
+				Writer w = new OutputStreamWriter(new FileOutputStream(file), UTF8);
+				try {
+					w.write(e.getValue());
+				} finally {
+					w.close();
+				}
+			}
+			compile(sources.keySet(), dir, classpath);
+			Map<String, byte[]> classes = new LinkedHashMap<String, byte[]>();
+			readClassFiles(dir, "", classes);
+			return classes;
+		} finally {
+			FileUtil.deleteDir(dir);
+		}
+	}
+
+	private void readClassFiles(File dir, String pkg, Map<String, byte[]> classes)
+			throws IOException {
+		for (File file : dir.listFiles()) {
+			String name = file.getName();
+			if (file.isDirectory()) {
+				readClassFiles(file, pkg + name + ".", classes);
+			} else if (name.endsWith(".class")) {
+				String className = pkg + name.substring(0, name.length() - 6);
+				classes.put(className, readBytes(file));
+			}
+		}
+	}
+
+	private byte[] readBytes(File file) throws IOException {
+		byte[] bytes = new byte[(int) file.length()];
+		InputStream in = new FileInputStream(file);
+		try {
+			int off = 0;
+			int read;
+			while (off < bytes.length
+					&& (read = in.read(bytes, off, bytes.length - off)) > 0) {
+				off += read;
+			}
+		} finally {
+			in.close();
+		}
+		return bytes;
+	}
+
 	/**
 	 * Try and run any available compiler. Try embedded compilers before
 	 * external commands. Only fail if all compilers have be attempted.
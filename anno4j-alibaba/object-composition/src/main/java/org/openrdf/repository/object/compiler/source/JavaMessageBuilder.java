@@ -31,6 +31,7 @@ package org.openrdf.repository.object.compiler.source;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.PrintWriter;
 import java.util.List;
 
 import org.openrdf.annotations.Iri;
@@ -55,6 +56,10 @@ public class JavaMessageBuilder extends JavaAnnotationBuilder {
 		super(source, resolver);
 	}
 
+	public JavaMessageBuilder(PrintWriter out, JavaNameResolver resolver) {
+		super(out, resolver);
+	}
+
 	public void message(RDFClass msg) throws ObjectStoreConfigException {
 		String methodName = getMessageName(msg);
 		if (methodName == null)
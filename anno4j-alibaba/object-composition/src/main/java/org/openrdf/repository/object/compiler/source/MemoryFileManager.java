@@ -0,0 +1,108 @@
+package org.openrdf.repository.object.compiler.source;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+
+/**
+ * Keeps generated Java sources and the compiled class files in memory, so that
+ * ontologies can be compiled without touching the file system. Library
+ * classes are still resolved by the wrapped standard file manager.
+ *
+ */
+public class MemoryFileManager extends
+		ForwardingJavaFileManager<StandardJavaFileManager> {
+
+	/**
+	 * A Java source held in a String.
+	 */
+	static class SourceFile extends SimpleJavaFileObject {
+		private final String code;
+
+		SourceFile(String className, String code) {
+			super(toURI(className, Kind.SOURCE), Kind.SOURCE);
+			this.code = code;
+		}
+
+		@Override
+		public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+			return code;
+		}
+	}
+
+	/**
+	 * A class file written by the compiler into a byte buffer.
+	 */
+	static class ClassFile extends SimpleJavaFileObject {
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		ClassFile(String className) {
+			super(toURI(className, Kind.CLASS), Kind.CLASS);
+		}
+
+		@Override
+		public OutputStream openOutputStream() {
+			return bytes;
+		}
+
+		byte[] getBytes() {
+			return bytes.toByteArray();
+		}
+	}
+
+	static URI toURI(String className, Kind kind) {
+		return URI.create("mem:///" + className.replace('.', '/')
+				+ kind.extension);
+	}
+
+	private final Map<String, ClassFile> classes = new TreeMap<String, ClassFile>();
+
+	public MemoryFileManager(StandardJavaFileManager fileManager) {
+		super(fileManager);
+	}
+
+	/**
+	 * Wraps the given class name to source code map as compilation units.
+	 */
+	public List<JavaFileObject> getCompilationUnits(Map<String, String> sources) {
+		List<JavaFileObject> units = new ArrayList<JavaFileObject>(sources.size());
+		for (Map.Entry<String, String> e : sources.entrySet()) {
+			units.add(new SourceFile(e.getKey(), e.getValue()));
+		}
+		return units;
+	}
+
+	@Override
+	public synchronized JavaFileObject getJavaFileForOutput(Location location,
+			String className, Kind kind, FileObject sibling) throws IOException {
+		if (kind != Kind.CLASS)
+			return super.getJavaFileForOutput(location, className, kind, sibling);
+		ClassFile file = new ClassFile(className);
+		classes.put(className, file);
+		return file;
+	}
+
+	/**
+	 * The compiled classes, including nested classes, by binary class name.
+	 */
+	public synchronized Map<String, byte[]> getClassFiles() {
+		Map<String, byte[]> result = new TreeMap<String, byte[]>();
+		for (Map.Entry<String, ClassFile> e : classes.entrySet()) {
+			result.put(e.getKey(), e.getValue().getBytes());
+		}
+		return Collections.unmodifiableMap(result);
+	}
+}
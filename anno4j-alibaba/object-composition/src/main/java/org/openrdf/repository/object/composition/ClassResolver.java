@@ -38,6 +38,9 @@ import org.openrdf.repository.object.managers.PropertyMapper;
 import org.openrdf.repository.object.managers.RoleMapper;
 import org.openrdf.repository.object.managers.helpers.DirUtil;
 import org.openrdf.repository.object.managers.helpers.RoleClassLoader;
+import org.openrdf.repository.object.metrics.Counter;
+import org.openrdf.repository.object.metrics.Instrumentation;
+import org.openrdf.repository.object.metrics.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -59,6 +62,8 @@ public class ClassResolver {
 	private static final Set<URI> EMPTY_SET = Collections.emptySet();
 	private static final String PKG_PREFIX = "object.proxies._";
 	private static final String CLASS_PREFIX = "_EntityProxy";
+	private static final Timer COMPOSE = Instrumentation.timer("anno4j.composition.compose");
+	private static final Counter HIT = Instrumentation.counter("anno4j.composition.hit");
 
 	private static RoleMapper newRoleMapper(ClassLoader cl) throws ObjectStoreConfigException {
 		if (cl == null) {
@@ -136,8 +141,10 @@ public class ClassResolver {
 
 	public Class<?> resolveBlankEntity(Set<URI> types) {
 		Class<?> proxy = multiples.get(types);
-		if (proxy != null)
+		if (proxy != null) {
+			HIT.increment();
 			return proxy;
+		}
 		Collection<Class<?>> roles = new ArrayList<Class<?>>();
 		proxy = resolveRoles(mapper.findRoles(types, roles));
 		multiples.putIfAbsent(types, proxy);
@@ -183,7 +190,12 @@ public class ClassResolver {
 			try {
 				return cp.classForName(className);
 			} catch (ClassNotFoundException e1) {
-				return composeBehaviours(className, roles);
+				long start = System.nanoTime();
+				try {
+					return composeBehaviours(className, roles);
+				} finally {
+					COMPOSE.record(System.nanoTime() - start);
+				}
 			}
 		}
 	}
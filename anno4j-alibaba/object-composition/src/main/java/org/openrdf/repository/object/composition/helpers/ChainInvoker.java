@@ -0,0 +1,27 @@
+package org.openrdf.repository.object.composition.helpers;
+
+/**
+ * Implemented by composed classes with chained methods. Every behaviour method
+ * in a chain is a numbered step, which the composed class invokes by a direct
+ * call instead of reflection.
+ *
+ * @see InvocationChain
+ */
+public interface ChainInvoker {
+
+	/**
+	 * Invokes a behaviour method of an {@link InvocationChain}.
+	 *
+	 * @param step
+	 *            the number of the behaviour method in the composed class
+	 * @param message
+	 *            the message passed to behaviour methods taking a
+	 *            MessageContext, otherwise ignored
+	 * @param parameters
+	 *            the parameters of the chained method
+	 * @return the result of the behaviour method, wrapped if primitive, or null
+	 *         if it is void
+	 */
+	Object _$invokeChain(int step, Object message, Object[] parameters)
+			throws Exception;
+}
@@ -57,6 +57,7 @@ import org.openrdf.repository.object.composition.ClassFactory;
 import org.openrdf.repository.object.composition.ClassTemplate;
 import org.openrdf.repository.object.composition.CodeBuilder;
 import org.openrdf.repository.object.composition.MethodBuilder;
+import org.openrdf.repository.object.traits.MessageContext;
 import org.openrdf.repository.object.traits.RDFObjectBehaviour;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -95,6 +96,9 @@ public class ClassComposer {
 	private Map<Method, String> superMethods = new HashMap<Method, String>();
 	private Map<String, Set<BehaviourFactory>> behaviours;
 	private ClassTemplate cc;
+	private MethodBuilder chainInvoker;
+	private int chainSteps;
+	private int chains;
 
 	public ClassComposer(String className, int size) {
 		this.className = className;
@@ -157,6 +161,9 @@ public class ClassComposer {
 				implementMethod(method, method.getName(), bridge);
 			}
 		}
+		if (chainInvoker != null) {
+			implementChainInvoker();
+		}
 		try {
 			Class<?> createdClass = cp.createClass(cc);
 			for (BehaviourFactory clazz : allBehaviours) {
@@ -309,37 +316,29 @@ public class ClassComposer {
 		} else if (!voidReturnType) {
 			body.code("return ($r) ");
 		}
-		boolean chainStarted = false;
-		for (Object[] ar : implementations) {
-			assert ar.length == 2;
-			String target = (String) ar[0];
-			Method m = (Method) ar[1];
-			if (chained) {
-				if (!chainStarted) {
-					chainStarted = true;
-					if (!type.equals(Void.TYPE)) {
-						body.code("result = ($r) ");
-					}
-					body.code("new ");
-					body.code(InvocationMessageContext.class.getName());
-					body.code("($0, ");
-					body.insert(face);
-					body.code(", $args)\n");
-				}
-				if ("super".equals(target)) {
-					String dname = createSuperCall(m);
-					appendInvocation("this", dname, m.getParameterTypes(), body);
-				} else {
-					appendInvocation(target, m, body);
-				}
+		if (chained) {
+			String field = createChain(face, implementations);
+			if (!voidReturnType) {
+				body.code("result = ($r) ");
+			}
+			body.code("new ");
+			body.code(InvocationMessageContext.class.getName());
+			body.code("($0, ").code(field).code(", ");
+			if (face.getParameterTypes().length == 0) {
+				body.code(InvocationMessageContext.class.getName());
+				body.code(".NO_PARAMETERS");
 			} else {
+				body.code("$args");
+			}
+			body.code(").proceed();\n");
+		} else {
+			for (Object[] ar : implementations) {
+				assert ar.length == 2;
+				String target = (String) ar[0];
+				Method m = (Method) ar[1];
 				body.code(getMethodCall(target, m));
 			}
 		}
-		if (chainStarted) {
-			body.code(".proceed();\n");
-			chainStarted = false;
-		}
 		if (chained && !voidReturnType) {
 			body.code("return ($r) result;\n");
 		}
@@ -347,6 +346,130 @@ public class ClassComposer {
 		return true;
 	}
 
+	/**
+	 * Creates a static field with the {@link InvocationChain} of the given
+	 * implementations and adds a numbered step to
+	 * {@link ChainInvoker#_$invokeChain(int, Object, Object[])} for each of
+	 * them.
+	 * 
+	 * @return name of the static field
+	 */
+	private String createChain(Method face, List<Object[]> implementations) {
+		if (chainInvoker == null) {
+			Class<?>[] params = { Integer.TYPE, Object.class, Object[].class };
+			chainInvoker = cc.createMethod(Object.class, "_$invokeChain", params);
+			chainInvoker.code("switch ($1) {\n");
+		}
+		String field = "_$chain" + chains++;
+		CodeBuilder chain = cc.assignStaticField(InvocationChain.class, field);
+		chain.code("new ").code(InvocationChain.class.getName()).code("(");
+		chain.insert(face).code(", ").insert(chainSteps).code(")");
+		for (Object[] ar : implementations) {
+			String target = (String) ar[0];
+			Method m = (Method) ar[1];
+			chain.code(".append(").insert(m).code(")");
+			chainInvoker.code("case ").insert(chainSteps++).code(": ");
+			if ("super".equals(target)) {
+				appendStep("this", createSuperCall(m), m, face);
+			} else {
+				appendStep(target, m.getName(), m, face);
+			}
+		}
+		chain.end();
+		return field;
+	}
+
+	/**
+	 * Calls the behaviour method directly, passing either the message or the
+	 * parameters it is annotated with.
+	 */
+	private void appendStep(String target, String name, Method m, Method face) {
+		CodeBuilder code = chainInvoker;
+		Class<?>[] ptypes = m.getParameterTypes();
+		Annotation[][] anns = m.getParameterAnnotations();
+		boolean message = ptypes.length == 1
+				&& MessageContext.class.isAssignableFrom(ptypes[0]);
+		boolean voidReturnType = Void.TYPE.equals(m.getReturnType());
+		if (!message) {
+			for (int i = 0; i < ptypes.length; i++) {
+				String uri = getParameterIri(anns[i]);
+				if (uri != null && getParameterIndex(face, uri) < 0) {
+					code.code("throw new ");
+					code.code(UnsupportedOperationException.class.getName());
+					code.code("(").insert("Parameter not found: " + uri);
+					code.code(");\n");
+					return;
+				}
+			}
+		}
+		if (!voidReturnType) {
+			code.code("return ($w) ");
+		}
+		code.code(target).code(".").code(name).code("(");
+		for (int i = 0; i < ptypes.length; i++) {
+			if (i > 0) {
+				code.code(", ");
+			}
+			if (message) {
+				code.cast(ptypes[i]).code("$2");
+				continue;
+			}
+			String uri = getParameterIri(anns[i]);
+			int idx = uri == null ? i : getParameterIndex(face, uri);
+			String arg = "$3[" + idx + "]";
+			if (idx >= face.getParameterTypes().length) {
+				arg = "null";
+			}
+			appendUnboxed(arg, ptypes[i], code);
+		}
+		code.code(");\n");
+		if (voidReturnType) {
+			code.code("return null;\n");
+		}
+	}
+
+	private void appendUnboxed(String arg, Class<?> type, CodeBuilder code) {
+		if (Boolean.TYPE.equals(type)) {
+			code.code("((").code(Boolean.class.getName()).code(") ");
+			code.code(arg).code(").booleanValue()");
+		} else if (Character.TYPE.equals(type)) {
+			code.code("((").code(Character.class.getName()).code(") ");
+			code.code(arg).code(").charValue()");
+		} else if (type.isPrimitive()) {
+			code.code("((").code(Number.class.getName()).code(") ");
+			code.code(arg).code(").").code(type.getName()).code("Value()");
+		} else {
+			code.cast(type).code(arg);
+		}
+	}
+
+	private String getParameterIri(Annotation[] anns) {
+		for (Annotation ann : anns) {
+			if (ann.annotationType().equals(Iri.class))
+				return ((Iri) ann).value();
+		}
+		return null;
+	}
+
+	private int getParameterIndex(Method face, String uri) {
+		Annotation[][] anns = face.getParameterAnnotations();
+		for (int i = 0; i < anns.length; i++) {
+			if (uri.equals(getParameterIri(anns[i])))
+				return i;
+		}
+		return -1;
+	}
+
+	private void implementChainInvoker() {
+		chainInvoker.code("}\n");
+		chainInvoker.code("throw new ");
+		chainInvoker.code(IllegalArgumentException.class.getName());
+		chainInvoker.code("(").insert("Unknown step: ").code(" + $1);\n");
+		chainInvoker.end();
+		cc.addInterface(ChainInvoker.class);
+		chainInvoker = null;
+	}
+
 	private String createSuperCall(Method m) {
 		if (superMethods.containsKey(m))
 			return superMethods.get(m);
@@ -511,21 +634,6 @@ public class ClassComposer {
 		}
 	}
 
-	private void appendInvocation(String target, Method method, CodeBuilder body) {
-		body.code(".appendInvocation(");
-		body.code(target).code(", ");
-		body.insert(method);
-		body.code(")\n");
-	}
-
-	private void appendInvocation(String target, String name,
-			Class<?>[] params, CodeBuilder body) {
-		body.code(".appendInvocation(");
-		body.code(target).code(", ");
-		body.insertMethod(name, params);
-		body.code(")\n");
-	}
-
 	private String getMethodCall(String target, Method method) {
 		StringBuilder eval = new StringBuilder();
 		eval.append(target);
@@ -0,0 +1,68 @@
+package org.openrdf.repository.object.composition.helpers;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+import org.openrdf.repository.object.traits.MessageContext;
+
+/**
+ * The behaviour methods chained for a method of a composed class, in the order
+ * they are invoked. A chain is created once, when the composed class is
+ * initialised, and shared by all invocations of the method. The steps are
+ * numbered consecutively from the first step and invoked through
+ * {@link ChainInvoker#_$invokeChain(int, Object, Object[])}.
+ */
+public class InvocationChain {
+	private final Method method;
+	private final int first;
+	private Method[] steps = new Method[0];
+	private Class<?>[] resultTypes = new Class<?>[0];
+	private boolean[] messages = new boolean[0];
+
+	public InvocationChain(Method method, int first) {
+		this.method = method;
+		this.first = first;
+	}
+
+	public InvocationChain append(Method step) {
+		int n = steps.length;
+		steps = Arrays.copyOf(steps, n + 1);
+		resultTypes = Arrays.copyOf(resultTypes, n + 1);
+		messages = Arrays.copyOf(messages, n + 1);
+		Class<?>[] param = step.getParameterTypes();
+		steps[n] = step;
+		resultTypes[n] = step.getReturnType();
+		messages[n] = param.length == 1
+				&& MessageContext.class.isAssignableFrom(param[0]);
+		return this;
+	}
+
+	public Method getMethod() {
+		return method;
+	}
+
+	public int size() {
+		return steps.length;
+	}
+
+	public Method getStep(int index) {
+		return steps[index];
+	}
+
+	int getStepNumber(int index) {
+		return first + index;
+	}
+
+	Class<?> getResultType(int index) {
+		return resultTypes[index];
+	}
+
+	boolean isMessage(int index) {
+		return messages[index];
+	}
+
+	@Override
+	public String toString() {
+		return method.getName() + Arrays.asList(steps);
+	}
+}
@@ -183,12 +183,19 @@ public class InvocationMessageContext implements ObjectMessage {
 		}
 	}
 
+	/** Parameters of methods without parameters, which can't be modified. */
+	public static final Object[] NO_PARAMETERS = new Object[0];
+
 	private final Object target;
 
 	private final Method method;
 
 	private Object[] parameters;
 
+	private final ChainInvoker invoker;
+
+	private final InvocationChain chain;
+
 	private final List<Object> invokeTarget = new ArrayList<Object>();
 
 	private final List<Method> invokeMethod = new ArrayList<Method>();
@@ -200,6 +207,21 @@ public class InvocationMessageContext implements ObjectMessage {
 		this.target = target;
 		this.method = method;
 		this.parameters = parameters;
+		this.invoker = null;
+		this.chain = null;
+	}
+
+	/**
+	 * Invokes the steps of the given chain through the target, which is the
+	 * composed object implementing {@link ChainInvoker}.
+	 */
+	public InvocationMessageContext(Object target, InvocationChain chain,
+			Object[] parameters) {
+		this.target = target;
+		this.method = chain.getMethod();
+		this.parameters = parameters;
+		this.invoker = (ChainInvoker) target;
+		this.chain = chain;
 	}
 
 	public synchronized InvocationMessageContext appendInvocation(Object target,
@@ -229,6 +251,8 @@ public class InvocationMessageContext implements ObjectMessage {
 	}
 
 	public synchronized Object proceed() throws Exception {
+		if (chain != null)
+			return proceedChain();
 		try {
 			while (true) {
 				Class<?> responseType = method.getReturnType();
@@ -271,6 +295,27 @@ public class InvocationMessageContext implements ObjectMessage {
 		return target;
 	}
 
+	private Object proceedChain() throws Exception {
+		Class<?> responseType = method.getReturnType();
+		while (true) {
+			if (count >= chain.size()) {
+				return nil(responseType);
+			}
+			int index = count++;
+			int step = chain.getStepNumber(index);
+			Class<?> resultType = chain.getResultType(index);
+			if (chain.isMessage(index)) {
+				Object result = invoker._$invokeChain(step, returns(resultType), parameters);
+				return cast(result, resultType, responseType);
+			} else {
+				Object result = invoker._$invokeChain(step, null, parameters);
+				if (isNil(result, resultType))
+					continue;
+				return cast(result, resultType, responseType);
+			}
+		}
+	}
+
 	private MessageContext returns(Class<?> returnType) {
 		if (!returnType.isPrimitive())
 			return this;
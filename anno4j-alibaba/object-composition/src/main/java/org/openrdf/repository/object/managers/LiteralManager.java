@@ -58,10 +58,13 @@ import org.openrdf.repository.object.managers.converters.CharacterMarshall;
 import org.openrdf.repository.object.managers.converters.ClassMarshall;
 import org.openrdf.repository.object.managers.converters.DateMarshall;
 import org.openrdf.repository.object.managers.converters.DocumentFragmentMarshall;
+import org.openrdf.repository.object.managers.converters.DoubleArrayMarshall;
 import org.openrdf.repository.object.managers.converters.DoubleMarshall;
 import org.openrdf.repository.object.managers.converters.DurationMarshall;
+import org.openrdf.repository.object.managers.converters.FloatArrayMarshall;
 import org.openrdf.repository.object.managers.converters.FloatMarshall;
 import org.openrdf.repository.object.managers.converters.GregorianCalendarMarshall;
+import org.openrdf.repository.object.managers.converters.IntArrayMarshall;
 import org.openrdf.repository.object.managers.converters.IntegerMarshall;
 import org.openrdf.repository.object.managers.converters.LocaleMarshall;
 import org.openrdf.repository.object.managers.converters.LongMarshall;
@@ -100,6 +103,10 @@ public class LiteralManager implements Cloneable {
 	private ConcurrentMap<URI, Class<?>> javaClasses;
 	private ConcurrentMap<String, Marshall<?>> marshalls;
 	private ConcurrentMap<Class<?>, URI> rdfTypes;
+	/** Marshalls found by class or datatype, dropped when a mapping changes */
+	private ConcurrentMap<Class<?>, Marshall<?>> classMarshalls;
+	private ConcurrentMap<URI, Marshall<?>> datatypeMarshalls;
+	private ConcurrentMap<URI, Class<?>> loadedClasses;
 
 	public LiteralManager() {
 		this(ValueFactoryImpl.getInstance(), ValueFactoryImpl.getInstance());
@@ -118,6 +125,9 @@ public class LiteralManager implements Cloneable {
 		javaClasses = new ConcurrentHashMap<URI, Class<?>>();
 		rdfTypes = new ConcurrentHashMap<Class<?>, URI>();
 		marshalls = new ConcurrentHashMap<String, Marshall<?>>();
+		classMarshalls = new ConcurrentHashMap<Class<?>, Marshall<?>>();
+		datatypeMarshalls = new ConcurrentHashMap<URI, Marshall<?>>();
+		loadedClasses = new ConcurrentHashMap<URI, Class<?>>();
 	}
 
 	public LiteralManager clone() {
@@ -126,6 +136,9 @@ public class LiteralManager implements Cloneable {
 			cloned.javaClasses = new ConcurrentHashMap<URI, Class<?>>(javaClasses);
 			cloned.marshalls = new ConcurrentHashMap<String, Marshall<?>>(marshalls);
 			cloned.rdfTypes = new ConcurrentHashMap<Class<?>, URI>(rdfTypes);
+			cloned.classMarshalls = new ConcurrentHashMap<Class<?>, Marshall<?>>();
+			cloned.datatypeMarshalls = new ConcurrentHashMap<URI, Marshall<?>>();
+			cloned.loadedClasses = new ConcurrentHashMap<URI, Class<?>>();
 			return cloned;
 		} catch (CloneNotSupportedException e) {
 			throw new AssertionError(e);
@@ -134,11 +147,15 @@ public class LiteralManager implements Cloneable {
 
 	public void setClassLoader(ClassLoader cl) {
 		this.cl = cl;
+		loadedClasses.clear();
 		try {
 			recordMarshall(new BigDecimalMarshall(lf));
 			recordMarshall(new BigIntegerMarshall(lf));
 			recordMarshall(new BooleanMarshall(lf));
 			recordMarshall(new ByteArrayMarshall(lf));
+			recordMarshall(new FloatArrayMarshall(lf));
+			recordMarshall(new DoubleArrayMarshall(lf));
+			recordMarshall(new IntArrayMarshall(lf));
 			recordMarshall(new ByteMarshall(lf));
 			recordMarshall(new DoubleMarshall(lf));
 			recordMarshall(new FloatMarshall(lf));
@@ -180,17 +197,11 @@ public class LiteralManager implements Cloneable {
 	}
 
 	public Class<?> findClass(URI datatype) {
-		if (javaClasses.containsKey(datatype))
-			return javaClasses.get(datatype);
-		try {
-			if (datatype.getNamespace().equals(JAVA_NS)) {
-				synchronized (cl) {
-					return Class.forName(datatype.getLocalName(), true, cl);
-				}
-			}
-		} catch (ClassNotFoundException e) {
-			throw new ObjectConversionException(e);
-		}
+		Class<?> type = javaClasses.get(datatype);
+		if (type != null)
+			return type;
+		if (datatype.getNamespace().equals(JAVA_NS))
+			return loadClass(datatype);
 		return null;
 	}
 
@@ -210,7 +221,12 @@ public class LiteralManager implements Cloneable {
 
 	@SuppressWarnings("unchecked")
 	public Literal createLiteral(Object object) {
-		Marshall marshall = findMarshall(object.getClass());
+		Class<?> type = object.getClass();
+		Marshall marshall = classMarshalls.get(type);
+		if (marshall == null) {
+			marshall = findMarshall(type);
+			classMarshalls.putIfAbsent(type, marshall);
+		}
 		return marshall.serialize(object);
 	}
 
@@ -227,12 +243,18 @@ public class LiteralManager implements Cloneable {
 				datatype = LANG_STRING;
 			}
 		}
-		Marshall<?> marshall = findMarshall(datatype);
+		Marshall<?> marshall = datatypeMarshalls.get(datatype);
+		if (marshall == null) {
+			marshall = findMarshall(datatype);
+			datatypeMarshalls.putIfAbsent(datatype, marshall);
+		}
 		return marshall.deserialize(literal);
 	}
 
 	public void recordMarshall(String javaClassName, Marshall<?> marshall) {
 		marshalls.put(javaClassName, marshall);
+		classMarshalls.clear();
+		datatypeMarshalls.clear();
 	}
 
 	public void recordMarshall(Class<?> javaClass, Marshall<?> marshall) {
@@ -255,6 +277,7 @@ public class LiteralManager implements Cloneable {
 			Marshall<?> marshall = findMarshall(javaClass);
 			marshall.setDatatype(datatype);
 		}
+		datatypeMarshalls.clear();
 	}
 
 	@SuppressWarnings("unchecked")
@@ -284,21 +307,25 @@ public class LiteralManager implements Cloneable {
 	}
 
 	private Marshall<?> findMarshall(URI datatype) {
-		Class<?> type;
-		if (javaClasses.containsKey(datatype)) {
-			type = javaClasses.get(datatype);
-		} else if (datatype.getNamespace().equals(JAVA_NS)) {
-			try {
-				type = forName(datatype.getLocalName(), true, cl);
-			} catch (ClassNotFoundException e) {
-				throw new ObjectConversionException(e);
-			}
-		} else {
+		Class<?> type = findClass(datatype);
+		if (type == null)
 			throw new ObjectConversionException("Unknown datatype: " + datatype);
-		}
 		return findMarshall(type);
 	}
 
+	private Class<?> loadClass(URI datatype) {
+		Class<?> type = loadedClasses.get(datatype);
+		if (type != null)
+			return type;
+		try {
+			type = forName(datatype.getLocalName(), true, cl);
+		} catch (ClassNotFoundException e) {
+			throw new ObjectConversionException(e);
+		}
+		loadedClasses.putIfAbsent(datatype, type);
+		return type;
+	}
+
 	private Class<?> forName(String name, boolean init, ClassLoader cl)
 			throws ClassNotFoundException {
 		synchronized (cl) {
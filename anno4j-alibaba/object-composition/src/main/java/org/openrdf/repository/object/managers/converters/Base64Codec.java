@@ -0,0 +1,108 @@
+package org.openrdf.repository.object.managers.converters;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import org.apache.commons.codec.binary.Base64;
+
+/**
+ * Encodes bytes as base64 labels and decodes them, without the intermediate
+ * strings and byte arrays of {@link Base64}.
+ *
+ */
+final class Base64Codec {
+	private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+			.toCharArray();
+	private static final int[] VALUES = new int[128];
+	static {
+		Arrays.fill(VALUES, -1);
+		for (int i = 0; i < ALPHABET.length; i++) {
+			VALUES[ALPHABET[i]] = i;
+		}
+	}
+
+	private Base64Codec() {
+		// static only
+	}
+
+	/**
+	 * Encodes the remaining bytes of the buffer, without moving its position.
+	 */
+	static String encode(ByteBuffer data) {
+		int offset = data.position();
+		int length = data.remaining();
+		char[] out = new char[(length + 2) / 3 * 4];
+		int i = 0, j = 0;
+		for (int n = length - length % 3; i < n; i += 3) {
+			int bits = (data.get(offset + i) & 0xFF) << 16
+					| (data.get(offset + i + 1) & 0xFF) << 8
+					| (data.get(offset + i + 2) & 0xFF);
+			out[j++] = ALPHABET[bits >>> 18];
+			out[j++] = ALPHABET[(bits >>> 12) & 0x3F];
+			out[j++] = ALPHABET[(bits >>> 6) & 0x3F];
+			out[j++] = ALPHABET[bits & 0x3F];
+		}
+		if (i < length) {
+			int bits = (data.get(offset + i) & 0xFF) << 16;
+			if (i + 1 < length) {
+				bits |= (data.get(offset + i + 1) & 0xFF) << 8;
+			}
+			out[j++] = ALPHABET[bits >>> 18];
+			out[j++] = ALPHABET[(bits >>> 12) & 0x3F];
+			out[j++] = i + 1 < length ? ALPHABET[(bits >>> 6) & 0x3F] : '=';
+			out[j++] = '=';
+		}
+		return new String(out);
+	}
+
+	/**
+	 * Decodes the label into a little-endian buffer, also if it has line
+	 * breaks or other characters that {@link Base64} skips.
+	 */
+	static ByteBuffer decode(String label) {
+		ByteBuffer buf = decodeCanonical(label);
+		if (buf == null) {
+			buf = ByteBuffer.wrap(Base64.decodeBase64(label.getBytes()));
+		}
+		return buf.order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Decodes a label in the base64 alphabet without line breaks, otherwise
+	 * returns null.
+	 */
+	static ByteBuffer decodeCanonical(String label) {
+		int len = label.length();
+		if (len % 4 != 0)
+			return null;
+		int pad = 0;
+		if (len > 0 && label.charAt(len - 1) == '=') {
+			pad = label.charAt(len - 2) == '=' ? 2 : 1;
+		}
+		byte[] out = new byte[len / 4 * 3 - pad];
+		for (int i = 0, j = 0; i < len; i += 4) {
+			int bits = 0;
+			for (int k = 0; k < 4; k++) {
+				char chr = label.charAt(i + k);
+				int value;
+				if (chr == '=' && i + k >= len - pad) {
+					value = 0;
+				} else if (chr < 128 && (value = VALUES[chr]) >= 0) {
+					// in alphabet
+				} else {
+					return null;
+				}
+				bits = bits << 6 | value;
+			}
+			out[j++] = (byte) (bits >> 16);
+			if (j < out.length) {
+				out[j++] = (byte) (bits >> 8);
+			}
+			if (j < out.length) {
+				out[j++] = (byte) bits;
+			}
+		}
+		return ByteBuffer.wrap(out).order(ByteOrder.LITTLE_ENDIAN);
+	}
+}
@@ -61,6 +61,12 @@ public class BooleanMarshall implements Marshall<Boolean> {
 	}
 
 	public Boolean deserialize(Literal literal) {
+		// canonical labels without the normalisation of the literal
+		String label = literal.getLabel();
+		if ("true".equals(label) || "1".equals(label))
+			return Boolean.TRUE;
+		if ("false".equals(label) || "0".equals(label))
+			return Boolean.FALSE;
 		return Boolean.valueOf(literal.booleanValue());
 	}
 
@@ -28,8 +28,9 @@
  */
 package org.openrdf.repository.object.managers.converters;
 
+import java.nio.ByteBuffer;
+
 import org.apache.commons.codec.DecoderException;
-import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.codec.binary.Hex;
 import org.openrdf.model.Literal;
 import org.openrdf.model.URI;
@@ -40,11 +41,21 @@ import org.openrdf.repository.object.managers.Marshall;
 
 /**
  * Converts byte[] to and from Literal.
+ * <p>
+ * Earlier versions wrote base64 labels typed xsd:hexBinary. A label typed
+ * xsd:hexBinary is read as hex digits, as its datatype says, and only read as
+ * base64 if it can't be hex, e.g. because of its length or letters beyond F.
+ * Such a legacy label that happens to be valid hex as well, e.g. "ABCD" or
+ * "0000", can't be told apart from hex and is read as hex. New literals are
+ * written as xsd:base64Binary, which is the default mapping of byte[], so
+ * that they are never ambiguous.
  * 
  * @author James Leigh
  *
  */
 public class ByteArrayMarshall implements Marshall<byte[]> {
+	private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
 	private ValueFactory vf;
 	private URI datatype = XMLSchema.BASE64BINARY;
 
@@ -65,18 +76,54 @@ public class ByteArrayMarshall implements Marshall<byte[]> {
 	}
 
 	public byte[] deserialize(Literal literal) {
+		String label = literal.getLabel();
 		if (XMLSchema.HEXBINARY.equals(literal.getDatatype())) {
+			byte[] data = decodeHex(label);
+			if (data != null)
+				return data;
+			// not hex, so written as base64 by an earlier version
+			ByteBuffer buf = Base64Codec.decodeCanonical(label);
+			if (buf != null)
+				return buf.array();
 			try {
-				return Hex.decodeHex(literal.stringValue().toCharArray());
+				return Hex.decodeHex(label.toCharArray());
 			} catch (DecoderException e) {
 				throw new ObjectConversionException(e);
 			}
 		}
-		return Base64.decodeBase64(literal.stringValue().getBytes());
+		return Base64Codec.decode(label).array();
 	}
 
 	public Literal serialize(byte[] data) {
-		return vf.createLiteral(new String(Base64.encodeBase64(data)), datatype);
+		if (XMLSchema.HEXBINARY.equals(datatype))
+			return vf.createLiteral(encodeHex(data), datatype);
+		return vf.createLiteral(Base64Codec.encode(ByteBuffer.wrap(data)), datatype);
 	}
 
+	private String encodeHex(byte[] data) {
+		char[] out = new char[data.length * 2];
+		for (int i = 0, j = 0; i < data.length; i++) {
+			out[j++] = HEX[(data[i] >> 4) & 0x0F];
+			out[j++] = HEX[data[i] & 0x0F];
+		}
+		return new String(out);
+	}
+
+	/**
+	 * Decodes a label of hex digits only, otherwise returns null.
+	 */
+	private byte[] decodeHex(String label) {
+		int len = label.length();
+		if (len % 2 != 0)
+			return null;
+		byte[] out = new byte[len / 2];
+		for (int i = 0, j = 0; i < out.length; i++) {
+			int most = Character.digit(label.charAt(j++), 16);
+			int least = Character.digit(label.charAt(j++), 16);
+			if (most < 0 || least < 0)
+				return null;
+			out[i] = (byte) (most << 4 | least);
+		}
+		return out;
+	}
 }
@@ -28,6 +28,9 @@
  */
 package org.openrdf.repository.object.managers.converters;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import javax.xml.datatype.DatatypeConfigurationException;
 
 import org.openrdf.model.Literal;
@@ -52,6 +55,8 @@ public class ClassMarshall implements Marshall<Class> {
 
 	private URI datatype;
 
+	private final ConcurrentMap<String, Class<?>> classes = new ConcurrentHashMap<String, Class<?>>();
+
 	public ClassMarshall(ValueFactory vf, ClassLoader cl) throws DatatypeConfigurationException {
 		this.vf = vf;
 		this.cl = cl;
@@ -72,13 +77,18 @@ public class ClassMarshall implements Marshall<Class> {
 
 	public Class deserialize(Literal literal) {
 		String label = literal.getLabel();
+		Class<?> loaded = classes.get(label);
+		if (loaded != null)
+			return loaded;
 		try {
 			synchronized (cl) {
-				return Class.forName(label, true, cl);
+				loaded = Class.forName(label, true, cl);
 			}
 		} catch (ClassNotFoundException e) {
 			throw new ObjectConversionException(e);
 		}
+		classes.putIfAbsent(label, loaded);
+		return loaded;
 	}
 
 	public Literal serialize(Class object) {
@@ -30,6 +30,7 @@ package org.openrdf.repository.object.managers.converters;
 
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.TimeZone;
 
 import javax.xml.datatype.DatatypeConfigurationException;
 import javax.xml.datatype.DatatypeFactory;
@@ -76,11 +77,17 @@ public class DateMarshall implements Marshall<Date> {
 
 	public Date deserialize(Literal literal) {
 		String label = literal.getLabel();
+		long millis = XMLDateTime.parseMillis(label);
+		if (millis != XMLDateTime.UNPARSED)
+			return new Date(millis);
 		XMLGregorianCalendar gc = factory.newXMLGregorianCalendar(label);
 		return gc.toGregorianCalendar().getTime();
 	}
 
 	public Literal serialize(Date object) {
+		String formatted = XMLDateTime.formatMillis(object.getTime(), TimeZone.getDefault());
+		if (formatted != null)
+			return vf.createLiteral(formatted, datatype);
 		GregorianCalendar gc = new GregorianCalendar(0, 0, 0);
 		gc.setTime(object);
 		String label = factory.newXMLGregorianCalendar(gc).toXMLFormat();
@@ -32,7 +32,10 @@ import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
+import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.ErrorListener;
@@ -71,6 +74,8 @@ public class DocumentFragmentMarshall implements Marshall<DocumentFragment> {
 	private static final String TAG_NAME = "rdf-wrapper";
 	private static final String END_TAG = "</rdf-wrapper>";
 	private static final String START_TAG = "<rdf-wrapper>";
+	/** Number of idle transformers and document builders kept for reuse */
+	private static final int POOL_SIZE = 8;
 
 	private static class ErrorCatcher implements ErrorListener {
 		private Logger logger = LoggerFactory.getLogger(ErrorCatcher.class);
@@ -110,7 +115,9 @@ public class DocumentFragmentMarshall implements Marshall<DocumentFragment> {
 	}
 
 	private final DocumentBuilderFactory builder;
-	private TransformerFactory factory = TransformerFactory.newInstance();
+	private final TransformerFactory factory = TransformerFactory.newInstance();
+	private final BlockingQueue<Transformer> transformers = new ArrayBlockingQueue<Transformer>(POOL_SIZE);
+	private final BlockingQueue<DocumentBuilder> builders = new ArrayBlockingQueue<DocumentBuilder>(POOL_SIZE);
 	private ValueFactory vf;
 	private URI datatype = RDF.XMLLITERAL;
 
@@ -140,14 +147,9 @@ public class DocumentFragmentMarshall implements Marshall<DocumentFragment> {
 		try {
 			String wrapper = START_TAG + literal.getLabel() + END_TAG;
 			Source source = new StreamSource(new StringReader(wrapper));
-			Document doc = builder.newDocumentBuilder().newDocument();
+			Document doc = newDocument();
 			DOMResult result = new DOMResult(doc);
-			Transformer transformer = factory.newTransformer();
-			ErrorCatcher listener = new ErrorCatcher();
-			transformer.setErrorListener(listener);
-			transformer.transform(source, result);
-			if (listener.isFatal())
-				throw listener.getFatalError();
+			transform(source, result);
 			DocumentFragment frag = doc.createDocumentFragment();
 			Element element = doc.getDocumentElement();
 			NodeList nodes = element.getChildNodes();
@@ -171,19 +173,14 @@ public class DocumentFragmentMarshall implements Marshall<DocumentFragment> {
 
 	public Literal serialize(DocumentFragment object) {
 		try {
-			Document doc = builder.newDocumentBuilder().newDocument();
+			Document doc = newDocument();
 			Element wrapper = doc.createElement(TAG_NAME);
 			wrapper.appendChild(doc.importNode(object, true));
 			doc.appendChild(wrapper);
 			Source source = new DOMSource(doc);
 			StringWriter writer = new StringWriter();
 			Result result = new StreamResult(writer);
-			Transformer transformer = factory.newTransformer();
-			ErrorCatcher listener = new ErrorCatcher();
-			transformer.setErrorListener(listener);
-			transformer.transform(source, result);
-			if (listener.isFatal())
-				throw listener.getFatalError();
+			transform(source, result);
 			String string = writer.toString();
 			int l = START_TAG.length();
 			int start = string.indexOf(START_TAG.substring(0, l - 1)) + l;
@@ -198,4 +195,38 @@ public class DocumentFragmentMarshall implements Marshall<DocumentFragment> {
 			throw new ObjectConversionException(e);
 		}
 	}
+
+	private Document newDocument() throws ParserConfigurationException {
+		DocumentBuilder documentBuilder = builders.poll();
+		if (documentBuilder == null) {
+			synchronized (builder) {
+				documentBuilder = builder.newDocumentBuilder();
+			}
+		}
+		Document doc = documentBuilder.newDocument();
+		documentBuilder.reset();
+		builders.offer(documentBuilder);
+		return doc;
+	}
+
+	/**
+	 * Copies the source into the result with an idle transformer, which is
+	 * only returned for reuse if the transformation succeeded.
+	 */
+	private void transform(Source source, Result result)
+			throws TransformerException {
+		Transformer transformer = transformers.poll();
+		if (transformer == null) {
+			synchronized (factory) {
+				transformer = factory.newTransformer();
+			}
+		}
+		ErrorCatcher listener = new ErrorCatcher();
+		transformer.setErrorListener(listener);
+		transformer.transform(source, result);
+		if (listener.isFatal())
+			throw listener.getFatalError();
+		transformer.reset();
+		transformers.offer(transformer);
+	}
 }
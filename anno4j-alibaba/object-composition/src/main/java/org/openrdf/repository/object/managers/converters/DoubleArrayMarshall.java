@@ -0,0 +1,45 @@
+package org.openrdf.repository.object.managers.converters;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+
+import org.openrdf.model.Literal;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.repository.object.vocabulary.MSG;
+
+/**
+ * Converts double[] to and from literals of {@link MSG#DOUBLE_VECTOR}.
+ *
+ */
+public class DoubleArrayMarshall extends VectorMarshall<double[]> {
+
+	public DoubleArrayMarshall(ValueFactory vf) {
+		super(vf, double[].class, MSG.DOUBLE_VECTOR);
+	}
+
+	/**
+	 * Decodes the literal into a buffer, without copying the values into an
+	 * array.
+	 */
+	public DoubleBuffer deserializeBuffer(Literal literal) {
+		return Base64Codec.decode(literal.getLabel()).asDoubleBuffer();
+	}
+
+	@Override
+	protected int getByteLength(double[] array) {
+		return array.length * 8;
+	}
+
+	@Override
+	protected void encode(double[] array, ByteBuffer buf) {
+		buf.asDoubleBuffer().put(array);
+	}
+
+	@Override
+	protected double[] decode(ByteBuffer buf) {
+		DoubleBuffer values = buf.asDoubleBuffer();
+		double[] array = new double[values.remaining()];
+		values.get(array);
+		return array;
+	}
+}
@@ -0,0 +1,45 @@
+package org.openrdf.repository.object.managers.converters;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+import org.openrdf.model.Literal;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.repository.object.vocabulary.MSG;
+
+/**
+ * Converts float[] to and from literals of {@link MSG#FLOAT_VECTOR}.
+ *
+ */
+public class FloatArrayMarshall extends VectorMarshall<float[]> {
+
+	public FloatArrayMarshall(ValueFactory vf) {
+		super(vf, float[].class, MSG.FLOAT_VECTOR);
+	}
+
+	/**
+	 * Decodes the literal into a buffer, without copying the values into an
+	 * array.
+	 */
+	public FloatBuffer deserializeBuffer(Literal literal) {
+		return Base64Codec.decode(literal.getLabel()).asFloatBuffer();
+	}
+
+	@Override
+	protected int getByteLength(float[] array) {
+		return array.length * 4;
+	}
+
+	@Override
+	protected void encode(float[] array, ByteBuffer buf) {
+		buf.asFloatBuffer().put(array);
+	}
+
+	@Override
+	protected float[] decode(ByteBuffer buf) {
+		FloatBuffer values = buf.asFloatBuffer();
+		float[] array = new float[values.remaining()];
+		values.get(array);
+		return array;
+	}
+}
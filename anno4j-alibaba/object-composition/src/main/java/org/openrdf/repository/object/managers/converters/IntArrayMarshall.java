@@ -0,0 +1,45 @@
+package org.openrdf.repository.object.managers.converters;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+import org.openrdf.model.Literal;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.repository.object.vocabulary.MSG;
+
+/**
+ * Converts int[] to and from literals of {@link MSG#INT_VECTOR}.
+ *
+ */
+public class IntArrayMarshall extends VectorMarshall<int[]> {
+
+	public IntArrayMarshall(ValueFactory vf) {
+		super(vf, int[].class, MSG.INT_VECTOR);
+	}
+
+	/**
+	 * Decodes the literal into a buffer, without copying the values into an
+	 * array.
+	 */
+	public IntBuffer deserializeBuffer(Literal literal) {
+		return Base64Codec.decode(literal.getLabel()).asIntBuffer();
+	}
+
+	@Override
+	protected int getByteLength(int[] array) {
+		return array.length * 4;
+	}
+
+	@Override
+	protected void encode(int[] array, ByteBuffer buf) {
+		buf.asIntBuffer().put(array);
+	}
+
+	@Override
+	protected int[] decode(ByteBuffer buf) {
+		IntBuffer values = buf.asIntBuffer();
+		int[] array = new int[values.remaining()];
+		values.get(array);
+		return array;
+	}
+}
@@ -30,6 +30,7 @@ package org.openrdf.repository.object.managers.converters;
 
 import java.sql.Time;
 import java.util.GregorianCalendar;
+import java.util.TimeZone;
 
 import javax.xml.datatype.DatatypeConfigurationException;
 import javax.xml.datatype.DatatypeFactory;
@@ -77,11 +78,17 @@ public class SqlTimeMarshall implements Marshall<Time> {
 
 	public Time deserialize(Literal literal) {
 		String label = literal.getLabel();
+		long millis = XMLDateTime.parseMillis(label);
+		if (millis != XMLDateTime.UNPARSED)
+			return new Time(millis);
 		XMLGregorianCalendar gc = factory.newXMLGregorianCalendar(label);
 		return new Time(gc.toGregorianCalendar().getTimeInMillis());
 	}
 
 	public Literal serialize(Time object) {
+		String formatted = XMLDateTime.formatMillis(object.getTime(), TimeZone.getDefault());
+		if (formatted != null)
+			return vf.createLiteral(formatted, datatype);
 		GregorianCalendar gc = new GregorianCalendar(0, 0, 0);
 		gc.setTime(object);
 		String label = factory.newXMLGregorianCalendar(gc).toXMLFormat();
@@ -78,6 +78,9 @@ public class SqlTimestampMarshall implements Marshall<Timestamp> {
 
 	public Timestamp deserialize(Literal literal) {
 		String label = literal.getLabel();
+		long millis = XMLDateTime.parseMillis(label);
+		if (millis != XMLDateTime.UNPARSED)
+			return new Timestamp(millis);
 		XMLGregorianCalendar gc = factory.newXMLGregorianCalendar(label);
 		return new Timestamp(gc.toGregorianCalendar().getTimeInMillis());
 	}
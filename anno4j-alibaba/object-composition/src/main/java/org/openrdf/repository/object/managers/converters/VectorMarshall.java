@@ -0,0 +1,72 @@
+package org.openrdf.repository.object.managers.converters;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.openrdf.model.Literal;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.repository.object.managers.Marshall;
+
+/**
+ * Converts primitive arrays to and from literals of their values packed in
+ * little-endian order and encoded in base64. Literals of the java: datatype,
+ * which {@link ObjectSerializationMarshall} wrote for arrays before, are still
+ * read.
+ *
+ * @param <T>
+ *            the primitive array type
+ */
+public abstract class VectorMarshall<T> implements Marshall<T> {
+	private final ValueFactory vf;
+	private final Class<T> type;
+	private final ObjectSerializationMarshall<T> serialized;
+	private URI datatype;
+
+	protected VectorMarshall(ValueFactory vf, Class<T> type, URI datatype) {
+		this.vf = vf;
+		this.type = type;
+		this.datatype = datatype;
+		this.serialized = new ObjectSerializationMarshall<T>(vf, type);
+	}
+
+	public String getJavaClassName() {
+		return type.getName();
+	}
+
+	public URI getDatatype() {
+		return datatype;
+	}
+
+	public void setDatatype(URI datatype) {
+		this.datatype = datatype;
+	}
+
+	public T deserialize(Literal literal) {
+		if (serialized.getDatatype().equals(literal.getDatatype()))
+			return serialized.deserialize(literal);
+		return decode(Base64Codec.decode(literal.getLabel()));
+	}
+
+	public Literal serialize(T object) {
+		ByteBuffer buf = ByteBuffer.allocate(getByteLength(object));
+		encode(object, buf.order(ByteOrder.LITTLE_ENDIAN));
+		buf.clear();
+		return vf.createLiteral(Base64Codec.encode(buf), datatype);
+	}
+
+	/**
+	 * The number of bytes the values of the array are packed in.
+	 */
+	protected abstract int getByteLength(T array);
+
+	/**
+	 * Writes the values of the array into the little-endian buffer.
+	 */
+	protected abstract void encode(T array, ByteBuffer buf);
+
+	/**
+	 * Reads the values from the little-endian buffer.
+	 */
+	protected abstract T decode(ByteBuffer buf);
+}
@@ -0,0 +1,179 @@
+package org.openrdf.repository.object.managers.converters;
+
+import java.util.TimeZone;
+
+/**
+ * Converts xsd:dateTime labels of the common form
+ * <code>yyyy-MM-ddTHH:mm:ss[.SSS](Z|&plusmn;HH:mm)</code> to and from
+ * milliseconds since the epoch, without creating calendars. Labels and times
+ * in any other form are left to {@link javax.xml.datatype.DatatypeFactory}.
+ *
+ */
+final class XMLDateTime {
+	/** Returned by {@link #parseMillis(String)} for a label of another form */
+	static final long UNPARSED = Long.MIN_VALUE;
+	/** The first year formatted, as later years are Gregorian in any calendar */
+	private static final int FIRST_YEAR = 1583;
+	private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+	private XMLDateTime() {
+		// static only
+	}
+
+	/**
+	 * The time of the label in the proleptic Gregorian calendar, as
+	 * {@link javax.xml.datatype.XMLGregorianCalendar#toGregorianCalendar()},
+	 * or {@link #UNPARSED}.
+	 */
+	static long parseMillis(String label) {
+		int len = label.length();
+		if (len < 20 || label.charAt(4) != '-' || label.charAt(7) != '-'
+				|| label.charAt(10) != 'T' || label.charAt(13) != ':'
+				|| label.charAt(16) != ':')
+			return UNPARSED;
+		int year = digits(label, 0, 4);
+		int month = digits(label, 5, 2);
+		int day = digits(label, 8, 2);
+		int hour = digits(label, 11, 2);
+		int minute = digits(label, 14, 2);
+		int second = digits(label, 17, 2);
+		if (year < 1 || month < 1 || month > 12 || day < 1
+				|| day > daysInMonth(year, month) || hour < 0 || hour > 23
+				|| minute < 0 || minute > 59 || second < 0 || second > 59)
+			return UNPARSED;
+		int i = 19;
+		int millis = 0;
+		if (label.charAt(i) == '.') {
+			int start = ++i;
+			// further digits are truncated, like XMLGregorianCalendar
+			for (int scale = 100; i < len && isDigit(label.charAt(i)); i++) {
+				millis += (label.charAt(i) - '0') * scale;
+				scale /= 10;
+			}
+			if (i == start)
+				return UNPARSED;
+		}
+		int offset;
+		if (i == len - 1 && label.charAt(i) == 'Z') {
+			offset = 0;
+		} else if (i == len - 6 && label.charAt(i + 3) == ':'
+				&& (label.charAt(i) == '+' || label.charAt(i) == '-')) {
+			int hours = digits(label, i + 1, 2);
+			int minutes = digits(label, i + 4, 2);
+			if (hours < 0 || hours > 14 || minutes < 0 || minutes > 59)
+				return UNPARSED;
+			offset = hours * 60 + minutes;
+			if (label.charAt(i) == '-') {
+				offset = -offset;
+			}
+		} else {
+			return UNPARSED;
+		}
+		long days = daysFromCivil(year, month, day);
+		long minutes = (days * 24 + hour) * 60 + minute - offset;
+		return minutes * 60000 + second * 1000 + millis;
+	}
+
+	/**
+	 * The label of the time in the given zone, as
+	 * {@link javax.xml.datatype.XMLGregorianCalendar#toXMLFormat()} of a
+	 * {@link java.util.GregorianCalendar}, or null for times before 1583 or
+	 * after 9999. Like the calendar, seconds of the zone offset are dropped.
+	 */
+	static String formatMillis(long millis, TimeZone zone) {
+		int offset = zone.getOffset(millis);
+		long local = millis + offset;
+		long days = floorDiv(local, MILLIS_PER_DAY);
+		int time = (int) (local - days * MILLIS_PER_DAY);
+		// civil from days, see http://howardhinnant.github.io/date_algorithms.html
+		long z = days + 719468;
+		long era = floorDiv(z, 146097);
+		int doe = (int) (z - era * 146097);
+		int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+		int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+		int mp = (5 * doy + 2) / 153;
+		int day = doy - (153 * mp + 2) / 5 + 1;
+		int month = mp < 10 ? mp + 3 : mp - 9;
+		long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+		if (year < FIRST_YEAR || year > 9999)
+			return null;
+		int minutes = offset / 60000;
+		char[] buf = new char[minutes == 0 ? 24 : 29];
+		write(buf, 0, (int) year, 4);
+		buf[4] = '-';
+		write(buf, 5, month, 2);
+		buf[7] = '-';
+		write(buf, 8, day, 2);
+		buf[10] = 'T';
+		write(buf, 11, time / 3600000, 2);
+		buf[13] = ':';
+		write(buf, 14, time / 60000 % 60, 2);
+		buf[16] = ':';
+		write(buf, 17, time / 1000 % 60, 2);
+		buf[19] = '.';
+		write(buf, 20, time % 1000, 3);
+		if (minutes == 0) {
+			buf[23] = 'Z';
+		} else {
+			buf[23] = minutes < 0 ? '-' : '+';
+			write(buf, 24, Math.abs(minutes) / 60, 2);
+			buf[26] = ':';
+			write(buf, 27, Math.abs(minutes) % 60, 2);
+		}
+		return new String(buf);
+	}
+
+	private static long daysFromCivil(int year, int month, int day) {
+		int y = month <= 2 ? year - 1 : year;
+		int era = y / 400;
+		int yoe = y - era * 400;
+		int doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+		int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+		return era * 146097L + doe - 719468;
+	}
+
+	private static int daysInMonth(int year, int month) {
+		switch (month) {
+		case 2:
+			boolean leap = year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+			return leap ? 29 : 28;
+		case 4:
+		case 6:
+		case 9:
+		case 11:
+			return 30;
+		default:
+			return 31;
+		}
+	}
+
+	private static int digits(String label, int start, int length) {
+		int value = 0;
+		for (int i = start, n = start + length; i < n; i++) {
+			char chr = label.charAt(i);
+			if (!isDigit(chr))
+				return -1;
+			value = value * 10 + chr - '0';
+		}
+		return value;
+	}
+
+	private static boolean isDigit(char chr) {
+		return chr >= '0' && chr <= '9';
+	}
+
+	private static void write(char[] buf, int start, int value, int length) {
+		for (int i = start + length - 1; i >= start; i--) {
+			buf[i] = (char) ('0' + value % 10);
+			value /= 10;
+		}
+	}
+
+	private static long floorDiv(long x, long y) {
+		long r = x / y;
+		if ((x % y != 0) && ((x ^ y) < 0)) {
+			r--;
+		}
+		return r;
+	}
+}
@@ -0,0 +1,11 @@
+package org.openrdf.repository.object.metrics;
+
+/**
+ * Counts the occurrences of an instrumented event.
+ */
+public interface Counter {
+
+	void increment();
+
+	void add(long delta);
+}
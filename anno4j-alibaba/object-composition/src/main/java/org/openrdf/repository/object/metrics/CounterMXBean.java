@@ -0,0 +1,11 @@
+package org.openrdf.repository.object.metrics;
+
+/**
+ * Management view of a {@link SimpleCounter}.
+ */
+public interface CounterMXBean {
+
+	long getCount();
+
+	void reset();
+}
@@ -0,0 +1,125 @@
+package org.openrdf.repository.object.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations in nanoseconds. Values below 16 have a
+ * bucket each, larger values share 16 buckets per power of two, so the
+ * percentiles are accurate within 1/16 of their value. Recording is a few
+ * atomic increments and does not allocate.
+ */
+public class Histogram implements Timer, TimerMXBean {
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	static int indexOf(long value) {
+		if (value < SUB_BUCKETS)
+			return (int) Math.max(0, value);
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * @return the middle of the values of the bucket.
+	 */
+	static long valueOf(int index) {
+		if (index < SUB_BUCKETS)
+			return index;
+		int shift = index / SUB_BUCKETS - 1;
+		long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+		return lower + ((1L << shift) >>> 1);
+	}
+
+	public void record(long nanos) {
+		buckets.incrementAndGet(indexOf(nanos));
+		count.incrementAndGet();
+		sum.addAndGet(nanos);
+		long current;
+		while (nanos > (current = max.get())) {
+			if (max.compareAndSet(current, nanos))
+				break;
+		}
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * @param quantile
+	 *            between 0 and 1, e.g. 0.99
+	 * @return the approximate duration in nanoseconds, which the given part
+	 *         of the durations did not exceed.
+	 */
+	public long getQuantile(double quantile) {
+		long total = 0;
+		long[] counts = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets.get(i);
+			total += counts[i];
+		}
+		if (total == 0)
+			return 0;
+		long rank = (long) Math.ceil(quantile * total);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank && counts[i] > 0)
+				return Math.min(valueOf(i), max.get());
+		}
+		return max.get();
+	}
+
+	public double getMeanMillis() {
+		long n = count.get();
+		return n == 0 ? 0 : sum.get() / (double) n / 1e6;
+	}
+
+	public double getMaxMillis() {
+		return max.get() / 1e6;
+	}
+
+	public double getMedianMillis() {
+		return getQuantile(0.5) / 1e6;
+	}
+
+	public double get95thPercentileMillis() {
+		return getQuantile(0.95) / 1e6;
+	}
+
+	public double get99thPercentileMillis() {
+		return getQuantile(0.99) / 1e6;
+	}
+
+	public double get999thPercentileMillis() {
+		return getQuantile(0.999) / 1e6;
+	}
+
+	/**
+	 * Starts a new interval, e.g. after the percentiles were checked. Values
+	 * recorded concurrently may be lost.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets.set(i, 0);
+		}
+		count.set(0);
+		sum.set(0);
+		max.set(0);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count=%d mean=%.3fms p50=%.3fms p99=%.3fms max=%.3fms",
+				getCount(), getMeanMillis(), getMedianMillis(),
+				get99thPercentileMillis(), getMaxMillis());
+	}
+}
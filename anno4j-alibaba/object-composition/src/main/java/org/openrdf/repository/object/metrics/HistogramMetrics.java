@@ -0,0 +1,84 @@
+package org.openrdf.repository.object.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps a {@link Histogram} per timer and a {@link SimpleCounter} per counter
+ * in memory, for example to check the p99 latencies periodically.
+ */
+public class HistogramMetrics implements Metrics {
+	private final ConcurrentMap<String, Histogram> timers = new ConcurrentHashMap<String, Histogram>();
+	private final ConcurrentMap<String, SimpleCounter> counters = new ConcurrentHashMap<String, SimpleCounter>();
+
+	public Histogram timer(String name) {
+		Histogram timer = timers.get(name);
+		if (timer == null) {
+			Histogram created = new Histogram();
+			timer = timers.putIfAbsent(name, created);
+			if (timer == null) {
+				timer = created;
+				registered(name, created);
+			}
+		}
+		return timer;
+	}
+
+	public SimpleCounter counter(String name) {
+		SimpleCounter counter = counters.get(name);
+		if (counter == null) {
+			SimpleCounter created = new SimpleCounter();
+			counter = counters.putIfAbsent(name, created);
+			if (counter == null) {
+				counter = created;
+				registered(name, created);
+			}
+		}
+		return counter;
+	}
+
+	/**
+	 * Called once for every new timer and counter.
+	 */
+	protected void registered(String name, Object instrument) {
+		// no action
+	}
+
+	/**
+	 * @return the timers by name, sorted.
+	 */
+	public Map<String, Histogram> getTimers() {
+		return Collections.unmodifiableMap(new TreeMap<String, Histogram>(timers));
+	}
+
+	/**
+	 * @return the counters by name, sorted.
+	 */
+	public Map<String, SimpleCounter> getCounters() {
+		return Collections.unmodifiableMap(new TreeMap<String, SimpleCounter>(counters));
+	}
+
+	public void reset() {
+		for (Histogram timer : timers.values()) {
+			timer.reset();
+		}
+		for (SimpleCounter counter : counters.values()) {
+			counter.reset();
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (Map.Entry<String, Histogram> e : getTimers().entrySet()) {
+			sb.append(e.getKey()).append(": ").append(e.getValue()).append('\n');
+		}
+		for (Map.Entry<String, SimpleCounter> e : getCounters().entrySet()) {
+			sb.append(e.getKey()).append(": ").append(e.getValue()).append('\n');
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,120 @@
+package org.openrdf.repository.object.metrics;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Timers and counters of the hot paths of the object repository and Anno4j.
+ * The instruments are handles, which can be kept in static fields, as they
+ * forward to the instruments of the current {@link Metrics}. By default the
+ * first implementation found by the {@link ServiceLoader} is used, or
+ * {@link NoopMetrics} if there is none.
+ * <p>
+ * Timers: <code>anno4j.query.build</code>, <code>anno4j.query.optimize</code>,
+ * <code>anno4j.query.evaluate</code>, <code>anno4j.query.materialize</code>,
+ * <code>anno4j.connection.open</code>, <code>anno4j.composition.compose</code>,
+ * <code>anno4j.property.fetch</code>, <code>anno4j.property.query</code>,
+ * <code>anno4j.blob.read</code>, <code>anno4j.blob.write</code>,
+ * <code>anno4j.commit</code> and <code>anno4j.replication.lag</code>.
+ * <p>
+ * Counters: <code>anno4j.connection.close</code>,
+ * <code>anno4j.composition.hit</code>, <code>anno4j.object.cache.hit</code>,
+ * <code>anno4j.object.cache.miss</code>, <code>anno4j.property.prefetched</code>,
+ * <code>anno4j.blob.read.bytes</code> and <code>anno4j.blob.write.bytes</code>.
+ */
+public final class Instrumentation {
+	private static final Logger logger = LoggerFactory.getLogger(Instrumentation.class);
+	private static final Map<String, TimerHandle> timers = new ConcurrentHashMap<String, TimerHandle>();
+	private static final Map<String, CounterHandle> counters = new ConcurrentHashMap<String, CounterHandle>();
+	private static volatile Metrics metrics = load();
+
+	private Instrumentation() {
+		// static only
+	}
+
+	private static Metrics load() {
+		try {
+			Iterator<Metrics> iter = ServiceLoader.load(Metrics.class,
+					Instrumentation.class.getClassLoader()).iterator();
+			if (iter.hasNext())
+				return iter.next();
+		} catch (ServiceConfigurationError e) {
+			logger.warn("Could not load metrics, measurements are discarded", e);
+		}
+		return new NoopMetrics();
+	}
+
+	public static Metrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Forwards the measurements of all instruments to the given metrics from
+	 * now on.
+	 * 
+	 * @param metrics
+	 *            provider of the instruments or null to discard the
+	 *            measurements
+	 */
+	public static synchronized void setMetrics(Metrics metrics) {
+		Instrumentation.metrics = metrics == null ? new NoopMetrics() : metrics;
+		for (Map.Entry<String, TimerHandle> e : timers.entrySet()) {
+			e.getValue().delegate = Instrumentation.metrics.timer(e.getKey());
+		}
+		for (Map.Entry<String, CounterHandle> e : counters.entrySet()) {
+			e.getValue().delegate = Instrumentation.metrics.counter(e.getKey());
+		}
+	}
+
+	public static synchronized Timer timer(String name) {
+		TimerHandle timer = timers.get(name);
+		if (timer == null) {
+			timer = new TimerHandle(metrics.timer(name));
+			timers.put(name, timer);
+		}
+		return timer;
+	}
+
+	public static synchronized Counter counter(String name) {
+		CounterHandle counter = counters.get(name);
+		if (counter == null) {
+			counter = new CounterHandle(metrics.counter(name));
+			counters.put(name, counter);
+		}
+		return counter;
+	}
+
+	private static class TimerHandle implements Timer {
+		volatile Timer delegate;
+
+		TimerHandle(Timer delegate) {
+			this.delegate = delegate;
+		}
+
+		public void record(long nanos) {
+			delegate.record(nanos);
+		}
+	}
+
+	private static class CounterHandle implements Counter {
+		volatile Counter delegate;
+
+		CounterHandle(Counter delegate) {
+			this.delegate = delegate;
+		}
+
+		public void increment() {
+			delegate.increment();
+		}
+
+		public void add(long delta) {
+			delegate.add(delta);
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package org.openrdf.repository.object.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registers every timer and counter of a {@link HistogramMetrics} as an MXBean
+ * named <code>com.github.anno4j:type=Timer,name=&lt;name&gt;</code> or
+ * <code>com.github.anno4j:type=Counter,name=&lt;name&gt;</code>, so monitoring
+ * tools can read the percentiles without a profiler.
+ */
+public class JmxMetrics extends HistogramMetrics {
+	private static final String DOMAIN = "com.github.anno4j";
+	private final Logger logger = LoggerFactory.getLogger(JmxMetrics.class);
+	private final MBeanServer server;
+
+	public JmxMetrics() {
+		this(ManagementFactory.getPlatformMBeanServer());
+	}
+
+	public JmxMetrics(MBeanServer server) {
+		this.server = server;
+	}
+
+	@Override
+	protected void registered(String name, Object instrument) {
+		String type = instrument instanceof Histogram ? "Timer" : "Counter";
+		try {
+			ObjectName objectName = new ObjectName(DOMAIN + ":type=" + type
+					+ ",name=" + ObjectName.quote(name));
+			if (server.isRegistered(objectName)) {
+				server.unregisterMBean(objectName);
+			}
+			server.registerMBean(instrument, objectName);
+		} catch (JMException e) {
+			logger.warn("Could not register " + name, e);
+		}
+	}
+}
@@ -0,0 +1,15 @@
+package org.openrdf.repository.object.metrics;
+
+/**
+ * Service provider of the timers and counters of {@link Instrumentation}. An
+ * implementation can be registered in
+ * <code>META-INF/services/org.openrdf.repository.object.metrics.Metrics</code>
+ * or set by {@link Instrumentation#setMetrics(Metrics)}. Implementations must
+ * be thread-safe and should return the same instrument for the same name.
+ */
+public interface Metrics {
+
+	Timer timer(String name);
+
+	Counter counter(String name);
+}
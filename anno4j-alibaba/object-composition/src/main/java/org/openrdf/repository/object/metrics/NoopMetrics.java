@@ -0,0 +1,29 @@
+package org.openrdf.repository.object.metrics;
+
+/**
+ * Discards all measurements, which is the default.
+ */
+public class NoopMetrics implements Metrics {
+	private static final Timer TIMER = new Timer() {
+		public void record(long nanos) {
+			// discarded
+		}
+	};
+	private static final Counter COUNTER = new Counter() {
+		public void increment() {
+			// discarded
+		}
+
+		public void add(long delta) {
+			// discarded
+		}
+	};
+
+	public Timer timer(String name) {
+		return TIMER;
+	}
+
+	public Counter counter(String name) {
+		return COUNTER;
+	}
+}
@@ -0,0 +1,31 @@
+package org.openrdf.repository.object.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counter of a {@link HistogramMetrics}.
+ */
+public class SimpleCounter implements Counter, CounterMXBean {
+	private final AtomicLong count = new AtomicLong();
+
+	public void increment() {
+		count.incrementAndGet();
+	}
+
+	public void add(long delta) {
+		count.addAndGet(delta);
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public void reset() {
+		count.set(0);
+	}
+
+	@Override
+	public String toString() {
+		return Long.toString(getCount());
+	}
+}
@@ -0,0 +1,13 @@
+package org.openrdf.repository.object.metrics;
+
+/**
+ * Records the durations of an instrumented operation.
+ */
+public interface Timer {
+
+	/**
+	 * @param nanos
+	 *            duration of one operation in nanoseconds
+	 */
+	void record(long nanos);
+}
@@ -0,0 +1,23 @@
+package org.openrdf.repository.object.metrics;
+
+/**
+ * Management view of a {@link Histogram}, durations are in milliseconds.
+ */
+public interface TimerMXBean {
+
+	long getCount();
+
+	double getMeanMillis();
+
+	double getMaxMillis();
+
+	double getMedianMillis();
+
+	double get95thPercentileMillis();
+
+	double get99thPercentileMillis();
+
+	double get999thPercentileMillis();
+
+	void reset();
+}
@@ -47,6 +47,12 @@ public class MSG {
 	public static final URI OBJECT = new URIImpl(NAMESPACE + "object");
 	public static final URI OBJECT_SET = new URIImpl(NAMESPACE + "objectSet");
 	public static final URI TARGET = new URIImpl(NAMESPACE + "target");
+	/** Datatype of float[] as packed little-endian values in base64 */
+	public static final URI FLOAT_VECTOR = new URIImpl(NAMESPACE + "floatVector");
+	/** Datatype of double[] as packed little-endian values in base64 */
+	public static final URI DOUBLE_VECTOR = new URIImpl(NAMESPACE + "doubleVector");
+	/** Datatype of int[] as packed little-endian values in base64 */
+	public static final URI INT_VECTOR = new URIImpl(NAMESPACE + "intVector");
 
 	private MSG() {
 		// prevent instantiation
@@ -0,0 +1,80 @@
+package org.openrdf.repository.object.managers.converters;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Hex;
+import org.openrdf.model.Literal;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.vocabulary.XMLSchema;
+import org.openrdf.repository.object.managers.LiteralManager;
+
+public class ByteArrayMarshallTest extends TestCase {
+	private ValueFactory vf = ValueFactoryImpl.getInstance();
+	private ByteArrayMarshall marshall = new ByteArrayMarshall(vf);
+
+	public void testBase64() throws Exception {
+		Random random = new Random(42);
+		for (int length = 0; length < 64; length++) {
+			byte[] data = new byte[length];
+			random.nextBytes(data);
+			Literal literal = marshall.serialize(data);
+			assertEquals(XMLSchema.BASE64BINARY, literal.getDatatype());
+			assertEquals(new String(Base64.encodeBase64(data)), literal.getLabel());
+			assertTrue(Arrays.equals(data, marshall.deserialize(literal)));
+		}
+	}
+
+	public void testHex() throws Exception {
+		marshall.setDatatype(XMLSchema.HEXBINARY);
+		Random random = new Random(42);
+		for (int length = 0; length < 64; length++) {
+			byte[] data = new byte[length];
+			random.nextBytes(data);
+			Literal literal = marshall.serialize(data);
+			assertEquals(XMLSchema.HEXBINARY, literal.getDatatype());
+			assertEquals(new String(Hex.encodeHex(data)), literal.getLabel().toLowerCase());
+			assertTrue(Arrays.equals(data, marshall.deserialize(literal)));
+		}
+	}
+
+	public void testBase64LabelledHex() throws Exception {
+		byte[] data = "some bytes".getBytes("UTF-8");
+		String label = new String(Base64.encodeBase64(data));
+		Literal literal = vf.createLiteral(label, XMLSchema.HEXBINARY);
+		assertTrue(Arrays.equals(data, marshall.deserialize(literal)));
+	}
+
+	public void testAmbiguousLabelledHex() throws Exception {
+		// valid base64 and hex, read as the datatype says
+		for (String label : new String[] { "ABCD", "0000" }) {
+			Literal literal = vf.createLiteral(label, XMLSchema.HEXBINARY);
+			assertTrue(Arrays.equals(Hex.decodeHex(label.toCharArray()),
+					marshall.deserialize(literal)));
+			assertFalse(Arrays.equals(Base64.decodeBase64(label.getBytes()),
+					marshall.deserialize(literal)));
+		}
+	}
+
+	public void testDefaultDatatype() throws Exception {
+		// the bytes of the ambiguous label "ABCD" are written unambiguously
+		byte[] data = Base64.decodeBase64("ABCD".getBytes());
+		LiteralManager manager = new LiteralManager(getClass().getClassLoader());
+		Literal literal = manager.createLiteral(data);
+		assertEquals(XMLSchema.BASE64BINARY, literal.getDatatype());
+		assertEquals("ABCD", literal.getLabel());
+		assertTrue(Arrays.equals(data, (byte[]) manager.createObject(literal)));
+	}
+
+	public void testBase64LineBreaks() throws Exception {
+		byte[] data = new byte[100];
+		new Random(42).nextBytes(data);
+		String label = new String(Base64.encodeBase64Chunked(data));
+		Literal literal = vf.createLiteral(label, XMLSchema.BASE64BINARY);
+		assertTrue(Arrays.equals(data, marshall.deserialize(literal)));
+	}
+}
@@ -0,0 +1,86 @@
+package org.openrdf.repository.object.managers.converters;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.Random;
+import java.util.TimeZone;
+
+import javax.xml.datatype.DatatypeFactory;
+
+import junit.framework.TestCase;
+
+public class XMLDateTimeTest extends TestCase {
+	private static final String[] ZONES = { "UTC", "Europe/Berlin",
+			"America/St_Johns", "Asia/Kolkata", "Pacific/Kiritimati",
+			"America/Los_Angeles" };
+	private DatatypeFactory factory;
+
+	@Override
+	protected void setUp() throws Exception {
+		factory = DatatypeFactory.newInstance();
+	}
+
+	public void testFormatMatchesCalendar() throws Exception {
+		Random random = new Random(42);
+		for (String id : ZONES) {
+			TimeZone zone = TimeZone.getTimeZone(id);
+			for (int i = 0; i < 1000; i++) {
+				long millis = (long) (random.nextDouble() * 8000000000000L) - 4000000000000L;
+				GregorianCalendar gc = new GregorianCalendar(zone);
+				gc.setTimeInMillis(millis);
+				String expected = factory.newXMLGregorianCalendar(gc).toXMLFormat();
+				String formatted = XMLDateTime.formatMillis(millis, zone);
+				if (formatted != null || gc.get(Calendar.YEAR) >= 1583) {
+					assertEquals(id, expected, formatted);
+				}
+			}
+		}
+	}
+
+	public void testParseMatchesCalendar() throws Exception {
+		Random random = new Random(42);
+		for (String id : ZONES) {
+			TimeZone zone = TimeZone.getTimeZone(id);
+			for (int i = 0; i < 1000; i++) {
+				long millis = (long) (random.nextDouble() * 8000000000000L) - 4000000000000L;
+				GregorianCalendar gc = new GregorianCalendar(zone);
+				gc.setTimeInMillis(millis);
+				String label = factory.newXMLGregorianCalendar(gc).toXMLFormat();
+				long expected = factory.newXMLGregorianCalendar(label)
+						.toGregorianCalendar().getTimeInMillis();
+				long parsed = XMLDateTime.parseMillis(label);
+				if (parsed != XMLDateTime.UNPARSED || !label.startsWith("-")) {
+					assertEquals(label, expected, parsed);
+				}
+			}
+		}
+	}
+
+	public void testParseLabels() throws Exception {
+		String[] labels = { "2016-01-01T12:00:00Z", "2016-02-29T23:59:59.9-14:00",
+				"0001-01-01T00:00:00Z", "1200-06-15T08:30:00.123456+05:30",
+				"9999-12-31T23:59:59.999Z", "2016-01-01T12:00:00.1234567890Z" };
+		for (String label : labels) {
+			long expected = factory.newXMLGregorianCalendar(label)
+					.toGregorianCalendar().getTimeInMillis();
+			assertEquals(label, expected, XMLDateTime.parseMillis(label));
+		}
+	}
+
+	public void testUnparsedLabels() throws Exception {
+		String[] labels = { "2016-01-01T12:00:00", "2016-01-01T24:00:00Z",
+				"2016-02-30T12:00:00Z", "-0044-03-15T12:00:00Z",
+				"12016-01-01T12:00:00Z", "2016-01-01T12:00:00.Z",
+				"2016-01-01T12:00:00+1:00", "2016-01-01", "2016-01-01T12:00:60Z" };
+		for (String label : labels) {
+			assertEquals(label, XMLDateTime.UNPARSED, XMLDateTime.parseMillis(label));
+		}
+	}
+
+	public void testFormatRange() throws Exception {
+		TimeZone utc = TimeZone.getTimeZone("UTC");
+		assertNull(XMLDateTime.formatMillis(-12300000000000L, utc));
+		assertNull(XMLDateTime.formatMillis(253402300800000L, utc));
+		assertEquals("1970-01-01T00:00:00.000Z", XMLDateTime.formatMillis(0, utc));
+	}
+}
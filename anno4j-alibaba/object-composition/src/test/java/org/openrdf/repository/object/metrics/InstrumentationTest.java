@@ -0,0 +1,69 @@
+package org.openrdf.repository.object.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import junit.framework.TestCase;
+
+public class InstrumentationTest extends TestCase {
+
+	@Override
+	protected void tearDown() throws Exception {
+		Instrumentation.setMetrics(null);
+	}
+
+	public void testBuckets() throws Exception {
+		for (long value : new long[] { 0, 1, 15, 16, 17, 31, 32, 1000, 123456789, Long.MAX_VALUE / 2 }) {
+			long estimate = Histogram.valueOf(Histogram.indexOf(value));
+			assertTrue(value + " ~ " + estimate, Math.abs(estimate - value) <= value / 16);
+		}
+	}
+
+	public void testQuantiles() throws Exception {
+		Histogram histogram = new Histogram();
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(i * 1000000L);
+		}
+		assertEquals(1000, histogram.getCount());
+		assertEquals(500.5, histogram.getMeanMillis(), 0.001);
+		assertEquals(1000, histogram.getMaxMillis(), 0.001);
+		assertEquals(500, histogram.getMedianMillis(), 500 / 16.0);
+		assertEquals(990, histogram.get99thPercentileMillis(), 990 / 16.0);
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.get99thPercentileMillis(), 0);
+	}
+
+	public void testRebinding() throws Exception {
+		Timer timer = Instrumentation.timer("test.timer");
+		Counter counter = Instrumentation.counter("test.counter");
+		timer.record(5);
+		counter.increment();
+
+		HistogramMetrics metrics = new HistogramMetrics();
+		Instrumentation.setMetrics(metrics);
+		timer.record(5);
+		counter.add(2);
+		assertSame(timer, Instrumentation.timer("test.timer"));
+		assertEquals(1, metrics.timer("test.timer").getCount());
+		assertEquals(2, metrics.counter("test.counter").getCount());
+
+		Instrumentation.setMetrics(null);
+		timer.record(5);
+		assertEquals(1, metrics.timer("test.timer").getCount());
+	}
+
+	public void testJmx() throws Exception {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		JmxMetrics metrics = new JmxMetrics(server);
+		Instrumentation.setMetrics(metrics);
+		Instrumentation.timer("test.jmx").record(2000000);
+
+		ObjectName name = new ObjectName("com.github.anno4j:type=Timer,name="
+				+ ObjectName.quote("test.jmx"));
+		assertEquals(1L, server.getAttribute(name, "Count"));
+		assertEquals(2.0, (Double) server.getAttribute(name, "99thPercentileMillis"), 2.0 / 16);
+	}
+}
@@ -0,0 +1,113 @@
+package org.openrdf.repository.object;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.openrdf.repository.object.metrics.Counter;
+import org.openrdf.repository.object.metrics.Instrumentation;
+import org.openrdf.repository.object.metrics.Timer;
+import org.openrdf.store.blob.BlobObject;
+
+/**
+ * Measures the time to open the streams of a blob and counts the bytes
+ * transferred through them.
+ */
+class InstrumentedBlobObject extends BlobObject {
+	private static final Timer READ = Instrumentation.timer("anno4j.blob.read");
+	private static final Timer WRITE = Instrumentation.timer("anno4j.blob.write");
+	private static final Counter READ_BYTES = Instrumentation.counter("anno4j.blob.read.bytes");
+	private static final Counter WRITE_BYTES = Instrumentation.counter("anno4j.blob.write.bytes");
+
+	private final BlobObject delegate;
+
+	InstrumentedBlobObject(BlobObject delegate) {
+		super(delegate.toString());
+		this.delegate = delegate;
+	}
+
+	@Override
+	public String[] getRecentVersions() throws IOException {
+		return delegate.getRecentVersions();
+	}
+
+	@Override
+	public String getCommittedVersion() throws IOException {
+		return delegate.getCommittedVersion();
+	}
+
+	@Override
+	public long getLength() throws IOException {
+		return delegate.getLength();
+	}
+
+	public long getLastModified() {
+		return delegate.getLastModified();
+	}
+
+	public boolean delete() {
+		return delegate.delete();
+	}
+
+	public InputStream openInputStream() throws IOException {
+		long start = System.nanoTime();
+		InputStream in = delegate.openInputStream();
+		READ.record(System.nanoTime() - start);
+		if (in == null)
+			return null;
+		return new FilterInputStream(in) {
+			@Override
+			public int read() throws IOException {
+				int b = super.read();
+				if (b >= 0) {
+					READ_BYTES.increment();
+				}
+				return b;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				int read = super.read(b, off, len);
+				if (read > 0) {
+					READ_BYTES.add(read);
+				}
+				return read;
+			}
+		};
+	}
+
+	public OutputStream openOutputStream() throws IOException {
+		long start = System.nanoTime();
+		OutputStream out = delegate.openOutputStream();
+		WRITE.record(System.nanoTime() - start);
+		if (out == null)
+			return null;
+		return new FilterOutputStream(out) {
+			@Override
+			public void write(int b) throws IOException {
+				out.write(b);
+				WRITE_BYTES.increment();
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				out.write(b, off, len);
+				WRITE_BYTES.add(len);
+			}
+		};
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj instanceof InstrumentedBlobObject)
+			return delegate.equals(((InstrumentedBlobObject) obj).delegate);
+		return delegate.equals(obj);
+	}
+
+	@Override
+	public int hashCode() {
+		return delegate.hashCode();
+	}
+}
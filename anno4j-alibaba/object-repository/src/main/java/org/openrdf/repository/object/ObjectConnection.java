@@ -33,16 +33,21 @@ import info.aduna.iteration.LookAheadIteration;
 import org.openrdf.idGenerator.IDGenerator;
 import org.openrdf.model.*;
 import org.openrdf.query.MalformedQueryException;
+import org.openrdf.query.Operation;
 import org.openrdf.query.QueryEvaluationException;
 import org.openrdf.query.QueryLanguage;
 import org.openrdf.query.TupleQuery;
 import org.openrdf.repository.RepositoryConnection;
 import org.openrdf.repository.RepositoryException;
 import org.openrdf.repository.contextaware.ContextAwareConnection;
+import org.openrdf.repository.object.advisers.helpers.PropertyChangeSet;
 import org.openrdf.repository.object.exceptions.BlobConflictException;
 import org.openrdf.repository.object.exceptions.BlobStoreException;
 import org.openrdf.repository.object.exceptions.ObjectPersistException;
 import org.openrdf.repository.object.managers.helpers.WeakValueMap;
+import org.openrdf.repository.object.metrics.Counter;
+import org.openrdf.repository.object.metrics.Instrumentation;
+import org.openrdf.repository.object.metrics.Timer;
 import org.openrdf.repository.object.result.ObjectIterator;
 import org.openrdf.repository.object.traits.Mergeable;
 import org.openrdf.repository.object.traits.RDFObjectBehaviour;
@@ -76,6 +81,11 @@ public class ObjectConnection extends ContextAwareConnection {
 		ObjectIterator.close(iter);
 	}
 
+	private static final Timer COMMIT = Instrumentation.timer("anno4j.commit");
+	private static final Counter CLOSE = Instrumentation.counter("anno4j.connection.close");
+	private static final Counter CACHE_HIT = Instrumentation.counter("anno4j.object.cache.hit");
+	private static final Counter CACHE_MISS = Instrumentation.counter("anno4j.object.cache.miss");
+
 	final Logger logger = LoggerFactory.getLogger(ObjectConnection.class);
 	private final ObjectRepository repository;
 	private String language;
@@ -84,10 +94,17 @@ public class ObjectConnection extends ContextAwareConnection {
 	private final Map<Object, Resource> assigned = new IdentityHashMap<Object, Resource>();
 	private final Set<Resource> merged = new HashSet<Resource>();
 	private final Map<Class<?>, Map<Integer, ObjectQuery>> queries = new HashMap<Class<?>, Map<Integer, ObjectQuery>>();
+	private final Map<Object, Operation> prepared = new LinkedHashMap<Object, Operation>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Object, Operation> eldest) {
+			return size() > repository.getPreparedQueryLimit();
+		}
+	};
 	private final BlobStore blobs;
 	private URI versionBundle;
 	private BlobVersion blobVersion;
 	private final Map<Resource, RDFObject> cachedObjects = new WeakValueMap<Resource, RDFObject>(512);
+	private PropertyChangeSet changes;
 
 	protected ObjectConnection(ObjectRepository repository,
 			RepositoryConnection connection, ObjectFactory factory,
@@ -151,10 +168,44 @@ public class ObjectConnection extends ContextAwareConnection {
 
 	@Override
 	public void close() throws RepositoryException {
+		CLOSE.increment();
 		try {
 			super.close();
 		} finally {
+			if (changes != null) {
+				changes.clear();
+			}
 			cachedObjects.clear();
+			synchronized (prepared) {
+				prepared.clear();
+			}
+			types.refresh();
+		}
+	}
+
+	/**
+	 * Takes a query kept by {@link #returnPreparedQuery(Object, Operation)}
+	 * out of this connection, so that it is not used concurrently.
+	 * 
+	 * @param key
+	 *            identifies the query string and the settings it was prepared
+	 *            with
+	 * @return the prepared query, or null
+	 */
+	public Operation getPreparedQuery(Object key) {
+		synchronized (prepared) {
+			return prepared.remove(key);
+		}
+	}
+
+	/**
+	 * Keeps a query prepared on this connection for the next invocation, up to
+	 * {@link ObjectRepository#getPreparedQueryLimit()} queries until the
+	 * connection is closed.
+	 */
+	public void returnPreparedQuery(Object key, Operation query) {
+		synchronized (prepared) {
+			prepared.put(key, query);
 		}
 	}
 
@@ -168,11 +219,16 @@ public class ObjectConnection extends ContextAwareConnection {
 			}
 		}
 		super.rollback();
+		if (changes != null) {
+			changes.clear();
+		}
 		cachedObjects.clear();
+		types.refresh();
 	}
 
 	@Override
 	public synchronized void commit() throws RepositoryException {
+		long start = System.nanoTime();
 		try {
 			try {
 				if (blobVersion != null) {
@@ -182,6 +238,7 @@ public class ObjectConnection extends ContextAwareConnection {
 						throw new BlobConflictException(exc);
 					}
 				}
+				flush();
 				super.commit();
 				if (blobVersion != null) {
 					blobVersion.commit();
@@ -194,6 +251,8 @@ public class ObjectConnection extends ContextAwareConnection {
 			}
 		} catch (IOException e) {
 			throw new BlobStoreException(e);
+		} finally {
+			COMMIT.record(System.nanoTime() - start);
 		}
 	}
 
@@ -224,10 +283,65 @@ public class ObjectConnection extends ContextAwareConnection {
 				throw new BlobStoreException(e);
 			}
 		} else {
+			if (auto && !isAutoCommit()) {
+				flush();
+			}
 			super.setAutoCommit(auto);
 		}
 	}
 
+	/**
+	 * Starts buffering the property changes of beans of this connection.
+	 * Reads through the beans see the pending changes, but queries do not
+	 * until they are written by {@link #flush()} or {@link #commit()}.
+	 */
+	public synchronized void beginUnitOfWork() {
+		if (changes == null) {
+			changes = new PropertyChangeSet();
+		}
+	}
+
+	/**
+	 * Writes the pending property changes and stops buffering them.
+	 */
+	public synchronized void endUnitOfWork() throws RepositoryException {
+		flush();
+		changes = null;
+	}
+
+	public boolean isUnitOfWork() {
+		return changes != null;
+	}
+
+	/**
+	 * The pending property changes, or null if no unit of work was started.
+	 */
+	public PropertyChangeSet getChangeSet() {
+		return changes;
+	}
+
+	/**
+	 * Writes the net difference of the pending property changes in one
+	 * transaction.
+	 */
+	public synchronized void flush() throws RepositoryException {
+		if (changes == null || changes.isEmpty())
+			return;
+		boolean autoCommit = isAutoCommit();
+		if (autoCommit)
+			super.setAutoCommit(false);
+		try {
+			changes.flush(this);
+			if (autoCommit)
+				super.setAutoCommit(true);
+		} finally {
+			if (autoCommit && !isAutoCommit()) {
+				super.rollback();
+				super.setAutoCommit(true);
+			}
+		}
+	}
+
 	/**
 	 * The assign language for this connection, if any.
 	 *
@@ -524,6 +638,24 @@ public class ObjectConnection extends ContextAwareConnection {
 		return cache(of.createObject(resource, types.getTypes(resource)));
 	}
 
+	/**
+	 * Reads the rdf:types of the given resources, which are not loaded yet,
+	 * in a single query, so that {@link #getObject(Value)} can create their
+	 * objects without another round trip.
+	 */
+	public void loadTypes(Collection<? extends Value> values)
+			throws RepositoryException {
+		List<Resource> resources = new ArrayList<Resource>(values.size());
+		for (Value value : values) {
+			if (value instanceof Resource && cached((Resource) value) == null) {
+				resources.add((Resource) value);
+			}
+		}
+		if (!resources.isEmpty()) {
+			types.readTypes(resources);
+		}
+	}
+
 	/**
 	 * Loads a single Object that is assumed to be of the given concept.
 	 */
@@ -555,6 +687,18 @@ public class ObjectConnection extends ContextAwareConnection {
 		return cache(of.createBean(resource, proxy));
 	}
 
+	/**
+	 * Returns an object of the given composed class, which is the class of an
+	 * object loaded before for the resource by any connection of this
+	 * repository. Its rdf:types are not read again.
+	 */
+	public RDFObject getComposedObject(Class<?> proxy, Resource resource) {
+		RDFObject cached = cached(resource);
+		if (cached != null && cached.getClass().equals(proxy))
+			return cached;
+		return cache(of.createBean(resource, proxy));
+	}
+
 	/**
 	 * Matches objects that have the given concept rdf:type. This method will
 	 * include all objects that implement the given concept or a subclass of the
@@ -631,6 +775,7 @@ public class ObjectConnection extends ContextAwareConnection {
 		if (object instanceof Refreshable) {
 			((Refreshable) object).refresh();
 		}
+		this.types.refresh(resource);
 		Set<URI> types = this.types.getTypes(resource);
 		Class<?> proxy = of.getObjectClass(resource, types);
 		RDFObject cached = cached(resource);
@@ -648,7 +793,7 @@ public class ObjectConnection extends ContextAwareConnection {
 			throw new RepositoryException("No configured blob store");
 		try {
 			if (blobVersion == null && isAutoCommit()) {
-				return blobs.open(uri);
+				return new InstrumentedBlobObject(blobs.open(uri));
 			} else if (blobVersion == null) {
 				URI version = getVersionBundle();
 				if (version == null) {
@@ -656,10 +801,8 @@ public class ObjectConnection extends ContextAwareConnection {
 				} else {
 					blobVersion = blobs.newVersion(version.stringValue());
 				}
-				return blobVersion.open(uri);
-			} else {
-				return blobVersion.open(uri);
 			}
+			return new InstrumentedBlobObject(blobVersion.open(uri));
 		} catch (IOException exc) {
 			throw new RepositoryException(exc);
 		}
@@ -699,7 +842,13 @@ public class ObjectConnection extends ContextAwareConnection {
 	}
 
 	RDFObject cached(Resource resource) {
-		return cachedObjects.get(resource);
+		RDFObject cached = cachedObjects.get(resource);
+		if (cached == null) {
+			CACHE_MISS.increment();
+		} else {
+			CACHE_HIT.increment();
+		}
+		return cached;
 	}
 
 	/** method and result synchronised on this */
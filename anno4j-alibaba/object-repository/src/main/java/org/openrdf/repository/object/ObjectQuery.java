@@ -166,7 +166,7 @@ public class ObjectQuery implements Query {
 	public <T> Result<T> evaluate(Class<T> concept) throws QueryEvaluationException {
 		TupleQueryResult tuple = query.evaluate();
 		List<String> bindings = tuple.getBindingNames();
-		if (concept.isArray() && !manager.getObjectFactory().isDatatype(concept)) {
+		if (isRow(concept)) {
 			ObjectArrayCursor cursor = new ObjectArrayCursor(manager, tuple, bindings, concept.getComponentType());
 			Result result = new ResultImpl(cursor, concept);
 			return (Result<T>) result;
@@ -178,6 +178,20 @@ public class ObjectQuery implements Query {
 		}
 	}
 
+	/**
+	 * Arrays hold the bindings of a row, unless they are a datatype like
+	 * byte[]. Arrays of primitive numbers are read as rows, although they are
+	 * also datatypes.
+	 */
+	private boolean isRow(Class<?> concept) {
+		if (!concept.isArray())
+			return false;
+		Class<?> component = concept.getComponentType();
+		if (component.isPrimitive() && !Byte.TYPE.equals(component))
+			return true;
+		return !manager.getObjectFactory().isDatatype(concept);
+	}
+
 	/**
 	 * Evaluates the query returning a result of Object[].
 	 */
@@ -36,13 +36,20 @@ import org.openrdf.model.ValueFactory;
 import org.openrdf.repository.RepositoryConnection;
 import org.openrdf.repository.RepositoryException;
 import org.openrdf.repository.contextaware.ContextAwareRepository;
+import org.openrdf.repository.object.advisers.SparqlStatistics;
 import org.openrdf.repository.object.exceptions.ObjectStoreConfigException;
+import org.openrdf.repository.object.metrics.Instrumentation;
+import org.openrdf.repository.object.metrics.Timer;
 import org.openrdf.store.blob.BlobStore;
 import org.openrdf.store.blob.BlobStoreFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Creates the {@link ObjectConnection} used to interact with the repository.
@@ -52,12 +59,15 @@ import java.util.Map;
  * 
  */
 public class ObjectRepository extends ContextAwareRepository {
+	private static final Timer OPEN = Instrumentation.timer("anno4j.connection.open");
 	private ObjectService service;
 	private File dataDir;
 	private String blobStoreUrl;
 	private Map<String, String> blobStoreParameters;
 	private BlobStore blobs;
     private IDGenerator idGenerator = new IDGeneratorAnno4jURN();
+	private volatile int preparedQueryLimit = 64;
+	private final ConcurrentMap<String, SparqlStatistics> sparqlStatistics = new ConcurrentHashMap<String, SparqlStatistics>();
 
 	public ObjectRepository() throws ObjectStoreConfigException {
 		this.service = new ObjectServiceImpl();
@@ -155,6 +165,7 @@ public class ObjectRepository extends ContextAwareRepository {
 	 */
 	@Override
 	public ObjectConnection getConnection() throws RepositoryException {
+		long start = System.nanoTime();
 		BlobStore blobs;
 		try {
 			blobs = getBlobStore();
@@ -173,6 +184,7 @@ public class ObjectRepository extends ContextAwareRepository {
 		con.setAddContexts(getAddContexts());
 		con.setRemoveContexts(getRemoveContexts());
 		con.setArchiveContexts(getArchiveContexts());
+		OPEN.record(System.nanoTime() - start);
 		return con;
 	}
 
@@ -180,6 +192,43 @@ public class ObjectRepository extends ContextAwareRepository {
 		return new TypeManager(true);
 	}
 
+	/**
+	 * The maximum number of queries of methods with @Sparql that each
+	 * connection keeps prepared for the next invocation, the least recently
+	 * used are dropped first.
+	 */
+	public int getPreparedQueryLimit() {
+		return preparedQueryLimit;
+	}
+
+	public void setPreparedQueryLimit(int preparedQueryLimit) {
+		this.preparedQueryLimit = preparedQueryLimit;
+	}
+
+	/**
+	 * The statistics of every method with @Sparql called on the connections
+	 * of this repository so far.
+	 */
+	public Collection<SparqlStatistics> getSparqlStatistics() {
+		return new ArrayList<SparqlStatistics>(sparqlStatistics.values());
+	}
+
+	/**
+	 * The statistics of the given method with @Sparql, created on its first
+	 * invocation.
+	 * 
+	 * @param method
+	 *            the declaring class, name and parameter types of the method
+	 */
+	public SparqlStatistics getSparqlStatistics(String method) {
+		SparqlStatistics stats = sparqlStatistics.get(method);
+		if (stats != null)
+			return stats;
+		stats = new SparqlStatistics(method);
+		SparqlStatistics existing = sparqlStatistics.putIfAbsent(method, stats);
+		return existing == null ? stats : existing;
+	}
+
     public IDGenerator getIdGenerator() {
         return idGenerator;
     }
@@ -28,8 +28,16 @@
  */
 package org.openrdf.repository.object;
 
+import static org.openrdf.query.QueryLanguage.SPARQL;
+
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.openrdf.model.Resource;
@@ -38,18 +46,38 @@ import org.openrdf.model.URI;
 import org.openrdf.model.Value;
 import org.openrdf.model.vocabulary.RDF;
 import org.openrdf.model.vocabulary.RDFS;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.MalformedQueryException;
+import org.openrdf.query.QueryEvaluationException;
+import org.openrdf.query.TupleQueryResult;
 import org.openrdf.repository.RepositoryException;
 import org.openrdf.repository.RepositoryResult;
 
 /**
- * Reads and manages the rdf:type statements of objects.
+ * Reads and manages the rdf:type statements of objects. The types of many
+ * resources can be read ahead in one query, they are kept in a bounded cache
+ * until they are asked for, or changed by
+ * {@link #addTypeStatement(Resource, URI)} and
+ * {@link #removeTypeStatement(Resource, URI)}.
  * 
  * @author James Leigh
  *
  */
 public class TypeManager {
+	private static final int CACHE_SIZE = 1024;
+	private static final int BATCH_SIZE = 256;
+	private static final String ILLEGAL_IRI_CHARS = "<>\"{}|^`\\";
 	private boolean readTypes;
 	private ObjectConnection conn;
+	private final Map<Resource, Set<URI>> cache = new LinkedHashMap<Resource, Set<URI>>(
+			64, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Resource, Set<URI>> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
 
 	public TypeManager(boolean readTypes) {
 		this.readTypes = readTypes;
@@ -62,6 +90,79 @@ public class TypeManager {
 	public Set<URI> getTypes(Resource res) throws RepositoryException {
 		if (!readTypes)
 			return Collections.emptySet();
+		Set<URI> cached;
+		synchronized (cache) {
+			// read ahead types are only used once, as other writes may change them
+			cached = cache.remove(res);
+		}
+		if (cached != null)
+			return cached;
+		return readTypes(res);
+	}
+
+	/**
+	 * Reads the rdf:types of the given resources not cached yet in one
+	 * query, so that the next {@link #getTypes(Resource)} of each can answer
+	 * them from the cache.
+	 */
+	public void readTypes(Collection<? extends Resource> resources)
+			throws RepositoryException {
+		if (!readTypes)
+			return;
+		List<URI> missing = new ArrayList<URI>(resources.size());
+		synchronized (cache) {
+			for (Resource res : resources) {
+				// blank nodes can't be named in a query
+				if (res instanceof URI && !cache.containsKey(res)
+						&& isQueryable((URI) res)) {
+					missing.add((URI) res);
+				}
+			}
+		}
+		for (int i = 0; i < missing.size(); i += BATCH_SIZE) {
+			List<URI> batch = missing.subList(i, Math.min(missing.size(), i + BATCH_SIZE));
+			Map<Resource, Set<URI>> types = readTypes(batch);
+			synchronized (cache) {
+				for (Map.Entry<Resource, Set<URI>> e : types.entrySet()) {
+					cache.put(e.getKey(), e.getValue());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Forgets the cached rdf:types of the given resource.
+	 */
+	public void refresh(Resource res) {
+		synchronized (cache) {
+			cache.remove(res);
+		}
+	}
+
+	/**
+	 * Forgets all cached rdf:types.
+	 */
+	public void refresh() {
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+
+	public void addTypeStatement(Resource resource, URI type)
+			throws RepositoryException {
+		if (!RDFS.RESOURCE.equals(type)) {
+			conn.add(resource, RDF.TYPE, type);
+			refresh(resource);
+		}
+	}
+
+	public void removeTypeStatement(Resource resource, URI type)
+			throws RepositoryException {
+		conn.remove(resource, RDF.TYPE, type);
+		refresh(resource);
+	}
+
+	private Set<URI> readTypes(Resource res) throws RepositoryException {
 		RepositoryResult<Statement> match = conn.getStatements(res, RDF.TYPE, null);
 		try {
 			if (!match.hasNext())
@@ -85,15 +186,52 @@ public class TypeManager {
 		}
 	}
 
-	public void addTypeStatement(Resource resource, URI type)
+	private Map<Resource, Set<URI>> readTypes(List<URI> resources)
 			throws RepositoryException {
-		if (!RDFS.RESOURCE.equals(type)) {
-			conn.add(resource, RDF.TYPE, type);
+		Map<Resource, Set<URI>> map = new HashMap<Resource, Set<URI>>(resources.size() * 2);
+		StringBuilder sb = new StringBuilder(64 + resources.size() * 64);
+		sb.append("SELECT ?subj ?type\nWHERE { VALUES ?subj {");
+		for (URI res : resources) {
+			map.put(res, Collections.<URI> emptySet());
+			sb.append(" <").append(res.stringValue()).append(">");
 		}
+		sb.append(" }\n?subj a ?type }");
+		try {
+			TupleQueryResult result = conn.prepareTupleQuery(SPARQL, sb.toString()).evaluate();
+			try {
+				while (result.hasNext()) {
+					BindingSet bindings = result.next();
+					Value subj = bindings.getValue("subj");
+					Value type = bindings.getValue("type");
+					if (!(type instanceof URI))
+						continue;
+					Set<URI> types = map.get(subj);
+					if (types.isEmpty()) {
+						map.put((Resource) subj, types = new HashSet<URI>(4));
+					}
+					types.add((URI) type);
+				}
+			} finally {
+				result.close();
+			}
+		} catch (MalformedQueryException e) {
+			throw new RepositoryException(e);
+		} catch (QueryEvaluationException e) {
+			throw new RepositoryException(e);
+		}
+		return map;
 	}
 
-	public void removeTypeStatement(Resource resource, URI type)
-			throws RepositoryException {
-		conn.remove(resource, RDF.TYPE, type);
+	/**
+	 * Checks whether the URI can be written into a query as is.
+	 */
+	private boolean isQueryable(URI uri) {
+		String str = uri.stringValue();
+		for (int i = 0, n = str.length(); i < n; i++) {
+			char chr = str.charAt(i);
+			if (chr <= ' ' || ILLEGAL_IRI_CHARS.indexOf(chr) >= 0)
+				return false;
+		}
+		return true;
 	}
 }
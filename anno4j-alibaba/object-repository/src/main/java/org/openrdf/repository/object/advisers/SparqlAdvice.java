@@ -37,10 +37,10 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.nio.channels.ReadableByteChannel;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.stream.XMLEventReader;
@@ -80,7 +80,8 @@ public class SparqlAdvice implements Advice {
 	private final SparqlEvaluator evaluator;
 	private final Class<?> returnClass;
 	private final Class<?> componentClass;
-	private final Map<Method, SparqlParameters> map = new HashMap<Method, SparqlParameters>();
+	private final ConcurrentMap<Method, SparqlParameters> map = new ConcurrentHashMap<Method, SparqlParameters>();
+	private final String name;
 
 	public SparqlAdvice(SparqlEvaluator evaluator, Method m) {
 		this.evaluator = evaluator;
@@ -88,6 +89,7 @@ public class SparqlAdvice implements Advice {
 		Type rtype = m.getGenericReturnType();
 		SparqlParameters parameters = new SparqlParameters(m);
 		this.componentClass = parameters.getComponentClass(returnClass, rtype);
+		this.name = SparqlStatistics.getName(m);
 		map.put(m, parameters);
 	}
 
@@ -97,8 +99,19 @@ public class SparqlAdvice implements Advice {
 	}
 
 	public Object intercept(ObjectMessage message) throws Exception {
+		ObjectConnection con = ((RDFObject) message.getTarget()).getObjectConnection();
+		long start = System.nanoTime();
+		try {
+			return evaluate(message, con);
+		} finally {
+			long elapsed = System.nanoTime() - start;
+			con.getRepository().getSparqlStatistics(name).record(elapsed);
+		}
+	}
+
+	private Object evaluate(ObjectMessage message, ObjectConnection con)
+			throws Exception {
 		Object target = message.getTarget();
-		ObjectConnection con = ((RDFObject) target).getObjectConnection();
 		Resource self = ((RDFObject) target).getResource();
 		SparqlBuilder with = evaluator.prepare(con).with("this", self);
 		Object[] args = message.getParameters();
@@ -119,12 +132,13 @@ public class SparqlAdvice implements Advice {
 		}
 	}
 
-	private synchronized SparqlParameters getParameters(Method m) {
-		if (map.containsKey(m))
-			return map.get(m);
-		SparqlParameters parameters = new SparqlParameters(m);
-		map.put(m, parameters);
-		return parameters;
+	private SparqlParameters getParameters(Method m) {
+		SparqlParameters parameters = map.get(m);
+		if (parameters != null)
+			return parameters;
+		parameters = new SparqlParameters(m);
+		SparqlParameters existing = map.putIfAbsent(m, parameters);
+		return existing == null ? parameters : existing;
 	}
 
 	private boolean isUpdate() {
@@ -0,0 +1,86 @@
+package org.openrdf.repository.object.advisers;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Number of invocations and time spent in a method with @Sparql.
+ */
+public class SparqlStatistics {
+	private final String method;
+	private final AtomicLong invocations = new AtomicLong();
+	private final AtomicLong nanos = new AtomicLong();
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	public SparqlStatistics(Method method) {
+		this(getName(method));
+	}
+
+	public SparqlStatistics(String method) {
+		this.method = method;
+	}
+
+	static String getName(Method m) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(m.getDeclaringClass().getName()).append('.');
+		sb.append(m.getName()).append('(');
+		Class<?>[] ptypes = m.getParameterTypes();
+		for (int i = 0; i < ptypes.length; i++) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+			sb.append(ptypes[i].getSimpleName());
+		}
+		return sb.append(')').toString();
+	}
+
+	/**
+	 * The declaring class, name and parameter types of the method.
+	 */
+	public String getMethod() {
+		return method;
+	}
+
+	public long getInvocations() {
+		return invocations.get();
+	}
+
+	public long getTotalTime(TimeUnit unit) {
+		return unit.convert(nanos.get(), TimeUnit.NANOSECONDS);
+	}
+
+	public long getMaxTime(TimeUnit unit) {
+		return unit.convert(maxNanos.get(), TimeUnit.NANOSECONDS);
+	}
+
+	public long getAverageTime(TimeUnit unit) {
+		long count = invocations.get();
+		if (count == 0)
+			return 0;
+		return unit.convert(nanos.get() / count, TimeUnit.NANOSECONDS);
+	}
+
+	public void reset() {
+		invocations.set(0);
+		nanos.set(0);
+		maxNanos.set(0);
+	}
+
+	@Override
+	public String toString() {
+		return method + ": " + getInvocations() + " calls, "
+				+ getAverageTime(TimeUnit.MICROSECONDS) + "us avg, "
+				+ getMaxTime(TimeUnit.MICROSECONDS) + "us max";
+	}
+
+	void record(long elapsed) {
+		invocations.incrementAndGet();
+		nanos.addAndGet(elapsed);
+		long max;
+		while (elapsed > (max = maxNanos.get())) {
+			if (maxNanos.compareAndSet(max, elapsed))
+				break;
+		}
+	}
+}
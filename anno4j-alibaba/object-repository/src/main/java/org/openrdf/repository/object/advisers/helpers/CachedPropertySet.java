@@ -48,10 +48,14 @@ import org.openrdf.repository.object.ObjectConnection;
 import org.openrdf.repository.object.ObjectQuery;
 import org.openrdf.repository.object.RDFObject;
 import org.openrdf.repository.object.exceptions.ObjectPersistException;
+import org.openrdf.repository.object.metrics.Counter;
+import org.openrdf.repository.object.metrics.Instrumentation;
+import org.openrdf.repository.object.metrics.Timer;
 import org.openrdf.repository.object.result.ObjectCursor;
 import org.openrdf.repository.object.result.ObjectIterator;
 import org.openrdf.repository.object.traits.ManagedRDFObject;
 import org.openrdf.repository.object.traits.PropertyConsumer;
+import org.openrdf.result.Result;
 
 /**
  * A set for a given getResource(), predicate.
@@ -61,6 +65,8 @@ import org.openrdf.repository.object.traits.PropertyConsumer;
 public class CachedPropertySet extends RemotePropertySet implements
 		PropertyConsumer {
 	private static final int CACHE_LIMIT = 10;
+	private static final Timer QUERY = Instrumentation.timer("anno4j.property.query");
+	private static final Counter PREFETCHED = Instrumentation.counter("anno4j.property.prefetched");
 	List<Object> cache;
 	boolean cached;
 	private ObjectQueryFactory factory;
@@ -97,7 +103,7 @@ public class CachedPropertySet extends RemotePropertySet implements
 		if (isCacheComplete() && !cache.isEmpty()) {
 			ObjectConnection conn = getObjectConnection();
 			try {
-				boolean autoCommit = conn.isAutoCommit();
+				boolean autoCommit = conn.isAutoCommit() && !conn.isUnitOfWork();
 				if (autoCommit)
 					conn.setAutoCommit(false);
 				try {
@@ -268,7 +274,7 @@ public class CachedPropertySet extends RemotePropertySet implements
 	@Override
 	protected synchronized CloseableIteration<?, ?> getObjects() throws RepositoryException,
 			QueryEvaluationException {
-		if (creator == null || factory == null) {
+		if (creator == null || factory == null || isPending()) {
 			return super.getObjects();
 		} else if (binding == null) {
 			ObjectQuery query = factory.createQuery(creator);
@@ -276,11 +282,27 @@ public class CachedPropertySet extends RemotePropertySet implements
 				return super.getObjects();
 			try {
 				query.setBinding("self", getResource());
-				return query.evaluate(creator.getPropertyType());
+				long start = System.nanoTime();
+				try {
+					// the query is evaluated lazily, up to the first result on hasNext
+					Result<?> result = query.evaluate(creator.getPropertyType());
+					boolean started = false;
+					try {
+						result.hasNext();
+						started = true;
+						return result;
+					} finally {
+						if (!started)
+							result.close();
+					}
+				} finally {
+					QUERY.record(System.nanoTime() - start);
+				}
 			} finally {
 				factory.returnQuery(creator, query);
 			}
 		} else {
+			PREFETCHED.increment();
 			CloseableIteratorIteration<BindingSet, QueryEvaluationException> result;
 			result = new CloseableIteratorIteration<BindingSet, QueryEvaluationException>(
 					bindings.iterator());
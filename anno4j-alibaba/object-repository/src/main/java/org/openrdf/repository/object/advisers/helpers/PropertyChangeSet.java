@@ -0,0 +1,175 @@
+package org.openrdf.repository.object.advisers.helpers;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.Value;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.RepositoryResult;
+import org.openrdf.repository.object.ObjectConnection;
+
+/**
+ * Pending property changes of a unit of work, keyed by subject and predicate.
+ * Only the net difference to the stored values is written on
+ * {@link #flush(ObjectConnection)}, so a property that is cleared and set to
+ * its stored value again causes no store operation at all.
+ */
+public class PropertyChangeSet {
+	private final Map<Key, Change> changes = new LinkedHashMap<Key, Change>();
+
+	public synchronized boolean isEmpty() {
+		return changes.isEmpty();
+	}
+
+	public synchronized boolean isPending(Resource subj,
+			PropertySetModifier property) {
+		return changes.containsKey(new Key(subj, property));
+	}
+
+	public synchronized void add(Resource subj, PropertySetModifier property,
+			Value obj) {
+		Change change = getChange(subj, property);
+		change.removed.remove(obj);
+		change.added.add(obj);
+	}
+
+	/**
+	 * Records the removal of a value, or of all values if obj is null.
+	 */
+	public synchronized void remove(Resource subj,
+			PropertySetModifier property, Value obj) {
+		Change change = getChange(subj, property);
+		if (obj == null) {
+			change.cleared = true;
+			change.added.clear();
+			change.removed.clear();
+		} else {
+			change.added.remove(obj);
+			if (!change.cleared) {
+				change.removed.add(obj);
+			}
+		}
+	}
+
+	/**
+	 * The values of the property as seen by the unit of work: the stored
+	 * values with the pending changes applied.
+	 */
+	public synchronized Set<Value> getValues(ObjectConnection conn,
+			Resource subj, PropertySetModifier property)
+			throws RepositoryException {
+		Change change = changes.get(new Key(subj, property));
+		if (change == null)
+			return getStoredValues(conn, subj, property);
+		if (change.cleared)
+			return new LinkedHashSet<Value>(change.added);
+		Set<Value> values = getStoredValues(conn, subj, property);
+		values.removeAll(change.removed);
+		values.addAll(change.added);
+		return values;
+	}
+
+	/**
+	 * Writes the net difference of all pending changes to the connection and
+	 * forgets them.
+	 */
+	public synchronized void flush(ObjectConnection conn)
+			throws RepositoryException {
+		for (Map.Entry<Key, Change> e : changes.entrySet()) {
+			Resource subj = e.getKey().subj;
+			PropertySetModifier property = e.getKey().property;
+			Change change = e.getValue();
+			if (change.cleared) {
+				Set<Value> stored = getStoredValues(conn, subj, property);
+				if (change.added.isEmpty() && !stored.isEmpty()) {
+					property.remove(conn, subj, null);
+				} else {
+					for (Value value : stored) {
+						if (!change.added.contains(value)) {
+							property.remove(conn, subj, value);
+						}
+					}
+				}
+				addAll(conn, subj, property, change.added, stored);
+			} else {
+				for (Value value : change.removed) {
+					property.remove(conn, subj, value);
+				}
+				addAll(conn, subj, property, change.added, null);
+			}
+		}
+		changes.clear();
+	}
+
+	public synchronized void clear() {
+		changes.clear();
+	}
+
+	private void addAll(ObjectConnection conn, Resource subj,
+			PropertySetModifier property, Collection<Value> values,
+			Set<Value> stored) throws RepositoryException {
+		for (Value value : values) {
+			if (stored == null || !stored.contains(value)) {
+				property.add(conn, subj, value);
+			}
+		}
+	}
+
+	private Set<Value> getStoredValues(ObjectConnection conn, Resource subj,
+			PropertySetModifier property) throws RepositoryException {
+		Set<Value> values = new LinkedHashSet<Value>();
+		RepositoryResult<Statement> stmts = conn.getStatements(subj,
+				property.getPredicate(), null);
+		try {
+			while (stmts.hasNext()) {
+				values.add(stmts.next().getObject());
+			}
+		} finally {
+			stmts.close();
+		}
+		return values;
+	}
+
+	private Change getChange(Resource subj, PropertySetModifier property) {
+		Key key = new Key(subj, property);
+		Change change = changes.get(key);
+		if (change == null) {
+			changes.put(key, change = new Change());
+		}
+		return change;
+	}
+
+	private static class Change {
+		boolean cleared;
+		final Set<Value> added = new LinkedHashSet<Value>();
+		final Set<Value> removed = new LinkedHashSet<Value>();
+	}
+
+	private static class Key {
+		final Resource subj;
+		final PropertySetModifier property;
+
+		Key(Resource subj, PropertySetModifier property) {
+			this.subj = subj;
+			this.property = property;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * subj.hashCode() + property.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return subj.equals(other.subj) && property.equals(other.property);
+		}
+	}
+}
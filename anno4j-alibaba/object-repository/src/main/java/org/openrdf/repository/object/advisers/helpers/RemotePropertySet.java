@@ -29,6 +29,7 @@
 package org.openrdf.repository.object.advisers.helpers;
 
 import info.aduna.iteration.CloseableIteration;
+import info.aduna.iteration.CloseableIteratorIteration;
 import info.aduna.iteration.ConvertingIteration;
 
 import java.util.ArrayList;
@@ -49,6 +50,8 @@ import org.openrdf.repository.RepositoryResult;
 import org.openrdf.repository.object.ObjectConnection;
 import org.openrdf.repository.object.exceptions.ObjectPersistException;
 import org.openrdf.repository.object.exceptions.ObjectStoreException;
+import org.openrdf.repository.object.metrics.Instrumentation;
+import org.openrdf.repository.object.metrics.Timer;
 import org.openrdf.repository.object.result.ObjectIterator;
 import org.openrdf.repository.object.traits.ManagedRDFObject;
 import org.openrdf.repository.object.traits.Refreshable;
@@ -59,6 +62,7 @@ import org.openrdf.repository.object.traits.Refreshable;
  * @author James Leigh
  */
 public class RemotePropertySet implements PropertySet, Set<Object> {
+	private static final Timer FETCH = Instrumentation.timer("anno4j.property.fetch");
 	private final ManagedRDFObject bean;
 	protected PropertySetModifier property;
 
@@ -98,7 +102,7 @@ public class RemotePropertySet implements PropertySet, Set<Object> {
 		ObjectConnection conn = getObjectConnection();
 		boolean modified = false;
 		try {
-			boolean autoCommit = conn.isAutoCommit();
+			boolean autoCommit = conn.isAutoCommit() && !conn.isUnitOfWork();
 			if (autoCommit)
 				conn.setAutoCommit(false);
 			try {
@@ -123,7 +127,7 @@ public class RemotePropertySet implements PropertySet, Set<Object> {
 
 	public void clear() {
 		try {
-			property.remove(getObjectConnection(), getResource(), null);
+			remove(getObjectConnection(), getResource(), (Value) null);
 		} catch (RepositoryException e) {
 			throw new ObjectPersistException(e);
 		}
@@ -135,6 +139,8 @@ public class RemotePropertySet implements PropertySet, Set<Object> {
 		ObjectConnection conn = getObjectConnection();
 		try {
 			Value val = getValue(o);
+			if (isPending())
+				return getChangeSet().getValues(conn, getResource(), property).contains(val);
 			return conn.hasStatement(getResource(), getURI(), val);
 		} catch (RepositoryException e) {
 			throw new ObjectPersistException(e);
@@ -221,7 +227,7 @@ public class RemotePropertySet implements PropertySet, Set<Object> {
 		ObjectConnection conn = getObjectConnection();
 		boolean modified = false;
 		try {
-			boolean autoCommit = conn.isAutoCommit();
+			boolean autoCommit = conn.isAutoCommit() && !conn.isUnitOfWork();
 			if (autoCommit)
 				conn.setAutoCommit(false);
 			try {
@@ -248,7 +254,7 @@ public class RemotePropertySet implements PropertySet, Set<Object> {
 		ObjectConnection conn = getObjectConnection();
 		boolean modified = false;
 		try {
-			boolean autoCommit = conn.isAutoCommit();
+			boolean autoCommit = conn.isAutoCommit() && !conn.isUnitOfWork();
 			if (autoCommit)
 				conn.setAutoCommit(false);
 			ObjectIterator<?, Object> e = getObjectIterator();
@@ -282,7 +288,7 @@ public class RemotePropertySet implements PropertySet, Set<Object> {
 		Set<Object> c = new HashSet<Object>(set);
 		ObjectConnection conn = getObjectConnection();
 		try {
-			boolean autoCommit = conn.isAutoCommit();
+			boolean autoCommit = conn.isAutoCommit() && !conn.isUnitOfWork();
 			if (autoCommit)
 				conn.setAutoCommit(false);
 			try {
@@ -307,7 +313,7 @@ public class RemotePropertySet implements PropertySet, Set<Object> {
 		} else {
 			ObjectConnection conn = getObjectConnection();
 			try {
-				boolean autoCommit = conn.isAutoCommit();
+				boolean autoCommit = conn.isAutoCommit() && !conn.isUnitOfWork();
 				if (autoCommit)
 					conn.setAutoCommit(false);
 				try {
@@ -328,9 +334,9 @@ public class RemotePropertySet implements PropertySet, Set<Object> {
 	}
 
 	public int size() {
-		CloseableIteration<? extends Statement, RepositoryException> iter;
+		CloseableIteration<?, RepositoryException> iter;
 		try {
-			iter = getStatements();
+			iter = getValues();
 			try {
 				int size;
 				for (size = 0; iter.hasNext(); size++)
@@ -404,14 +410,37 @@ public class RemotePropertySet implements PropertySet, Set<Object> {
 		return property.getPredicate();
 	}
 
+	final PropertyChangeSet getChangeSet() {
+		return getObjectConnection().getChangeSet();
+	}
+
+	/**
+	 * If the connection holds pending changes of this property, which are
+	 * not in the store yet.
+	 */
+	protected boolean isPending() {
+		PropertyChangeSet changes = getChangeSet();
+		return changes != null && changes.isPending(getResource(), property);
+	}
+
 	void add(ObjectConnection conn, Resource subj, Value obj)
 			throws RepositoryException {
-		property.add(conn, subj, obj);
+		PropertyChangeSet changes = conn.getChangeSet();
+		if (changes == null) {
+			property.add(conn, subj, obj);
+		} else {
+			changes.add(subj, property, obj);
+		}
 	}
 
 	void remove(ObjectConnection conn, Resource subj, Value obj)
 			throws RepositoryException {
-		property.remove(conn, subj, obj);
+		PropertyChangeSet changes = conn.getChangeSet();
+		if (changes == null) {
+			property.remove(conn, subj, obj);
+		} else {
+			changes.remove(subj, property, obj);
+		}
 	}
 
 	void remove(ObjectConnection conn, Statement stmt)
@@ -429,10 +458,29 @@ public class RemotePropertySet implements PropertySet, Set<Object> {
 
 	protected RepositoryResult<Statement> getStatements() throws RepositoryException {
 		ObjectConnection conn = getObjectConnection();
-		return conn.getStatements(getResource(), getURI(), null);
+		long start = System.nanoTime();
+		try {
+			// the statements are fetched lazily, up to the first on hasNext
+			RepositoryResult<Statement> result = conn.getStatements(getResource(), getURI(), null);
+			boolean started = false;
+			try {
+				result.hasNext();
+				started = true;
+				return result;
+			} finally {
+				if (!started)
+					result.close();
+			}
+		} finally {
+			FETCH.record(System.nanoTime() - start);
+		}
 	}
 
 	protected CloseableIteration<Value, RepositoryException> getValues() throws RepositoryException {
+		if (isPending()) {
+			Set<Value> values = getChangeSet().getValues(getObjectConnection(), getResource(), property);
+			return new CloseableIteratorIteration<Value, RepositoryException>(values.iterator());
+		}
 		return new ConvertingIteration<Statement, Value, RepositoryException>(getStatements()) {
 			@Override
 			protected Value convert(Statement st) throws RepositoryException {
@@ -44,6 +44,7 @@ import java.net.MalformedURLException;
 import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -122,6 +123,7 @@ public class SparqlEvaluator {
 		private List<String> bindingNames = new ArrayList<String>();
 		private List<List<Value>> bindingValues = new ArrayList<List<Value>>();
 		private org.openrdf.repository.object.ObjectFactory of;
+		private Object preparedKey;
 
 		public SparqlBuilder(ObjectConnection con, SparqlQuery query) {
 			assert con != null;
@@ -226,9 +228,13 @@ public class SparqlEvaluator {
 
 		public Model asModel() throws OpenRDFException {
 			GraphQuery qry = prepareGraphQuery();
-			Model model = new LinkedHashModel();
-			qry.evaluate(new StatementCollector(model));
-			return model;
+			try {
+				Model model = new LinkedHashModel();
+				qry.evaluate(new StatementCollector(model));
+				return model;
+			} finally {
+				release(qry);
+			}
 		}
 
 		public Statement asStatement() throws OpenRDFException {
@@ -285,16 +291,32 @@ public class SparqlEvaluator {
 		}
 
 		public TupleQueryResult asTupleQueryResult() throws OpenRDFException {
-			return prepareTupleQuery().evaluate();
+			TupleQuery qry = prepareTupleQuery();
+			try {
+				return qry.evaluate();
+			} finally {
+				release(qry);
+			}
 		}
 
 		public GraphQueryResult asGraphQueryResult() throws OpenRDFException {
-			return prepareGraphQuery().evaluate();
+			GraphQuery qry = prepareGraphQuery();
+			try {
+				return qry.evaluate();
+			} finally {
+				release(qry);
+			}
 		}
 
 		public boolean asBoolean() throws OpenRDFException {
-			if (query.isBooleanQuery())
-				return prepareBooleanQuery().evaluate();
+			if (query.isBooleanQuery()) {
+				BooleanQuery qry = prepareBooleanQuery();
+				try {
+					return qry.evaluate();
+				} finally {
+					release(qry);
+				}
+			}
 			return asResult(Boolean.class).singleResult().booleanValue();
 		}
 
@@ -369,14 +391,22 @@ public class SparqlEvaluator {
 
 		public Result asResult() throws OpenRDFException {
 			ObjectQuery qry = prepareObjectQuery(Object.class);
-			return qry.evaluate();
+			try {
+				return qry.evaluate();
+			} finally {
+				release(qry);
+			}
 		}
 
 		public <T> Result<T> asResult(Class<T> of) throws OpenRDFException {
 			if (of == null || Object.class.equals(of))
 				return asResult();
 			ObjectQuery qry = prepareObjectQuery(of);
-			return qry.evaluate(of);
+			try {
+				return qry.evaluate(of);
+			} finally {
+				release(qry);
+			}
 		}
 
 		public <T> Set<T> asSet(Class<T> of) throws OpenRDFException {
@@ -557,30 +587,71 @@ public class SparqlEvaluator {
 
 		private GraphQuery prepareGraphQuery() throws MalformedQueryException,
 				RepositoryException {
-			String sparql = bindMultiples(query.toString());
-			String base = query.getBaseURI();
-			return bindSingles(con.prepareGraphQuery(SPARQL, sparql, base));
+			GraphQuery qry = (GraphQuery) reuse("graph");
+			if (qry == null) {
+				String sparql = bindMultiples(query.toString());
+				String base = query.getBaseURI();
+				qry = con.prepareGraphQuery(SPARQL, sparql, base);
+			}
+			return bindSingles(qry);
 		}
 
 		private TupleQuery prepareTupleQuery() throws MalformedQueryException,
 				RepositoryException {
-			String base = query.getBaseURI();
-			String sparql = bindMultiples(query.toString());
-			return bindSingles(con.prepareTupleQuery(SPARQL, sparql, base));
+			TupleQuery qry = (TupleQuery) reuse("tuple");
+			if (qry == null) {
+				String base = query.getBaseURI();
+				String sparql = bindMultiples(query.toString());
+				qry = con.prepareTupleQuery(SPARQL, sparql, base);
+			}
+			return bindSingles(qry);
 		}
 
 		private BooleanQuery prepareBooleanQuery()
 				throws MalformedQueryException, RepositoryException {
-			String base = query.getBaseURI();
-			String sparql = bindMultiples(query.toString());
-			return bindSingles(con.prepareBooleanQuery(SPARQL, sparql, base));
+			BooleanQuery qry = (BooleanQuery) reuse("boolean");
+			if (qry == null) {
+				String base = query.getBaseURI();
+				String sparql = bindMultiples(query.toString());
+				qry = con.prepareBooleanQuery(SPARQL, sparql, base);
+			}
+			return bindSingles(qry);
 		}
 
 		private ObjectQuery prepareObjectQuery(Class<?> concept)
 				throws MalformedQueryException, RepositoryException {
-			String base = query.getBaseURI();
-			String sparql = bindMultiples(query.toObjectString(concept));
-			return bindSingles(con.prepareObjectQuery(SPARQL, sparql, base));
+			ObjectQuery qry = (ObjectQuery) reuse(concept.getName());
+			if (qry == null) {
+				String base = query.getBaseURI();
+				String sparql = bindMultiples(query.toObjectString(concept));
+				qry = con.prepareObjectQuery(SPARQL, sparql, base);
+			}
+			return bindSingles(qry);
+		}
+
+		/**
+		 * Takes the query prepared by a previous invocation on the same
+		 * connection with the same read contexts, inference and timeout,
+		 * unless multiple bindings have to be written into the query string.
+		 */
+		private Operation reuse(String type) {
+			if (!bindingNames.isEmpty())
+				return null;
+			preparedKey = Arrays.asList(SparqlEvaluator.this, type,
+					Arrays.asList(con.getReadContexts()),
+					con.isIncludeInferred(), con.getMaxQueryTime());
+			Operation qry = con.getPreparedQuery(preparedKey);
+			if (qry != null) {
+				qry.clearBindings();
+			}
+			return qry;
+		}
+
+		private void release(Operation qry) {
+			if (preparedKey != null) {
+				con.returnPreparedQuery(preparedKey, qry);
+				preparedKey = null;
+			}
 		}
 
 		private String bindMultiples(String sparql) {
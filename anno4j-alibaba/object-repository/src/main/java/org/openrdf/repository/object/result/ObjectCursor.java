@@ -33,6 +33,7 @@ import info.aduna.iteration.LookAheadIteration;
 
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 
@@ -54,11 +55,14 @@ import org.openrdf.repository.object.traits.PropertyConsumer;
  *
  */
 public class ObjectCursor extends LookAheadIteration<Object, QueryEvaluationException> {
+	/** Number of objects whose rdf:types are read together */
+	private static final int BATCH_SIZE = 64;
 	private String binding;
 	private CloseableIteration<BindingSet, QueryEvaluationException> result;
 	private BindingSet next;
 	private ObjectFactory of;
 	private ObjectConnection manager;
+	private final LinkedList<List<BindingSet>> batch = new LinkedList<List<BindingSet>>();
 
 	public ObjectCursor(ObjectConnection manager, CloseableIteration<BindingSet, QueryEvaluationException> result,
 			String binding) throws QueryEvaluationException {
@@ -71,16 +75,44 @@ public class ObjectCursor extends LookAheadIteration<Object, QueryEvaluationExce
 
 	@Override
 	public Object getNextElement() throws QueryEvaluationException {
-		if (next == null)
-			return null;
-		List<BindingSet> properties;
-		Value resource = next.getValue(binding);
-		properties = readProperties();
-		if (resource == null)
+		if (batch.isEmpty()) {
+			readBatch();
+		}
+		if (batch.isEmpty())
 			return null;
+		List<BindingSet> properties = batch.removeFirst();
+		Value resource = properties.get(0).getValue(binding);
 		return createRDFObject(resource, properties);
 	}
 
+	/**
+	 * Reads the rows of the next objects and loads the rdf:types of those
+	 * without a _class binding at once.
+	 */
+	private void readBatch() throws QueryEvaluationException {
+		List<Value> untyped = new ArrayList<Value>();
+		while (batch.size() < BATCH_SIZE) {
+			// skip rows without this binding, such as the rows of another UNION branch
+			while (next != null && next.getValue(binding) == null) {
+				next = result.hasNext() ? result.next() : null;
+			}
+			if (next == null)
+				break;
+			List<BindingSet> properties = readProperties();
+			batch.add(properties);
+			if (!properties.get(0).hasBinding(binding + "_class")) {
+				untyped.add(properties.get(0).getValue(binding));
+			}
+		}
+		if (untyped.size() > 1) {
+			try {
+				manager.loadTypes(untyped);
+			} catch (RepositoryException e) {
+				throw new QueryEvaluationException(e);
+			}
+		}
+	}
+
 	private List<BindingSet> readProperties() throws QueryEvaluationException {
 		Value resource = next.getValue(binding);
 		List<BindingSet> properties = new ArrayList<BindingSet>();
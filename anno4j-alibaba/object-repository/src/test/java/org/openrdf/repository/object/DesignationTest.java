@@ -1,12 +1,15 @@
 package org.openrdf.repository.object;
 
+import java.util.Collections;
 import java.util.Set;
 
 import junit.framework.Test;
 
 import org.openrdf.annotations.Iri;
 import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
 import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.vocabulary.RDF;
 import org.openrdf.repository.object.base.ObjectRepositoryTestCase;
 import org.openrdf.repository.object.concepts.ClassConcept;
 import org.openrdf.repository.object.concepts.Property;
@@ -47,4 +50,31 @@ public class DesignationTest extends ObjectRepositoryTestCase {
 		assertEquals(0, resource.getRdfTypes().size());
 	}
 
+	public void testQueryResultTypes() throws Exception {
+		ValueFactory vf = con.getValueFactory();
+		URI label = vf.createURI("urn:label");
+		for (int i = 0; i < 100; i++) {
+			URI name = vf.createURI("urn:resource" + i);
+			con.add(name, label, vf.createLiteral(i));
+			if (i % 2 == 0) {
+				con.add(name, RDF.TYPE, RDF.PROPERTY);
+			}
+		}
+		ObjectQuery query = con.prepareObjectQuery("SELECT ?s WHERE { ?s <urn:label> ?label }");
+		int properties = 0;
+		for (Object bean : query.evaluate().asList()) {
+			if (bean instanceof Property) {
+				properties++;
+			}
+		}
+		assertEquals(50, properties);
+		URI name = vf.createURI("urn:resource100");
+		con.add(name, RDF.TYPE, RDF.PROPERTY);
+		con.loadTypes(Collections.singleton(name));
+		Property prop = (Property) con.getObject(name);
+		con.removeDesignation(prop, Property.class);
+		con.loadTypes(Collections.singleton(name));
+		assertFalse(con.getObject(name) instanceof Property);
+	}
+
 }
@@ -7,6 +7,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import junit.framework.Test;
 
@@ -20,6 +21,7 @@ import org.openrdf.model.ValueFactory;
 import org.openrdf.query.BindingSet;
 import org.openrdf.query.GraphQueryResult;
 import org.openrdf.query.TupleQueryResult;
+import org.openrdf.repository.object.advisers.SparqlStatistics;
 import org.openrdf.repository.object.base.ObjectRepositoryTestCase;
 import org.openrdf.repository.object.base.RepositoryTestCase;
 import org.openrdf.result.Result;
@@ -167,6 +169,39 @@ public class NamedQueryTest extends ObjectRepositoryTestCase {
 		assertEquals(john, me.findFriendByName("john"));
 	}
 
+	public void testRepeatedFriendByName() throws Exception {
+		assertEquals(john, me.findFriendByName("john"));
+		me.addFriend(phil);
+		assertEquals(phil, me.findFriendByName("phil"));
+		assertEquals(john, me.findFriendByName("john"));
+		assertNull(me.findFriendByName("james"));
+	}
+
+	public void testPreparedQueryLimit() throws Exception {
+		con.getRepository().setPreparedQueryLimit(1);
+		me.addFriend(phil);
+		for (int i = 0; i < 3; i++) {
+			assertEquals(john, me.findFriendByName("john"));
+			assertTrue(me.isFriend(phil));
+			assertEquals(phil, me.findFriendByName("phil"));
+			assertFalse(me.isFriend(me));
+		}
+	}
+
+	public void testStatistics() throws Exception {
+		assertTrue(me.isFriend(john));
+		assertFalse(me.isFriend(phil));
+		SparqlStatistics stats = null;
+		for (SparqlStatistics s : con.getRepository().getSparqlStatistics()) {
+			if (s.getMethod().endsWith("Person.isFriend(Person)")) {
+				stats = s;
+			}
+		}
+		assertNotNull(stats);
+		assertEquals(2, stats.getInvocations());
+		assertTrue(stats.getTotalTime(TimeUnit.NANOSECONDS) > 0);
+	}
+
 	public void testFriendsByNames() throws Exception {
 		assertEquals(Collections.singleton(john),
 				me.findFriendsByNames(Collections.singleton("john")));
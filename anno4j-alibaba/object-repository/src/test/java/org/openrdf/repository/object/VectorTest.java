@@ -0,0 +1,102 @@
+package org.openrdf.repository.object;
+
+import java.util.Arrays;
+
+import junit.framework.Test;
+
+import org.openrdf.annotations.Iri;
+import org.openrdf.model.Literal;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.repository.object.base.ObjectRepositoryTestCase;
+import org.openrdf.repository.object.managers.converters.ObjectSerializationMarshall;
+import org.openrdf.repository.object.vocabulary.MSG;
+
+public class VectorTest extends ObjectRepositoryTestCase {
+	private static final String FEATURES = "urn:test:features";
+
+	public static Test suite() throws Exception {
+		return ObjectRepositoryTestCase.suite(VectorTest.class);
+	}
+
+	@Iri("urn:test:Entity")
+	public interface Entity extends RDFObject {
+		@Iri(FEATURES)
+		float[] getFeatures();
+		void setFeatures(float[] features);
+
+		@Iri("urn:test:weights")
+		double[] getWeights();
+		void setWeights(double[] weights);
+
+		@Iri("urn:test:counts")
+		int[] getCounts();
+		void setCounts(int[] counts);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		config.addConcept(Entity.class);
+		super.setUp();
+	}
+
+	public void testFloatVector() throws Exception {
+		float[] features = { 0.5f, -1.25f, Float.NaN, Float.MAX_VALUE, 0 };
+		Entity entity = create();
+		entity.setFeatures(features);
+		Literal literal = getLiteral(entity, FEATURES);
+		assertEquals(MSG.FLOAT_VECTOR, literal.getDatatype());
+		assertEquals(28, literal.getLabel().length());
+		entity = reload(entity);
+		assertTrue(Arrays.equals(features, entity.getFeatures()));
+	}
+
+	public void testDoubleVector() throws Exception {
+		double[] weights = { 0.125, Double.MIN_VALUE, -3 };
+		Entity entity = create();
+		entity.setWeights(weights);
+		entity = reload(entity);
+		assertTrue(Arrays.equals(weights, entity.getWeights()));
+	}
+
+	public void testIntVector() throws Exception {
+		int[] counts = { 1, -1, Integer.MAX_VALUE, Integer.MIN_VALUE };
+		Entity entity = create();
+		entity.setCounts(counts);
+		entity = reload(entity);
+		assertTrue(Arrays.equals(counts, entity.getCounts()));
+	}
+
+	public void testEmptyVector() throws Exception {
+		Entity entity = create();
+		entity.setFeatures(new float[0]);
+		entity = reload(entity);
+		assertEquals(0, entity.getFeatures().length);
+	}
+
+	public void testSerializedArray() throws Exception {
+		float[] features = { 1, 2, 3 };
+		ValueFactory vf = con.getValueFactory();
+		Literal serialized = new ObjectSerializationMarshall<float[]>(vf,
+				float[].class).serialize(features);
+		Entity entity = create();
+		con.add(entity.getResource(), vf.createURI(FEATURES), serialized);
+		entity = reload(entity);
+		assertTrue(Arrays.equals(features, entity.getFeatures()));
+	}
+
+	private Entity create() throws Exception {
+		ObjectFactory of = con.getObjectFactory();
+		return con.addDesignation(of.createObject(), Entity.class);
+	}
+
+	private Entity reload(Entity entity) throws Exception {
+		return (Entity) con.refresh(entity);
+	}
+
+	private Literal getLiteral(Entity entity, String pred) throws Exception {
+		URI uri = con.getValueFactory().createURI(pred);
+		return (Literal) con.getStatements(entity.getResource(), uri, null)
+				.next().getObject();
+	}
+}
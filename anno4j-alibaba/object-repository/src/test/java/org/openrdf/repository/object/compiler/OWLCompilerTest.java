@@ -0,0 +1,131 @@
+package org.openrdf.repository.object.compiler;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.jar.JarFile;
+
+import org.openrdf.model.Model;
+import org.openrdf.model.impl.TreeModel;
+import org.openrdf.repository.object.base.CodeGenTestCase;
+
+/**
+ * Compiles the bundled ontologies in memory and checks when a compiled jar is
+ * reused.
+ */
+public class OWLCompilerTest extends CodeGenTestCase {
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		addRdfSource("/ontologies/rdfs-schema.rdf");
+		addRdfSource("/ontologies/dc-elements-schema.rdf");
+		addRdfSource("/ontologies/dc-terms-schema.rdf");
+		addRdfSource("/ontologies/dc-type-schema.rdf");
+		addRdfSource("/ontologies/gedcom-ontology.owl");
+		addRdfSource("/ontologies/ical-ontology.owl");
+	}
+
+	public void testCompileBundledOntologies() throws Exception {
+		File jar = createJar("bundled.jar");
+		assertTrue(jar.exists());
+		assertTrue(countClasses(jar, "", ".class") > 0);
+		assertTrue(countClasses(jar, "", ".class") >= countClasses(jar, "", ".java"));
+	}
+
+	public void testUnchangedOntologyReusesJar() throws Exception {
+		File jar = createJar("bundled.jar");
+		int classes = countClasses(jar, "", ".class");
+		long modified = 1000000000000L;
+		assertTrue(jar.setLastModified(modified));
+		createJar("bundled.jar");
+		// not written again
+		assertEquals(modified, jar.lastModified());
+		assertEquals(classes, countClasses(jar, "", ".class"));
+	}
+
+	public void testChangedRestrictionInvalidatesJar() throws Exception {
+		File ontology = new File(targetDir, "restriction.ttl");
+		addImports(ontology.toURI().toURL());
+
+		// the restrictions only differ in the blank node they are attached to
+		writeRestrictions(ontology, "name", "nickname");
+		File jar = createJar("restriction.jar");
+		String digest = readDigest(jar);
+		assertEquals(digest, readDigest(createJar("restriction.jar")));
+
+		writeRestrictions(ontology, "nickname", "name");
+		assertFalse(digest.equals(readDigest(createJar("restriction.jar"))));
+	}
+
+	public void testChangedClassPathInvalidatesJar() throws Exception {
+		File classes = new File(targetDir, "classes");
+		File role = new File(classes, "org/example/Role.class");
+		writeFile(role, "1");
+		URL[] path = new URL[] { classes.toURI().toURL() };
+		ClassLoader cl = new URLClassLoader(path, getClass().getClassLoader());
+		File jar = new File(targetDir, "classpath.jar");
+		String digest = createJar(cl, jar);
+		assertEquals(digest, createJar(cl, jar));
+
+		// the directory itself is unchanged, only a class within a package
+		long modified = classes.lastModified();
+		writeFile(role, "12");
+		assertTrue(classes.setLastModified(modified));
+		assertFalse(digest.equals(createJar(cl, jar)));
+	}
+
+	private String createJar(ClassLoader cl, File jar) throws Exception {
+		Model schema = new TreeModel();
+		new OntologyLoader(schema).loadOntologies(Collections
+				.singletonList(find("/ontologies/rdfs-schema.rdf")));
+		OWLCompiler compiler = new OWLCompiler(cl);
+		compiler.setModel(schema);
+		compiler.createJar(jar);
+		return readDigest(jar);
+	}
+
+	private void writeFile(File file, String content) throws Exception {
+		file.getParentFile().mkdirs();
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+	}
+
+	private void writeRestrictions(File file, String single, String multiple)
+			throws Exception {
+		String ttl = "@prefix owl: <http://www.w3.org/2002/07/owl#> .\n"
+				+ "@prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#> .\n"
+				+ "@prefix xsd: <http://www.w3.org/2001/XMLSchema#> .\n"
+				+ "@prefix ex: <http://example.org/restriction#> .\n"
+				+ "ex:Person a owl:Class ;\n"
+				+ "  rdfs:subClassOf [ a owl:Restriction ; owl:onProperty ex:"
+				+ single + " ; owl:maxCardinality 1 ] ,\n"
+				+ "    [ a owl:Restriction ; owl:onProperty ex:" + multiple
+				+ " ; owl:minCardinality 0 ] .\n"
+				+ "ex:name a owl:DatatypeProperty ; rdfs:domain ex:Person ; rdfs:range xsd:string .\n"
+				+ "ex:nickname a owl:DatatypeProperty ; rdfs:domain ex:Person ; rdfs:range xsd:string .\n";
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(ttl.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+	}
+
+	private String readDigest(File jar) throws Exception {
+		JarFile file = new JarFile(jar);
+		try {
+			return file.getManifest().getMainAttributes()
+					.getValue("Ontology-Digest");
+		} finally {
+			file.close();
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package com.github.anno4j.benchmarks;
+
+import com.github.anno4j.Anno4j;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+
+/**
+ * An in-memory Anno4j loaded with the synthetic data set of the {@link DataGenerator}, shared by the threads of a
+ * benchmark. The number of annotations is set by the <code>scale</code> parameter.
+ */
+@State(Scope.Benchmark)
+public class AnnotationState {
+
+    @Param({"1000", "10000"})
+    public int scale;
+
+    public Anno4j anno4j;
+
+    public DataGenerator generator;
+
+    public List<String> ids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        generator = new DataGenerator(scale);
+        anno4j = new Anno4j();
+        generator.load(anno4j);
+        ids = generator.getAnnotationIds();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        anno4j.getRepository().shutDown();
+    }
+}
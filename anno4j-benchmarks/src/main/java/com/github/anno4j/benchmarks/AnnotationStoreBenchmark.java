@@ -0,0 +1,137 @@
+package com.github.anno4j.benchmarks;
+
+import com.github.anno4j.model.namespaces.OADM;
+import com.github.anno4j.sail.AnnotationStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.TupleQuery;
+import org.openrdf.query.TupleQueryResult;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.sail.SailRepository;
+import org.openrdf.sail.Sail;
+import org.openrdf.sail.memory.MemoryStore;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link AnnotationStore} with the MemoryStore: the load of the given number of annotations, with UUID
+ * URNs like the ones of the default IDGenerator and six statements each, and a star-shaped query selecting ten of
+ * them. The heap used by the stores is shown by running the load with a heap profiler, e.g. <code>-prof gc</code>.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class AnnotationStoreBenchmark {
+
+    private static final int RARE = 10;
+
+    private static final String NS = DataGenerator.NS + "schema#";
+
+    @Param({"100000"})
+    public int annotations;
+
+    @Param({"memory", "annotation", "annotation-offheap"})
+    public String store;
+
+    private SailRepository repository;
+
+    private RepositoryConnection connection;
+
+    private TupleQuery query;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        repository = createRepository();
+        connection = repository.getConnection();
+        load(connection);
+        query = connection.prepareTupleQuery(QueryLanguage.SPARQL,
+                "SELECT ?a ?value WHERE { ?a a <" + OADM.ANNOTATION + "> ; <" + OADM.HAS_BODY + "> ?b ."
+                        + " ?b a <" + NS + "rareBody> ; <" + RDF.VALUE + "> ?value }");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        connection.close();
+        repository.shutDown();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public long load() throws Exception {
+        SailRepository loaded = createRepository();
+        RepositoryConnection connection = loaded.getConnection();
+        try {
+            load(connection);
+            return connection.size();
+        } finally {
+            connection.close();
+            loaded.shutDown();
+        }
+    }
+
+    @Benchmark
+    public int query() throws Exception {
+        int count = 0;
+        TupleQueryResult result = query.evaluate();
+        try {
+            while (result.hasNext()) {
+                result.next();
+                count++;
+            }
+        } finally {
+            result.close();
+        }
+        return count;
+    }
+
+    private SailRepository createRepository() throws Exception {
+        Sail sail;
+        if ("memory".equals(store)) {
+            sail = new MemoryStore();
+        } else {
+            sail = new AnnotationStore("annotation-offheap".equals(store));
+        }
+        SailRepository repository = new SailRepository(sail);
+        repository.initialize();
+        return repository;
+    }
+
+    private void load(RepositoryConnection connection) throws Exception {
+        ValueFactory vf = connection.getValueFactory();
+        URI annotationType = vf.createURI(OADM.ANNOTATION);
+        URI hasBody = vf.createURI(OADM.HAS_BODY);
+        URI hasTarget = vf.createURI(OADM.HAS_TARGET);
+        URI commonBody = vf.createURI(NS, "commonBody");
+        URI rareBody = vf.createURI(NS, "rareBody");
+
+        connection.begin();
+        for (int i = 0; i < annotations; i++) {
+            URI annotation = vf.createURI("urn:anno4j:" + UUID.randomUUID());
+            URI body = vf.createURI("urn:anno4j:" + UUID.randomUUID());
+            connection.add(annotation, RDF.TYPE, annotationType);
+            connection.add(annotation, hasBody, body);
+            connection.add(annotation, hasTarget, vf.createURI(NS + "target/" + i % 1000));
+            connection.add(body, RDF.TYPE, i % (annotations / RARE) == 0 ? rareBody : commonBody);
+            connection.add(body, RDF.VALUE, vf.createLiteral("value " + i));
+            connection.add(body, vf.createURI(NS, "confidence"), vf.createLiteral(i % 100 / 100.0));
+            if (i % 10000 == 9999) {
+                connection.commit();
+                connection.begin();
+            }
+        }
+        connection.commit();
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.anno4j.benchmarks;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.impl.body.TextualBody;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openrdf.model.Resource;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the calls of methods implemented by behaviours, i.e. getResource(), which passes through the invocation
+ * chain of {@link com.github.anno4j.model.impl.ResourceObjectSupport}, and a simple property getter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class BehaviourInvocationBenchmark {
+
+    private Anno4j anno4j;
+
+    private Annotation annotation;
+
+    private TextualBody body;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        anno4j = new Anno4j();
+        annotation = anno4j.createObject(Annotation.class);
+        body = anno4j.createObject(TextualBody.class);
+        body.setValue("value");
+        annotation.addBody(body);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        anno4j.getRepository().shutDown();
+    }
+
+    @Benchmark
+    public Resource getResource() {
+        return annotation.getResource();
+    }
+
+    @Benchmark
+    public String getValue() {
+        return body.getValue();
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.anno4j.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks and writes their results as JSON for regression tracking, by default to
+ * <code>target/jmh-result.json</code>. Takes the command line options of JMH, e.g.
+ * <pre>
+ * java -jar target/benchmarks.jar QueryBenchmark -p scale=100000 -rff results/query.json
+ * </pre>
+ * The scale of all benchmarks using the synthetic data set can also be set by the system property
+ * <code>anno4j.benchmark.scale</code>.
+ */
+public class BenchmarkRunner {
+
+    public static final String DEFAULT_RESULT_FILE = "target/jmh-result.json";
+
+    public static final String SCALE_PROPERTY = "anno4j.benchmark.scale";
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine)
+                .resultFormat(commandLine.getResultFormat().orElse(ResultFormatType.JSON))
+                .result(commandLine.getResult().orElse(DEFAULT_RESULT_FILE));
+        String scale = System.getProperty(SCALE_PROPERTY);
+        if (scale != null) {
+            options.param("scale", scale);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.anno4j.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openrdf.store.blob.BlobStore;
+import org.openrdf.store.blob.BlobStoreFactory;
+import org.openrdf.store.blob.BlobVersion;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the versioned writes and the reads of the file based blob store, with blobs of the given size in
+ * bytes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class BlobStoreBenchmark {
+
+    private static final int BLOBS = 100;
+
+    @Param({"1024", "1048576"})
+    public int size;
+
+    private File dir;
+
+    private BlobStore store;
+
+    private byte[] content;
+
+    private byte[] buffer;
+
+    private int count;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("anno4j-blobs").toFile();
+        store = BlobStoreFactory.newInstance().openBlobStore(dir);
+        content = new byte[size];
+        new Random(42).nextBytes(content);
+        buffer = new byte[8192];
+        for (int i = 0; i < BLOBS; i++) {
+            write(blobId(i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        store.erase();
+        dir.delete();
+    }
+
+    @Benchmark
+    public void write() throws Exception {
+        write(blobId(count++ % BLOBS));
+    }
+
+    @Benchmark
+    public long read() throws Exception {
+        long read = 0;
+        InputStream in = store.open(blobId(count++ % BLOBS)).openInputStream();
+        try {
+            for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+                read += n;
+            }
+        } finally {
+            in.close();
+        }
+        return read;
+    }
+
+    private void write(String uri) throws Exception {
+        BlobVersion version = store.newVersion();
+        OutputStream out = version.open(uri).openOutputStream();
+        try {
+            out.write(content);
+        } finally {
+            out.close();
+        }
+        version.commit();
+    }
+
+    private static String blobId(int i) {
+        return DataGenerator.NS + "blob/" + i;
+    }
+}
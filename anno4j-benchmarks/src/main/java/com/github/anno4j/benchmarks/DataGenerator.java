@@ -0,0 +1,220 @@
+package com.github.anno4j.benchmarks;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.model.namespaces.DCTERMS;
+import com.github.anno4j.model.namespaces.OADM;
+import eu.mico.platform.anno4j.model.namespaces.MICO;
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.util.RDFInserter;
+import org.openrdf.rio.RDFHandler;
+import org.openrdf.rio.RDFHandlerException;
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.Rio;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates a synthetic data set of W3C Web Annotations in the shape written by the MICO platform. Every
+ * annotation has a textual, face detection or animal detection body and a specific resource target with a
+ * media fragment selector on one of the sources. The annotations are grouped into content items of up to
+ * {@link #ANNOTATIONS_PER_ITEM} annotations, linked by <code>item mico:hasContentPart part mico:hasContent
+ * annotation</code>.
+ * <br/><br/>
+ * The data set is determined by the seed and the scale, so runs of the same scale are comparable.
+ */
+public class DataGenerator {
+
+    public static final String NS = "http://www.example.com/benchmark/";
+
+    public static final int ANNOTATIONS_PER_ITEM = 100;
+
+    private static final int SOURCES = 1000;
+
+    private static final String MEDIA_FRAGMENT = "http://www.w3.org/TR/media-frags/";
+
+    private final long seed;
+
+    private final int scale;
+
+    /**
+     * @param seed  Seed of the random values
+     * @param scale Number of annotations to generate
+     */
+    public DataGenerator(long seed, int scale) {
+        if (scale < 1) {
+            throw new IllegalArgumentException("The scale has to be positive: " + scale);
+        }
+        this.seed = seed;
+        this.scale = scale;
+    }
+
+    public DataGenerator(int scale) {
+        this(42, scale);
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    /**
+     * @return the number of content items of the data set.
+     */
+    public int getItemCount() {
+        return (scale + ANNOTATIONS_PER_ITEM - 1) / ANNOTATIONS_PER_ITEM;
+    }
+
+    public static String annotationId(int i) {
+        return NS + "annotation/" + i;
+    }
+
+    public static String itemId(int i) {
+        return NS + "item/" + i;
+    }
+
+    public static String sourceId(int i) {
+        return NS + "source/" + i;
+    }
+
+    /**
+     * @return the ids of all annotations of the data set.
+     */
+    public List<String> getAnnotationIds() {
+        List<String> ids = new ArrayList<>(scale);
+        for (int i = 0; i < scale; i++) {
+            ids.add(annotationId(i));
+        }
+        return ids;
+    }
+
+    /**
+     * @return the value of the selector of the i-th annotation.
+     */
+    public String selectorValue(int i) {
+        return fragment(new Random(seed + i));
+    }
+
+    /**
+     * Writes the statements of the data set to the handler.
+     *
+     * @param handler Receives the statements
+     */
+    public void generate(RDFHandler handler) throws RDFHandlerException {
+        ValueFactory vf = ValueFactoryImpl.getInstance();
+        URI annotationType = vf.createURI(OADM.ANNOTATION);
+        URI textualBody = vf.createURI(OADM.TEXTUAL_BODY);
+        URI faceBody = vf.createURI(MICO.FACE_DETECTION_BODY);
+        URI animalBody = vf.createURI(MICO.ANIMAL_DETECTION_BODY);
+        URI specificResource = vf.createURI(OADM.SPECIFIC_RESOURCE);
+        URI fragmentSelector = vf.createURI(OADM.FRAGMENT_SELECTOR);
+        URI contentItem = vf.createURI(MICO.CONTENT_ITEM);
+        URI contentPart = vf.createURI(MICO.CONTENT_PART);
+        URI hasBody = vf.createURI(OADM.HAS_BODY);
+        URI hasTarget = vf.createURI(OADM.HAS_TARGET);
+        URI hasSource = vf.createURI(OADM.HAS_SOURCE);
+        URI hasSelector = vf.createURI(OADM.HAS_SELECTOR);
+        URI hasConfidence = vf.createURI(MICO.HAS_CONFIDENCE);
+        URI hasContent = vf.createURI(MICO.HAS_CONTENT);
+        URI hasContentPart = vf.createURI(MICO.HAS_CONTENT_PART);
+        URI issued = vf.createURI(DCTERMS.ISSUED);
+        URI conformsTo = vf.createURI(DCTERMS.CONFORMS_TO);
+
+        handler.startRDF();
+        handler.handleNamespace(OADM.PREFIX, OADM.NS);
+        handler.handleNamespace(MICO.PREFIX, MICO.NS);
+        handler.handleNamespace(DCTERMS.PREFIX, DCTERMS.NS);
+        for (int i = 0; i < scale; i++) {
+            // Every annotation has its own random, so its values don't depend on the scale
+            Random random = new Random(seed + i);
+            String fragment = fragment(random);
+            URI annotation = vf.createURI(annotationId(i));
+            URI body = vf.createURI(NS + "body/" + i);
+            URI target = vf.createURI(NS + "target/" + i);
+            URI selector = vf.createURI(NS + "selector/" + i);
+
+            if (i % ANNOTATIONS_PER_ITEM == 0) {
+                URI item = vf.createURI(itemId(i / ANNOTATIONS_PER_ITEM));
+                handle(handler, item, RDF.TYPE, contentItem);
+            }
+            URI item = vf.createURI(itemId(i / ANNOTATIONS_PER_ITEM));
+            URI part = vf.createURI(NS + "part/" + i);
+            handle(handler, item, hasContentPart, part);
+            handle(handler, part, RDF.TYPE, contentPart);
+            handle(handler, part, hasContent, annotation);
+
+            handle(handler, annotation, RDF.TYPE, annotationType);
+            handle(handler, annotation, issued, vf.createLiteral("2016-" + month(i) + "-01T12:00:00Z"));
+            handle(handler, annotation, hasBody, body);
+            handle(handler, annotation, hasTarget, target);
+
+            switch (i % 3) {
+                case 0:
+                    handle(handler, body, RDF.TYPE, textualBody);
+                    handle(handler, body, RDF.VALUE, vf.createLiteral("text " + random.nextInt(SOURCES)));
+                    break;
+                case 1:
+                    handle(handler, body, RDF.TYPE, faceBody);
+                    handle(handler, body, hasConfidence, vf.createLiteral(random.nextDouble()));
+                    break;
+                default:
+                    handle(handler, body, RDF.TYPE, animalBody);
+                    handle(handler, body, hasConfidence, vf.createLiteral(random.nextDouble()));
+                    handle(handler, body, RDF.VALUE, vf.createLiteral(random.nextBoolean() ? "cat" : "dog"));
+            }
+
+            handle(handler, target, RDF.TYPE, specificResource);
+            handle(handler, target, hasSource, vf.createURI(sourceId(random.nextInt(SOURCES))));
+            handle(handler, target, hasSelector, selector);
+            handle(handler, selector, RDF.TYPE, fragmentSelector);
+            handle(handler, selector, RDF.VALUE, vf.createLiteral(fragment));
+            handle(handler, selector, conformsTo, vf.createURI(MEDIA_FRAGMENT));
+        }
+        handler.endRDF();
+    }
+
+    /**
+     * Adds the data set to the repository of Anno4j in a single transaction.
+     */
+    public void load(Anno4j anno4j) throws RepositoryException, RDFHandlerException {
+        RepositoryConnection connection = anno4j.getRepository().getConnection();
+        try {
+            connection.begin();
+            generate(new RDFInserter(connection));
+            connection.commit();
+        } finally {
+            connection.close();
+        }
+    }
+
+    /**
+     * @param format The serialization format
+     * @return the data set serialized in the format.
+     */
+    public String serialize(RDFFormat format) throws RDFHandlerException {
+        StringWriter writer = new StringWriter();
+        generate(Rio.createWriter(format, writer));
+        return writer.toString();
+    }
+
+    private static void handle(RDFHandler handler, Resource subject, URI predicate, Value object) throws RDFHandlerException {
+        handler.handleStatement(ValueFactoryImpl.getInstance().createStatement(subject, predicate, object));
+    }
+
+    private static String fragment(Random random) {
+        return "xywh=" + random.nextInt(1920) + "," + random.nextInt(1080) + "," + (1 + random.nextInt(400)) + "," + (1 + random.nextInt(400));
+    }
+
+    private static String month(int i) {
+        int month = i % 12 + 1;
+        return month < 10 ? "0" + month : String.valueOf(month);
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.anno4j.benchmarks;
+
+import com.github.anno4j.model.Annotation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the reads of annotations by id and by type.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class FindBenchmark {
+
+    private final Random random = new Random(42);
+
+    @Benchmark
+    public Annotation findByID(AnnotationState state) throws Exception {
+        return state.anno4j.findByID(Annotation.class, state.ids.get(random.nextInt(state.ids.size())));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Annotation> findAll(AnnotationState state) throws Exception {
+        return state.anno4j.findAll(Annotation.class);
+    }
+}
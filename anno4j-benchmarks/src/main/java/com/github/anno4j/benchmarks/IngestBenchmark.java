@@ -0,0 +1,65 @@
+package com.github.anno4j.benchmarks;
+
+import com.github.anno4j.io.ObjectParser;
+import com.github.anno4j.model.Annotation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openrdf.rio.RDFFormat;
+
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the bulk ingest of a serialized data set through the {@link ObjectParser}, which parses the document
+ * into its own in-memory repository and reads back the annotations as objects.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class IngestBenchmark {
+
+    @Param({"1000", "10000"})
+    public int scale;
+
+    @Param({"TURTLE", "NTRIPLES"})
+    public String format;
+
+    private RDFFormat rdfFormat;
+
+    private String content;
+
+    private URL documentURL;
+
+    private ObjectParser parser;
+
+    @Setup(Level.Trial)
+    public void generate() throws Exception {
+        rdfFormat = "TURTLE".equals(format) ? RDFFormat.TURTLE : RDFFormat.NTRIPLES;
+        content = new DataGenerator(scale).serialize(rdfFormat);
+        documentURL = new URL(DataGenerator.NS);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUp() throws Exception {
+        parser = new ObjectParser();
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() throws Exception {
+        parser.shutdown();
+    }
+
+    @Benchmark
+    public List<Annotation> parse() {
+        return parser.parse(content, documentURL, rdfFormat);
+    }
+}
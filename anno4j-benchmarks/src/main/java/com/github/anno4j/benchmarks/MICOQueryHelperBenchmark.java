@@ -0,0 +1,140 @@
+package com.github.anno4j.benchmarks;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.Transaction;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.Body;
+import com.github.anno4j.model.Target;
+import com.github.anno4j.model.impl.targets.SpecificResource;
+import com.github.anno4j.model.namespaces.DCTERMS;
+import com.github.anno4j.model.namespaces.OADM;
+import com.github.anno4j.querying.QueryService;
+import eu.mico.platform.anno4j.model.namespaces.MICO;
+import eu.mico.platform.anno4j.querying.MICOQueryHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.repository.RepositoryConnection;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link MICOQueryHelper} with the equivalent LDPath criteria on a single content item with the given
+ * number of parts, half of them with a face detection body. The bodies, targets and selectors of the results are
+ * read, as the helper fetches them with the annotations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class MICOQueryHelperBenchmark {
+
+    private static final String ITEM = DataGenerator.NS + "mico/item";
+
+    @Param({"10000"})
+    public int parts;
+
+    private Anno4j anno4j;
+
+    private Transaction transaction;
+
+    private QueryService criteria;
+
+    private MICOQueryHelper helper;
+
+    private MICOQueryHelper faces;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        anno4j = new Anno4j();
+        load();
+
+        transaction = anno4j.createTransaction();
+        criteria = transaction.createQueryService()
+                .addPrefix(MICO.PREFIX, MICO.NS)
+                .addCriteria("^mico:hasContent/^mico:hasContentPart", ITEM)
+                .addCriteria("oa:hasBody[is-a mico:FaceDetectionBody]");
+        helper = new MICOQueryHelper(anno4j);
+        faces = new MICOQueryHelper(anno4j).filterBodyType("mico:FaceDetectionBody");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        transaction.close();
+        anno4j.getRepository().shutDown();
+    }
+
+    @Benchmark
+    public void ldpathCriteria(Blackhole blackhole) throws Exception {
+        walk(criteria.execute(), blackhole);
+    }
+
+    @Benchmark
+    public void annotationsOfContentItem(Blackhole blackhole) throws Exception {
+        walk(faces.getAnnotationsOfContentItem(ITEM), blackhole);
+    }
+
+    @Benchmark
+    public void annotationsByMIMEType(Blackhole blackhole) throws Exception {
+        walk(helper.getAnnotationsByMIMEType("video/mp4"), blackhole);
+    }
+
+    private void load() throws Exception {
+        RepositoryConnection connection = anno4j.getRepository().getConnection();
+        try {
+            ValueFactory vf = connection.getValueFactory();
+            URI hasContentPart = vf.createURI(MICO.HAS_CONTENT_PART);
+            URI hasContent = vf.createURI(MICO.HAS_CONTENT);
+            URI hasBody = vf.createURI(OADM.HAS_BODY);
+            URI hasTarget = vf.createURI(OADM.HAS_TARGET);
+            URI hasSelector = vf.createURI(OADM.HAS_SELECTOR);
+            URI item = vf.createURI(ITEM);
+
+            connection.begin();
+            URI source = vf.createURI(ITEM + "/source");
+            connection.add(item, hasContentPart, source);
+            connection.add(source, vf.createURI(DCTERMS.NS + "type"), vf.createLiteral("video/mp4"));
+            for (int i = 0; i < parts; i++) {
+                URI part = vf.createURI(ITEM + "/part/" + i);
+                URI annotation = vf.createURI(ITEM + "/annotation/" + i);
+                URI body = vf.createURI(ITEM + "/body/" + i);
+                URI target = vf.createURI(ITEM + "/target/" + i);
+                URI selector = vf.createURI(ITEM + "/selector/" + i);
+                connection.add(item, hasContentPart, part);
+                connection.add(part, hasContent, annotation);
+                connection.add(annotation, RDF.TYPE, vf.createURI(OADM.ANNOTATION));
+                connection.add(annotation, hasBody, body);
+                connection.add(body, RDF.TYPE, vf.createURI(i % 2 == 0 ? MICO.FACE_DETECTION_BODY : MICO.ANIMAL_DETECTION_BODY));
+                connection.add(annotation, hasTarget, target);
+                connection.add(target, RDF.TYPE, vf.createURI(OADM.SPECIFIC_RESOURCE));
+                connection.add(target, hasSelector, selector);
+                connection.add(selector, RDF.TYPE, vf.createURI(OADM.FRAGMENT_SELECTOR));
+            }
+            connection.commit();
+        } finally {
+            connection.close();
+        }
+    }
+
+    private static void walk(List<Annotation> annotations, Blackhole blackhole) {
+        for (Annotation annotation : annotations) {
+            for (Body body : annotation.getBodies()) {
+                blackhole.consume(body);
+            }
+            for (Target target : annotation.getTargets()) {
+                blackhole.consume(((SpecificResource) target).getSelector());
+            }
+        }
+    }
+}
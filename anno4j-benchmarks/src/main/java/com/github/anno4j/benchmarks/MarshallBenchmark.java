@@ -0,0 +1,183 @@
+package com.github.anno4j.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openrdf.model.Literal;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.LiteralImpl;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.repository.object.LangString;
+import org.openrdf.repository.object.managers.LiteralManager;
+import org.w3c.dom.Document;
+import org.w3c.dom.DocumentFragment;
+
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Measures the conversions of the {@link LiteralManager} in both directions, for a value of each type of the
+ * <code>type</code> parameter. The literals are created from their label, as they are read from a store.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class MarshallBenchmark {
+
+    @Param({"BigDecimal", "BigInteger", "Boolean", "byte[]", "float[]", "double[]", "int[]", "Byte", "Double",
+            "Float", "Integer", "Long", "Short", "Character", "Date", "Locale", "Pattern", "QName",
+            "GregorianCalendar", "java.sql.Date", "Time", "Timestamp", "Class", "DocumentFragment", "Duration",
+            "XMLGregorianCalendar", "String", "LangString", "Currency", "File", "ArrayList"})
+    public String type;
+
+    private LiteralManager manager;
+
+    private Object value;
+
+    private Literal literal;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        manager = new LiteralManager(getClass().getClassLoader());
+        value = createValue(type);
+
+        Literal created = manager.createLiteral(value);
+        ValueFactory vf = ValueFactoryImpl.getInstance();
+        if (created.getLanguage() != null) {
+            literal = new LiteralImpl(created.getLabel(), created.getLanguage());
+        } else if (created.getDatatype() != null) {
+            literal = vf.createLiteral(created.getLabel(), created.getDatatype());
+        } else {
+            literal = new LiteralImpl(created.getLabel());
+        }
+        if (manager.createObject(literal) == null) {
+            throw new IllegalStateException("Could not read the literal of " + type);
+        }
+    }
+
+    @Benchmark
+    public Object createObject() {
+        return manager.createObject(literal);
+    }
+
+    @Benchmark
+    public Literal createLiteral() {
+        return manager.createLiteral(value);
+    }
+
+    private static Object createValue(String type) throws Exception {
+        switch (type) {
+            case "BigDecimal":
+                return new BigDecimal("1234.5678");
+            case "BigInteger":
+                return new BigInteger("12345678901234567890");
+            case "Boolean":
+                return Boolean.TRUE;
+            case "byte[]":
+                byte[] data = new byte[64];
+                for (int i = 0; i < data.length; i++) {
+                    data[i] = (byte) i;
+                }
+                return data;
+            case "float[]":
+                float[] floats = new float[128];
+                for (int i = 0; i < floats.length; i++) {
+                    floats[i] = i / 128f;
+                }
+                return floats;
+            case "double[]":
+                double[] doubles = new double[128];
+                for (int i = 0; i < doubles.length; i++) {
+                    doubles[i] = i / 128d;
+                }
+                return doubles;
+            case "int[]":
+                int[] ints = new int[128];
+                for (int i = 0; i < ints.length; i++) {
+                    ints[i] = i * 1024;
+                }
+                return ints;
+            case "Byte":
+                return (byte) 42;
+            case "Double":
+                return 0.87654321;
+            case "Float":
+                return 0.875f;
+            case "Integer":
+                return 1234567;
+            case "Long":
+                return 1234567890123L;
+            case "Short":
+                return (short) 1234;
+            case "Character":
+                return 'x';
+            case "Date":
+                return new Date(1451649600123L);
+            case "Locale":
+                return Locale.CANADA_FRENCH;
+            case "Pattern":
+                return Pattern.compile("a+b*");
+            case "QName":
+                return new QName("http://example.com/", "name", "ex");
+            case "GregorianCalendar":
+                GregorianCalendar calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+                calendar.setTimeInMillis(1451649600123L);
+                return calendar;
+            case "java.sql.Date":
+                return java.sql.Date.valueOf("2016-01-01");
+            case "Time":
+                return Time.valueOf("12:30:15");
+            case "Timestamp":
+                return new Timestamp(1451649600123L);
+            case "Class":
+                return String.class;
+            case "DocumentFragment":
+                DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+                factory.setNamespaceAware(true);
+                Document doc = factory.newDocumentBuilder().newDocument();
+                DocumentFragment fragment = doc.createDocumentFragment();
+                fragment.appendChild(doc.createElement("p")).appendChild(doc.createTextNode("text"));
+                return fragment;
+            case "Duration":
+                return DatatypeFactory.newInstance().newDuration("P1DT2H");
+            case "XMLGregorianCalendar":
+                return DatatypeFactory.newInstance().newXMLGregorianCalendar("2016-01-01T12:00:00.123Z");
+            case "String":
+                return "a string value";
+            case "LangString":
+                return new LangString("a string value", "en");
+            case "Currency":
+                // Read by valueOf
+                return Currency.getInstance("EUR");
+            case "File":
+                // Read by the constructor taking a String
+                return new File("/tmp/file");
+            case "ArrayList":
+                // Serialized
+                return new ArrayList<>(Arrays.asList("a", "b"));
+            default:
+                throw new IllegalArgumentException("Unknown type " + type);
+        }
+    }
+}
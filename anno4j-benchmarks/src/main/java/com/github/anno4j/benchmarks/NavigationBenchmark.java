@@ -0,0 +1,63 @@
+package com.github.anno4j.benchmarks;
+
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.Body;
+import com.github.anno4j.model.Selector;
+import com.github.anno4j.model.Target;
+import com.github.anno4j.model.impl.body.TextualBody;
+import com.github.anno4j.model.impl.selector.FragmentSelector;
+import com.github.anno4j.model.impl.targets.SpecificResource;
+import eu.mico.platform.anno4j.model.impl.body.FaceDetectionBody;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the property navigation on loaded annotations: the bodies with their values or confidences and the
+ * targets with their sources and selectors. Each property read is a lookup in the repository, unless it is
+ * cached by the object.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class NavigationBenchmark {
+
+    private List<Annotation> annotations;
+
+    @Setup
+    public void setUp(AnnotationState state) throws Exception {
+        annotations = state.anno4j.findAll(Annotation.class);
+    }
+
+    @Benchmark
+    public void navigate(Blackhole blackhole) {
+        for (Annotation annotation : annotations) {
+            blackhole.consume(annotation.getGenerated());
+            for (Body body : annotation.getBodies()) {
+                if (body instanceof TextualBody) {
+                    blackhole.consume(((TextualBody) body).getValue());
+                } else if (body instanceof FaceDetectionBody) {
+                    blackhole.consume(((FaceDetectionBody) body).getConfidence());
+                }
+            }
+            for (Target target : annotation.getTargets()) {
+                if (target instanceof SpecificResource) {
+                    SpecificResource resource = (SpecificResource) target;
+                    blackhole.consume(resource.getSource());
+                    Selector selector = resource.getSelector();
+                    if (selector instanceof FragmentSelector) {
+                        blackhole.consume(((FragmentSelector) selector).getValue());
+                    }
+                }
+            }
+        }
+    }
+}
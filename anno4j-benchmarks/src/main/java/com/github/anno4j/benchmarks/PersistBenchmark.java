@@ -0,0 +1,75 @@
+package com.github.anno4j.benchmarks;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.impl.body.TextualBody;
+import com.github.anno4j.model.impl.selector.FragmentSelector;
+import com.github.anno4j.model.impl.targets.SpecificResource;
+import eu.mico.platform.anno4j.model.impl.body.FaceDetectionBody;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the creation of annotations through the object API, i.e. <code>createObject</code> and the setters
+ * of the annotation, its body and its target, each of which writes to the repository.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class PersistBenchmark {
+
+    private Anno4j anno4j;
+
+    private int count;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws Exception {
+        anno4j = new Anno4j();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws Exception {
+        anno4j.getRepository().shutDown();
+    }
+
+    @Benchmark
+    public Annotation textualAnnotation() throws Exception {
+        int i = count++;
+        TextualBody body = anno4j.createObject(TextualBody.class);
+        body.setValue("text " + i);
+        Annotation annotation = createAnnotation(i);
+        annotation.addBody(body);
+        return annotation;
+    }
+
+    @Benchmark
+    public Annotation faceDetectionAnnotation() throws Exception {
+        int i = count++;
+        FaceDetectionBody body = anno4j.createObject(FaceDetectionBody.class);
+        body.setConfidence(i % 100 / 100.0);
+        Annotation annotation = createAnnotation(i);
+        annotation.addBody(body);
+        return annotation;
+    }
+
+    private Annotation createAnnotation(int i) throws Exception {
+        FragmentSelector selector = anno4j.createObject(FragmentSelector.class);
+        selector.setSpatialFragment(i % 1920, i % 1080, 100, 100);
+        SpecificResource target = anno4j.createObject(SpecificResource.class);
+        target.setSelector(selector);
+
+        Annotation annotation = anno4j.createObject(Annotation.class);
+        annotation.setGenerated("2016-01-01T12:00:00Z");
+        annotation.addTarget(target);
+        return annotation;
+    }
+}
@@ -0,0 +1,108 @@
+package com.github.anno4j.benchmarks;
+
+import com.github.anno4j.Transaction;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.namespaces.OADM;
+import com.github.anno4j.querying.Comparison;
+import com.github.anno4j.querying.Criteria;
+import com.github.anno4j.querying.QueryService;
+import eu.mico.platform.anno4j.model.namespaces.MICO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link QueryService} with criteria of growing path depth:
+ * <ol>
+ * <li><code>oa:hasBody[is-a mico:FaceDetectionBody]</code></li>
+ * <li>in addition <code>oa:hasBody/mico:hasConfidence &gt;= 0.9</code></li>
+ * <li>in addition the content item by <code>^mico:hasContent/^mico:hasContentPart</code></li>
+ * </ol>
+ * and a selective criteria of depth three, <code>oa:hasTarget/oa:hasSelector/rdf:value</code>, on a random
+ * annotation.
+ * <br/><br/>
+ * The query services and their connection are created once per trial, only the random value of the last
+ * criteria changes per invocation. They do not use the result cache, so each invocation evaluates its query.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class QueryBenchmark {
+
+    private static final String ITEM_PATH = "^mico:hasContent/^mico:hasContentPart";
+
+    private static final String SELECTOR_PATH = "oa:hasTarget/oa:hasSelector/rdf:value";
+
+    @Param({"1", "2", "3"})
+    public int depth;
+
+    private final Random random = new Random(42);
+
+    private AnnotationState state;
+
+    private Transaction transaction;
+
+    private QueryService criteria;
+
+    private QueryService selector;
+
+    @Setup
+    public void setUp(AnnotationState state) throws Exception {
+        this.state = state;
+        transaction = state.anno4j.createTransaction();
+
+        criteria = createQueryService(transaction)
+                .addCriteria("oa:hasBody[is-a mico:FaceDetectionBody]");
+        if (depth >= 2) {
+            criteria.addCriteria("oa:hasBody/mico:hasConfidence", 0.9, Comparison.GTE);
+        }
+        if (depth >= 3) {
+            criteria.addCriteria(ITEM_PATH, DataGenerator.itemId(0));
+        }
+
+        selector = createQueryService(transaction)
+                .addCriteria(SELECTOR_PATH, state.generator.selectorValue(0));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        transaction.close();
+    }
+
+    @Benchmark
+    public List<Annotation> criteria() throws Exception {
+        if (depth >= 3) {
+            int item = random.nextInt(state.generator.getItemCount());
+            setLastCriteria(criteria, new Criteria(ITEM_PATH, DataGenerator.itemId(item), Comparison.EQ));
+        }
+        return criteria.execute();
+    }
+
+    @Benchmark
+    public List<Annotation> selector() throws Exception {
+        String value = state.generator.selectorValue(random.nextInt(state.scale));
+        setLastCriteria(selector, new Criteria(SELECTOR_PATH, value, Comparison.EQ));
+        return selector.execute();
+    }
+
+    private static QueryService createQueryService(Transaction transaction) {
+        return transaction.createQueryService()
+                .addPrefix(OADM.PREFIX, OADM.NS)
+                .addPrefix(MICO.PREFIX, MICO.NS);
+    }
+
+    private static void setLastCriteria(QueryService queryService, Criteria criteria) {
+        List<Criteria> list = queryService.getCriteria();
+        list.set(list.size() - 1, criteria);
+    }
+}
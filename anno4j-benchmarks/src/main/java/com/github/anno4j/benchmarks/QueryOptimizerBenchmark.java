@@ -0,0 +1,110 @@
+package com.github.anno4j.benchmarks;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.Transaction;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.namespaces.OADM;
+import com.github.anno4j.querying.QueryService;
+import com.github.anno4j.querying.QueryStatistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.repository.object.ObjectConnection;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a criteria chain starting at the least selective pattern, with the join order of Jena's
+ * TransformJoinStrategy (<code>jena</code>) and with the cost-based join order of the {@link QueryStatistics}
+ * (<code>statistics</code>). Only one in <code>annotations / 10</code> bodies is of the rare type.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class QueryOptimizerBenchmark {
+
+    private static final int RARE = 10;
+
+    private static final String NS = DataGenerator.NS + "schema#";
+
+    @Param({"20000"})
+    public int annotations;
+
+    @Param({"jena", "statistics"})
+    public String joinOrder;
+
+    private Anno4j anno4j;
+
+    private ObjectConnection connection;
+
+    private Transaction transaction;
+
+    private QueryService queryService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        anno4j = new Anno4j();
+        connection = anno4j.getObjectRepository().getConnection();
+        load();
+        anno4j.getQueryStatistics().load();
+
+        // The query service of a transaction orders the joins by the statistics
+        transaction = anno4j.createTransaction();
+        queryService = transaction.createQueryService();
+        if ("jena".equals(joinOrder)) {
+            queryService = new QueryService(connection, queryService.getEvaluatorConfiguration());
+        }
+        queryService.addPrefix("ex", NS)
+                .addCriteria("oa:hasTarget/oa:hasSource")
+                .addCriteria("oa:hasBody/ex:value")
+                .addCriteria("oa:hasBody[is-a ex:rareBody]");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        transaction.close();
+        connection.close();
+        anno4j.getRepository().shutDown();
+    }
+
+    @Benchmark
+    public List<Annotation> query() throws Exception {
+        return queryService.execute();
+    }
+
+    private void load() throws Exception {
+        ValueFactory vf = connection.getValueFactory();
+        URI annotationType = vf.createURI(OADM.ANNOTATION);
+        URI hasBody = vf.createURI(OADM.HAS_BODY);
+        URI hasTarget = vf.createURI(OADM.HAS_TARGET);
+        URI hasSource = vf.createURI(OADM.HAS_SOURCE);
+        URI commonBody = vf.createURI(NS, "commonBody");
+        URI rareBody = vf.createURI(NS, "rareBody");
+        URI value = vf.createURI(NS, "value");
+
+        connection.begin();
+        for (int i = 0; i < annotations; i++) {
+            URI annotation = vf.createURI(NS + "annotation/" + i);
+            URI body = vf.createURI(NS + "body/" + i);
+            URI target = vf.createURI(NS + "target/" + i);
+            connection.add(annotation, RDF.TYPE, annotationType);
+            connection.add(annotation, hasBody, body);
+            connection.add(body, RDF.TYPE, i % (annotations / RARE) == 0 ? rareBody : commonBody);
+            connection.add(body, value, vf.createLiteral("value " + i));
+            connection.add(annotation, hasTarget, target);
+            connection.add(target, hasSource, vf.createURI(NS + "source/" + i % 100));
+        }
+        connection.commit();
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.anno4j.benchmarks;
+
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.Selector;
+import com.github.anno4j.model.Target;
+import com.github.anno4j.model.impl.selector.FragmentSelector;
+import com.github.anno4j.model.impl.targets.SpecificResource;
+import com.github.anno4j.recommendation.SimilarityAlgorithm;
+import com.github.anno4j.recommendation.SimilarityEngine;
+import com.github.anno4j.recommendation.SimilarityResult;
+import com.github.anno4j.recommendation.VectorizingSimilarityAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the top-k similarity scoring of the {@link SimilarityEngine} on the given number of candidate
+ * annotations, compared by the overlap of the regions their selectors point to.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class RecommendationBenchmark {
+
+    @Param({"100", "1000"})
+    public int candidates;
+
+    private SimilarityEngine engine;
+
+    private List<Annotation> annotations;
+
+    @Setup
+    public void setUp(AnnotationState state) throws Exception {
+        List<Annotation> all = state.anno4j.findAll(Annotation.class);
+        annotations = all.subList(0, Math.min(candidates, all.size()));
+        Map<String, SimilarityAlgorithm> algorithms = new HashMap<>();
+        algorithms.put("region", new RegionSimilarity());
+        engine = new SimilarityEngine(state.anno4j, algorithms);
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    @Benchmark
+    public List<SimilarityResult> topK() throws Exception {
+        return engine.computeTopK(annotations, 10);
+    }
+
+    /**
+     * Compares annotations by the cosine of the regions of their fragment selectors.
+     */
+    public static class RegionSimilarity implements VectorizingSimilarityAlgorithm {
+
+        @Override
+        public int getDimension() {
+            return 4;
+        }
+
+        @Override
+        public float[] vectorize(Annotation annotation) {
+            float[] vector = new float[getDimension()];
+            for (Target target : annotation.getTargets()) {
+                if (target instanceof SpecificResource) {
+                    Selector selector = ((SpecificResource) target).getSelector();
+                    if (selector instanceof FragmentSelector) {
+                        FragmentSelector fragment = (FragmentSelector) selector;
+                        vector[0] = fragment.getX();
+                        vector[1] = fragment.getY();
+                        vector[2] = fragment.getWidth();
+                        vector[3] = fragment.getHeight();
+                    }
+                }
+            }
+            return vector;
+        }
+
+        @Override
+        public double calculateSimilarity(Annotation anno1, Annotation anno2) {
+            float[] a = vectorize(anno1);
+            float[] b = vectorize(anno2);
+            double dot = 0, normA = 0, normB = 0;
+            for (int i = 0; i < a.length; i++) {
+                dot += a[i] * b[i];
+                normA += a[i] * a[i];
+                normB += b[i] * b[i];
+            }
+            return normA == 0 || normB == 0 ? 0 : dot / Math.sqrt(normA * normB);
+        }
+    }
+}
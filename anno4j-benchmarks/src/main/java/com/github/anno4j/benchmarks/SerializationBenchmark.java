@@ -0,0 +1,46 @@
+package com.github.anno4j.benchmarks;
+
+import com.github.anno4j.model.Annotation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openrdf.rio.RDFFormat;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the serialization of single annotations with their bodies and targets through
+ * {@link com.github.anno4j.model.impl.ResourceObject#getTriples(RDFFormat)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+    @Param({"TURTLE", "NTRIPLES", "JSONLD"})
+    public String format;
+
+    private RDFFormat rdfFormat;
+
+    private List<Annotation> annotations;
+
+    private final Random random = new Random(42);
+
+    @Setup
+    public void setUp(AnnotationState state) throws Exception {
+        rdfFormat = RDFFormat.valueOf(format);
+        annotations = state.anno4j.findAll(Annotation.class);
+    }
+
+    @Benchmark
+    public String getTriples() {
+        return annotations.get(random.nextInt(annotations.size())).getTriples(rdfFormat);
+    }
+}
@@ -0,0 +1,29 @@
+package com.github.anno4j.benchmarks;
+
+import com.github.anno4j.Anno4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the start of Anno4j, which scans the classpath for concepts and behaviours and composes the role
+ * mapper. Every fork measures the first start in a fresh JVM.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+public class StartupBenchmark {
+
+    @Benchmark
+    public Anno4j coldStart() throws Exception {
+        return new Anno4j();
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.anno4j.benchmarks;
+
+import com.github.anno4j.io.WebAnnotationParser;
+import com.github.anno4j.io.WebAnnotationWriter;
+import com.github.anno4j.model.Annotation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFParser;
+import org.openrdf.rio.helpers.StatementCollector;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the streaming W3C Web Annotation JSON-LD support: writing single annotations, and parsing a page of
+ * 100 annotations written by the {@link WebAnnotationWriter}. The generic JSON-LD writer behind
+ * {@link Annotation#getTriples(RDFFormat)} is measured by the {@link SerializationBenchmark}. The generic parser is
+ * left out, as it loads the remote context of the annotations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class WebAnnotationBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    private List<Annotation> annotations;
+
+    private byte[] page;
+
+    private final Random random = new Random(42);
+
+    @Setup
+    public void setUp(AnnotationState state) throws Exception {
+        annotations = state.anno4j.findAll(Annotation.class);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (WebAnnotationWriter writer = new WebAnnotationWriter(out)) {
+            writer.startArray();
+            for (int i = 0; i < PAGE_SIZE && i < annotations.size(); i++) {
+                writer.write(annotations.get(i));
+            }
+            writer.endArray();
+        }
+        page = out.toByteArray();
+    }
+
+    @Benchmark
+    public String write() throws Exception {
+        StringWriter out = new StringWriter();
+        try (WebAnnotationWriter writer = new WebAnnotationWriter(out)) {
+            writer.write(annotations.get(random.nextInt(annotations.size())));
+        }
+        return out.toString();
+    }
+
+    @Benchmark
+    public StatementCollector parse() throws Exception {
+        RDFParser parser = new WebAnnotationParser();
+        StatementCollector collector = new StatementCollector();
+        parser.setRDFHandler(collector);
+        parser.parse(new ByteArrayInputStream(page), "http://example.org/");
+        return collector;
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.anno4j.benchmarks;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.namespaces.OADM;
+import eu.mico.platform.anno4j.model.namespaces.MICO;
+import org.junit.Test;
+import org.openrdf.rio.RDFFormat;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the shape and the determinism of the synthetic data set.
+ */
+public class DataGeneratorTest {
+
+    @Test
+    public void testLoad() throws Exception {
+        DataGenerator generator = new DataGenerator(250);
+        Anno4j anno4j = new Anno4j();
+        generator.load(anno4j);
+
+        assertEquals(250, anno4j.findAll(Annotation.class).size());
+        assertEquals(3, generator.getItemCount());
+
+        List<Annotation> annotations = anno4j.createQueryService()
+                .addPrefix(OADM.PREFIX, OADM.NS)
+                .addPrefix(MICO.PREFIX, MICO.NS)
+                .addCriteria("^mico:hasContent/^mico:hasContentPart", DataGenerator.itemId(2))
+                .execute();
+        assertEquals(50, annotations.size());
+
+        annotations = anno4j.createQueryService()
+                .addPrefix(OADM.PREFIX, OADM.NS)
+                .addCriteria("oa:hasTarget/oa:hasSelector/rdf:value", generator.selectorValue(7))
+                .execute();
+        assertTrue(annotations.contains(anno4j.findByID(Annotation.class, DataGenerator.annotationId(7))));
+    }
+
+    @Test
+    public void testDeterminism() throws Exception {
+        assertEquals(new DataGenerator(20).serialize(RDFFormat.NTRIPLES), new DataGenerator(20).serialize(RDFFormat.NTRIPLES));
+        // The annotations of a smaller data set are the same in a larger one
+        assertTrue(new DataGenerator(40).serialize(RDFFormat.NTRIPLES).contains(new DataGenerator(20).serialize(RDFFormat.NTRIPLES)));
+    }
+}
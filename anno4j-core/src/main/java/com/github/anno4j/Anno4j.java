@@ -3,10 +3,18 @@ package com.github.anno4j;
 import com.github.anno4j.annotations.Evaluator;
 import com.github.anno4j.annotations.Partial;
 import com.github.anno4j.model.impl.ResourceObject;
+import com.github.anno4j.querying.QueryFuture;
 import com.github.anno4j.querying.QueryService;
+import com.github.anno4j.querying.ClosureIndex;
+import com.github.anno4j.querying.QueryResultCache;
+import com.github.anno4j.querying.QueryStatistics;
+import com.github.anno4j.querying.SlowQueryLog;
 import com.github.anno4j.querying.evaluation.LDPathEvaluatorConfiguration;
 import com.github.anno4j.querying.extension.QueryEvaluator;
 import com.github.anno4j.querying.extension.TestEvaluator;
+import com.github.anno4j.querying.standing.StandingQueryManager;
+import com.github.anno4j.replication.ReplicatedRepository;
+import com.github.anno4j.sail.AnnotationStore;
 import org.apache.commons.lang3.ClassUtils;
 import org.apache.http.annotation.NotThreadSafe;
 import org.apache.marmotta.ldpath.api.functions.SelectorFunction;
@@ -20,6 +28,7 @@ import org.openrdf.model.URI;
 import org.openrdf.repository.Repository;
 import org.openrdf.repository.RepositoryException;
 import org.openrdf.repository.config.RepositoryConfigException;
+import org.openrdf.repository.event.base.NotifyingRepositoryWrapper;
 import org.openrdf.repository.object.ObjectConnection;
 import org.openrdf.repository.object.ObjectRepository;
 import org.openrdf.repository.object.config.ObjectRepositoryConfig;
@@ -35,8 +44,10 @@ import org.reflections.util.FilterBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
 
 
 /**
@@ -71,6 +82,36 @@ public class Anno4j implements TransactionCommands {
      */
     private LDPathEvaluatorConfiguration evaluatorConfiguration = new LDPathEvaluatorConfiguration();
 
+    /**
+     * Estimated cardinalities of the repository, kept up to date by listening to the connections of the object repository.
+     */
+    private QueryStatistics queryStatistics;
+
+    /**
+     * Materialized closures of transitive predicates, used by recursive LDPath selectors.
+     */
+    private ClosureIndex closureIndex;
+
+    /**
+     * Executor of the asynchronous calls and queries.
+     */
+    private ExecutorService executor = QueryFuture.getDefaultExecutor();
+
+    /**
+     * Log of the slow queries of the QueryServices, or null.
+     */
+    private SlowQueryLog slowQueryLog;
+
+    /**
+     * Cache of the results of the QueryServices, disabled by default.
+     */
+    private QueryResultCache queryResultCache;
+
+    /**
+     * Standing queries, evaluated after the commits of the ObjectRepository.
+     */
+    private StandingQueryManager standingQueryManager;
+
     /**
      * Stores alls partial implementations of the defined interfaces, such as the ResourceObject or the
      * Annotation interface.
@@ -138,6 +179,40 @@ public class Anno4j implements TransactionCommands {
         this.setRepository(repository);
     }
     
+    /**
+     * Creates an Anno4j instance backed by an in-process {@link AnnotationStore} instead of a MemoryStore, which
+     * needs considerably less memory per annotation.
+     *
+     * @return Anno4j using a new AnnotationStore
+     */
+    public static Anno4j createWithAnnotationStore() throws RepositoryException, RepositoryConfigException {
+        return new Anno4j(new SailRepository(new AnnotationStore()));
+    }
+
+    /**
+     * Creates an Anno4j instance backed by an in-process {@link AnnotationStore}, which is read from and written to a
+     * snapshot file in the given directory.
+     *
+     * @param dataDir Directory of the snapshot file
+     * @param offHeap Whether the values are stored outside of the heap
+     * @return Anno4j using a new AnnotationStore
+     */
+    public static Anno4j createWithAnnotationStore(File dataDir, boolean offHeap) throws RepositoryException, RepositoryConfigException {
+        return new Anno4j(new SailRepository(new AnnotationStore(dataDir, offHeap)));
+    }
+
+    /**
+     * Creates an Anno4j instance writing to the primary repository and reading from the replicas, to which the
+     * committed changes are shipped. See {@link ReplicatedRepository}.
+     *
+     * @param primary  The repository all writes go to
+     * @param replicas The repositories the reads are balanced across, for example in-process MemoryStores
+     * @return Anno4j using a new ReplicatedRepository
+     */
+    public static Anno4j createReplicated(Repository primary, Repository... replicas) throws RepositoryException, RepositoryConfigException {
+        return new Anno4j(new ReplicatedRepository(primary, replicas));
+    }
+
     private void scanForEvaluators(Reflections annotatedClasses) {
         Set<Class<?>> defaultEvaluatorAnnotations = annotatedClasses.getTypesAnnotatedWith(Evaluator.class, true);
 
@@ -216,6 +291,22 @@ public class Anno4j implements TransactionCommands {
         transaction.persist(resource);
     }
 
+    /**
+     * Writes the resource object on the executor of Anno4j.
+     *
+     * @param resource resource object to write to the SPARQL endpoint
+     * @return the pending write
+     */
+    public QueryFuture<Void> persistAsync(final ResourceObject resource) {
+        return submit(new QueryFuture.Task<Void>() {
+            @Override
+            public Void call() throws Exception {
+                persist(resource);
+                return null;
+            }
+        });
+    }
+
     /**
      * {@inheritDoc }
      */
@@ -284,6 +375,43 @@ public class Anno4j implements TransactionCommands {
         return transaction.findAll(type);
     }
 
+    /**
+     * Reads the object of the given type and id on the executor of Anno4j.
+     *
+     * @param type Type of the object
+     * @param id   Id of the object
+     * @return the pending object
+     */
+    public <T extends ResourceObject> QueryFuture<T> findByIDAsync(final Class<T> type, final String id) {
+        return submit(new QueryFuture.Task<T>() {
+            @Override
+            public T call() throws Exception {
+                return findByID(type, id);
+            }
+        });
+    }
+
+    /**
+     * Reads all objects of the given type on the executor of Anno4j.
+     *
+     * @param type Type of the objects
+     * @return the pending objects
+     */
+    public <T extends ResourceObject> QueryFuture<List<T>> findAllAsync(final Class<T> type) {
+        return submit(new QueryFuture.Task<List<T>>() {
+            @Override
+            public List<T> call() throws Exception {
+                return findAll(type);
+            }
+        });
+    }
+
+    private <V> QueryFuture<V> submit(QueryFuture.Task<V> task) {
+        QueryFuture<V> future = new QueryFuture<>(task);
+        executor.execute(future);
+        return future;
+    }
+
     /**
      * {@inheritDoc }
      */
@@ -331,7 +459,11 @@ public class Anno4j implements TransactionCommands {
             transaction.setAllContexts(defaultContext);
         }
 
-        return transaction.createQueryService();
+        QueryService queryService = transaction.createQueryService();
+        queryService.setExecutor(executor);
+        queryService.setSlowQueryLog(slowQueryLog);
+        queryService.setResultCache(queryResultCache);
+        return queryService;
     }
 
     /**
@@ -343,7 +475,11 @@ public class Anno4j implements TransactionCommands {
     public QueryService createQueryService(URI context) throws RepositoryException {
         Transaction transaction = createTransaction();
         transaction.setAllContexts(context);
-        return transaction.createQueryService();
+        QueryService queryService = transaction.createQueryService();
+        queryService.setExecutor(executor);
+        queryService.setSlowQueryLog(slowQueryLog);
+        queryService.setResultCache(queryResultCache);
+        return queryService;
     }
 
     /**
@@ -375,7 +511,41 @@ public class Anno4j implements TransactionCommands {
             }
         }
 
-        this.objectRepository = new ObjectRepositoryFactory().createRepository(config, repository);
+        // Writes through the object repository are counted by the statistics for the join order of queries
+        this.queryStatistics = new QueryStatistics(repository);
+        NotifyingRepositoryWrapper notifyingRepository = new NotifyingRepositoryWrapper(repository);
+        // The listeners are told the statements actually added and removed, removals by pattern and clears included
+        notifyingRepository.setDefaultReportDeltas(true);
+        notifyingRepository.addRepositoryConnectionListener(queryStatistics);
+
+        // Predicates designated for the closure index are indexed in the new repository as well
+        ClosureIndex previousIndex = this.closureIndex;
+        this.closureIndex = new ClosureIndex(notifyingRepository);
+        notifyingRepository.addRepositoryConnectionListener(closureIndex);
+        evaluatorConfiguration.setClosureIndex(closureIndex);
+        if (previousIndex != null) {
+            for (URI predicate : previousIndex.getPredicates()) {
+                closureIndex.addPredicate(predicate);
+            }
+        }
+
+        // Cached query results are invalidated by the commits of the new repository, with the same settings
+        if (queryResultCache == null) {
+            queryResultCache = new QueryResultCache();
+        } else {
+            queryResultCache.clear();
+        }
+        notifyingRepository.addRepositoryConnectionListener(queryResultCache);
+
+        // Standing queries are evaluated against the new repository, telling their listeners the differences
+        if (standingQueryManager == null) {
+            standingQueryManager = new StandingQueryManager(notifyingRepository);
+        } else {
+            standingQueryManager.setRepository(notifyingRepository);
+        }
+        notifyingRepository.addRepositoryConnectionListener(standingQueryManager);
+
+        this.objectRepository = new ObjectRepositoryFactory().createRepository(config, notifyingRepository);
         this.objectRepository.setIdGenerator(idGenerator);
     }
 
@@ -401,7 +571,73 @@ public class Anno4j implements TransactionCommands {
         return defaultContext;
     }
 
+    /**
+     * Getter for the estimated cardinalities of the repository, which order the joins of the QueryService.
+     *
+     * @return the statistics of the configured repository.
+     */
+    public QueryStatistics getQueryStatistics() {
+        return queryStatistics;
+    }
+
+    /**
+     * Getter for the closure index. Designate transitive predicates with {@link ClosureIndex#addPredicate(URI)},
+     * so recursive LDPath selectors over them match the materialized closure.
+     *
+     * @return the closure index of the configured repository.
+     */
+    public ClosureIndex getClosureIndex() {
+        return closureIndex;
+    }
+
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets the executor of the asynchronous calls and of the QueryServices created afterwards.
+     * It should be bounded, as every pending call holds a connection once it runs.
+     *
+     * @param executor The executor of asynchronous calls
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Getter for the cache of query results. It is disabled until {@link QueryResultCache#setEnabled(boolean)}
+     * is called and applies to the QueryServices created by Anno4j.
+     *
+     * @return the cache of the results of object queries.
+     */
+    public QueryResultCache getQueryResultCache() {
+        return queryResultCache;
+    }
+
+    /**
+     * Getter for the standing queries. A standing query is registered with the criteria of a QueryService and
+     * notifies its listeners whenever a commit through Anno4j changes its matches.
+     *
+     * @return the manager of the standing queries.
+     */
+    public StandingQueryManager getStandingQueryManager() {
+        return standingQueryManager;
+    }
+
+    public SlowQueryLog getSlowQueryLog() {
+        return slowQueryLog;
+    }
+
+    /**
+     * Sets the log of slow queries of the QueryServices created afterwards.
+     *
+     * @param slowQueryLog The log of slow queries, or null to disable it
+     */
+    public void setSlowQueryLog(SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
     public Transaction createTransaction() throws RepositoryException {
-        return new Transaction(objectRepository, evaluatorConfiguration);
+        return new Transaction(objectRepository, evaluatorConfiguration, queryStatistics);
     }
 }
\ No newline at end of file
@@ -2,7 +2,10 @@ package com.github.anno4j;
 
 import com.github.anno4j.model.impl.ResourceObject;
 import com.github.anno4j.querying.QueryService;
+import com.github.anno4j.querying.QueryStatistics;
 import com.github.anno4j.querying.evaluation.LDPathEvaluatorConfiguration;
+import com.github.anno4j.replication.ReplicatedRepository;
+import com.github.anno4j.replication.ReplicatedRepositoryConnection;
 import org.openrdf.idGenerator.IDGenerator;
 import org.openrdf.model.Resource;
 import org.openrdf.model.URI;
@@ -22,10 +25,16 @@ public class Transaction implements TransactionCommands {
 
     private final ObjectConnection connection;
     private final LDPathEvaluatorConfiguration evaluatorConfiguration;
+    private final QueryStatistics statistics;
 
     public Transaction(ObjectRepository objectRepository, LDPathEvaluatorConfiguration evaluatorConfiguration) throws RepositoryException {
+        this(objectRepository, evaluatorConfiguration, null);
+    }
+
+    public Transaction(ObjectRepository objectRepository, LDPathEvaluatorConfiguration evaluatorConfiguration, QueryStatistics statistics) throws RepositoryException {
         this.connection = objectRepository.getConnection();
         this.evaluatorConfiguration = evaluatorConfiguration;
+        this.statistics = statistics;
     }
 
     /**
@@ -43,8 +52,61 @@ public class Transaction implements TransactionCommands {
     }
 
     /**
-     * Commits the active transaction. This operation ends the active
-     * transaction.
+     * Sets whether the reads of this transaction see its own writes, if the repository of Anno4j is a
+     * {@link ReplicatedRepository}. Otherwise they may be read from a replica which has not applied them yet.
+     * Reads of other repositories always see the writes of the transaction.
+     *
+     * @param readYourWrites <code>true</code> to read the own writes, which is the default
+     */
+    public void setReadYourWrites(boolean readYourWrites) throws RepositoryException {
+        ReplicatedRepositoryConnection replicated = ReplicatedRepositoryConnection.find(connection);
+        if (replicated != null) {
+            replicated.setReadYourWrites(readYourWrites);
+        }
+    }
+
+    /**
+     * @return <code>true</code> iff the reads of this transaction see its own writes.
+     */
+    public boolean isReadYourWrites() throws RepositoryException {
+        ReplicatedRepositoryConnection replicated = ReplicatedRepositoryConnection.find(connection);
+        return replicated == null || replicated.isReadYourWrites();
+    }
+
+    /**
+     * Starts a unit of work. Setters of objects of this transaction only record their changes then,
+     * which are visible to getters of these objects, but not to queries. {@link #flush()} or
+     * {@link #commit()} write the net changes at once, {@link #rollback()} discards them.
+     */
+    public void beginUnitOfWork() {
+        connection.beginUnitOfWork();
+    }
+
+    /**
+     * Writes the changes of the unit of work and ends it.
+     */
+    public void endUnitOfWork() throws RepositoryException {
+        connection.endUnitOfWork();
+    }
+
+    /**
+     * @return <code>true</code> iff a unit of work was started and not ended yet.
+     */
+    public boolean isUnitOfWork() {
+        return connection.isUnitOfWork();
+    }
+
+    /**
+     * Writes the changes recorded by the unit of work so far as one batch of statements.
+     * Values which were cleared and set again to what is stored are not written at all.
+     */
+    public void flush() throws RepositoryException {
+        connection.flush();
+    }
+
+    /**
+     * Commits the active transaction, including the changes of a unit of work.
+     * This operation ends the active transaction.
      */
     public void commit() throws RepositoryException {
         connection.commit();
@@ -184,7 +246,7 @@ public class Transaction implements TransactionCommands {
      */
     @Override
     public QueryService createQueryService() {
-        return new QueryService(connection, evaluatorConfiguration);
+        return new QueryService(connection, evaluatorConfiguration, statistics);
     }
 
     /**
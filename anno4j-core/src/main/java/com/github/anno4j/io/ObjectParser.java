@@ -4,6 +4,7 @@ import com.github.anno4j.Anno4j;
 import com.github.anno4j.model.Annotation;
 import com.github.anno4j.model.namespaces.OADM;
 import com.github.anno4j.model.namespaces.RDF;
+import org.openrdf.model.Resource;
 import org.openrdf.model.Statement;
 import org.openrdf.model.impl.StatementImpl;
 import org.openrdf.model.impl.URIImpl;
@@ -11,18 +12,23 @@ import org.openrdf.query.QueryEvaluationException;
 import org.openrdf.repository.RepositoryConnection;
 import org.openrdf.repository.RepositoryException;
 import org.openrdf.repository.config.RepositoryConfigException;
+import org.openrdf.repository.object.ObjectConnection;
 import org.openrdf.rio.*;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * ObjectParser class to parse annotations from different serializations, e.g.
- * JSONLD, Turtle, ... A parsed Annotation object is ONLY PERSISTED in the LOCAL Anno4j instance.
+ * JSONLD, Turtle, ... A parsed Annotation object is ONLY PERSISTED in the LOCAL Anno4j instance,
+ * a new one unless the instance is passed to the constructor.
+ * JSONLD is parsed by the {@link WebAnnotationParser}.
  */
 public class ObjectParser {
 
@@ -30,6 +36,11 @@ public class ObjectParser {
 
     private final URIImpl[] motivations;
 
+    /**
+     * The annotations parsed with this ObjectParser.
+     */
+    private final Set<Resource> annotations = new LinkedHashSet<>();
+
     /**
      * Basic constructor, which sets up all the necessary repositories.
      *
@@ -37,7 +48,17 @@ public class ObjectParser {
      * @throws RepositoryConfigException
      */
     public ObjectParser() throws RepositoryException, RepositoryConfigException {
-        this.anno4j = new Anno4j();
+        this(new Anno4j());
+    }
+
+    /**
+     * Constructor parsing into an existing Anno4j instance, which saves setting up a new one per parser.
+     *
+     * @param anno4j The Anno4j instance the parsed annotations are persisted in.
+     * @throws RepositoryException
+     */
+    public ObjectParser(Anno4j anno4j) throws RepositoryException {
+        this.anno4j = anno4j;
         this.motivations = new URIImpl[] {
                 new URIImpl(OADM.MOTIVATION_BOOKMARKING),
                 new URIImpl(OADM.MOTIVATION_CLASSIFYING),
@@ -56,9 +77,13 @@ public class ObjectParser {
         URIImpl obj = new URIImpl(OADM.MOTIVATION);
         URIImpl pre = new URIImpl(RDF.TYPE);
 
-        for (URIImpl sub : motivations) {
-            StatementImpl statement = new StatementImpl(sub, pre, obj);
-            anno4j.getRepository().getConnection().add(statement);
+        RepositoryConnection connection = anno4j.getRepository().getConnection();
+        try {
+            for (URIImpl sub : motivations) {
+                connection.add(new StatementImpl(sub, pre, obj));
+            }
+        } finally {
+            connection.close();
         }
     }
 
@@ -86,7 +111,10 @@ public class ObjectParser {
         List<Annotation> results = new LinkedList<>();
 
         try {
-            results = anno4j.getObjectRepository().getConnection().getObjects(Annotation.class).asList();
+            ObjectConnection connection = anno4j.getObjectRepository().getConnection();
+            for (Resource annotation : annotations) {
+                results.add(connection.getObject(Annotation.class, annotation));
+            }
         } catch (QueryEvaluationException | RepositoryException e) {
             e.printStackTrace();
         }
@@ -105,13 +133,52 @@ public class ObjectParser {
      * @return A list of annotations
      */
     public List<Annotation> parse(String content, URL documentURL, RDFFormat format) {
-        RDFParser parser = Rio.createParser(format);
+        try (InputStream stream = new ByteArrayInputStream(content.getBytes("UTF-8"))) {
+            return parse(stream, documentURL, format);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return getAnnotations();
+    }
+
+    /**
+     * Used to parse a stream of content, supported in a given serialization
+     * format. The statements are added in a single transaction.
+     *
+     * @param stream The content in UTF-8.
+     * @param documentURL The basic URL used for namespaces.
+     * @param format The format of the given serialization. Needs to be
+     * supported of an instance of RDFFormat.
+     * @return A list of annotations
+     */
+    public List<Annotation> parse(InputStream stream, URL documentURL, RDFFormat format) {
+        RDFParser parser = RDFFormat.JSONLD.equals(format) ? new WebAnnotationParser() : Rio.createParser(format);
+        final Set<Resource> parsed = new LinkedHashSet<>();
+        final URIImpl type = new URIImpl(RDF.TYPE);
+        final URIImpl annotation = new URIImpl(OADM.ANNOTATION);
+
         try {
-            StatementSailHandler handler = new StatementSailHandler(this.anno4j.getRepository().getConnection());
-            parser.setRDFHandler(handler);
-            byte[] bytes = content.getBytes("UTF-8");
-            try (InputStream stream = new ByteArrayInputStream(bytes)) {
+            ObjectConnection connection = this.anno4j.getObjectRepository().getConnection();
+            try {
+                connection.begin();
+                parser.setRDFHandler(new StatementSailHandler(connection) {
+                    @Override
+                    public void handleStatement(Statement statement) {
+                        super.handleStatement(statement);
+                        if (type.equals(statement.getPredicate()) && annotation.equals(statement.getObject())) {
+                            parsed.add(statement.getSubject());
+                        }
+                    }
+                });
                 parser.parse(stream, documentURL.toString());
+                connection.commit();
+                annotations.addAll(parsed);
+            } finally {
+                if (connection.isActive()) {
+                    connection.rollback();
+                }
+                connection.close();
             }
         } catch (RDFHandlerException | RDFParseException | IOException | RepositoryException e) {
             e.printStackTrace();
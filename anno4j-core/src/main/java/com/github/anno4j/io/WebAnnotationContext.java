@@ -0,0 +1,303 @@
+package com.github.anno4j.io;
+
+import com.github.anno4j.model.namespaces.AS;
+import com.github.anno4j.model.namespaces.DC;
+import com.github.anno4j.model.namespaces.DCTERMS;
+import com.github.anno4j.model.namespaces.DCTYPES;
+import com.github.anno4j.model.namespaces.FOAF;
+import com.github.anno4j.model.namespaces.OADM;
+import com.github.anno4j.model.namespaces.RDF;
+import com.github.anno4j.model.namespaces.RDFS;
+import com.github.anno4j.model.namespaces.SCHEMA;
+import com.github.anno4j.model.namespaces.SKOS;
+import org.openrdf.model.URI;
+import org.openrdf.model.impl.URIImpl;
+import org.openrdf.model.vocabulary.OWL;
+import org.openrdf.model.vocabulary.XMLSchema;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * The terms of the W3C Web Annotation JSON-LD context (<a href="http://www.w3.org/ns/anno.jsonld">
+ * http://www.w3.org/ns/anno.jsonld</a>), used by the {@link WebAnnotationParser} and the
+ * {@link WebAnnotationWriter} to map JSON keys and values directly to statements.
+ * <br/><br/>
+ * Terms are mapped to the IRIs of the namespaces of Anno4j, so <i>audience</i> is <i>https://schema.org/audience</i>.
+ * Terms of the context without an equivalent in the model of Anno4j, like the list of <i>items</i>, are unknown
+ * and leave the annotation to generic JSON-LD processing.
+ */
+final class WebAnnotationContext {
+
+    /**
+     * The IRI of the W3C Web Annotation context
+     */
+    static final String IRI = "http://www.w3.org/ns/anno.jsonld";
+
+    /**
+     * How the values of a term are mapped to RDF.
+     */
+    enum Kind {
+        /**
+         * IRIs or blank node identifiers
+         */
+        ID,
+        /**
+         * Names of the vocabulary, like motivations, or IRIs
+         */
+        VOCAB,
+        /**
+         * Plain literals
+         */
+        LITERAL,
+        /**
+         * Dates, typed as xsd:dateTime by the context but kept as plain literals, as the model of Anno4j reads
+         * them as strings
+         */
+        DATE,
+        /**
+         * Integers, stored as xsd:long like the numbers of the model of Anno4j
+         */
+        NUMBER
+    }
+
+    /**
+     * A term of the context with the predicate it stands for.
+     */
+    static final class Term {
+
+        final String name;
+
+        final URI predicate;
+
+        final Kind kind;
+
+        private Term(String name, URI predicate, Kind kind) {
+            this.name = name;
+            this.predicate = predicate;
+            this.kind = kind;
+        }
+    }
+
+    private static final Pattern SCHEME = Pattern.compile("^[a-zA-Z][a-zA-Z0-9+.-]*:.*");
+
+    private static final Map<String, Term> TERMS = new HashMap<>();
+
+    private static final Map<URI, Term> PREDICATES = new HashMap<>();
+
+    private static final Map<String, URI> TYPES = new HashMap<>();
+
+    private static final Map<URI, String> TYPE_NAMES = new HashMap<>();
+
+    private static final Map<String, URI> VOCABULARY = new HashMap<>();
+
+    private static final Map<URI, String> VOCABULARY_NAMES = new HashMap<>();
+
+    private static final Map<String, String> PREFIXES = new HashMap<>();
+
+    static {
+        PREFIXES.put("oa", OADM.NS);
+        PREFIXES.put("dc", DC.NS);
+        PREFIXES.put("dcterms", DCTERMS.NS);
+        PREFIXES.put("dctypes", DCTYPES.NS);
+        PREFIXES.put("foaf", FOAF.NS);
+        PREFIXES.put("rdf", RDF.NS);
+        PREFIXES.put("rdfs", RDFS.NS);
+        PREFIXES.put("skos", SKOS.NS);
+        PREFIXES.put("xsd", XMLSchema.NAMESPACE);
+        PREFIXES.put("owl", OWL.NAMESPACE);
+        PREFIXES.put("as", AS.NS);
+        PREFIXES.put("schema", "http://schema.org/");
+        PREFIXES.put("iana", "http://www.iana.org/assignments/relation/");
+
+        term("body", OADM.HAS_BODY, Kind.ID);
+        term("target", OADM.HAS_TARGET, Kind.ID);
+        term("bodyValue", OADM.NS + "bodyValue", Kind.LITERAL);
+        term("source", OADM.HAS_SOURCE, Kind.ID);
+        term("selector", OADM.HAS_SELECTOR, Kind.ID);
+        term("state", OADM.HAS_STATE, Kind.ID);
+        term("scope", OADM.HAS_SCOPE, Kind.ID);
+        term("refinedBy", OADM.REFINED_BY, Kind.ID);
+        term("startSelector", OADM.HAS_START_SELECTOR, Kind.ID);
+        term("endSelector", OADM.HAS_END_SELECTOR, Kind.ID);
+        term("renderedVia", OADM.RENDERED_VIA, Kind.ID);
+        term("motivation", OADM.MOTIVATED_BY, Kind.VOCAB);
+        term("purpose", OADM.HAS_PURPOSE, Kind.VOCAB);
+        term("stylesheet", OADM.STYLED_BY, Kind.ID);
+        term("styleClass", OADM.STYLE_CLASS, Kind.LITERAL);
+        term("cached", OADM.CACHED_SOURCE, Kind.ID);
+        term("canonical", OADM.CANONICAL, Kind.ID);
+        term("via", OADM.VIA, Kind.ID);
+        term("sourceDate", OADM.SOURCE_DATE, Kind.DATE);
+        term("sourceDateStart", OADM.SOURCE_DATE_START, Kind.DATE);
+        term("sourceDateEnd", OADM.SOURCE_DATE_END, Kind.DATE);
+        term("processingLanguage", OADM.PROCESSING_LANGUAGE, Kind.LITERAL);
+        term("textDirection", OADM.TEXT_DIRECTION, Kind.VOCAB);
+        term("exact", OADM.EXACT, Kind.LITERAL);
+        term("prefix", OADM.PREFIX_TEXT, Kind.LITERAL);
+        term("suffix", OADM.SUFFIX, Kind.LITERAL);
+        term("start", OADM.START, Kind.NUMBER);
+        term("end", OADM.END, Kind.NUMBER);
+        term("value", RDF.VALUE, Kind.LITERAL);
+        term("label", RDFS.LABEL, Kind.LITERAL);
+        term("format", DC.FORMAT, Kind.LITERAL);
+        term("language", DC.LANGUAGE, Kind.LITERAL);
+        term("conformsTo", DCTERMS.CONFORMS_TO, Kind.ID);
+        term("creator", DCTERMS.CREATOR, Kind.ID);
+        term("created", DCTERMS.CREATED, Kind.DATE);
+        term("modified", DCTERMS.MODIFIED, Kind.DATE);
+        term("generated", DCTERMS.ISSUED, Kind.DATE);
+        term("rights", DCTERMS.RIGHTS, Kind.ID);
+        term("generator", AS.GENERATOR, Kind.ID);
+        term("first", AS.FIRST, Kind.ID);
+        term("last", AS.LAST, Kind.ID);
+        term("next", AS.NEXT, Kind.ID);
+        term("prev", AS.PREV, Kind.ID);
+        term("partOf", AS.PART_OF, Kind.ID);
+        term("startIndex", AS.START_INDEX, Kind.NUMBER);
+        term("name", FOAF.NAME, Kind.LITERAL);
+        term("nickname", FOAF.NICK, Kind.LITERAL);
+        term("email", FOAF.MBOX, Kind.ID);
+        term("email_sha1", FOAF.NS + "mbox_sha1sum", Kind.LITERAL);
+        term("homepage", FOAF.HOMEPAGE, Kind.ID);
+        term("audience", SCHEMA.AUDIENCE_RELATIONSHIP, Kind.ID);
+
+        type("Annotation", OADM.ANNOTATION);
+        type("TextualBody", OADM.TEXTUAL_BODY);
+        type("SpecificResource", OADM.SPECIFIC_RESOURCE);
+        type("ResourceSelection", OADM.RESOURCE_SELECTION);
+        type("Choice", OADM.CHOICE);
+        type("FragmentSelector", OADM.FRAGMENT_SELECTOR);
+        type("CssSelector", OADM.CSS_SELECTOR);
+        type("XPathSelector", OADM.XPATH_SELECTOR);
+        type("TextQuoteSelector", OADM.TEXT_QUOTE_SELECTOR);
+        type("TextPositionSelector", OADM.TEXT_POSITION_SELECTOR);
+        type("DataPositionSelector", OADM.DATA_POSITION_SELECTOR);
+        type("SvgSelector", OADM.SVG_SELECTOR);
+        type("RangeSelector", OADM.RANGE_SELECTOR);
+        type("HttpRequestState", OADM.HTTP_REQUEST_STATE);
+        type("TimeState", OADM.TIME_STATE);
+        type("CssStylesheet", OADM.CSS_STYLE);
+        type("Motivation", OADM.MOTIVATION);
+        type("Dataset", DCTYPES.DATASET);
+        type("Image", DCTYPES.STILL_IMAGE);
+        type("Video", DCTYPES.MOVING_IMAGE);
+        type("Sound", DCTYPES.SOUND);
+        type("Text", DCTYPES.TEXT);
+        type("Person", FOAF.PERSON);
+        type("Organization", FOAF.ORGANIZATION);
+        type("Software", AS.APPLICATION);
+        type("Audience", SCHEMA.AUDIENCE_CLASS);
+        type("AnnotationCollection", AS.ORDERED_COLLECTION);
+        type("AnnotationPage", AS.ORDERED_COLLECTION_PAGE);
+
+        vocabulary("assessing", OADM.MOTIVATION_ASSESSING);
+        vocabulary("bookmarking", OADM.MOTIVATION_BOOKMARKING);
+        vocabulary("classifying", OADM.MOTIVATION_CLASSIFYING);
+        vocabulary("commenting", OADM.MOTIVATION_COMMENTING);
+        vocabulary("describing", OADM.MOTIVATION_DESCRIBING);
+        vocabulary("editing", OADM.MOTIVATION_EDITING);
+        vocabulary("highlighting", OADM.MOTIVATION_HIGHLIGHTING);
+        vocabulary("identifying", OADM.MOTIVATION_IDENTIFYING);
+        vocabulary("linking", OADM.MOTIVATION_LINKING);
+        vocabulary("moderating", OADM.MOTIVATION_MODERATING);
+        vocabulary("questioning", OADM.MOTIVATION_QUESTIONING);
+        vocabulary("replying", OADM.MOTIVATION_REPLYING);
+        vocabulary("tagging", OADM.MOTIVATION_TAGGING);
+        vocabulary("ltr", OADM.LEFT_TO_RIGHT_DIRECTION);
+        vocabulary("rtl", OADM.RIGHT_TO_LEFT_DIRECTION);
+        vocabulary("auto", OADM.AUTO_DIRECTION);
+    }
+
+    private WebAnnotationContext() {
+    }
+
+    private static void term(String name, String predicate, Kind kind) {
+        Term term = new Term(name, new URIImpl(predicate), kind);
+        TERMS.put(name, term);
+        PREDICATES.put(term.predicate, term);
+    }
+
+    private static void type(String name, String iri) {
+        URI uri = new URIImpl(iri);
+        TYPES.put(name, uri);
+        TYPE_NAMES.put(uri, name);
+    }
+
+    private static void vocabulary(String name, String iri) {
+        URI uri = new URIImpl(iri);
+        VOCABULARY.put(name, uri);
+        VOCABULARY_NAMES.put(uri, name);
+    }
+
+    /**
+     * @return whether the value of <i>@context</i> is the W3C Web Annotation context alone.
+     */
+    static boolean isContext(Object context) {
+        if (context instanceof List) {
+            List<?> contexts = (List<?>) context;
+            return contexts.size() == 1 && IRI.equals(contexts.get(0));
+        }
+        return IRI.equals(context);
+    }
+
+    /**
+     * @return the term of the given name, or null if it is not known.
+     */
+    static Term getTerm(String name) {
+        return TERMS.get(name);
+    }
+
+    /**
+     * @return the term standing for the predicate, or null if there is none.
+     */
+    static Term getTerm(URI predicate) {
+        return PREDICATES.get(predicate);
+    }
+
+    /**
+     * @return the IRI of the type of the given name, or null if it is not known.
+     */
+    static URI getType(String name) {
+        return TYPES.get(name);
+    }
+
+    /**
+     * @return the name of the type, or null if it has none.
+     */
+    static String getTypeName(URI type) {
+        return TYPE_NAMES.get(type);
+    }
+
+    /**
+     * @return the IRI of the vocabulary name, like a motivation, or null if it is not known.
+     */
+    static URI getVocabulary(String name) {
+        return VOCABULARY.get(name);
+    }
+
+    /**
+     * @return the vocabulary name of the IRI, or null if it has none.
+     */
+    static String getVocabularyName(URI iri) {
+        return VOCABULARY_NAMES.get(iri);
+    }
+
+    /**
+     * Expands a compact IRI with a prefix of the context.
+     *
+     * @return the absolute IRI, or null if the value is relative or a term.
+     */
+    static String expand(String value) {
+        int colon = value.indexOf(':');
+        if (colon > 0) {
+            String prefix = PREFIXES.get(value.substring(0, colon));
+            if (prefix != null && !value.startsWith("//", colon + 1)) {
+                return prefix + value.substring(colon + 1);
+            }
+        }
+        return SCHEME.matcher(value).matches() ? value : null;
+    }
+}
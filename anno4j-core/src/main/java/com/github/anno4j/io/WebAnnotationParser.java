@@ -0,0 +1,393 @@
+package com.github.anno4j.io;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.github.anno4j.io.WebAnnotationContext.Kind;
+import com.github.anno4j.io.WebAnnotationContext.Term;
+import com.github.jsonldjava.core.JsonLdError;
+import com.github.jsonldjava.core.JsonLdOptions;
+import com.github.jsonldjava.core.JsonLdProcessor;
+import com.github.jsonldjava.sesame.SesameTripleCallback;
+import org.openrdf.model.BNode;
+import org.openrdf.model.Literal;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.model.vocabulary.XMLSchema;
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFHandlerException;
+import org.openrdf.rio.RDFParseException;
+import org.openrdf.rio.helpers.RDFHandlerBase;
+import org.openrdf.rio.helpers.RDFParserBase;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses annotations in the JSON-LD profile of the W3C Web Annotation Data Model, a single annotation or an array
+ * of annotations, each declaring the context <i>http://www.w3.org/ns/anno.jsonld</i>.
+ * <br/><br/>
+ * The annotations are read one after another from a streaming JSON parser, so arrays of any length are parsed
+ * in the memory of a single annotation. The terms of the context are mapped directly to statements, without
+ * loading the context or expanding the document. An annotation with another context, a term unknown to Anno4j or
+ * a JSON-LD keyword beyond <i>@context</i>, <i>@id</i>, <i>@type</i>, <i>@value</i> and <i>@language</i> is
+ * processed by the generic JSON-LD implementation instead.
+ * <br/><br/>
+ * Dates and numbers of the context's terms are stored as Anno4j stores them, as plain literals and xsd:long, so
+ * the parsed annotations are read by the objects of Anno4j as if they were created through it.
+ */
+public class WebAnnotationParser extends RDFParserBase {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private String baseURI;
+
+    public WebAnnotationParser() {
+        super();
+    }
+
+    /**
+     * @param valueFactory The factory of the parsed values
+     */
+    public WebAnnotationParser(ValueFactory valueFactory) {
+        super(valueFactory);
+    }
+
+    @Override
+    public RDFFormat getRDFFormat() {
+        return RDFFormat.JSONLD;
+    }
+
+    @Override
+    public void parse(InputStream in, String baseURI) throws IOException, RDFParseException, RDFHandlerException {
+        parse(JSON.createParser(in), baseURI);
+    }
+
+    @Override
+    public void parse(Reader reader, String baseURI) throws IOException, RDFParseException, RDFHandlerException {
+        parse(JSON.createParser(reader), baseURI);
+    }
+
+    private void parse(JsonParser json, String baseURI) throws IOException, RDFParseException, RDFHandlerException {
+        clear();
+        this.baseURI = baseURI;
+        setBaseURI(baseURI);
+        if (rdfHandler != null) {
+            rdfHandler.startRDF();
+        }
+
+        try {
+            JsonToken token = json.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                // Every annotation of the array is handled before the next one is read
+                while ((token = json.nextToken()) == JsonToken.START_OBJECT) {
+                    handleDocument(readObject(json));
+                }
+                if (token != JsonToken.END_ARRAY) {
+                    reportFatalError("Expected an annotation object, found " + token,
+                            json.getCurrentLocation().getLineNr(), json.getCurrentLocation().getColumnNr());
+                }
+            } else if (token == JsonToken.START_OBJECT) {
+                handleDocument(readObject(json));
+            } else if (token != null) {
+                reportFatalError("Expected an annotation object or an array of annotations, found " + token,
+                        json.getCurrentLocation().getLineNr(), json.getCurrentLocation().getColumnNr());
+            }
+        } catch (JsonProcessingException e) {
+            reportFatalError(e);
+        } finally {
+            json.close();
+            clear();
+        }
+
+        if (rdfHandler != null) {
+            rdfHandler.endRDF();
+        }
+    }
+
+    private Map<String, Object> readObject(JsonParser json) throws IOException {
+        Map<String, Object> object = new LinkedHashMap<>();
+        while (json.nextToken() == JsonToken.FIELD_NAME) {
+            String name = json.getCurrentName();
+            json.nextToken();
+            object.put(name, readValue(json));
+        }
+        return object;
+    }
+
+    private Object readValue(JsonParser json) throws IOException {
+        switch (json.getCurrentToken()) {
+            case START_OBJECT:
+                return readObject(json);
+            case START_ARRAY:
+                List<Object> array = new ArrayList<>();
+                while (json.nextToken() != JsonToken.END_ARRAY) {
+                    array.add(readValue(json));
+                }
+                return array;
+            case VALUE_STRING:
+                return json.getText();
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return json.getNumberValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return null;
+            default:
+                throw new JsonParseException("Unexpected token " + json.getCurrentToken(), json.getCurrentLocation());
+        }
+    }
+
+    /**
+     * Handles an annotation directly if it uses the known terms only, otherwise by generic JSON-LD processing.
+     */
+    private void handleDocument(Map<String, Object> document) throws RDFParseException, RDFHandlerException {
+        if (WebAnnotationContext.isContext(document.get("@context")) && isKnown(document, true)) {
+            handleNode(document);
+        } else {
+            handleGeneric(document);
+        }
+    }
+
+    /**
+     * @return whether the node and the nodes embedded in it can be mapped by the terms of the context.
+     */
+    private boolean isKnown(Map<String, Object> node, boolean root) {
+        for (Map.Entry<String, Object> entry : node.entrySet()) {
+            String key = entry.getKey();
+            if ("@context".equals(key)) {
+                if (!root) {
+                    return false;
+                }
+            } else if ("id".equals(key) || "@id".equals(key)) {
+                if (!(entry.getValue() instanceof String)) {
+                    return false;
+                }
+            } else if ("type".equals(key) || "@type".equals(key)) {
+                for (Object type : asList(entry.getValue())) {
+                    if (!(type instanceof String) || (WebAnnotationContext.getType((String) type) == null
+                            && WebAnnotationContext.expand((String) type) == null)) {
+                        return false;
+                    }
+                }
+            } else if (WebAnnotationContext.getTerm(key) == null && (key.startsWith("@") || WebAnnotationContext.expand(key) == null)) {
+                return false;
+            } else {
+                for (Object value : asList(entry.getValue())) {
+                    if (value instanceof List) {
+                        return false;
+                    }
+                    if (value instanceof Map && !isKnownValue((Map<String, Object>) value)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean isKnownValue(Map<String, Object> value) {
+        if (!value.containsKey("@value")) {
+            return isKnown(value, false);
+        }
+        for (String key : value.keySet()) {
+            if (!"@value".equals(key) && !"@type".equals(key) && !"@language".equals(key)) {
+                return false;
+            }
+        }
+        Object type = value.get("@type");
+        return type == null || (type instanceof String && WebAnnotationContext.expand((String) type) != null);
+    }
+
+    /**
+     * Creates the statements of the node and its embedded nodes.
+     *
+     * @return the subject of the node
+     */
+    private Resource handleNode(Map<String, Object> node) throws RDFParseException, RDFHandlerException {
+        Object id = node.containsKey("id") ? node.get("id") : node.get("@id");
+        Resource subject = id != null ? toResource((String) id) : createBNode();
+
+        for (Map.Entry<String, Object> entry : node.entrySet()) {
+            String key = entry.getKey();
+            if ("@context".equals(key) || "id".equals(key) || "@id".equals(key)) {
+                continue;
+            }
+            if ("type".equals(key) || "@type".equals(key)) {
+                for (Object type : asList(entry.getValue())) {
+                    URI known = WebAnnotationContext.getType((String) type);
+                    handle(subject, RDF.TYPE, known != null ? known : toURI((String) type));
+                }
+                continue;
+            }
+
+            Term term = WebAnnotationContext.getTerm(key);
+            URI predicate = term != null ? term.predicate : createURI(WebAnnotationContext.expand(key));
+            for (Object value : asList(entry.getValue())) {
+                handle(subject, predicate, toValue(term, value));
+            }
+        }
+        return subject;
+    }
+
+    private Value toValue(Term term, Object value) throws RDFParseException, RDFHandlerException {
+        Kind kind = term != null ? term.kind : null;
+        if (value instanceof Map) {
+            Map<String, Object> map = (Map<String, Object>) value;
+            if (!map.containsKey("@value")) {
+                return handleNode(map);
+            }
+            Object label = map.get("@value");
+            String type = (String) map.get("@type");
+            if (type != null) {
+                return createLiteral(String.valueOf(label), null, toURI(type));
+            }
+            if (label instanceof String) {
+                return createLiteral((String) label, (String) map.get("@language"), null);
+            }
+            return toLiteral(null, label);
+        }
+        if (value instanceof String) {
+            String string = (String) value;
+            if (kind == Kind.ID) {
+                return toResource(string);
+            }
+            if (kind == Kind.VOCAB) {
+                URI known = WebAnnotationContext.getVocabulary(string);
+                return known != null ? known : toResource(string);
+            }
+            return createLiteral(string, null, null);
+        }
+        return toLiteral(kind, value);
+    }
+
+    private Literal toLiteral(Kind kind, Object value) throws RDFParseException {
+        if (value instanceof Boolean) {
+            return createLiteral(value.toString(), null, XMLSchema.BOOLEAN);
+        }
+        if (value instanceof BigDecimal || value instanceof Double || value instanceof Float) {
+            return createLiteral(value.toString(), null, XMLSchema.DOUBLE);
+        }
+        if (kind == Kind.NUMBER && !(value instanceof BigInteger)) {
+            return createLiteral(value.toString(), null, XMLSchema.LONG);
+        }
+        return createLiteral(value.toString(), null, XMLSchema.INTEGER);
+    }
+
+    private Resource toResource(String id) throws RDFParseException {
+        if (id.startsWith("_:")) {
+            return createBNode(id.substring(2));
+        }
+        return toURI(id);
+    }
+
+    private URI toURI(String iri) throws RDFParseException {
+        String expanded = WebAnnotationContext.expand(iri);
+        return expanded != null ? createURI(expanded) : resolveURI(iri);
+    }
+
+    private void handle(Resource subject, URI predicate, Value object) throws RDFParseException, RDFHandlerException {
+        if (rdfHandler != null) {
+            rdfHandler.handleStatement(createStatement(subject, predicate, object));
+        }
+    }
+
+    private static List<Object> asList(Object value) {
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        if (value instanceof List) {
+            List<Object> values = new ArrayList<>((List<Object>) value);
+            values.removeAll(Collections.singleton(null));
+            return values;
+        }
+        return Collections.singletonList(value);
+    }
+
+    /**
+     * Processes an annotation by the generic JSON-LD implementation, which loads its context and expands it.
+     */
+    private void handleGeneric(Map<String, Object> document) throws RDFParseException {
+        JsonLdOptions options = new JsonLdOptions(baseURI);
+        try {
+            JsonLdProcessor.toRDF(document, new SesameTripleCallback(new DocumentHandler()), options);
+        } catch (JsonLdError e) {
+            reportFatalError(e);
+        }
+    }
+
+    /**
+     * Forwards the statements of a generically processed annotation. The blank nodes of each annotation are
+     * scoped to it, as the generic implementation labels them per document. The literals of known predicates
+     * get the datatypes of the direct mapping, so both paths store dates and numbers alike.
+     */
+    private class DocumentHandler extends RDFHandlerBase {
+
+        private final Map<String, BNode> bnodes = new HashMap<>();
+
+        @Override
+        public void handleStatement(Statement statement) throws RDFHandlerException {
+            Value object = scope(statement.getObject());
+            if (object instanceof Literal) {
+                object = normalize(statement.getPredicate(), (Literal) object);
+            }
+            try {
+                handle((Resource) scope(statement.getSubject()), statement.getPredicate(), object);
+            } catch (RDFParseException e) {
+                throw new RDFHandlerException(e);
+            }
+        }
+
+        private Literal normalize(URI predicate, Literal literal) throws RDFHandlerException {
+            Term term = WebAnnotationContext.getTerm(predicate);
+            try {
+                if (term != null && term.kind == Kind.DATE && XMLSchema.DATETIME.equals(literal.getDatatype())) {
+                    return createLiteral(literal.getLabel(), null, null);
+                }
+                if (term != null && term.kind == Kind.NUMBER && XMLSchema.INTEGER.equals(literal.getDatatype())) {
+                    return toLiteral(Kind.NUMBER, Long.parseLong(literal.getLabel()));
+                }
+            } catch (NumberFormatException e) {
+                // Integers beyond the range of xsd:long keep their datatype, as on the direct path
+            } catch (RDFParseException e) {
+                throw new RDFHandlerException(e);
+            }
+            return literal;
+        }
+
+        private Value scope(Value value) throws RDFHandlerException {
+            if (!(value instanceof BNode)) {
+                return value;
+            }
+            String id = ((BNode) value).getID();
+            BNode bnode = bnodes.get(id);
+            if (bnode == null) {
+                try {
+                    bnode = createBNode();
+                } catch (RDFParseException e) {
+                    throw new RDFHandlerException(e);
+                }
+                bnodes.put(id, bnode);
+            }
+            return bnode;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.github.anno4j.io;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.github.anno4j.io.WebAnnotationContext.Kind;
+import com.github.anno4j.io.WebAnnotationContext.Term;
+import com.github.anno4j.model.impl.ResourceObject;
+import com.github.anno4j.model.namespaces.OADM;
+import com.github.anno4j.querying.ClosureIndex;
+import org.openrdf.model.BNode;
+import org.openrdf.model.Literal;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.impl.URIImpl;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.model.vocabulary.XMLSchema;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.RepositoryResult;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes annotations in the JSON-LD profile of the W3C Web Annotation Data Model, compacted with the context
+ * <i>http://www.w3.org/ns/anno.jsonld</i>.
+ * <br/><br/>
+ * The statements of each annotation are read from the repository and written to a streaming JSON generator, the
+ * resources they link to are embedded. Predicates and types with a term of the context are written as the term,
+ * all others as absolute IRIs with expanded values, which generic JSON-LD processors read the same way. Writing
+ * an array of annotations needs the memory of a single annotation:
+ * <pre>
+ * try (WebAnnotationWriter writer = new WebAnnotationWriter(out)) {
+ *     writer.startArray();
+ *     for (Annotation annotation : annotations) {
+ *         writer.write(annotation);
+ *     }
+ *     writer.endArray();
+ * }
+ * </pre>
+ */
+public class WebAnnotationWriter implements Closeable, Flushable {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    /**
+     * Depth of nested resources from which on they are referenced instead of embedded
+     */
+    private static final int MAX_DEPTH = 8;
+
+    private static final URI ANNOTATION = new URIImpl(OADM.ANNOTATION);
+
+    private static final Set<URI> INTEGERS = new HashSet<>(Arrays.asList(XMLSchema.LONG, XMLSchema.INT,
+            XMLSchema.SHORT, XMLSchema.INTEGER, XMLSchema.NON_NEGATIVE_INTEGER));
+
+    private final JsonGenerator json;
+
+    /**
+     * @param out The stream the annotations are written to in UTF-8
+     */
+    public WebAnnotationWriter(OutputStream out) throws IOException {
+        this.json = JSON.createGenerator(out, JsonEncoding.UTF8);
+    }
+
+    /**
+     * @param writer The writer the annotations are written to
+     */
+    public WebAnnotationWriter(Writer writer) throws IOException {
+        this.json = JSON.createGenerator(writer);
+    }
+
+    /**
+     * Indents the written JSON.
+     *
+     * @return itself to allow chaining.
+     */
+    public WebAnnotationWriter prettyPrint() {
+        json.useDefaultPrettyPrinter();
+        return this;
+    }
+
+    /**
+     * Starts an array of annotations, to be ended by {@link #endArray()}.
+     */
+    public void startArray() throws IOException {
+        json.writeStartArray();
+    }
+
+    public void endArray() throws IOException {
+        json.writeEndArray();
+    }
+
+    /**
+     * Writes the annotation with the resources it links to, like its bodies and targets.
+     *
+     * @param annotation The annotation, read through its connection
+     */
+    public void write(ResourceObject annotation) throws IOException, RepositoryException {
+        write(annotation.getObjectConnection(), annotation.getResource());
+    }
+
+    /**
+     * Writes the annotation with the resources it links to, like its bodies and targets.
+     *
+     * @param connection The connection to read the statements from
+     * @param annotation The resource of the annotation
+     */
+    public void write(RepositoryConnection connection, Resource annotation) throws IOException, RepositoryException {
+        Set<Resource> written = new HashSet<>();
+        written.add(annotation);
+
+        json.writeStartObject();
+        json.writeStringField("@context", WebAnnotationContext.IRI);
+        writeProperties(connection, annotation, getProperties(connection, annotation), written, 0);
+        json.writeEndObject();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        json.flush();
+    }
+
+    /**
+     * Closes the writer and the underlying stream.
+     */
+    @Override
+    public void close() throws IOException {
+        json.close();
+    }
+
+    /**
+     * @return the objects of the resource by predicate, in the order of the repository.
+     */
+    private static Map<URI, List<Value>> getProperties(RepositoryConnection connection, Resource resource) throws RepositoryException {
+        Map<URI, List<Value>> properties = new LinkedHashMap<>();
+        RepositoryResult<Statement> statements = connection.getStatements(resource, null, null, true);
+        try {
+            while (statements.hasNext()) {
+                Statement statement = statements.next();
+                if (ClosureIndex.CONTEXT.equals(statement.getContext())) {
+                    continue;
+                }
+                List<Value> values = properties.get(statement.getPredicate());
+                if (values == null) {
+                    values = new ArrayList<>();
+                    properties.put(statement.getPredicate(), values);
+                }
+                values.add(statement.getObject());
+            }
+        } finally {
+            statements.close();
+        }
+        return properties;
+    }
+
+    private void writeProperties(RepositoryConnection connection, Resource resource, Map<URI, List<Value>> properties,
+                                 Set<Resource> written, int depth) throws IOException, RepositoryException {
+        json.writeStringField("id", toId(resource));
+
+        List<Value> types = properties.remove(RDF.TYPE);
+        if (types != null) {
+            json.writeFieldName("type");
+            if (types.size() > 1) {
+                json.writeStartArray();
+            }
+            for (Value type : types) {
+                String name = type instanceof URI ? WebAnnotationContext.getTypeName((URI) type) : null;
+                json.writeString(name != null ? name : toId((Resource) type));
+            }
+            if (types.size() > 1) {
+                json.writeEndArray();
+            }
+        }
+
+        for (Map.Entry<URI, List<Value>> entry : properties.entrySet()) {
+            Term term = WebAnnotationContext.getTerm(entry.getKey());
+            json.writeFieldName(term != null ? term.name : entry.getKey().stringValue());
+            List<Value> values = entry.getValue();
+            if (values.size() > 1) {
+                json.writeStartArray();
+            }
+            for (Value value : values) {
+                if (value instanceof Resource) {
+                    writeResource(connection, term, (Resource) value, written, depth);
+                } else {
+                    writeLiteral(term, (Literal) value);
+                }
+            }
+            if (values.size() > 1) {
+                json.writeEndArray();
+            }
+        }
+    }
+
+    /**
+     * Embeds a resource the first time it is linked to, unless it is another annotation or a name of the
+     * vocabulary like a motivation, and references it otherwise.
+     */
+    private void writeResource(RepositoryConnection connection, Term term, Resource resource, Set<Resource> written,
+                               int depth) throws IOException, RepositoryException {
+        if (term != null && term.kind == Kind.VOCAB && resource instanceof URI) {
+            String name = WebAnnotationContext.getVocabularyName((URI) resource);
+            if (name != null) {
+                json.writeString(name);
+                return;
+            }
+        }
+
+        if (depth < MAX_DEPTH && written.add(resource)) {
+            Map<URI, List<Value>> properties = getProperties(connection, resource);
+            List<Value> types = properties.get(RDF.TYPE);
+            if (!properties.isEmpty() && (types == null || !types.contains(ANNOTATION))) {
+                json.writeStartObject();
+                writeProperties(connection, resource, properties, written, depth + 1);
+                json.writeEndObject();
+                return;
+            }
+        }
+
+        if (term != null && (term.kind == Kind.ID || term.kind == Kind.VOCAB)) {
+            json.writeString(toId(resource));
+        } else {
+            json.writeStartObject();
+            json.writeStringField("id", toId(resource));
+            json.writeEndObject();
+        }
+    }
+
+    private void writeLiteral(Term term, Literal literal) throws IOException {
+        URI datatype = literal.getDatatype();
+        boolean plain = literal.getLanguage() == null && (datatype == null || XMLSchema.STRING.equals(datatype));
+
+        if (term != null && term.kind == Kind.NUMBER && INTEGERS.contains(datatype)) {
+            try {
+                json.writeNumber(literal.longValue());
+                return;
+            } catch (NumberFormatException e) {
+                // Written as value object below
+            }
+        } else if (plain && (term == null || term.kind == Kind.LITERAL || term.kind == Kind.DATE)) {
+            json.writeString(literal.getLabel());
+            return;
+        } else if (term != null && term.kind == Kind.DATE && XMLSchema.DATETIME.equals(datatype)) {
+            json.writeString(literal.getLabel());
+            return;
+        }
+
+        json.writeStartObject();
+        json.writeStringField("@value", literal.getLabel());
+        if (literal.getLanguage() != null) {
+            json.writeStringField("@language", literal.getLanguage());
+        } else if (datatype != null && !XMLSchema.STRING.equals(datatype)) {
+            json.writeStringField("@type", datatype.stringValue());
+        }
+        json.writeEndObject();
+    }
+
+    private static String toId(Resource resource) {
+        return resource instanceof BNode ? "_:" + ((BNode) resource).getID() : resource.stringValue();
+    }
+}
@@ -2,6 +2,7 @@ package com.github.anno4j.model;
 
 import com.github.anno4j.annotations.Partial;
 import com.github.anno4j.model.impl.ResourceObjectSupport;
+import com.github.anno4j.querying.ClosureIndex;
 import org.openrdf.repository.RepositoryException;
 import org.openrdf.rio.*;
 
@@ -24,7 +25,7 @@ public abstract class AgentSupport extends ResourceObjectSupport implements Agen
         parser.setRDFHandler(writer);
 
         try {
-            this.getObjectConnection().exportStatements(this.getResource(), null, null, true, writer);
+            this.getObjectConnection().exportStatements(this.getResource(), null, null, true, ClosureIndex.withoutClosure(writer));
 
         } catch (RepositoryException | RDFHandlerException e) {
             e.printStackTrace();
@@ -1,6 +1,7 @@
 package com.github.anno4j.model.impl;
 
 import com.github.anno4j.annotations.Partial;
+import com.github.anno4j.querying.ClosureIndex;
 import org.openrdf.annotations.ParameterTypes;
 import org.openrdf.idGenerator.IDGenerator;
 import org.openrdf.model.Resource;
@@ -34,7 +35,7 @@ public abstract class ResourceObjectSupport implements ResourceObject {
 
         try {
             RDFWriter writer = Rio.createWriter(format, out);
-            this.getObjectConnection().exportStatements(this.getResource(), null, null, true, writer);
+            this.getObjectConnection().exportStatements(this.getResource(), null, null, true, ClosureIndex.withoutClosure(writer));
 
         } catch (RepositoryException e) {
             e.printStackTrace();
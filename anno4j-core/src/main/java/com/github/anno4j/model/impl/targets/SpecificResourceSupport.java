@@ -4,6 +4,7 @@ import com.github.anno4j.model.ExternalWebResourceSupport;
 import com.github.anno4j.annotations.Partial;
 import com.github.anno4j.model.State;
 import com.github.anno4j.model.impl.ResourceObject;
+import com.github.anno4j.querying.ClosureIndex;
 import org.apache.commons.io.IOUtils;
 import org.openrdf.model.URI;
 import org.openrdf.repository.RepositoryException;
@@ -77,7 +78,7 @@ public abstract class SpecificResourceSupport extends ExternalWebResourceSupport
         parser.setRDFHandler(writer);
 
         try {
-            this.getObjectConnection().exportStatements(this.getResource(), null, null, true, writer);
+            this.getObjectConnection().exportStatements(this.getResource(), null, null, true, ClosureIndex.withoutClosure(writer));
 
             if (getSelector() != null) {
                 parser.parse(IOUtils.toInputStream(getSelector().getTriples(RDFFormat.NTRIPLES), "UTF-8"), "");
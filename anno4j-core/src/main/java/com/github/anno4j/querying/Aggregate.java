@@ -0,0 +1,49 @@
+package com.github.anno4j.querying;
+
+/**
+ * Possible aggregate functions of the QueryService
+ */
+public enum Aggregate {
+    /**
+     * Number of distinct values, or of distinct objects if no path is given
+     */
+    COUNT("COUNT"),
+
+    /**
+     * Sum of the values
+     */
+    SUM("SUM"),
+
+    /**
+     * Average of the values
+     */
+    AVG("AVG"),
+
+    /**
+     * Smallest value
+     */
+    MIN("MIN"),
+
+    /**
+     * Largest value
+     */
+    MAX("MAX");
+
+    private String sparqlFunction;
+
+    /**
+     * Constructor
+     * @param sparqlFunction aggregate function in SPARQL
+     */
+    Aggregate(String sparqlFunction) {
+        this.sparqlFunction = sparqlFunction;
+    }
+
+    /**
+     * Getter for the SPARQL aggregate function
+     * @return aggregate function in SPARQL
+     */
+    public String getSparqlFunction() {
+        return sparqlFunction;
+    }
+}
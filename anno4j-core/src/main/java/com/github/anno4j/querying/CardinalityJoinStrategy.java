@@ -0,0 +1,156 @@
+package com.github.anno4j.querying;
+
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.sparql.algebra.Op;
+import com.hp.hpl.jena.sparql.algebra.TransformCopy;
+import com.hp.hpl.jena.sparql.algebra.op.OpBGP;
+import com.hp.hpl.jena.sparql.algebra.op.OpFilter;
+import com.hp.hpl.jena.sparql.core.BasicPattern;
+import com.hp.hpl.jena.sparql.core.Var;
+import com.hp.hpl.jena.sparql.expr.Expr;
+import com.hp.hpl.jena.vocabulary.RDF;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Orders the triple patterns of each basic graph pattern by their estimated number of results.
+ * Starts with the pattern of the fewest results and then continues with the cheapest pattern
+ * joining the patterns so far, until all are placed. Patterns of variables constrained by a
+ * filter count as more selective, so value constraints are matched early.
+ */
+class CardinalityJoinStrategy extends TransformCopy {
+
+    /**
+     * Assumed share of values that pass a filter on a variable
+     */
+    private static final double FILTER_SELECTIVITY = 0.1;
+
+    /**
+     * Assumed number of triples of a resource, for patterns with a variable predicate
+     */
+    private static final double TRIPLES_PER_RESOURCE = 10;
+
+    private final QueryStatistics statistics;
+
+    CardinalityJoinStrategy(QueryStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Op transform(OpBGP opBGP) {
+        return new OpBGP(reorder(opBGP.getPattern(), Collections.<Var>emptySet()));
+    }
+
+    @Override
+    public Op transform(OpFilter opFilter, Op sub) {
+        if (!(sub instanceof OpBGP)) {
+            return super.transform(opFilter, sub);
+        }
+
+        Set<Var> filtered = new HashSet<>();
+        for (Expr expr : opFilter.getExprs()) {
+            Set<Var> vars = expr.getVarsMentioned();
+            if (vars.size() == 1) {
+                filtered.addAll(vars);
+            }
+        }
+
+        BasicPattern pattern = reorder(((OpBGP) sub).getPattern(), filtered);
+        return OpFilter.filter(opFilter.getExprs(), new OpBGP(pattern));
+    }
+
+    private BasicPattern reorder(BasicPattern pattern, Set<Var> filtered) {
+        List<Triple> remaining = new LinkedList<>(pattern.getList());
+        List<Triple> ordered = new ArrayList<>(remaining.size());
+        Set<Var> bound = new HashSet<>();
+
+        while (!remaining.isEmpty()) {
+            Triple best = null;
+            boolean bestJoins = false;
+            double bestCost = Double.MAX_VALUE;
+
+            for (Triple triple : remaining) {
+                // Patterns that join the ones so far come first, to avoid cross products
+                boolean joins = bound.isEmpty() || isBound(triple.getSubject(), bound)
+                        || isBound(triple.getPredicate(), bound) || isBound(triple.getObject(), bound);
+                double cost = estimate(triple, bound, filtered);
+
+                if (best == null || (joins && !bestJoins) || (joins == bestJoins && cost < bestCost)) {
+                    best = triple;
+                    bestJoins = joins;
+                    bestCost = cost;
+                }
+            }
+
+            remaining.remove(best);
+            ordered.add(best);
+            addVars(best, bound);
+        }
+
+        return BasicPattern.wrap(ordered);
+    }
+
+    /**
+     * Estimates the number of results of the pattern, when the given variables are bound already.
+     */
+    private double estimate(Triple triple, Set<Var> bound, Set<Var> filtered) {
+        Node subject = triple.getSubject();
+        Node predicate = triple.getPredicate();
+        Node object = triple.getObject();
+
+        boolean subjectBound = isFixed(subject, bound);
+        boolean objectBound = isFixed(object, bound);
+
+        double cost;
+        if (predicate.isURI()) {
+            String uri = predicate.getURI();
+            long count = statistics.getPredicateCount(uri);
+
+            if (RDF.type.asNode().equals(predicate) && object.isURI()) {
+                long instances = statistics.getTypeCount(object.getURI());
+                cost = subjectBound ? (double) instances / Math.max(1, count / statistics.getObjectsPerSubject(uri)) : instances;
+            } else if (subjectBound && objectBound) {
+                cost = Math.min(1, count);
+            } else if (subjectBound) {
+                cost = Math.min(count, statistics.getObjectsPerSubject(uri));
+            } else if (objectBound) {
+                cost = Math.min(count, statistics.getSubjectsPerObject(uri));
+            } else {
+                cost = count;
+            }
+        } else if (subjectBound || objectBound) {
+            // Any property of a given resource
+            cost = Math.min(statistics.getTripleCount(), TRIPLES_PER_RESOURCE);
+        } else {
+            cost = statistics.getTripleCount();
+        }
+
+        if (!subjectBound && isBound(subject, filtered) || !objectBound && isBound(object, filtered)) {
+            cost *= FILTER_SELECTIVITY;
+        }
+
+        return cost;
+    }
+
+    private static boolean isFixed(Node node, Set<Var> bound) {
+        return node.isConcrete() || isBound(node, bound);
+    }
+
+    private static boolean isBound(Node node, Set<Var> bound) {
+        return node.isVariable() && bound.contains(Var.alloc(node));
+    }
+
+    private static void addVars(Triple triple, Set<Var> bound) {
+        for (Node node : new Node[]{triple.getSubject(), triple.getPredicate(), triple.getObject()}) {
+            if (node.isVariable()) {
+                bound.add(Var.alloc(node));
+            }
+        }
+    }
+}
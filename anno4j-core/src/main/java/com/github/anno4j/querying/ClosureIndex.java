@@ -0,0 +1,369 @@
+package com.github.anno4j.querying;
+
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.impl.URIImpl;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.Update;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.RepositoryResult;
+import org.openrdf.repository.event.RepositoryConnectionListener;
+import org.openrdf.repository.event.base.NotifyingRepositoryWrapper;
+import org.openrdf.rio.RDFHandler;
+import org.openrdf.rio.RDFHandlerException;
+import org.openrdf.rio.helpers.RDFHandlerWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Materializes the transitive closure of designated predicates, such as <i>dcterms:isPartOf</i> or
+ * <i>skos:broader</i>, so recursive LDPath selectors over them are matched by a single triple pattern
+ * instead of a property path.
+ *
+ * <p>For every designated predicate <i>p</i>, the repository holds a triple
+ * <i>x {@link #getClosurePredicate(URI) closure(p)} y</i> for each <i>y</i> reachable from <i>x</i> by one
+ * or more <i>p</i> triples of any context. The triples are stored in the dedicated context {@link #CONTEXT},
+ * apart from the contexts of the user, and are left out of the exports of Anno4j. They are kept up to date by
+ * listening to the connections of Anno4j, in the same transaction as the change:</p>
+ * <ul>
+ *     <li>An added edge connects all nodes reaching its subject to all nodes reachable from its object.</li>
+ *     <li>A removed edge recomputes the reachable nodes of its subject and of all nodes reaching it.</li>
+ *     <li>SPARQL updates rebuild the closure of all designated predicates.</li>
+ * </ul>
+ *
+ * <p>Removals by pattern and cleared contexts are handled edge by edge if the repository reports deltas, as Anno4j
+ * configures it. Otherwise the removed edges are unknown, and the closure of the matched predicate, or of all
+ * designated predicates, is rebuilt.</p>
+ *
+ * <p>Changes bypassing Anno4j, like writes to the underlying repository, require a {@link #rebuild()}.</p>
+ */
+public class ClosureIndex implements RepositoryConnectionListener {
+
+    private static final String CLOSURE_NS = "urn:anno4j:closure:";
+
+    /**
+     * The context of the materialized closure triples.
+     */
+    public static final URI CONTEXT = new URIImpl("urn:anno4j:closure");
+
+    private final Logger logger = LoggerFactory.getLogger(ClosureIndex.class);
+
+    private final NotifyingRepositoryWrapper repository;
+
+    private final Set<URI> predicates = new CopyOnWriteArraySet<>();
+
+    /**
+     * Constructor
+     *
+     * @param repository The repository of Anno4j, which notifies about the changes
+     */
+    public ClosureIndex(NotifyingRepositoryWrapper repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Designates the predicate to be indexed and builds its closure from the triples stored so far.
+     *
+     * @param predicate The transitive predicate, e.g. dcterms:isPartOf
+     */
+    public void addPredicate(URI predicate) throws RepositoryException {
+        if (predicates.add(predicate)) {
+            RepositoryConnection connection = repository.getDelegate().getConnection();
+            try {
+                connection.begin();
+                rebuild(connection, predicate);
+                connection.commit();
+            } finally {
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * @return the indexed predicates
+     */
+    public Set<URI> getPredicates() {
+        return Collections.unmodifiableSet(predicates);
+    }
+
+    /**
+     * @param predicate The URI of a predicate
+     * @return true if recursive paths over the predicate can use the index
+     */
+    public boolean isIndexed(String predicate) {
+        return predicates.contains(new URIImpl(predicate));
+    }
+
+    /**
+     * @param predicate A designated predicate
+     * @return the predicate of the materialized closure triples
+     */
+    public static URI getClosurePredicate(URI predicate) {
+        return new URIImpl(CLOSURE_NS + predicate.stringValue());
+    }
+
+    /**
+     * @param handler The handler of exported statements
+     * @return a handler passing all statements to the given one, except for those of the closure context
+     */
+    public static RDFHandler withoutClosure(RDFHandler handler) {
+        return new RDFHandlerWrapper(handler) {
+            @Override
+            public void handleStatement(Statement statement) throws RDFHandlerException {
+                if (!CONTEXT.equals(statement.getContext())) {
+                    super.handleStatement(statement);
+                }
+            }
+        };
+    }
+
+    /**
+     * Rebuilds the closure of all designated predicates.
+     */
+    public void rebuild() throws RepositoryException {
+        RepositoryConnection connection = repository.getDelegate().getConnection();
+        try {
+            connection.begin();
+            for (URI predicate : predicates) {
+                rebuild(connection, predicate);
+            }
+            connection.commit();
+        } finally {
+            connection.close();
+        }
+    }
+
+    private void rebuild(RepositoryConnection connection, URI predicate) throws RepositoryException {
+        long start = System.currentTimeMillis();
+        URI closure = getClosurePredicate(predicate);
+        connection.remove((Resource) null, closure, null, CONTEXT);
+
+        // The edges of all contexts
+        Map<Resource, List<Resource>> edges = new HashMap<>();
+        RepositoryResult<Statement> statements = connection.getStatements(null, predicate, null, false);
+        try {
+            while (statements.hasNext()) {
+                Statement statement = statements.next();
+                if (statement.getObject() instanceof Resource) {
+                    List<Resource> objects = edges.get(statement.getSubject());
+                    if (objects == null) {
+                        objects = new ArrayList<>(2);
+                        edges.put(statement.getSubject(), objects);
+                    }
+                    objects.add((Resource) statement.getObject());
+                }
+            }
+        } finally {
+            statements.close();
+        }
+
+        long count = 0;
+        for (Resource subject : edges.keySet()) {
+            for (Resource reachable : reach(subject, edges)) {
+                connection.add(subject, closure, reachable, CONTEXT);
+                count++;
+            }
+        }
+        logger.debug("Indexed {} closure triples of {} in {} ms", count, predicate, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * The nodes reachable from the subject by one or more of the given edges.
+     */
+    private static Set<Resource> reach(Resource subject, Map<Resource, List<Resource>> edges) {
+        Set<Resource> reached = new HashSet<>();
+        Deque<Resource> queue = new ArrayDeque<>();
+        queue.add(subject);
+        while (!queue.isEmpty()) {
+            List<Resource> objects = edges.get(queue.poll());
+            if (objects != null) {
+                for (Resource object : objects) {
+                    if (reached.add(object)) {
+                        queue.add(object);
+                    }
+                }
+            }
+        }
+        return reached;
+    }
+
+    /**
+     * The nodes reachable from the subject by one or more stored triples of the predicate.
+     */
+    private Set<Resource> reach(RepositoryConnection connection, Resource subject, URI predicate) throws RepositoryException {
+        Set<Resource> reached = new HashSet<>();
+        Deque<Resource> queue = new ArrayDeque<>();
+        queue.add(subject);
+        while (!queue.isEmpty()) {
+            for (Resource object : objects(connection, queue.poll(), predicate)) {
+                if (reached.add(object)) {
+                    queue.add(object);
+                }
+            }
+        }
+        return reached;
+    }
+
+    private List<Resource> objects(RepositoryConnection connection, Resource subject, URI predicate, Resource... contexts) throws RepositoryException {
+        List<Resource> objects = new ArrayList<>();
+        RepositoryResult<Statement> statements = connection.getStatements(subject, predicate, null, false, contexts);
+        try {
+            while (statements.hasNext()) {
+                Value object = statements.next().getObject();
+                if (object instanceof Resource) {
+                    objects.add((Resource) object);
+                }
+            }
+        } finally {
+            statements.close();
+        }
+        return objects;
+    }
+
+    private List<Resource> subjects(RepositoryConnection connection, URI predicate, Value object) throws RepositoryException {
+        List<Resource> subjects = new ArrayList<>();
+        RepositoryResult<Statement> statements = connection.getStatements(null, predicate, object, false, CONTEXT);
+        try {
+            while (statements.hasNext()) {
+                subjects.add(statements.next().getSubject());
+            }
+        } finally {
+            statements.close();
+        }
+        return subjects;
+    }
+
+    @Override
+    public void add(RepositoryConnection conn, Resource subject, URI predicate, Value object, Resource... contexts) {
+        if (!predicates.contains(predicate) || !(object instanceof Resource)) {
+            return;
+        }
+
+        URI closure = getClosurePredicate(predicate);
+        try {
+            if (conn.hasStatement(subject, closure, object, false, CONTEXT)) {
+                return;
+            }
+
+            List<Resource> ancestors = subjects(conn, closure, subject);
+            ancestors.add(subject);
+            List<Resource> descendants = objects(conn, (Resource) object, closure, CONTEXT);
+            descendants.add((Resource) object);
+
+            for (Resource ancestor : ancestors) {
+                for (Resource descendant : descendants) {
+                    conn.add(ancestor, closure, descendant, CONTEXT);
+                }
+            }
+        } catch (RepositoryException e) {
+            throw new IllegalStateException("Could not update the closure of " + predicate, e);
+        }
+    }
+
+    @Override
+    public void remove(RepositoryConnection conn, Resource subject, URI predicate, Value object, Resource... contexts) {
+        if (predicate != null && !predicates.contains(predicate)) {
+            return;
+        }
+
+        try {
+            if (subject == null || predicate == null || object == null) {
+                // Connections reporting deltas notify each removed statement, others the pattern, whose edges are unknown
+                if (predicate != null) {
+                    rebuild(conn, predicate);
+                } else {
+                    rebuildAll(conn);
+                }
+                return;
+            }
+
+            if (!(object instanceof Resource)) {
+                return;
+            }
+
+            URI closure = getClosurePredicate(predicate);
+            if (!conn.hasStatement(subject, closure, object, false, CONTEXT)) {
+                return;
+            }
+
+            // The edge may still be stored in other contexts, which the recomputation takes into account
+            List<Resource> ancestors = subjects(conn, closure, subject);
+            ancestors.add(subject);
+
+            for (Resource ancestor : ancestors) {
+                conn.remove(ancestor, closure, null, CONTEXT);
+                for (Resource reachable : reach(conn, ancestor, predicate)) {
+                    conn.add(ancestor, closure, reachable, CONTEXT);
+                }
+            }
+        } catch (RepositoryException e) {
+            throw new IllegalStateException("Could not update the closure of " + predicate, e);
+        }
+    }
+
+    @Override
+    public void clear(RepositoryConnection conn, Resource... contexts) {
+        rebuildAll(conn);
+    }
+
+    @Override
+    public void execute(RepositoryConnection conn, QueryLanguage ql, String update, String baseURI, Update operation) {
+        rebuildAll(conn);
+    }
+
+    private void rebuildAll(RepositoryConnection conn) {
+        try {
+            for (URI predicate : predicates) {
+                rebuild(conn, predicate);
+            }
+        } catch (RepositoryException e) {
+            throw new IllegalStateException("Could not rebuild the closure index", e);
+        }
+    }
+
+    @Override
+    public void close(RepositoryConnection conn) {
+    }
+
+    @Override
+    public void setAutoCommit(RepositoryConnection conn, boolean autoCommit) {
+    }
+
+    @Override
+    public void begin(RepositoryConnection conn) {
+    }
+
+    @Override
+    public void commit(RepositoryConnection conn) {
+    }
+
+    @Override
+    public void rollback(RepositoryConnection conn) {
+    }
+
+    @Override
+    public void setNamespace(RepositoryConnection conn, String prefix, String name) {
+    }
+
+    @Override
+    public void removeNamespace(RepositoryConnection conn, String prefix) {
+    }
+
+    @Override
+    public void clearNamespaces(RepositoryConnection conn) {
+    }
+}
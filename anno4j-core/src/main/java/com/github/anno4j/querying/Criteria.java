@@ -140,4 +140,13 @@ public class Criteria {
     public boolean isNaN() {
         return isNaN;
     }
+
+    @Override
+    public String toString() {
+        if (constraint == null) {
+            return ldpath;
+        }
+        String operator = comparison != null ? comparison.getSparqlOperator() : Comparison.EQ.getSparqlOperator();
+        return ldpath + " " + operator + " " + (isNaN ? "\"" + constraint + "\"" : constraint);
+    }
 }
@@ -0,0 +1,88 @@
+package com.github.anno4j.querying;
+
+import info.aduna.iteration.CloseableIteration;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Value;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.QueryEvaluationException;
+import org.openrdf.query.TupleQueryResult;
+import org.openrdf.repository.object.ObjectFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Streams the rows of a projection query, as they are read from the triple store.
+ * Has to be closed, unless it is read by {@link #asList()}.
+ */
+public class ProjectionResult implements CloseableIteration<ProjectionRow, QueryEvaluationException> {
+
+    private final TupleQueryResult result;
+
+    private final List<String> ldpaths;
+
+    private final ObjectFactory objectFactory;
+
+    /**
+     * Constructor
+     *
+     * @param result        The result of the compiled query, binding <i>root</i> and <i>p0</i>, <i>p1</i>, ...
+     * @param ldpaths       The projected LDPaths
+     * @param objectFactory Converts literals to Java types
+     */
+    public ProjectionResult(TupleQueryResult result, List<String> ldpaths, ObjectFactory objectFactory) {
+        this.result = result;
+        this.ldpaths = Collections.unmodifiableList(new ArrayList<>(ldpaths));
+        this.objectFactory = objectFactory;
+    }
+
+    /**
+     * @return the projected LDPaths, in the order of the row values
+     */
+    public List<String> getLdpaths() {
+        return ldpaths;
+    }
+
+    @Override
+    public boolean hasNext() throws QueryEvaluationException {
+        return result.hasNext();
+    }
+
+    @Override
+    public ProjectionRow next() throws QueryEvaluationException {
+        BindingSet bindings = result.next();
+        Value[] values = new Value[ldpaths.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = bindings.getValue("p" + i);
+        }
+        return new ProjectionRow((Resource) bindings.getValue("root"), ldpaths, values, objectFactory);
+    }
+
+    @Override
+    public void remove() throws QueryEvaluationException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() throws QueryEvaluationException {
+        result.close();
+    }
+
+    /**
+     * Reads all remaining rows and closes the result.
+     *
+     * @return the remaining rows
+     */
+    public List<ProjectionRow> asList() throws QueryEvaluationException {
+        List<ProjectionRow> rows = new ArrayList<>();
+        try {
+            while (hasNext()) {
+                rows.add(next());
+            }
+        } finally {
+            close();
+        }
+        return rows;
+    }
+}
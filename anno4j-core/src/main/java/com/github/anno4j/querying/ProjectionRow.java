@@ -0,0 +1,117 @@
+package com.github.anno4j.querying;
+
+import org.openrdf.model.Literal;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Value;
+import org.openrdf.repository.object.ObjectFactory;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A single result of a projection query. Holds the matching object and one value per
+ * projected LDPath, as they are stored in the triple store. No objects are created for them.
+ */
+public class ProjectionRow {
+
+    private final Resource resource;
+
+    private final List<String> ldpaths;
+
+    private final Value[] values;
+
+    private final ObjectFactory objectFactory;
+
+    /**
+     * Constructor
+     *
+     * @param resource      The matching object
+     * @param ldpaths       The projected LDPaths
+     * @param values        The value of each LDPath, or null if it has none
+     * @param objectFactory Converts literals to Java types
+     */
+    public ProjectionRow(Resource resource, List<String> ldpaths, Value[] values, ObjectFactory objectFactory) {
+        this.resource = resource;
+        this.ldpaths = ldpaths;
+        this.values = values;
+        this.objectFactory = objectFactory;
+    }
+
+    /**
+     * @return the matching object, e.g. the annotation
+     */
+    public Resource getResource() {
+        return resource;
+    }
+
+    /**
+     * @param index The position of the LDPath in the projection
+     * @return the value of the LDPath, or null if it has none
+     */
+    public Value getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * @param ldpath One of the projected LDPaths
+     * @return the value of the LDPath, or null if it has none
+     */
+    public Value getValue(String ldpath) {
+        return values[indexOf(ldpath)];
+    }
+
+    /**
+     * Converts the value to the given type. Literals are converted like bean properties,
+     * resources only to a Value or its String.
+     *
+     * @param index The position of the LDPath in the projection
+     * @param type  The expected type, e.g. String.class or Integer.class
+     * @return the converted value, or null if there is none
+     */
+    public <T> T get(int index, Class<T> type) {
+        Value value = values[index];
+        if (value == null || type.isInstance(value)) {
+            return type.cast(value);
+        } else if (value instanceof Literal) {
+            Object object = objectFactory.createObject((Literal) value);
+            if (String.class.equals(type) && !(object instanceof String)) {
+                return type.cast(value.stringValue());
+            }
+            return type.cast(object);
+        } else if (String.class.equals(type)) {
+            return type.cast(value.stringValue());
+        } else {
+            throw new IllegalArgumentException("Projected resource " + value + " is not a " + type.getName());
+        }
+    }
+
+    /**
+     * @param ldpath One of the projected LDPaths
+     * @param type   The expected type, e.g. String.class or Integer.class
+     * @return the converted value, or null if there is none
+     * @see #get(int, Class)
+     */
+    public <T> T get(String ldpath, Class<T> type) {
+        return get(indexOf(ldpath), type);
+    }
+
+    /**
+     * @return the values of all projected LDPaths
+     */
+    public Value[] getValues() {
+        return values.clone();
+    }
+
+    private int indexOf(String ldpath) {
+        int index = ldpaths.indexOf(ldpath);
+        if (index < 0) {
+            throw new IllegalArgumentException(ldpath + " is not projected");
+        }
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return resource + " " + Arrays.toString(values);
+    }
+}
@@ -0,0 +1,122 @@
+package com.github.anno4j.querying;
+
+import info.aduna.iteration.CloseableIteration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The pending result of a query or persistence call running on an executor. Cancelling it closes
+ * the result the query has opened so far, which releases the resources held by the triple store.
+ *
+ * @param <V> The type of the result
+ */
+public class QueryFuture<V> extends FutureTask<V> {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryFuture.class);
+
+    /**
+     * Number of calls waiting for a thread of the default executor, before further calls are rejected
+     */
+    private static final int DEFAULT_QUEUE_SIZE = 1024;
+
+    private static ExecutorService defaultExecutor;
+
+    private final Task<V> task;
+
+    /**
+     * @param task The call to run
+     */
+    public QueryFuture(Task<V> task) {
+        super(task);
+        this.task = task;
+        task.future = this;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled) {
+            task.closeResult();
+        }
+        return cancelled;
+    }
+
+    /**
+     * The executor of asynchronous calls, unless another one is configured. Its threads are bounded by
+     * twice the number of processors and it rejects calls, if more than {@value #DEFAULT_QUEUE_SIZE} wait.
+     *
+     * @return the shared default executor
+     */
+    public static synchronized ExecutorService getDefaultExecutor() {
+        if (defaultExecutor == null) {
+            int threads = Runtime.getRuntime().availableProcessors() * 2;
+            defaultExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<Runnable>(DEFAULT_QUEUE_SIZE), new ThreadFactory() {
+
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "anno4j-async-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            ((ThreadPoolExecutor) defaultExecutor).allowCoreThreadTimeOut(true);
+        }
+        return defaultExecutor;
+    }
+
+    /**
+     * A call, which registers the results it opens, so they are closed when its future is cancelled.
+     *
+     * @param <V> The type of the result
+     */
+    public abstract static class Task<V> implements Callable<V> {
+
+        private QueryFuture<V> future;
+
+        private CloseableIteration<?, ?> result;
+
+        /**
+         * Registers a result opened by the call.
+         *
+         * @param result The opened result
+         * @return the result
+         * @throws CancellationException if the future was cancelled already, the result is closed then
+         */
+        protected synchronized <I extends CloseableIteration<?, ?>> I open(I result) {
+            if (future != null && future.isCancelled()) {
+                close(result);
+                throw new CancellationException();
+            }
+            this.result = result;
+            return result;
+        }
+
+        private synchronized void closeResult() {
+            if (result != null) {
+                close(result);
+                result = null;
+            }
+        }
+
+        private static void close(CloseableIteration<?, ?> result) {
+            try {
+                result.close();
+            } catch (Exception e) {
+                logger.warn("Could not close the result of a cancelled query", e);
+            }
+        }
+    }
+}
@@ -51,6 +51,26 @@ public class QueryOptimizer {
         return OpAsQuery.asQuery(op).serialize();
     }
 
+    /**
+     * Optimizes the join order of the query by the estimated number of results of its triple patterns.
+     * Without statistics, or before they are read, the join order is optimized like {@link #optimizeJoinOrder(String)}.
+     *
+     * @param sparql     The SPARQL query
+     * @param statistics The estimated cardinalities of the repository, or null
+     *
+     * @return The optimized SPARQL query
+     */
+    public String optimizeJoinOrder(String sparql, QueryStatistics statistics) {
+        if (statistics == null || !statistics.isLoaded()) {
+            return optimizeJoinOrder(sparql);
+        }
+
+        Op op = Algebra.compile(QueryFactory.create(sparql));
+        op = Transformer.transform(new CardinalityJoinStrategy(statistics), op);
+
+        return OpAsQuery.asQuery(op).serialize();
+    }
+
     /**
      * Optimizes the query in multiple ways:
      *
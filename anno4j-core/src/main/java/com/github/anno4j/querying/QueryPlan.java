@@ -0,0 +1,192 @@
+package com.github.anno4j.querying;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Describes an object query of a {@link QueryService}: the criteria it originates from, the SPARQL before and
+ * after the join order optimization, the time spent in each phase and, if profiled, the evaluated algebra plan
+ * with the number of rows and the time of every node.
+ *
+ * @see QueryService#explain(Class)
+ * @see SlowQueryLog
+ */
+public class QueryPlan {
+
+    /**
+     * The phases of an object query.
+     */
+    public enum Phase {
+        /**
+         * Translation of the LDPath criteria to SPARQL
+         */
+        BUILD,
+        /**
+         * Join order optimization of the SPARQL query
+         */
+        OPTIMIZE,
+        /**
+         * Evaluation of the query by the store until the first result is available
+         */
+        EVALUATE,
+        /**
+         * Reading the remaining results and creating their objects
+         */
+        MATERIALIZE
+    }
+
+    private final String type;
+
+    private final List<Criteria> criteria;
+
+    private final Map<Phase, Long> nanos = new EnumMap<>(Phase.class);
+
+    private final long created = System.currentTimeMillis();
+
+    private String initialQuery;
+
+    private String optimizedQuery;
+
+    private int results = -1;
+
+    private String plan;
+
+    /**
+     * @param type     The IRI of the queried type
+     * @param criteria The criteria of the query
+     */
+    public QueryPlan(String type, List<Criteria> criteria) {
+        this.type = type;
+        this.criteria = Collections.unmodifiableList(new ArrayList<>(criteria));
+    }
+
+    /**
+     * @return the IRI of the queried type.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * @return the criteria the query originates from.
+     */
+    public List<Criteria> getCriteria() {
+        return criteria;
+    }
+
+    /**
+     * @return the time the query was started at, in milliseconds since the epoch.
+     */
+    public long getCreated() {
+        return created;
+    }
+
+    /**
+     * @return the SPARQL query translated from the criteria.
+     */
+    public String getInitialQuery() {
+        return initialQuery;
+    }
+
+    void setInitialQuery(String initialQuery) {
+        this.initialQuery = initialQuery;
+    }
+
+    /**
+     * @return the SPARQL query sent to the store, after the join order optimization.
+     */
+    public String getOptimizedQuery() {
+        return optimizedQuery;
+    }
+
+    void setOptimizedQuery(String optimizedQuery) {
+        this.optimizedQuery = optimizedQuery;
+    }
+
+    /**
+     * @return the number of objects created, or -1 if the results were not read by the QueryService.
+     */
+    public int getResults() {
+        return results;
+    }
+
+    void setResults(int results) {
+        this.results = results;
+    }
+
+    /**
+     * @return the evaluated algebra plan with rows and times per node, or null if the query was not profiled.
+     */
+    public String getPlan() {
+        return plan;
+    }
+
+    void setPlan(String plan) {
+        this.plan = plan;
+    }
+
+    void record(Phase phase, long nanos) {
+        Long previous = this.nanos.get(phase);
+        this.nanos.put(phase, previous == null ? nanos : previous + nanos);
+    }
+
+    /**
+     * @param phase The phase of the query
+     * @param unit  The unit of the returned time
+     * @return the time spent in the phase, zero if the phase was not run.
+     */
+    public long getTime(Phase phase, TimeUnit unit) {
+        Long time = nanos.get(phase);
+        return time == null ? 0 : unit.convert(time, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param unit The unit of the returned time
+     * @return the time spent in all phases.
+     */
+    public long getTotalTime(TimeUnit unit) {
+        long total = 0;
+        for (long time : nanos.values()) {
+            total += time;
+        }
+        return unit.convert(total, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the type, the criteria and the times of the phases on a single line, without the query text.
+     */
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        summary.append(type).append(' ').append(criteria).append(" in ").append(format(getTotalTime(TimeUnit.MICROSECONDS))).append(" ms (");
+        for (Phase phase : Phase.values()) {
+            if (phase.ordinal() > 0) {
+                summary.append(", ");
+            }
+            summary.append(phase.name().toLowerCase()).append(' ').append(format(getTime(phase, TimeUnit.MICROSECONDS)));
+        }
+        summary.append(')');
+        if (results >= 0) {
+            summary.append(", ").append(results).append(" results");
+        }
+        return summary.toString();
+    }
+
+    private static String format(long micros) {
+        return String.format("%.3f", micros / 1000.0);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(getSummary());
+        builder.append("\nInitial query:\n").append(initialQuery);
+        builder.append("\nOptimized query:\n").append(optimizedQuery);
+        if (plan != null) {
+            builder.append("\nPlan:\n").append(plan);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,257 @@
+package com.github.anno4j.querying;
+
+import info.aduna.iteration.CloseableIteration;
+import info.aduna.iteration.ExceptionConvertingIteration;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.Dataset;
+import org.openrdf.query.MalformedQueryException;
+import org.openrdf.query.QueryEvaluationException;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.algebra.QueryModelNode;
+import org.openrdf.query.algebra.QueryRoot;
+import org.openrdf.query.algebra.TupleExpr;
+import org.openrdf.query.algebra.evaluation.TripleSource;
+import org.openrdf.query.algebra.evaluation.federation.FederatedServiceResolverImpl;
+import org.openrdf.query.algebra.evaluation.impl.BindingAssigner;
+import org.openrdf.query.algebra.evaluation.impl.CompareOptimizer;
+import org.openrdf.query.algebra.evaluation.impl.ConjunctiveConstraintSplitter;
+import org.openrdf.query.algebra.evaluation.impl.ConstantOptimizer;
+import org.openrdf.query.algebra.evaluation.impl.DisjunctiveConstraintOptimizer;
+import org.openrdf.query.algebra.evaluation.impl.EvaluationStrategyImpl;
+import org.openrdf.query.algebra.evaluation.impl.FilterOptimizer;
+import org.openrdf.query.algebra.evaluation.impl.IterativeEvaluationOptimizer;
+import org.openrdf.query.algebra.evaluation.impl.OrderLimitOptimizer;
+import org.openrdf.query.algebra.evaluation.impl.QueryJoinOptimizer;
+import org.openrdf.query.algebra.evaluation.impl.QueryModelNormalizer;
+import org.openrdf.query.algebra.evaluation.impl.SameTermFilterOptimizer;
+import org.openrdf.query.algebra.helpers.QueryModelVisitorBase;
+import org.openrdf.query.impl.EmptyBindingSet;
+import org.openrdf.query.parser.ParsedQuery;
+import org.openrdf.query.parser.QueryParserUtil;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Evaluates a SPARQL query with the evaluation strategy and the optimizers of the Sesame stores, counting the rows
+ * and measuring the time of every node of the algebra plan. Sesame has no EXPLAIN of its own, so the query is
+ * evaluated against the statements of the connection. For the in-process stores this is the plan they run, for
+ * remote repositories it is the plan a Sesame store would run on the same data.
+ */
+class QueryProfiler {
+
+    private final RepositoryConnection connection;
+
+    private final Map<QueryModelNode, NodeStatistics> statistics = new IdentityHashMap<>();
+
+    /**
+     * @param connection The connection to read the statements from
+     */
+    QueryProfiler(RepositoryConnection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Evaluates the query completely and renders its plan.
+     *
+     * @param sparql  The SPARQL query
+     * @param dataset The dataset of the query, or null for the one declared by the query
+     * @return the algebra plan, a node per line with its rows, the number of times it was evaluated and its time
+     * in milliseconds including the time of its children
+     */
+    String profile(String sparql, Dataset dataset) throws MalformedQueryException, QueryEvaluationException {
+        ParsedQuery parsed = QueryParserUtil.parseQuery(QueryLanguage.SPARQL, sparql, null);
+        if (dataset == null) {
+            dataset = parsed.getDataset();
+        }
+        TupleExpr tupleExpr = parsed.getTupleExpr().clone();
+        if (!(tupleExpr instanceof QueryRoot)) {
+            tupleExpr = new QueryRoot(tupleExpr);
+        }
+
+        BindingSet bindings = EmptyBindingSet.getInstance();
+        FederatedServiceResolverImpl serviceResolver = new FederatedServiceResolverImpl();
+        try {
+            profile(tupleExpr, dataset, bindings, new ProfilingStrategy(dataset, serviceResolver));
+        } finally {
+            serviceResolver.shutDown();
+        }
+
+        PlanRenderer renderer = new PlanRenderer();
+        tupleExpr.visit(renderer);
+        return renderer.toString();
+    }
+
+    private void profile(TupleExpr tupleExpr, Dataset dataset, BindingSet bindings, ProfilingStrategy strategy) throws QueryEvaluationException {
+        new BindingAssigner().optimize(tupleExpr, dataset, bindings);
+        new ConstantOptimizer(strategy).optimize(tupleExpr, dataset, bindings);
+        new CompareOptimizer().optimize(tupleExpr, dataset, bindings);
+        new ConjunctiveConstraintSplitter().optimize(tupleExpr, dataset, bindings);
+        new DisjunctiveConstraintOptimizer().optimize(tupleExpr, dataset, bindings);
+        new SameTermFilterOptimizer().optimize(tupleExpr, dataset, bindings);
+        new QueryModelNormalizer().optimize(tupleExpr, dataset, bindings);
+        new QueryJoinOptimizer().optimize(tupleExpr, dataset, bindings);
+        new IterativeEvaluationOptimizer().optimize(tupleExpr, dataset, bindings);
+        new FilterOptimizer().optimize(tupleExpr, dataset, bindings);
+        new OrderLimitOptimizer().optimize(tupleExpr, dataset, bindings);
+
+        CloseableIteration<BindingSet, QueryEvaluationException> result = strategy.evaluate(tupleExpr, bindings);
+        try {
+            while (result.hasNext()) {
+                result.next();
+            }
+        } finally {
+            result.close();
+        }
+    }
+
+    /**
+     * Rows, evaluations and time of a node of the plan
+     */
+    private static class NodeStatistics {
+
+        long rows;
+
+        long evaluations;
+
+        long nanos;
+    }
+
+    private NodeStatistics getStatistics(QueryModelNode node) {
+        NodeStatistics nodeStatistics = statistics.get(node);
+        if (nodeStatistics == null) {
+            nodeStatistics = new NodeStatistics();
+            statistics.put(node, nodeStatistics);
+        }
+        return nodeStatistics;
+    }
+
+    /**
+     * Wraps the results of every evaluated node, as the strategy evaluates the children of a node through
+     * {@link #evaluate(TupleExpr, BindingSet)} as well.
+     */
+    private class ProfilingStrategy extends EvaluationStrategyImpl {
+
+        ProfilingStrategy(Dataset dataset, FederatedServiceResolverImpl serviceResolver) {
+            super(new ConnectionTripleSource(), dataset, serviceResolver);
+        }
+
+        @Override
+        public CloseableIteration<BindingSet, QueryEvaluationException> evaluate(TupleExpr expr, BindingSet bindings) throws QueryEvaluationException {
+            NodeStatistics nodeStatistics = getStatistics(expr);
+            nodeStatistics.evaluations++;
+            long start = System.nanoTime();
+            try {
+                return new ProfiledIteration(super.evaluate(expr, bindings), nodeStatistics);
+            } finally {
+                nodeStatistics.nanos += System.nanoTime() - start;
+            }
+        }
+    }
+
+    private static class ProfiledIteration implements CloseableIteration<BindingSet, QueryEvaluationException> {
+
+        private final CloseableIteration<BindingSet, QueryEvaluationException> delegate;
+
+        private final NodeStatistics statistics;
+
+        ProfiledIteration(CloseableIteration<BindingSet, QueryEvaluationException> delegate, NodeStatistics statistics) {
+            this.delegate = delegate;
+            this.statistics = statistics;
+        }
+
+        @Override
+        public boolean hasNext() throws QueryEvaluationException {
+            long start = System.nanoTime();
+            try {
+                return delegate.hasNext();
+            } finally {
+                statistics.nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public BindingSet next() throws QueryEvaluationException {
+            long start = System.nanoTime();
+            try {
+                BindingSet next = delegate.next();
+                statistics.rows++;
+                return next;
+            } finally {
+                statistics.nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void remove() throws QueryEvaluationException {
+            delegate.remove();
+        }
+
+        @Override
+        public void close() throws QueryEvaluationException {
+            delegate.close();
+        }
+    }
+
+    private class ConnectionTripleSource implements TripleSource {
+
+        @Override
+        public CloseableIteration<? extends Statement, QueryEvaluationException> getStatements(Resource subj, URI pred, Value obj, Resource... contexts) throws QueryEvaluationException {
+            try {
+                return new ExceptionConvertingIteration<Statement, QueryEvaluationException>(connection.getStatements(subj, pred, obj, true, contexts)) {
+                    @Override
+                    protected QueryEvaluationException convert(Exception e) {
+                        return new QueryEvaluationException(e);
+                    }
+                };
+            } catch (RepositoryException e) {
+                throw new QueryEvaluationException(e);
+            }
+        }
+
+        @Override
+        public ValueFactory getValueFactory() {
+            return connection.getValueFactory();
+        }
+    }
+
+    /**
+     * Renders the plan as an indented tree, with the statistics of the evaluated nodes.
+     */
+    private class PlanRenderer extends QueryModelVisitorBase<RuntimeException> {
+
+        private final StringBuilder builder = new StringBuilder();
+
+        private int depth = 0;
+
+        @Override
+        protected void meetNode(QueryModelNode node) {
+            for (int i = 0; i < depth; i++) {
+                builder.append("   ");
+            }
+            builder.append(node.getSignature());
+            NodeStatistics nodeStatistics = statistics.get(node);
+            if (nodeStatistics != null) {
+                builder.append(String.format(" (rows=%d, evaluations=%d, time=%.3f ms)",
+                        nodeStatistics.rows, nodeStatistics.evaluations, nodeStatistics.nanos / 1e6));
+            }
+            builder.append('\n');
+
+            depth++;
+            node.visitChildren(this);
+            depth--;
+        }
+
+        @Override
+        public String toString() {
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package com.github.anno4j.querying;
+
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.query.MalformedQueryException;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.Update;
+import org.openrdf.query.algebra.StatementPattern;
+import org.openrdf.query.algebra.Var;
+import org.openrdf.query.algebra.helpers.QueryModelVisitorBase;
+import org.openrdf.query.parser.QueryParserUtil;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.event.RepositoryConnectionListener;
+import org.openrdf.repository.object.ObjectConnection;
+import org.openrdf.repository.object.RDFObject;
+import org.openrdf.repository.object.metrics.Counter;
+import org.openrdf.repository.object.metrics.Instrumentation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the results of the object queries of the {@link QueryService} as the ordered resources and composed
+ * classes of their objects, so a repeated query creates its objects without evaluating SPARQL.
+ * The cache is disabled until {@link #setEnabled(boolean)} is called.
+ *
+ * <p>Cached results are invalidated by the predicates their query reads. The cache listens to the connections
+ * of Anno4j and versions every predicate by the commit that changed it last. A cached result is valid as long
+ * as none of its predicates changed after the query started. Changes without a known predicate, like
+ * removals by pattern, clearing of contexts or SPARQL updates, invalidate all results, as do queries with
+ * variable predicates. Writes to the repository that bypass Anno4j are not seen, call {@link #invalidateAll()}
+ * after them.</p>
+ *
+ * <p>The cache is bounded by the number of results and the number of cached resources, evicting the least
+ * recently used results first.</p>
+ */
+public class QueryResultCache implements RepositoryConnectionListener {
+
+    private static final Counter HIT = Instrumentation.counter("anno4j.query.cache.hit");
+    private static final Counter MISS = Instrumentation.counter("anno4j.query.cache.miss");
+
+    /**
+     * Dependency of results reading variable predicates and pending change of an unknown predicate
+     */
+    private static final String ANY = "*";
+
+    private final Map<List<Object>, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    /**
+     * Predicates changed by the pending transaction of each connection
+     */
+    private final Map<RepositoryConnection, Set<String>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Commit version by which each predicate was changed last
+     */
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+
+    private volatile long version = 0;
+
+    private volatile long anyVersion = 0;
+
+    private volatile boolean enabled = false;
+
+    private volatile int maximumSize = 1000;
+
+    private volatile long maximumWeight = 100000;
+
+    /**
+     * Number of resources of all cached results
+     */
+    private long weight = 0;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param enabled Whether the QueryServices of Anno4j cache their results
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * @param maximumSize The maximum number of cached results
+     */
+    public synchronized void setMaximumSize(int maximumSize) {
+        this.maximumSize = maximumSize;
+        evict();
+    }
+
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * @param maximumWeight The maximum number of resources of all cached results
+     */
+    public synchronized void setMaximumWeight(long maximumWeight) {
+        this.maximumWeight = maximumWeight;
+        evict();
+    }
+
+    /**
+     * @return the number of cached results.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the number of resources of all cached results.
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     * @return the version of the last commit, to be read before a query is evaluated.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Creates the objects of a cached result.
+     *
+     * @param key        The normalized query and the contexts it reads
+     * @param connection The connection of the QueryService to create the objects for
+     * @return the objects in the order of the query, or null if there is no valid result.
+     */
+    public <T> List<T> get(List<Object> key, ObjectConnection connection) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null && !isValid(entry)) {
+                remove(key);
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            MISS.increment();
+            return null;
+        }
+        HIT.increment();
+
+        List<T> objects = new ArrayList<>(entry.resources.length);
+        for (int i = 0; i < entry.resources.length; i++) {
+            objects.add((T) connection.getComposedObject(entry.classes[i], entry.resources[i]));
+        }
+        return objects;
+    }
+
+    /**
+     * Caches the result of a query, unless a predicate it reads changed since the query started.
+     *
+     * @param key     The normalized query and the contexts it reads
+     * @param version The commit version read before the query was evaluated
+     * @param sparql  The evaluated SPARQL query, whose predicates the result depends on
+     * @param objects The objects of the result
+     */
+    public void put(List<Object> key, long version, String sparql, List<?> objects) {
+        if (!enabled || objects.size() > maximumWeight) {
+            return;
+        }
+        Entry entry = new Entry(version, getPredicates(sparql), objects);
+        synchronized (this) {
+            if (!isValid(entry)) {
+                return;
+            }
+            remove(key);
+            entries.put(key, entry);
+            weight += entry.resources.length;
+            evict();
+        }
+    }
+
+    /**
+     * Invalidates all cached results, e.g. after the repository was changed without Anno4j.
+     */
+    public void invalidateAll() {
+        publish(Collections.singleton(ANY));
+    }
+
+    /**
+     * Removes all cached results.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    private boolean isValid(Entry entry) {
+        if (anyVersion > entry.version) {
+            return false;
+        }
+        if (entry.predicates == null) {
+            return version <= entry.version;
+        }
+        for (String predicate : entry.predicates) {
+            Long changed = versions.get(predicate);
+            if (changed != null && changed > entry.version) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void remove(List<Object> key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            weight -= removed.resources.length;
+        }
+    }
+
+    private void evict() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while ((entries.size() > maximumSize || weight > maximumWeight) && iterator.hasNext()) {
+            weight -= iterator.next().resources.length;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * @return the constant predicates of the query, or null if it has a variable predicate.
+     */
+    private static Set<String> getPredicates(String sparql) {
+        final Set<String> predicates = new HashSet<>();
+        try {
+            QueryParserUtil.parseQuery(QueryLanguage.SPARQL, sparql, null).getTupleExpr().visit(new QueryModelVisitorBase<RuntimeException>() {
+                @Override
+                public void meet(StatementPattern node) {
+                    Var predicate = node.getPredicateVar();
+                    if (predicate.hasValue()) {
+                        predicates.add(predicate.getValue().stringValue());
+                    } else {
+                        predicates.add(ANY);
+                    }
+                }
+            });
+        } catch (MalformedQueryException e) {
+            return null;
+        }
+        return predicates.contains(ANY) ? null : predicates;
+    }
+
+    private synchronized void publish(Set<String> predicates) {
+        if (predicates == null || predicates.isEmpty()) {
+            return;
+        }
+        long next = version + 1;
+        for (String predicate : predicates) {
+            if (ANY.equals(predicate)) {
+                anyVersion = next;
+            } else {
+                versions.put(predicate, next);
+            }
+        }
+        version = next;
+    }
+
+    private void changed(RepositoryConnection conn, URI predicate) {
+        if (!enabled) {
+            return;
+        }
+        String changed = predicate == null ? ANY : predicate.stringValue();
+        boolean active;
+        try {
+            active = conn.isActive();
+        } catch (RepositoryException e) {
+            // The state is unknown, so the change is published now and again on commit
+            publish(Collections.singleton(changed));
+            active = true;
+        }
+        if (!active) {
+            publish(Collections.singleton(changed));
+            return;
+        }
+        Set<String> predicates = pending.get(conn);
+        if (predicates == null) {
+            predicates = new HashSet<>();
+            pending.put(conn, predicates);
+        }
+        predicates.add(changed);
+    }
+
+    @Override
+    public void add(RepositoryConnection conn, Resource subject, URI predicate, Value object, Resource... contexts) {
+        changed(conn, predicate);
+    }
+
+    @Override
+    public void remove(RepositoryConnection conn, Resource subject, URI predicate, Value object, Resource... contexts) {
+        changed(conn, predicate);
+    }
+
+    @Override
+    public void clear(RepositoryConnection conn, Resource... contexts) {
+        changed(conn, null);
+    }
+
+    @Override
+    public void execute(RepositoryConnection conn, QueryLanguage ql, String update, String baseURI, Update operation) {
+        changed(conn, null);
+    }
+
+    @Override
+    public void commit(RepositoryConnection conn) {
+        publish(pending.remove(conn));
+    }
+
+    @Override
+    public void rollback(RepositoryConnection conn) {
+        pending.remove(conn);
+    }
+
+    @Override
+    public void close(RepositoryConnection conn) {
+        pending.remove(conn);
+    }
+
+    @Override
+    public void setAutoCommit(RepositoryConnection conn, boolean autoCommit) {
+        if (autoCommit) {
+            // Switching to auto commit commits the pending changes
+            publish(pending.remove(conn));
+        }
+    }
+
+    @Override
+    public void begin(RepositoryConnection conn) {
+    }
+
+    @Override
+    public void setNamespace(RepositoryConnection conn, String prefix, String name) {
+    }
+
+    @Override
+    public void removeNamespace(RepositoryConnection conn, String prefix) {
+    }
+
+    @Override
+    public void clearNamespaces(RepositoryConnection conn) {
+    }
+
+    /**
+     * A cached result with the version of the commit before its query and the predicates it depends on
+     */
+    private static class Entry {
+
+        private final long version;
+
+        private final Set<String> predicates;
+
+        private final Resource[] resources;
+
+        private final Class<?>[] classes;
+
+        private Entry(long version, Set<String> predicates, List<?> objects) {
+            this.version = version;
+            this.predicates = predicates;
+            this.resources = new Resource[objects.size()];
+            this.classes = new Class<?>[objects.size()];
+            for (int i = 0; i < resources.length; i++) {
+                RDFObject object = (RDFObject) objects.get(i);
+                resources[i] = object.getResource();
+                classes[i] = object.getClass();
+            }
+        }
+    }
+}
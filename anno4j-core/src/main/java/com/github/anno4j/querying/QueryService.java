@@ -15,23 +15,36 @@ import org.apache.marmotta.ldpath.model.Constants;
 import org.apache.marmotta.ldpath.parser.Configuration;
 import org.apache.marmotta.ldpath.parser.DefaultConfiguration;
 import org.apache.marmotta.ldpath.parser.ParseException;
+import org.openrdf.model.Literal;
 import org.openrdf.model.URI;
+import org.openrdf.model.Value;
 import org.openrdf.model.vocabulary.OWL;
 import org.openrdf.model.vocabulary.RDFS;
 import org.openrdf.model.vocabulary.SKOS;
+import org.openrdf.query.BindingSet;
 import org.openrdf.query.MalformedQueryException;
 import org.openrdf.query.QueryEvaluationException;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.TupleQuery;
+import org.openrdf.query.TupleQueryResult;
 import org.openrdf.repository.RepositoryException;
 import org.openrdf.repository.object.ObjectConnection;
 import org.openrdf.repository.object.ObjectQuery;
 import org.openrdf.repository.object.ObjectRepository;
+import org.openrdf.repository.object.metrics.Instrumentation;
+import org.openrdf.repository.object.metrics.Timer;
+import org.openrdf.result.Result;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
 
 /**
  * The QueryService allows to query triple stores by using criteria. Furthermore
@@ -44,6 +57,29 @@ public class QueryService {
 
     private final Logger logger = LoggerFactory.getLogger(QueryService.class);
 
+    /**
+     * Durations of the phases of the object queries, see {@link Instrumentation}
+     */
+    private static final Timer BUILD = Instrumentation.timer("anno4j.query.build");
+    private static final Timer OPTIMIZE = Instrumentation.timer("anno4j.query.optimize");
+    private static final Timer EVALUATE = Instrumentation.timer("anno4j.query.evaluate");
+    private static final Timer MATERIALIZE = Instrumentation.timer("anno4j.query.materialize");
+
+    /**
+     * Maximum number of compiled aggregate and projection queries kept
+     */
+    private static final int QUERY_CACHE_SIZE = 256;
+
+    /**
+     * Compiled aggregate and projection queries of all QueryServices, by criteria and what they select
+     */
+    private static final Map<List<Object>, String> COMPILED_QUERIES = new LinkedHashMap<List<Object>, String>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, String> eldest) {
+            return size() > QUERY_CACHE_SIZE;
+        }
+    };
+
     private ObjectConnection connection;
 
     /**
@@ -75,8 +111,43 @@ public class QueryService {
      */
     private QueryOptimizer queryOptimizer = null;
 
+    /**
+     * Estimated cardinalities of the repository for the join order, if any
+     */
+    private QueryStatistics statistics = null;
+
+    /**
+     * Maximum time in seconds queries may run, or null for no limit
+     */
+    private Integer maxQueryTime = null;
+
+    /**
+     * Executor of the asynchronous queries
+     */
+    private ExecutorService executor = QueryFuture.getDefaultExecutor();
+
+    /**
+     * Log of the object queries exceeding its thresholds, or null
+     */
+    private SlowQueryLog slowQueryLog = null;
+
+    /**
+     * Cache of the results of object queries, or null
+     */
+    private QueryResultCache resultCache = null;
+
     public <T> QueryService(ObjectConnection connection, LDPathEvaluatorConfiguration evaluatorConfiguration) {
+        this(connection, evaluatorConfiguration, null);
+    }
+
+    /**
+     * @param connection             The connection to query
+     * @param evaluatorConfiguration The evaluators of LDPath expressions
+     * @param statistics             The estimated cardinalities to order joins by, or null
+     */
+    public QueryService(ObjectConnection connection, LDPathEvaluatorConfiguration evaluatorConfiguration, QueryStatistics statistics) {
         this.connection = connection;
+        this.statistics = statistics;
 
         this.queryServiceDTO = new QueryServiceConfiguration();
         queryServiceDTO.setEvaluatorConfiguration(evaluatorConfiguration);
@@ -105,7 +176,7 @@ public class QueryService {
             try {
                 TestFunction newInstance = entry.getKey().newInstance();
                 config.addTestFunction(Constants.NS_LMF_FUNCS + newInstance.getLocalName(), newInstance);
-                logger.debug("Registering TestFunction " + entry.getKey().getCanonicalName());
+                logger.debug("Registering TestFunction {}", entry.getKey().getCanonicalName());
             } catch (Exception e) {
                 throw new IllegalStateException("Could not instantiate TestFunction: " + entry.getKey().getCanonicalName());
             }
@@ -115,7 +186,7 @@ public class QueryService {
             try {
                 SelectorFunction newInstance = entry.getKey().newInstance();
                 config.addFunction(Constants.NS_LMF_FUNCS + newInstance.getPathExpression(new SesameValueBackend()), newInstance);
-                logger.debug("Registering Function " + entry.getKey().getCanonicalName());
+                logger.debug("Registering Function {}", entry.getKey().getCanonicalName());
             } catch (Exception e) {
                 throw new IllegalStateException("Could not instantiate Function: " + entry.getKey().getCanonicalName());
             }
@@ -251,6 +322,57 @@ public class QueryService {
         return this;
     }
 
+    /**
+     * Setting the maximum time queries may run. Queries exceeding it fail with a QueryInterruptedException.
+     *
+     * @param seconds The maximum time in seconds, zero or less for no limit.
+     * @return itself to allow chaining.
+     */
+    public QueryService maxQueryTime(int seconds) {
+        this.maxQueryTime = seconds > 0 ? seconds : null;
+        return this;
+    }
+
+    /**
+     * Sets the executor running the asynchronous queries, e.g. the executor of Anno4j.
+     *
+     * @param executor The executor of asynchronous queries
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets the log of the object queries exceeding its thresholds, e.g. the log of Anno4j.
+     *
+     * @param slowQueryLog The log of slow queries, or null to disable it
+     */
+    public void setSlowQueryLog(SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    public SlowQueryLog getSlowQueryLog() {
+        return slowQueryLog;
+    }
+
+    /**
+     * Sets the cache of the results of {@link #execute(Class)} and {@link #executeAsync(Class)}, e.g. the cache
+     * of Anno4j. The cache is not used while the connection of the QueryService has an active transaction.
+     *
+     * @param resultCache The cache of query results, or null to disable it
+     */
+    public void setResultCache(QueryResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    public QueryResultCache getResultCache() {
+        return resultCache;
+    }
+
     /**
      * Creates and executes the SPARQL query according to the
      * criteria specified by the user.
@@ -269,12 +391,180 @@ public class QueryService {
      * @return the result set
      */
     public <T extends ResourceObject> List<T> execute(Class<T> type) throws ParseException, RepositoryException, MalformedQueryException, QueryEvaluationException {
+        QueryPlan plan = createPlan(type);
+        List<Object> key = getResultKey(type, plan);
+        if (key != null) {
+            List<T> cached = resultCache.get(key, connection);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        long version = resultCache != null ? resultCache.getVersion() : 0;
+
+        ObjectQuery query = prepareObjectQuery(type, plan);
+        List<T> result = materialize((Result<T>) evaluate(query, plan), plan);
+        logIfSlow(query, plan);
 
+        if (key != null) {
+            resultCache.put(key, version, plan.getOptimizedQuery(), result);
+        }
+        return result;
+    }
+
+    /**
+     * Creates and executes the SPARQL query according to the criteria specified by the user, but creates
+     * the objects only while the result is iterated. The caller controls how fast the objects are read.
+     *
+     * @param type Type of the expected result.
+     * @param <T>  type Type of the expected result.
+     * @return the lazy result, which has to be closed
+     */
+    public <T extends ResourceObject> Result<T> stream(Class<T> type) throws ParseException, RepositoryException, MalformedQueryException, QueryEvaluationException {
+        QueryPlan plan = createPlan(type);
+        ObjectQuery query = prepareObjectQuery(type, plan);
+        Result<T> result = (Result<T>) evaluate(query, plan);
+        logIfSlow(query, plan);
+        return result;
+    }
+
+    /**
+     * Translates the criteria specified by the user to the SPARQL query of the matching objects, without
+     * evaluating it. The objects are selected as <i>?root</i>.
+     *
+     * @param type Type of the queried objects.
+     * @return the SPARQL query
+     */
+    public <T extends ResourceObject> String toSparql(Class<T> type) throws ParseException {
+        return buildQuery(type, createPlan(type));
+    }
+
+    /**
+     * @return the contexts the QueryService reads, all contexts if empty.
+     */
+    public URI[] getReadContexts() {
+        return connection.getReadContexts();
+    }
+
+    /**
+     * Executes the query of annotations according to the criteria specified by the user and describes how.
+     *
+     * @return the plan of the query
+     * @see #explain(Class)
+     */
+    public QueryPlan explain() throws ParseException, RepositoryException, MalformedQueryException, QueryEvaluationException {
+        return this.explain(Annotation.class);
+    }
+
+    /**
+     * Executes the query according to the criteria specified by the user and describes how: the SPARQL query
+     * before and after the join order optimization, the time of every phase including the creation of the
+     * objects, and the algebra plan with the rows and time of each node. The query is evaluated a second time to
+     * profile its plan, so the plan times are not included in the times of the phases.
+     *
+     * @param type Type of the expected result.
+     * @param <T>  type Type of the expected result.
+     * @return the plan of the query
+     */
+    public <T extends ResourceObject> QueryPlan explain(Class<T> type) throws ParseException, RepositoryException, MalformedQueryException, QueryEvaluationException {
+        QueryPlan plan = createPlan(type);
+        ObjectQuery query = prepareObjectQuery(type, plan);
+        materialize((Result<T>) evaluate(query, plan), plan);
+        plan.setPlan(new QueryProfiler(connection.getDelegate()).profile(plan.getOptimizedQuery(), query.getDataset()));
+        return plan;
+    }
+
+    /**
+     * Executes the query according to the criteria specified by the user on the executor.
+     * The QueryService and its connection must not be used otherwise until the query is done.
+     * Cancelling the future closes the result of the query.
+     *
+     * @return the pending result set of annotations
+     */
+    public QueryFuture<List<Annotation>> executeAsync() {
+        return this.executeAsync(Annotation.class);
+    }
+
+    /**
+     * Executes the query according to the criteria specified by the user on the executor.
+     * The QueryService and its connection must not be used otherwise until the query is done.
+     * Cancelling the future closes the result of the query.
+     *
+     * @param type Type of the expected result.
+     * @param <T>  type Type of the expected result.
+     * @return the pending result set
+     */
+    public <T extends ResourceObject> QueryFuture<List<T>> executeAsync(final Class<T> type) {
+        QueryFuture<List<T>> future = new QueryFuture<>(new QueryFuture.Task<List<T>>() {
+            @Override
+            public List<T> call() throws Exception {
+                QueryPlan plan = createPlan(type);
+                List<Object> key = getResultKey(type, plan);
+                if (key != null) {
+                    List<T> cached = resultCache.get(key, connection);
+                    if (cached != null) {
+                        return cached;
+                    }
+                }
+                long version = resultCache != null ? resultCache.getVersion() : 0;
+
+                ObjectQuery query = prepareObjectQuery(type, plan);
+                List<T> result = materialize(open((Result<T>) evaluate(query, plan)), plan);
+                logIfSlow(query, plan);
+
+                if (key != null) {
+                    resultCache.put(key, version, plan.getOptimizedQuery(), result);
+                }
+                return result;
+            }
+        });
+        executor.execute(future);
+        return future;
+    }
+
+    private QueryPlan createPlan(Class<?> type) {
         URI rootType = connection.getObjectFactory().getNameOf(type);
         if (rootType == null) {
             throw new IllegalArgumentException("Can't query for: " + type + " not found in name map. Is @Iri annotation set?");
         }
+        return new QueryPlan(rootType.stringValue(), queryServiceDTO.getCriteria());
+    }
+
+    /**
+     * The criteria, type, limit, offset and the contexts read define the result of an object query.
+     *
+     * @return the key of the cached result, or null if the result may not be cached.
+     */
+    private List<Object> getResultKey(Class<?> type, QueryPlan plan) throws RepositoryException {
+        if (resultCache == null || !resultCache.isEnabled() || connection.isActive()) {
+            return null;
+        }
+        return getQueryKey(type, plan.getType(), limit, offset, Arrays.asList(connection.getReadContexts()));
+    }
+
+    private ObjectQuery prepareObjectQuery(Class<?> type, QueryPlan plan) throws ParseException, RepositoryException, MalformedQueryException {
+        String q = buildQuery(type, plan);
+
+        ObjectQuery query = connection.prepareObjectQuery(q);
+        if (maxQueryTime != null) {
+            query.setMaxQueryTime(maxQueryTime);
+        }
+
+        if (query.getDataset() != null) {
+            logger.debug("\nGRAPH CONTEXT = {}\nFINAL QUERY :\n{}", query.getDataset().getDefaultGraphs(), q);
+        } else {
+            logger.debug("\nFINAL QUERY :\n{}", q);
+        }
 
+        return query;
+    }
+
+    /**
+     * Translates the criteria to SPARQL and optimizes its join order.
+     */
+    private String buildQuery(Class<?> type, QueryPlan plan) throws ParseException {
+        URI rootType = connection.getObjectFactory().getNameOf(type);
+
+        long start = System.nanoTime();
         Query sparql = EvalQuery.evaluate(queryServiceDTO, rootType);
 
         // LDPath allows distinct. May have bad performance.
@@ -293,21 +583,332 @@ public class QueryService {
 //        System.out.println();
 
         String q = sparql.serialize();
-        logger.debug("Initial query:\n" + queryOptimizer.prettyPrint(q));
+        long nanos = System.nanoTime() - start;
+        BUILD.record(nanos);
+        plan.record(QueryPlan.Phase.BUILD, nanos);
+        plan.setInitialQuery(q);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Initial query:\n{}", queryOptimizer.prettyPrint(q));
+        }
 
         // Optimize the join order
-        q = queryOptimizer.optimizeJoinOrder(q);
-        logger.debug("Query after join order optimization:\n " + q);
+        start = System.nanoTime();
+        q = queryOptimizer.optimizeJoinOrder(q, statistics);
+        nanos = System.nanoTime() - start;
+        OPTIMIZE.record(nanos);
+        plan.record(QueryPlan.Phase.OPTIMIZE, nanos);
+        plan.setOptimizedQuery(q);
+        logger.debug("Query after join order optimization:\n {}", q);
+
+        return q;
+    }
 
-        ObjectQuery query = connection.prepareObjectQuery(q);
+    /**
+     * Evaluates the query up to its first result, as the evaluation is lazy.
+     */
+    private Result<?> evaluate(ObjectQuery query, QueryPlan plan) throws QueryEvaluationException {
+        long start = System.nanoTime();
+        try {
+            Result<?> result = query.evaluate();
+            boolean started = false;
+            try {
+                result.hasNext();
+                started = true;
+                return result;
+            } finally {
+                if (!started) {
+                    result.close();
+                }
+            }
+        } finally {
+            long nanos = System.nanoTime() - start;
+            EVALUATE.record(nanos);
+            plan.record(QueryPlan.Phase.EVALUATE, nanos);
+        }
+    }
 
-        if (query.getDataset() != null) {
-            logger.info("\nGRAPH CONTEXT = " + query.getDataset().getDefaultGraphs() + "\nFINAL QUERY :\n" + q);
-        } else {
-            logger.info("\nFINAL QUERY :\n" + q);
+    private <T> List<T> materialize(Result<T> result, QueryPlan plan) throws QueryEvaluationException {
+        long start = System.nanoTime();
+        try {
+            List<T> objects = result.asList();
+            plan.setResults(objects.size());
+            return objects;
+        } finally {
+            long nanos = System.nanoTime() - start;
+            MATERIALIZE.record(nanos);
+            plan.record(QueryPlan.Phase.MATERIALIZE, nanos);
+        }
+    }
+
+    /**
+     * Hands the plan to the slow query log if the query exceeded its thresholds. Profiling a slow query must not
+     * fail the query itself.
+     */
+    private void logIfSlow(ObjectQuery query, QueryPlan plan) {
+        SlowQueryLog log = slowQueryLog;
+        if (log == null || !log.isSlow(plan)) {
+            return;
+        }
+        if (log.isProfile()) {
+            try {
+                plan.setPlan(new QueryProfiler(connection.getDelegate()).profile(plan.getOptimizedQuery(), query.getDataset()));
+            } catch (MalformedQueryException | QueryEvaluationException e) {
+                logger.debug("Could not profile the slow query", e);
+            }
+        }
+        log.record(plan);
+    }
+
+    /**
+     * Selects the values of the given LDPaths of the annotations matching the criteria specified by the user,
+     * instead of the annotations themselves, e.g. <i>select("oa:hasBody/rdf:value", "oa:hasTarget/oa:hasSource")</i>.
+     * Every combination of values is a row. Annotations without a value for a LDPath have null in its place.
+     *
+     * @param ldpaths The projected LDPaths, beginning from the Annotation object
+     * @return the rows, which have to be closed
+     */
+    public ProjectionResult select(String... ldpaths) throws ParseException, RepositoryException, MalformedQueryException, QueryEvaluationException {
+        return this.select(Annotation.class, ldpaths);
+    }
+
+    /**
+     * Selects the values of the given LDPaths of the objects of the given type matching the criteria
+     * specified by the user, instead of the objects themselves. Every combination of values is a row.
+     * Objects without a value for a LDPath have null in its place.
+     *
+     * @param type    Type of the queried objects.
+     * @param ldpaths The projected LDPaths, beginning from the object
+     * @return the rows, which have to be closed
+     */
+    public <T extends ResourceObject> ProjectionResult select(Class<T> type, String... ldpaths) throws ParseException, RepositoryException, MalformedQueryException, QueryEvaluationException {
+        URI rootType = connection.getObjectFactory().getNameOf(type);
+        if (rootType == null) {
+            throw new IllegalArgumentException("Can't query for: " + type + " not found in name map. Is @Iri annotation set?");
         }
 
-        return (List<T>) query.evaluate().asList();
+        List<String> projection = Arrays.asList(ldpaths);
+        List<Object> key = getQueryKey(rootType, projection, limit, offset);
+        String q = getCompiledQuery(key);
+
+        if (q == null) {
+            Query sparql = EvalQuery.evaluateProjection(queryServiceDTO, rootType, projection);
+
+            if (limit != null) {
+                sparql.setLimit(limit);
+            }
+
+            if (offset != null) {
+                sparql.setOffset(offset);
+            }
+
+            q = sparql.serialize();
+            putCompiledQuery(key, q);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Projection query:\n{}", queryOptimizer.prettyPrint(q));
+            }
+        }
+
+        TupleQuery query = connection.prepareTupleQuery(QueryLanguage.SPARQL, q);
+        if (maxQueryTime != null) {
+            query.setMaxQueryTime(maxQueryTime);
+        }
+        logger.debug("\nFINAL QUERY :\n{}", q);
+
+        return new ProjectionResult(query.evaluate(), projection, connection.getObjectFactory());
+    }
+
+    /**
+     * Counts the distinct annotations matching the criteria specified by the user,
+     * without creating any objects. Limit and offset are ignored.
+     *
+     * @return the number of matching annotations
+     */
+    public long count() throws ParseException, RepositoryException, MalformedQueryException, QueryEvaluationException {
+        return this.count(Annotation.class);
+    }
+
+    /**
+     * Counts the distinct objects of the given type matching the criteria specified
+     * by the user, without creating any objects. Limit and offset are ignored.
+     *
+     * @param type Type of the counted objects.
+     * @return the number of matching objects
+     */
+    public <T extends ResourceObject> long count(Class<T> type) throws ParseException, RepositoryException, MalformedQueryException, QueryEvaluationException {
+        Value count = aggregate(type, Aggregate.COUNT, null);
+        return count == null ? 0 : ((Literal) count).longValue();
+    }
+
+    /**
+     * Counts the distinct annotations matching the criteria for each value of the given LDPath,
+     * e.g. <i>oa:motivatedBy</i> for a facet of motivations. Annotations without a value are not counted.
+     * Limit and offset apply to the values.
+     *
+     * @param ldpath The LDPath of the grouping values, beginning from the Annotation object
+     * @return the number of matching annotations per value, largest first
+     */
+    public Map<Value, Long> countBy(String ldpath) throws ParseException, RepositoryException, MalformedQueryException, QueryEvaluationException {
+        return this.countBy(Annotation.class, ldpath);
+    }
+
+    /**
+     * Counts the distinct objects of the given type matching the criteria for each value of the given LDPath.
+     * Objects without a value are not counted. Limit and offset apply to the values.
+     *
+     * @param type   Type of the counted objects.
+     * @param ldpath The LDPath of the grouping values, beginning from the object
+     * @return the number of matching objects per value, largest first
+     */
+    public <T extends ResourceObject> Map<Value, Long> countBy(Class<T> type, String ldpath) throws ParseException, RepositoryException, MalformedQueryException, QueryEvaluationException {
+        Map<Value, Long> counts = new LinkedHashMap<>();
+        for (Map.Entry<Value, Value> entry : aggregateBy(type, Aggregate.COUNT, null, ldpath).entrySet()) {
+            counts.put(entry.getKey(), ((Literal) entry.getValue()).longValue());
+        }
+        return counts;
+    }
+
+    /**
+     * Aggregates the values of the given LDPath over the distinct annotations matching
+     * the criteria specified by the user. Limit and offset are ignored.
+     *
+     * @param aggregate The aggregate function, e.g. Aggregate.SUM
+     * @param ldpath    The LDPath of the aggregated values, beginning from the Annotation object
+     * @return the aggregated value, or null if there is none
+     */
+    public Value aggregate(Aggregate aggregate, String ldpath) throws ParseException, RepositoryException, MalformedQueryException, QueryEvaluationException {
+        return this.aggregate(Annotation.class, aggregate, ldpath);
+    }
+
+    /**
+     * Aggregates the values of the given LDPath over the distinct objects of the given
+     * type matching the criteria specified by the user. Limit and offset are ignored.
+     *
+     * @param type      Type of the queried objects.
+     * @param aggregate The aggregate function, e.g. Aggregate.SUM
+     * @param ldpath    The LDPath of the aggregated values, beginning from the object,
+     *                  or null to aggregate over the objects themselves
+     * @return the aggregated value, or null if there is none
+     */
+    public <T extends ResourceObject> Value aggregate(Class<T> type, Aggregate aggregate, String ldpath) throws ParseException, RepositoryException, MalformedQueryException, QueryEvaluationException {
+        TupleQueryResult result = evaluateAggregate(type, aggregate, ldpath, null);
+        try {
+            return result.hasNext() ? result.next().getValue("aggregate") : null;
+        } finally {
+            result.close();
+        }
+    }
+
+    /**
+     * Aggregates the values of the given LDPath over the distinct annotations matching
+     * the criteria for each value of the grouping LDPath. Limit and offset apply to the groups.
+     *
+     * @param aggregate The aggregate function, e.g. Aggregate.MAX
+     * @param ldpath    The LDPath of the aggregated values, beginning from the Annotation object
+     * @param groupBy   The LDPath of the grouping values, beginning from the Annotation object
+     * @return the aggregated value per group, largest first
+     */
+    public Map<Value, Value> aggregateBy(Aggregate aggregate, String ldpath, String groupBy) throws ParseException, RepositoryException, MalformedQueryException, QueryEvaluationException {
+        return this.aggregateBy(Annotation.class, aggregate, ldpath, groupBy);
+    }
+
+    /**
+     * Aggregates the values of the given LDPath over the distinct objects of the given type
+     * matching the criteria for each value of the grouping LDPath. Limit and offset apply to the groups.
+     *
+     * @param type      Type of the queried objects.
+     * @param aggregate The aggregate function, e.g. Aggregate.MAX
+     * @param ldpath    The LDPath of the aggregated values, beginning from the object,
+     *                  or null to aggregate over the objects themselves
+     * @param groupBy   The LDPath of the grouping values, beginning from the object
+     * @return the aggregated value per group, largest first
+     */
+    public <T extends ResourceObject> Map<Value, Value> aggregateBy(Class<T> type, Aggregate aggregate, String ldpath, String groupBy) throws ParseException, RepositoryException, MalformedQueryException, QueryEvaluationException {
+        Map<Value, Value> groups = new LinkedHashMap<>();
+        TupleQueryResult result = evaluateAggregate(type, aggregate, ldpath, groupBy);
+        try {
+            while (result.hasNext()) {
+                BindingSet bindings = result.next();
+                Value group = bindings.getValue("group");
+                Value value = bindings.getValue("aggregate");
+                if (group != null && value != null) {
+                    groups.put(group, value);
+                }
+            }
+        } finally {
+            result.close();
+        }
+        return groups;
+    }
+
+    private TupleQueryResult evaluateAggregate(Class<?> type, Aggregate aggregate, String ldpath, String groupBy) throws ParseException, RepositoryException, MalformedQueryException, QueryEvaluationException {
+        URI rootType = connection.getObjectFactory().getNameOf(type);
+        if (rootType == null) {
+            throw new IllegalArgumentException("Can't query for: " + type + " not found in name map. Is @Iri annotation set?");
+        }
+
+        Integer groupLimit = groupBy == null ? null : limit;
+        Integer groupOffset = groupBy == null ? null : offset;
+
+        List<Object> key = getQueryKey(rootType, aggregate, ldpath, groupBy, groupLimit, groupOffset);
+        String q = getCompiledQuery(key);
+
+        if (q == null) {
+            Query sparql = EvalQuery.evaluateAggregate(queryServiceDTO, rootType, aggregate, ldpath, groupBy);
+
+            if (groupLimit != null) {
+                sparql.setLimit(groupLimit);
+            }
+
+            if (groupOffset != null) {
+                sparql.setOffset(groupOffset);
+            }
+
+            q = sparql.serialize();
+            putCompiledQuery(key, q);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Aggregate query:\n{}", queryOptimizer.prettyPrint(q));
+            }
+        }
+
+        TupleQuery query = connection.prepareTupleQuery(QueryLanguage.SPARQL, q);
+        if (maxQueryTime != null) {
+            query.setMaxQueryTime(maxQueryTime);
+        }
+        logger.debug("\nFINAL QUERY :\n{}", q);
+
+        return query.evaluate();
+    }
+
+    /**
+     * The criteria, what is selected and the configuration define a query, so its compiled form can be reused.
+     */
+    private List<Object> getQueryKey(Object... selection) {
+        List<Object> key = new ArrayList<>();
+        key.add(queryServiceDTO.getEvaluatorConfiguration());
+        key.add(new TreeMap<>(queryServiceDTO.getPrefixes()));
+        key.add(getCriteriaShape());
+        key.addAll(Arrays.asList(selection));
+        return key;
+    }
+
+    private String getCompiledQuery(List<Object> key) {
+        synchronized (COMPILED_QUERIES) {
+            return COMPILED_QUERIES.get(key);
+        }
+    }
+
+    private void putCompiledQuery(List<Object> key, String query) {
+        synchronized (COMPILED_QUERIES) {
+            COMPILED_QUERIES.put(key, query);
+        }
+    }
+
+    private List<List<Object>> getCriteriaShape() {
+        List<List<Object>> shape = new ArrayList<>();
+        for (Criteria c : queryServiceDTO.getCriteria()) {
+            shape.add(Arrays.<Object>asList(c.getLdpath(), c.getComparison(), c.getConstraint(), c.isNaN()));
+        }
+        return shape;
     }
 
     public Configuration getConfiguration() {
@@ -0,0 +1,442 @@
+package com.github.anno4j.querying;
+
+import org.openrdf.model.Literal;
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.TupleQueryResult;
+import org.openrdf.query.Update;
+import org.openrdf.repository.Repository;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.event.RepositoryConnectionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Estimates the number of triples per predicate and of instances per type of a repository,
+ * for the cost-based join ordering of the {@link QueryOptimizer}.
+ *
+ * <p>The counts are read with two grouped queries on a background thread, started on first use. Until they are
+ * read, the statistics are not {@link #isLoaded() loaded} and queries are not reordered by them. Afterwards, the
+ * statistics listen to the connections of Anno4j and count the added and removed statements of each transaction,
+ * once it is committed. Changes of unknown size, like removals by pattern of connections not reporting deltas or
+ * SPARQL updates, are only counted. The counts are read again once there are more of them than a tenth of the
+ * triples, as the estimates may have drifted by then.</p>
+ */
+public class QueryStatistics implements RepositoryConnectionListener {
+
+    private static final String PREDICATE_QUERY = "SELECT ?p (COUNT(*) AS ?n) (COUNT(DISTINCT ?s) AS ?subjects) (COUNT(DISTINCT ?o) AS ?objects)\n" +
+            "WHERE { ?s ?p ?o } GROUP BY ?p";
+
+    private static final String TYPE_QUERY = "SELECT ?t (COUNT(DISTINCT ?s) AS ?n)\n" +
+            "WHERE { ?s <" + RDF.TYPE + "> ?t } GROUP BY ?t";
+
+    /**
+     * Minimum number of changes of unknown size, before the counts are read again
+     */
+    private static final long MIN_UNKNOWN_CHANGES = 1000;
+
+    private final Logger logger = LoggerFactory.getLogger(QueryStatistics.class);
+
+    private final Repository repository;
+
+    private volatile ConcurrentMap<String, Cardinality> predicates = new ConcurrentHashMap<>();
+
+    private volatile ConcurrentMap<String, AtomicLong> types = new ConcurrentHashMap<>();
+
+    private final AtomicLong triples = new AtomicLong();
+
+    private final AtomicLong unknownChanges = new AtomicLong();
+
+    /**
+     * Changes of the pending transaction of each connection
+     */
+    private final Map<RepositoryConnection, Delta> pending = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean reading = new AtomicBoolean();
+
+    private volatile boolean loaded = false;
+
+    /**
+     * Whether the counts are to be read again
+     */
+    private volatile boolean stale = true;
+
+    /**
+     * Number of statements of the last reading
+     */
+    private volatile long loadedTriples;
+
+    /**
+     * Constructor
+     *
+     * @param repository The repository to read the counts from
+     */
+    public QueryStatistics(Repository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Starts reading the counts in the background, if they have not been read yet.
+     *
+     * @return true if the counts have been read, false if the estimates are not available yet
+     */
+    public boolean isLoaded() {
+        update();
+        return loaded;
+    }
+
+    /**
+     * @return the estimated number of triples
+     */
+    public long getTripleCount() {
+        update();
+        return triples.get();
+    }
+
+    /**
+     * @param predicate The URI of the predicate
+     * @return the estimated number of triples with the predicate
+     */
+    public long getPredicateCount(String predicate) {
+        update();
+        Cardinality cardinality = predicates.get(predicate);
+        return cardinality == null ? 0 : Math.max(0, cardinality.count.get());
+    }
+
+    /**
+     * @param predicate The URI of the predicate
+     * @return the average number of objects per subject of the predicate, at least 1
+     */
+    public double getObjectsPerSubject(String predicate) {
+        update();
+        Cardinality cardinality = predicates.get(predicate);
+        return cardinality == null ? 1 : cardinality.objectsPerSubject;
+    }
+
+    /**
+     * @param predicate The URI of the predicate
+     * @return the average number of subjects per object of the predicate, at least 1
+     */
+    public double getSubjectsPerObject(String predicate) {
+        update();
+        Cardinality cardinality = predicates.get(predicate);
+        return cardinality == null ? 1 : cardinality.subjectsPerObject;
+    }
+
+    /**
+     * @param type The URI of the type
+     * @return the estimated number of instances of the type
+     */
+    public long getTypeCount(String type) {
+        update();
+        AtomicLong count = types.get(type);
+        return count == null ? 0 : Math.max(0, count.get());
+    }
+
+    /**
+     * Reads the counts again in the background on next use. The current estimates are used until then.
+     */
+    public void refresh() {
+        stale = true;
+    }
+
+    /**
+     * Starts reading the counts on a background thread if they are stale or may have drifted.
+     */
+    private void update() {
+        if (!stale && unknownChanges.get() <= Math.max(MIN_UNKNOWN_CHANGES, loadedTriples / 10)) {
+            return;
+        }
+
+        if (reading.compareAndSet(false, true)) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        load();
+                    } finally {
+                        reading.set(false);
+                    }
+                }
+            }, "anno4j-query-statistics");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Reads the counts of the repository on the calling thread, e.g. right after a bulk load.
+     */
+    public synchronized void load() {
+        long start = System.currentTimeMillis();
+        // Counting the changes from now on, so none made while reading is lost
+        stale = false;
+        unknownChanges.set(0);
+
+        try {
+            RepositoryConnection connection = repository.getConnection();
+            try {
+                long total = 0;
+                ConcurrentMap<String, Cardinality> predicates = new ConcurrentHashMap<>();
+                TupleQueryResult result = connection.prepareTupleQuery(QueryLanguage.SPARQL, PREDICATE_QUERY).evaluate();
+                try {
+                    while (result.hasNext()) {
+                        BindingSet bindings = result.next();
+                        long count = longValue(bindings, "n");
+                        Cardinality cardinality = new Cardinality(count,
+                                (double) count / Math.max(1, longValue(bindings, "subjects")),
+                                (double) count / Math.max(1, longValue(bindings, "objects")));
+                        predicates.put(bindings.getValue("p").stringValue(), cardinality);
+                        total += count;
+                    }
+                } finally {
+                    result.close();
+                }
+
+                ConcurrentMap<String, AtomicLong> types = new ConcurrentHashMap<>();
+                result = connection.prepareTupleQuery(QueryLanguage.SPARQL, TYPE_QUERY).evaluate();
+                try {
+                    while (result.hasNext()) {
+                        BindingSet bindings = result.next();
+                        types.put(bindings.getValue("t").stringValue(), new AtomicLong(longValue(bindings, "n")));
+                    }
+                } finally {
+                    result.close();
+                }
+
+                // The previous estimates stay in use while reading
+                this.predicates = predicates;
+                this.types = types;
+                triples.set(total);
+                loadedTriples = total;
+                loaded = true;
+            } finally {
+                connection.close();
+            }
+            logger.debug("Read statistics of {} triples in {} ms", loadedTriples, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            // Estimates are optional, the queries are just not reordered by them
+            logger.warn("Could not read query statistics", e);
+        }
+    }
+
+    private long longValue(BindingSet bindings, String name) {
+        Value value = bindings.getValue(name);
+        return value instanceof Literal ? ((Literal) value).longValue() : 0;
+    }
+
+    /**
+     * @return the changes of the pending transaction of the connection, or null if it commits each change
+     */
+    private Delta getDelta(RepositoryConnection conn) {
+        boolean active;
+        try {
+            active = conn.isActive();
+        } catch (RepositoryException e) {
+            active = false;
+        }
+        if (!active) {
+            return null;
+        }
+        Delta delta = pending.get(conn);
+        if (delta == null) {
+            delta = new Delta();
+            pending.put(conn, delta);
+        }
+        return delta;
+    }
+
+    private void changed(RepositoryConnection conn, URI predicate, Value object, long difference) {
+        Delta delta = getDelta(conn);
+        boolean committed = delta == null;
+        if (committed) {
+            delta = new Delta();
+        }
+
+        delta.triples += difference;
+        delta.count(delta.predicates, predicate.stringValue(), difference);
+        if (RDF.TYPE.equals(predicate)) {
+            delta.count(delta.types, object.stringValue(), difference);
+        }
+
+        if (committed) {
+            apply(delta);
+        }
+    }
+
+    private void unknownChange(RepositoryConnection conn, boolean cleared) {
+        Delta delta = getDelta(conn);
+        boolean committed = delta == null;
+        if (committed) {
+            delta = new Delta();
+        }
+
+        delta.unknown++;
+        delta.cleared |= cleared;
+
+        if (committed) {
+            apply(delta);
+        }
+    }
+
+    /**
+     * Adds the committed changes to the estimates.
+     */
+    private void apply(Delta delta) {
+        if (delta == null) {
+            return;
+        }
+
+        triples.addAndGet(delta.triples);
+        ConcurrentMap<String, Cardinality> predicates = this.predicates;
+        for (Map.Entry<String, Long> entry : delta.predicates.entrySet()) {
+            Cardinality cardinality = predicates.get(entry.getKey());
+            if (cardinality == null && loaded) {
+                Cardinality created = new Cardinality(0, 1, 1);
+                cardinality = predicates.putIfAbsent(entry.getKey(), created);
+                if (cardinality == null) {
+                    cardinality = created;
+                }
+            }
+            if (cardinality != null) {
+                cardinality.count.addAndGet(entry.getValue());
+            }
+        }
+
+        ConcurrentMap<String, AtomicLong> types = this.types;
+        for (Map.Entry<String, Long> entry : delta.types.entrySet()) {
+            AtomicLong count = types.get(entry.getKey());
+            if (count == null && loaded) {
+                AtomicLong created = new AtomicLong();
+                count = types.putIfAbsent(entry.getKey(), created);
+                if (count == null) {
+                    count = created;
+                }
+            }
+            if (count != null) {
+                count.addAndGet(entry.getValue());
+            }
+        }
+
+        unknownChanges.addAndGet(delta.unknown);
+        if (delta.cleared) {
+            refresh();
+        }
+    }
+
+    @Override
+    public void add(RepositoryConnection conn, Resource subject, URI predicate, Value object, Resource... contexts) {
+        changed(conn, predicate, object, 1);
+    }
+
+    @Override
+    public void remove(RepositoryConnection conn, Resource subject, URI predicate, Value object, Resource... contexts) {
+        if (subject == null || predicate == null || object == null) {
+            unknownChange(conn, false);
+        } else {
+            changed(conn, predicate, object, -1);
+        }
+    }
+
+    @Override
+    public void clear(RepositoryConnection conn, Resource... contexts) {
+        unknownChange(conn, true);
+    }
+
+    @Override
+    public void execute(RepositoryConnection conn, QueryLanguage ql, String update, String baseURI, Update operation) {
+        unknownChange(conn, false);
+    }
+
+    @Override
+    public void commit(RepositoryConnection conn) {
+        apply(pending.remove(conn));
+    }
+
+    @Override
+    public void rollback(RepositoryConnection conn) {
+        pending.remove(conn);
+    }
+
+    @Override
+    public void close(RepositoryConnection conn) {
+        pending.remove(conn);
+    }
+
+    @Override
+    public void setAutoCommit(RepositoryConnection conn, boolean autoCommit) {
+        if (autoCommit) {
+            apply(pending.remove(conn));
+        }
+    }
+
+    @Override
+    public void begin(RepositoryConnection conn) {
+    }
+
+    @Override
+    public void setNamespace(RepositoryConnection conn, String prefix, String name) {
+    }
+
+    @Override
+    public void removeNamespace(RepositoryConnection conn, String prefix) {
+    }
+
+    @Override
+    public void clearNamespaces(RepositoryConnection conn) {
+    }
+
+    /**
+     * The changes of a transaction, added to the estimates once it is committed
+     */
+    private static class Delta {
+
+        private long triples;
+
+        private final Map<String, Long> predicates = new HashMap<>();
+
+        private final Map<String, Long> types = new HashMap<>();
+
+        private long unknown;
+
+        /**
+         * Whether contexts were cleared
+         */
+        private boolean cleared;
+
+        private void count(Map<String, Long> counts, String key, long difference) {
+            Long count = counts.get(key);
+            counts.put(key, count == null ? difference : count + difference);
+        }
+    }
+
+    /**
+     * Counts of a single predicate
+     */
+    private static class Cardinality {
+
+        private final AtomicLong count;
+
+        private final double objectsPerSubject;
+
+        private final double subjectsPerObject;
+
+        private Cardinality(long count, double objectsPerSubject, double subjectsPerObject) {
+            this.count = new AtomicLong(count);
+            this.objectsPerSubject = Math.max(1, objectsPerSubject);
+            this.subjectsPerObject = Math.max(1, subjectsPerObject);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.github.anno4j.querying;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the plans of the object queries exceeding a threshold, in total or in any of their phases.
+ * Every slow query is logged with its criteria and the times of its phases at WARN, its query text and plan at
+ * DEBUG. The most recent slow queries are kept to be inspected, e.g. by a monitoring endpoint.
+ * <br/><br/>
+ * With profiling enabled, a slow query is evaluated a second time by the {@link QueryService} to capture the
+ * rows and times of the nodes of its plan, which costs about as much as the query itself.
+ *
+ * @see com.github.anno4j.Anno4j#setSlowQueryLog(SlowQueryLog)
+ */
+public class SlowQueryLog {
+
+    private final Logger logger = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    private final Map<QueryPlan.Phase, Long> phaseThresholds = new EnumMap<>(QueryPlan.Phase.class);
+
+    private final Deque<QueryPlan> recent = new ArrayDeque<>();
+
+    private volatile long threshold;
+
+    private volatile int capacity = 100;
+
+    private volatile boolean profile = false;
+
+    /**
+     * @param threshold The total time from which on a query is slow
+     * @param unit      The unit of the threshold
+     */
+    public SlowQueryLog(long threshold, TimeUnit unit) {
+        this.threshold = unit.toNanos(threshold);
+    }
+
+    /**
+     * Sets the total time from which on a query is slow.
+     */
+    public void setThreshold(long threshold, TimeUnit unit) {
+        this.threshold = unit.toNanos(threshold);
+    }
+
+    /**
+     * Sets the time from which on a query is slow, if it is spent in the given phase.
+     */
+    public void setThreshold(QueryPlan.Phase phase, long threshold, TimeUnit unit) {
+        synchronized (phaseThresholds) {
+            phaseThresholds.put(phase, unit.toNanos(threshold));
+        }
+    }
+
+    /**
+     * @param unit The unit of the returned threshold
+     * @return the total time from which on a query is slow.
+     */
+    public long getThreshold(TimeUnit unit) {
+        return unit.convert(threshold, TimeUnit.NANOSECONDS);
+    }
+
+    public boolean isProfile() {
+        return profile;
+    }
+
+    /**
+     * @param profile Whether slow queries are evaluated again to capture their plan with rows and times per node
+     */
+    public void setProfile(boolean profile) {
+        this.profile = profile;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @param capacity The number of recent slow queries kept
+     */
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * @param plan The plan of an executed query
+     * @return whether the query exceeded the total threshold or the threshold of one of its phases.
+     */
+    public boolean isSlow(QueryPlan plan) {
+        if (plan.getTotalTime(TimeUnit.NANOSECONDS) >= threshold) {
+            return true;
+        }
+        synchronized (phaseThresholds) {
+            for (Map.Entry<QueryPlan.Phase, Long> entry : phaseThresholds.entrySet()) {
+                if (plan.getTime(entry.getKey(), TimeUnit.NANOSECONDS) >= entry.getValue()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Logs the slow query and keeps its plan.
+     *
+     * @param plan The plan of a slow query
+     */
+    public void record(QueryPlan plan) {
+        logger.warn("Slow query: {}", plan.getSummary());
+        if (logger.isDebugEnabled()) {
+            logger.debug("Plan of the slow query:\n{}", plan);
+        }
+        synchronized (recent) {
+            recent.addLast(plan);
+            while (recent.size() > capacity) {
+                recent.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * @return the plans of the most recent slow queries, oldest first.
+     */
+    public List<QueryPlan> getRecent() {
+        synchronized (recent) {
+            return new ArrayList<>(recent);
+        }
+    }
+
+    /**
+     * Forgets the recent slow queries.
+     */
+    public void clear() {
+        synchronized (recent) {
+            recent.clear();
+        }
+    }
+}
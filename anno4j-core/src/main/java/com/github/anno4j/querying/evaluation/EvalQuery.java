@@ -1,6 +1,7 @@
 package com.github.anno4j.querying.evaluation;
 
 import com.github.anno4j.model.impl.ResourceObject;
+import com.github.anno4j.querying.Aggregate;
 import com.github.anno4j.querying.Criteria;
 import com.github.anno4j.querying.QueryServiceConfiguration;
 import com.github.anno4j.querying.evaluation.ldpath.LDPathEvaluator;
@@ -9,7 +10,12 @@ import com.hp.hpl.jena.graph.Triple;
 import com.hp.hpl.jena.query.Query;
 import com.hp.hpl.jena.query.QueryFactory;
 import com.hp.hpl.jena.sparql.core.Var;
+import com.hp.hpl.jena.sparql.expr.Expr;
+import com.hp.hpl.jena.sparql.expr.ExprVar;
+import com.hp.hpl.jena.sparql.expr.aggregate.*;
 import com.hp.hpl.jena.sparql.syntax.ElementGroup;
+import com.hp.hpl.jena.sparql.syntax.ElementOptional;
+import com.hp.hpl.jena.sparql.syntax.ElementSubQuery;
 import com.hp.hpl.jena.vocabulary.RDF;
 import org.apache.marmotta.ldpath.backend.sesame.SesameValueBackend;
 import org.apache.marmotta.ldpath.parser.LdPathParser;
@@ -17,6 +23,7 @@ import org.apache.marmotta.ldpath.parser.ParseException;
 import org.openrdf.model.URI;
 
 import java.io.StringReader;
+import java.util.List;
 
 public class EvalQuery {
 
@@ -29,31 +36,173 @@ public class EvalQuery {
 
         Var objectVar = Var.alloc("root");
 
+        evaluateCriteria(queryServiceDTO, rootType, elementGroup, objectVar);
+
+        // Adding all generated patterns to the query object
+        query.setQueryPattern(elementGroup);
+
+        // Choose what we want so select - SELECT ?annotation in this case
+        query.addResultVar(objectVar);
+
+        // Setting the default prefixes, like rdf: or dc:
+        query.getPrefixMapping().setNsPrefixes(queryServiceDTO.getPrefixes());
+
+        return query;
+    }
+
+    /**
+     * Creates a query that selects the values of the given LDPaths along with the objects matching the criteria.
+     * Each LDPath is optional and bound to the variables <i>p0</i>, <i>p1</i>, and so on. Something like:
+     *
+     * <pre>
+     * SELECT DISTINCT ?root (?var1 AS ?p0) WHERE { ... OPTIONAL { ?root oa:hasBody ?var1 } }
+     * </pre>
+     *
+     * @param queryServiceDTO The criteria, prefixes and configuration
+     * @param rootType        The type of the queried objects
+     * @param ldpaths         The projected LDPaths
+     * @return the projection query
+     */
+    public static Query evaluateProjection(QueryServiceConfiguration queryServiceDTO, URI rootType, List<String> ldpaths) throws ParseException {
+
+        Query query = QueryFactory.make();
+        query.setQuerySelectType();
+        query.setDistinct(true);
+
+        ElementGroup elementGroup = new ElementGroup();
+
+        Var objectVar = Var.alloc("root");
+        evaluateCriteria(queryServiceDTO, rootType, elementGroup, objectVar);
+        query.addResultVar(objectVar);
+
+        for (int i = 0; i < ldpaths.size(); i++) {
+            ElementGroup optional = new ElementGroup();
+            Var var = evaluatePath(queryServiceDTO, ldpaths.get(i), optional, objectVar);
+            if (!optional.isEmpty()) {
+                elementGroup.addElement(new ElementOptional(optional));
+            }
+            query.addResultVar(Var.alloc("p" + i), new ExprVar(var));
+        }
+
+        query.setQueryPattern(elementGroup);
+        query.getPrefixMapping().setNsPrefixes(queryServiceDTO.getPrefixes());
+
+        return query;
+    }
+
+    /**
+     * Creates a query that aggregates over the distinct objects matching the criteria, instead of selecting them.
+     * The result has the variable <i>aggregate</i> and, if grouped, the variable <i>group</i>. Something like:
+     *
+     * <pre>
+     * SELECT ?group (SUM(?value) AS ?aggregate)
+     * WHERE { { SELECT DISTINCT ?root ?value ?group WHERE { ... } } }
+     * GROUP BY ?group ORDER BY DESC(?aggregate) ?group
+     * </pre>
+     *
+     * @param queryServiceDTO The criteria, prefixes and configuration
+     * @param rootType        The type of the queried objects
+     * @param aggregate       The aggregate function
+     * @param ldpath          The LDPath of the aggregated values, or null to aggregate over the objects themselves
+     * @param groupBy         The LDPath of the grouping values, or null for a single aggregate
+     * @return the aggregate query
+     */
+    public static Query evaluateAggregate(QueryServiceConfiguration queryServiceDTO, URI rootType, Aggregate aggregate, String ldpath, String groupBy) throws ParseException {
+
+        Query distinct = QueryFactory.make();
+        distinct.setQuerySelectType();
+        distinct.setDistinct(true);
+
+        ElementGroup elementGroup = new ElementGroup();
+
+        Var objectVar = Var.alloc("root");
+        evaluateCriteria(queryServiceDTO, rootType, elementGroup, objectVar);
+        distinct.addResultVar(objectVar);
+
+        // Selecting distinct objects first, so the joins of the criteria do not count any object twice
+        Var valueVar = objectVar;
+        if (ldpath != null) {
+            valueVar = evaluatePath(queryServiceDTO, ldpath, elementGroup, objectVar);
+            if (!distinct.getProjectVars().contains(valueVar)) {
+                distinct.addResultVar(valueVar);
+            }
+        }
+
+        Var groupVar = null;
+        if (groupBy != null) {
+            groupVar = evaluatePath(queryServiceDTO, groupBy, elementGroup, objectVar);
+            if (!distinct.getProjectVars().contains(groupVar)) {
+                distinct.addResultVar(groupVar);
+            }
+        }
+
+        distinct.setQueryPattern(elementGroup);
+
+        Query query = QueryFactory.make();
+        query.setQuerySelectType();
+
+        ElementGroup outer = new ElementGroup();
+        outer.addElement(new ElementSubQuery(distinct));
+        query.setQueryPattern(outer);
+
+        Expr aggregateExpr = query.allocAggregate(createAggregator(aggregate, new ExprVar(valueVar)));
+        Var aggregateVar = Var.alloc("aggregate");
+
+        if (groupVar != null) {
+            query.addResultVar(Var.alloc("group"), new ExprVar(groupVar));
+            query.addGroupBy(groupVar);
+        }
+
+        query.addResultVar(aggregateVar, aggregateExpr);
+
+        if (groupVar != null) {
+            query.addOrderBy(aggregateVar, Query.ORDER_DESCENDING);
+            query.addOrderBy(groupVar, Query.ORDER_ASCENDING);
+        }
+
+        query.getPrefixMapping().setNsPrefixes(queryServiceDTO.getPrefixes());
+
+        return query;
+    }
+
+    private static void evaluateCriteria(QueryServiceConfiguration queryServiceDTO, URI rootType, ElementGroup elementGroup, Var objectVar) throws ParseException {
+
         // Creating and adding the first triple - could be something like: "?objectVar rdf:type oa:Annotation
         Triple t1 = new Triple(objectVar, RDF.type.asNode(), NodeFactory.createURI(rootType.toString()));
         elementGroup.addTriplePattern(t1);
 
         // Evaluating the criteria
         for (Criteria c : queryServiceDTO.getCriteria()) {
-            SesameValueBackend backend = new SesameValueBackend();
-
-            LdPathParser parser = new LdPathParser(backend, queryServiceDTO.getConfiguration(), new StringReader(c.getLdpath()));
-            Var var = LDPathEvaluator.evaluate(parser.parseSelector(queryServiceDTO.getPrefixes()), elementGroup, objectVar, queryServiceDTO.getEvaluatorConfiguration());
+            Var var = evaluatePath(queryServiceDTO, c.getLdpath(), elementGroup, objectVar);
 
             if (c.getConstraint() != null) {
                 EvalComparison.evaluate(elementGroup, c, var);
             }
         }
+    }
 
-        // Adding all generated patterns to the query object
-        query.setQueryPattern(elementGroup);
-
-        // Choose what we want so select - SELECT ?annotation in this case
-        query.addResultVar(objectVar);
+    private static Var evaluatePath(QueryServiceConfiguration queryServiceDTO, String ldpath, ElementGroup elementGroup, Var objectVar) throws ParseException {
+        SesameValueBackend backend = new SesameValueBackend();
 
-        // Setting the default prefixes, like rdf: or dc:
-        query.getPrefixMapping().setNsPrefixes(queryServiceDTO.getPrefixes());
+        LdPathParser parser = new LdPathParser(backend, queryServiceDTO.getConfiguration(), new StringReader(ldpath));
+        return LDPathEvaluator.evaluate(parser.parseSelector(queryServiceDTO.getPrefixes()), elementGroup, objectVar, queryServiceDTO.getEvaluatorConfiguration());
+    }
 
-        return query;
+    private static Aggregator createAggregator(Aggregate aggregate, Expr expr) {
+        switch (aggregate) {
+            case COUNT:
+                // The rows are distinct per object, so a value shared by several objects appears more than once
+                return new AggCountVarDistinct(expr);
+            case SUM:
+                return new AggSum(expr);
+            case AVG:
+                return new AggAvg(expr);
+            case MIN:
+                return new AggMin(expr);
+            case MAX:
+                return new AggMax(expr);
+            default:
+                throw new IllegalArgumentException("Unsupported aggregate: " + aggregate);
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.github.anno4j.querying.evaluation;
 
+import com.github.anno4j.querying.ClosureIndex;
 import com.github.anno4j.querying.extension.QueryEvaluator;
 import com.github.anno4j.querying.extension.TestEvaluator;
 import com.hp.hpl.jena.graph.Node;
@@ -22,6 +23,8 @@ public class LDPathEvaluatorConfiguration {
 
     private Map<Class<? extends SelectorFunction>, Class<QueryEvaluator>> functionEvaluators;
 
+    private ClosureIndex closureIndex;
+
     public Map<Class<? extends TestFunction>, Class<QueryEvaluator>> getTestFunctionEvaluators() {
         return testFunctionEvaluators;
     }
@@ -53,4 +56,15 @@ public class LDPathEvaluatorConfiguration {
     public void setFunctionEvaluators(Map<Class<? extends SelectorFunction>, Class<QueryEvaluator>> functionEvaluators) {
         this.functionEvaluators = functionEvaluators;
     }
-}
+
+    /**
+     * @return the index of transitive predicates for recursive paths, or null
+     */
+    public ClosureIndex getClosureIndex() {
+        return closureIndex;
+    }
+
+    public void setClosureIndex(ClosureIndex closureIndex) {
+        this.closureIndex = closureIndex;
+    }
+}
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.github.anno4j.querying.evaluation.ldpath;
 
+import com.github.anno4j.querying.ClosureIndex;
 import com.github.anno4j.querying.evaluation.LDPathEvaluatorConfiguration;
 import com.github.anno4j.querying.evaluation.VarIDGenerator;
 import com.github.anno4j.querying.extension.QueryEvaluator;
@@ -7,15 +8,31 @@ import com.github.anno4j.annotations.Evaluator;
 import com.hp.hpl.jena.graph.NodeFactory;
 import com.hp.hpl.jena.sparql.core.TriplePath;
 import com.hp.hpl.jena.sparql.core.Var;
+import com.hp.hpl.jena.sparql.path.P_Alt;
 import com.hp.hpl.jena.sparql.path.P_Link;
 import com.hp.hpl.jena.sparql.path.P_OneOrMore1;
+import com.hp.hpl.jena.sparql.path.P_ReverseLink;
+import com.hp.hpl.jena.sparql.path.P_Seq;
 import com.hp.hpl.jena.sparql.path.P_ZeroOrMore1;
+import com.hp.hpl.jena.sparql.path.P_ZeroOrOne;
+import com.hp.hpl.jena.sparql.path.Path;
 import com.hp.hpl.jena.sparql.syntax.ElementGroup;
 import com.hp.hpl.jena.sparql.syntax.ElementPathBlock;
 import org.apache.marmotta.ldpath.api.selectors.NodeSelector;
-import org.apache.marmotta.ldpath.backend.sesame.SesameValueBackend;
+import org.apache.marmotta.ldpath.model.selectors.GroupedSelector;
+import org.apache.marmotta.ldpath.model.selectors.PathSelector;
+import org.apache.marmotta.ldpath.model.selectors.PropertySelector;
 import org.apache.marmotta.ldpath.model.selectors.RecursivePathSelector;
+import org.apache.marmotta.ldpath.model.selectors.ReversePropertySelector;
+import org.apache.marmotta.ldpath.model.selectors.UnionSelector;
+import org.apache.marmotta.ldpath.model.selectors.WildcardSelector;
+import org.openrdf.model.impl.URIImpl;
 
+/**
+ * Evaluates <i>(path)*</i> and <i>(path)+</i> to SPARQL property paths. The recursive path may consist of
+ * properties, reverse properties, sequences, unions and nested recursions. A single property, or its reverse,
+ * that is indexed by the {@link ClosureIndex} is matched against its materialized closure instead.
+ */
 @Evaluator(RecursivePathSelector.class)
 public class RecursivePathSelectorEvaluator implements QueryEvaluator {
 
@@ -25,28 +42,87 @@ public class RecursivePathSelectorEvaluator implements QueryEvaluator {
 
         Var id = Var.alloc(VarIDGenerator.createID());
         ElementPathBlock epb = new ElementPathBlock();
-        String pathExpression = recursivePathSelector.getPathExpression(new SesameValueBackend());
-        /**
-         * initial pathExpression contains:
-         *      (<http://www.w3.org/ns/oa#hasBody> / <http://www.example.com/schema#recursiveBodyValue>)*
-         *
-         * Because P_ZeroOrMore and so one, creates the same expression we have to strip the redundant chars.
-         */
-        String strippedPathExpression = pathExpression.substring(2, pathExpression.length() -3 );
-
-        TriplePath triplePath = null;
-        if (pathExpression.contains("*")) {
-            triplePath = new TriplePath(var.asNode(), new P_ZeroOrMore1(new P_Link(NodeFactory.createURI(strippedPathExpression))), id.asNode());
-        } else if (pathExpression.contains("+")) {
-            triplePath = new TriplePath(var.asNode(), new P_OneOrMore1(new P_Link(NodeFactory.createURI(strippedPathExpression))), id.asNode());
-        } else {
-            throw new IllegalStateException("Only ZeroOrMorePath(*), OneOrMorePath(+) path selectors are currently supported.");
+
+        Path path = createClosurePath(recursivePathSelector, evaluatorConfiguration.getClosureIndex());
+        if (path == null) {
+            path = createPath(recursivePathSelector);
         }
 
-        epb.addTriple(triplePath);
+        epb.addTriple(new TriplePath(var.asNode(), path, id.asNode()));
         ElementGroup group = new ElementGroup();
         group.addElement(epb);
         elementGroup.addElement(group);
         return id;
     }
+
+    /**
+     * Creates the path over the materialized closure, if the recursion is over a single indexed property.
+     */
+    private static Path createClosurePath(RecursivePathSelector selector, ClosureIndex closureIndex) {
+        NodeSelector delegate = ungroup(selector.getDelegate());
+        if (closureIndex == null || !isRecursion(selector)) {
+            return null;
+        }
+
+        Path closure;
+        if (delegate instanceof PropertySelector && !(delegate instanceof WildcardSelector)) {
+            String property = ((PropertySelector) delegate).getProperty().toString();
+            if (!closureIndex.isIndexed(property)) {
+                return null;
+            }
+            closure = new P_Link(NodeFactory.createURI(ClosureIndex.getClosurePredicate(new URIImpl(property)).stringValue()));
+        } else if (delegate instanceof ReversePropertySelector) {
+            String property = ((ReversePropertySelector) delegate).getProperty().toString();
+            if (!closureIndex.isIndexed(property)) {
+                return null;
+            }
+            closure = new P_ReverseLink(NodeFactory.createURI(ClosureIndex.getClosurePredicate(new URIImpl(property)).stringValue()));
+        } else {
+            return null;
+        }
+
+        return selector.getMinRecursions() == 0 ? new P_ZeroOrOne(closure) : closure;
+    }
+
+    private static Path createPath(NodeSelector nodeSelector) {
+        NodeSelector selector = ungroup(nodeSelector);
+
+        if (selector instanceof RecursivePathSelector) {
+            RecursivePathSelector recursive = (RecursivePathSelector) selector;
+            if (!isRecursion(recursive)) {
+                throw new IllegalStateException("Only ZeroOrMorePath(*), OneOrMorePath(+) path selectors are currently supported.");
+            }
+            Path path = createPath(recursive.getDelegate());
+            return recursive.getMinRecursions() == 0 ? new P_ZeroOrMore1(path) : new P_OneOrMore1(path);
+        } else if (selector instanceof WildcardSelector) {
+            throw new IllegalStateException(selector.getClass() + " is not supported in recursive paths.");
+        } else if (selector instanceof PropertySelector) {
+            return new P_Link(NodeFactory.createURI(((PropertySelector) selector).getProperty().toString()));
+        } else if (selector instanceof ReversePropertySelector) {
+            return new P_ReverseLink(NodeFactory.createURI(((ReversePropertySelector) selector).getProperty().toString()));
+        } else if (selector instanceof PathSelector) {
+            PathSelector path = (PathSelector) selector;
+            return new P_Seq(createPath(path.getLeft()), createPath(path.getRight()));
+        } else if (selector instanceof UnionSelector) {
+            UnionSelector union = (UnionSelector) selector;
+            return new P_Alt(createPath(union.getLeft()), createPath(union.getRight()));
+        } else {
+            throw new IllegalStateException(selector.getClass() + " is not supported in recursive paths.");
+        }
+    }
+
+    /**
+     * @return true for unbounded recursions starting at zero or one steps, i.e. * and +
+     */
+    private static boolean isRecursion(RecursivePathSelector selector) {
+        return selector.getMaxRecursions() == Integer.MAX_VALUE
+                && (selector.getMinRecursions() == 0 || selector.getMinRecursions() == 1);
+    }
+
+    private static NodeSelector ungroup(NodeSelector selector) {
+        while (selector instanceof GroupedSelector) {
+            selector = ((GroupedSelector) selector).getContent();
+        }
+        return selector;
+    }
 }
@@ -0,0 +1,61 @@
+package com.github.anno4j.querying.standing;
+
+import org.openrdf.model.Resource;
+
+/**
+ * A root object that started or stopped matching the criteria of a {@link StandingQuery}.
+ */
+public class MatchEvent {
+
+    /**
+     * Whether the root started or stopped matching.
+     */
+    public enum Kind {
+        ADDED,
+        REMOVED
+    }
+
+    private final Kind kind;
+
+    private final Resource resource;
+
+    private final long commit;
+
+    /**
+     * @param kind     Whether the root started or stopped matching
+     * @param resource The root object
+     * @param commit   The number of the commit the change was detected after
+     */
+    public MatchEvent(Kind kind, Resource resource, long commit) {
+        this.kind = kind;
+        this.resource = resource;
+        this.commit = commit;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return the root object, to be read with e.g. {@link com.github.anno4j.Anno4j#findByID(Class, String)}.
+     */
+    public Resource getResource() {
+        return resource;
+    }
+
+    public String getResourceAsString() {
+        return resource.stringValue();
+    }
+
+    /**
+     * @return the number of the commit the change was detected after, counted by the {@link StandingQueryManager}.
+     */
+    public long getCommit() {
+        return commit;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + resource + " @" + commit;
+    }
+}
@@ -0,0 +1,273 @@
+package com.github.anno4j.querying.standing;
+
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.query.MalformedQueryException;
+import org.openrdf.query.QueryEvaluationException;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.TupleQuery;
+import org.openrdf.query.TupleQueryResult;
+import org.openrdf.query.impl.DatasetImpl;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Criteria registered once with the {@link StandingQueryManager}, whose matching root objects are kept current
+ * after every commit. Listeners are told which roots started or stopped matching.
+ */
+public class StandingQuery {
+
+    /**
+     * The variable of the root objects in the queries of the QueryService
+     */
+    static final String ROOT = "root";
+
+    /**
+     * Maximum number of candidates bound by the VALUES clause of one query
+     */
+    private static final int BATCH_SIZE = 500;
+
+    private final Logger logger = LoggerFactory.getLogger(StandingQuery.class);
+
+    private final StandingQueryManager manager;
+
+    private final String sparql;
+
+    private final URI[] contexts;
+
+    private final int depth;
+
+    private final boolean inverse;
+
+    private final Set<Resource> matches = new HashSet<>();
+
+    private final List<StandingQueryListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param manager  The manager evaluating the query after commits
+     * @param sparql   The query selecting the matching roots as <i>?root</i>
+     * @param contexts The contexts the query reads, all if empty
+     * @param depth    The maximum number of links between a root and the statements its criteria read, or -1 if
+     *                 unknown
+     * @param inverse  Whether the criteria follow links backwards, from the object to the subject
+     */
+    StandingQuery(StandingQueryManager manager, String sparql, URI[] contexts, int depth, boolean inverse) {
+        this.manager = manager;
+        this.sparql = sparql;
+        this.contexts = contexts;
+        this.depth = depth;
+        this.inverse = inverse;
+    }
+
+    /**
+     * @return the SPARQL query of the matching roots.
+     */
+    public String getSparql() {
+        return sparql;
+    }
+
+    /**
+     * @return the roots matching as of the last evaluated commit.
+     */
+    public synchronized Set<Resource> getMatches() {
+        return new HashSet<>(matches);
+    }
+
+    public void addListener(StandingQueryListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(StandingQueryListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Creates a bounded queue receiving the changes of the matches from now on.
+     *
+     * @param capacity The maximum number of changes queued
+     * @return the subscription, to be closed when done
+     */
+    public Subscription subscribe(int capacity) {
+        Subscription subscription = new Subscription(this, capacity);
+        addListener(subscription);
+        return subscription;
+    }
+
+    /**
+     * Stops evaluating the query after commits.
+     */
+    public void close() {
+        manager.unregister(this);
+        listeners.clear();
+    }
+
+    int getDepth() {
+        return depth;
+    }
+
+    boolean isInverse() {
+        return inverse;
+    }
+
+    /**
+     * Evaluates the query for the candidates only, which are all roots possibly affected by a commit. The candidates
+     * are bound in batches by a VALUES clause.
+     */
+    void update(RepositoryConnection connection, Set<Resource> candidates, long commit) throws RepositoryException, MalformedQueryException, QueryEvaluationException {
+        Set<Resource> matching = new HashSet<>();
+        List<URI> batch = new ArrayList<>(Math.min(candidates.size(), BATCH_SIZE));
+        TupleQuery single = null;
+        for (Resource candidate : candidates) {
+            if (candidate instanceof URI && isWritable((URI) candidate)) {
+                batch.add((URI) candidate);
+                if (batch.size() == BATCH_SIZE) {
+                    select(connection, batch, matching);
+                    batch.clear();
+                }
+            } else {
+                // Blank nodes can't be written into a query
+                if (single == null) {
+                    single = prepare(connection, sparql);
+                }
+                single.setBinding(ROOT, candidate);
+                TupleQueryResult result = single.evaluate();
+                try {
+                    if (result.hasNext()) {
+                        matching.add(candidate);
+                    }
+                } finally {
+                    result.close();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            select(connection, batch, matching);
+        }
+
+        List<MatchEvent> events = new ArrayList<>();
+        synchronized (this) {
+            for (Resource candidate : candidates) {
+                if (matching.contains(candidate)) {
+                    if (matches.add(candidate)) {
+                        events.add(new MatchEvent(MatchEvent.Kind.ADDED, candidate, commit));
+                    }
+                } else if (matches.remove(candidate)) {
+                    events.add(new MatchEvent(MatchEvent.Kind.REMOVED, candidate, commit));
+                }
+            }
+        }
+        fire(events);
+    }
+
+    /**
+     * Adds the roots of the batch matching the query to the given set.
+     */
+    private void select(RepositoryConnection connection, List<URI> batch, Set<Resource> matching) throws RepositoryException, MalformedQueryException, QueryEvaluationException {
+        StringBuilder query = new StringBuilder(sparql).append("\nVALUES ?").append(ROOT).append(" {");
+        for (URI uri : batch) {
+            query.append(" <").append(uri.stringValue()).append('>');
+        }
+        query.append(" }");
+
+        TupleQueryResult result = prepare(connection, query.toString()).evaluate();
+        try {
+            while (result.hasNext()) {
+                Value root = result.next().getValue(ROOT);
+                if (root instanceof Resource) {
+                    matching.add((Resource) root);
+                }
+            }
+        } finally {
+            result.close();
+        }
+    }
+
+    /**
+     * @return whether the IRI can be written into a query as is.
+     */
+    private static boolean isWritable(URI uri) {
+        String iri = uri.stringValue();
+        for (int i = 0; i < iri.length(); i++) {
+            char c = iri.charAt(i);
+            if (c <= ' ' || "<>\"{}|^`\\".indexOf(c) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Evaluates the query for all roots, e.g. after changes of unknown extent.
+     *
+     * @param notify Whether the listeners are told about the differences to the previous matches
+     */
+    void refresh(RepositoryConnection connection, long commit, boolean notify) throws RepositoryException, MalformedQueryException, QueryEvaluationException {
+        Set<Resource> current = new HashSet<>();
+        TupleQueryResult result = prepare(connection, sparql).evaluate();
+        try {
+            while (result.hasNext()) {
+                Value root = result.next().getValue(ROOT);
+                if (root instanceof Resource) {
+                    current.add((Resource) root);
+                }
+            }
+        } finally {
+            result.close();
+        }
+
+        List<MatchEvent> events = new ArrayList<>();
+        synchronized (this) {
+            for (Resource resource : current) {
+                if (!matches.contains(resource)) {
+                    events.add(new MatchEvent(MatchEvent.Kind.ADDED, resource, commit));
+                }
+            }
+            for (Resource resource : matches) {
+                if (!current.contains(resource)) {
+                    events.add(new MatchEvent(MatchEvent.Kind.REMOVED, resource, commit));
+                }
+            }
+            matches.clear();
+            matches.addAll(current);
+        }
+        if (notify) {
+            fire(events);
+        }
+    }
+
+    private TupleQuery prepare(RepositoryConnection connection, String queryString) throws RepositoryException, MalformedQueryException {
+        TupleQuery query = connection.prepareTupleQuery(QueryLanguage.SPARQL, queryString);
+        if (contexts.length > 0) {
+            DatasetImpl dataset = new DatasetImpl();
+            for (URI context : contexts) {
+                dataset.addDefaultGraph(context);
+            }
+            query.setDataset(dataset);
+        }
+        return query;
+    }
+
+    private void fire(List<MatchEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<MatchEvent> unmodifiable = Collections.unmodifiableList(events);
+        for (StandingQueryListener listener : listeners) {
+            try {
+                listener.changed(this, unmodifiable);
+            } catch (RuntimeException e) {
+                logger.warn("Listener of a standing query failed", e);
+            }
+        }
+    }
+}
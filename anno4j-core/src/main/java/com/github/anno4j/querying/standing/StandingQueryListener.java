@@ -0,0 +1,18 @@
+package com.github.anno4j.querying.standing;
+
+import java.util.List;
+
+/**
+ * Receives the changes of the matches of a {@link StandingQuery}.
+ */
+public interface StandingQueryListener {
+
+    /**
+     * Called on the dispatch thread of the {@link StandingQueryManager} after a commit changed the matches.
+     * Listeners should return quickly, as the changes of all standing queries are dispatched by the same thread.
+     *
+     * @param query  The standing query
+     * @param events The roots that started or stopped matching with the commit
+     */
+    void changed(StandingQuery query, List<MatchEvent> events);
+}
@@ -0,0 +1,432 @@
+package com.github.anno4j.querying.standing;
+
+import com.github.anno4j.model.impl.ResourceObject;
+import com.github.anno4j.querying.Criteria;
+import com.github.anno4j.querying.QueryService;
+import org.apache.marmotta.ldpath.parser.ParseException;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.Update;
+import org.openrdf.repository.Repository;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.RepositoryResult;
+import org.openrdf.repository.event.RepositoryConnectionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the matches of standing queries current, instead of polling the QueryService.
+ *
+ * <p>The manager listens to the connections of Anno4j and collects the resources changed by each transaction.
+ * After a commit, every standing query is evaluated on a dispatch thread for the roots possibly affected only:
+ * the changed resources and the resources linking to them within the number of links its criteria follow.
+ * Changes of unknown extent, like clearing contexts or SPARQL updates, criteria of unknown depth, like recursive
+ * paths, or too many affected roots cause a complete evaluation instead. The commits are evaluated in order,
+ * and listeners are told which roots started or stopped matching.</p>
+ *
+ * @see com.github.anno4j.Anno4j#getStandingQueryManager()
+ */
+public class StandingQueryManager implements RepositoryConnectionListener {
+
+    /**
+     * Number of affected roots from which on a query is evaluated completely
+     */
+    private static final int MAX_CANDIDATES = 10000;
+
+    private final Logger logger = LoggerFactory.getLogger(StandingQueryManager.class);
+
+    private final List<StandingQuery> queries = new CopyOnWriteArrayList<>();
+
+    /**
+     * Changes of the pending transaction of each connection
+     */
+    private final Map<RepositoryConnection, ChangeSet> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong commits = new AtomicLong();
+
+    private volatile Repository repository;
+
+    private ExecutorService dispatcher;
+
+    /**
+     * The thread of the dispatcher, which must not wait for tasks of the dispatcher
+     */
+    private volatile Thread dispatchThread;
+
+    /**
+     * @param repository The repository to evaluate the queries on
+     */
+    public StandingQueryManager(Repository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Evaluates the standing queries on another repository from now on, telling the listeners about the
+     * differences.
+     */
+    public void setRepository(Repository repository) {
+        this.repository = repository;
+        pending.clear();
+        if (!queries.isEmpty()) {
+            dispatch(null, commits.incrementAndGet());
+        }
+    }
+
+    /**
+     * Registers the criteria of the QueryService as a standing query. Its matches are evaluated before this
+     * method returns. Limit and offset of the QueryService are reset, as all matches are kept.
+     * <br/><br/>
+     * May be called by listeners of other standing queries, the matches are evaluated right away then.
+     *
+     * @param queryService The criteria, prefixes and contexts of the query
+     * @param type         Type of the root objects
+     * @return the standing query, to be closed when no longer needed
+     */
+    public <T extends ResourceObject> StandingQuery register(QueryService queryService, Class<T> type) throws ParseException, RepositoryException {
+        queryService.limit(null).offset(null);
+        StandingQuery query = new StandingQuery(this, queryService.toSparql(type), queryService.getReadContexts(),
+                getDepth(queryService.getCriteria()), isInverse(queryService.getCriteria()));
+        queries.add(query);
+
+        Refresh refresh = new Refresh(query, commits.get());
+        if (Thread.currentThread() == dispatchThread) {
+            // Waiting for the dispatcher on its own thread would never return
+            try {
+                refresh.run();
+            } catch (IllegalStateException e) {
+                queries.remove(query);
+                throw new RepositoryException("Could not evaluate the standing query", e.getCause());
+            }
+            return query;
+        }
+
+        // The first evaluation is ordered with the commits evaluated meanwhile
+        Future<?> initial = dispatcher().submit(refresh);
+        try {
+            initial.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryException("Interrupted while evaluating the standing query", e);
+        } catch (ExecutionException e) {
+            queries.remove(query);
+            throw new RepositoryException("Could not evaluate the standing query", e.getCause());
+        }
+        return query;
+    }
+
+    /**
+     * @return the registered standing queries.
+     */
+    public List<StandingQuery> getQueries() {
+        return queries;
+    }
+
+    void unregister(StandingQuery query) {
+        queries.remove(query);
+    }
+
+    /**
+     * Stops the dispatch thread. Standing queries registered afterwards start it again.
+     */
+    public synchronized void shutdown() {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+            dispatcher = null;
+        }
+    }
+
+    private synchronized ExecutorService dispatcher() {
+        if (dispatcher == null) {
+            dispatcher = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "anno4j-standing-queries");
+                    thread.setDaemon(true);
+                    dispatchThread = thread;
+                    return thread;
+                }
+            });
+        }
+        return dispatcher;
+    }
+
+    /**
+     * The criteria read statements at most as many links away from the root as their paths have steps.
+     *
+     * @return the maximum number of steps, or -1 if a path may be of any length.
+     */
+    static int getDepth(List<Criteria> criteria) {
+        int depth = 1;
+        for (Criteria c : criteria) {
+            String ldpath = c.getLdpath();
+            if (ldpath.contains("+") || ldpath.contains("*") || ldpath.contains("(")) {
+                // Recursion, wildcards and functions
+                return -1;
+            }
+            int steps = 1;
+            for (char ch : ldpath.toCharArray()) {
+                if (ch == '/' || ch == '[' || ch == '&' || ch == '|') {
+                    steps++;
+                }
+            }
+            depth = Math.max(depth, steps);
+        }
+        return depth;
+    }
+
+    static boolean isInverse(List<Criteria> criteria) {
+        for (Criteria c : criteria) {
+            if (c.getLdpath().contains("^")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Collects the roots possibly affected by the changed resources, by following the links to them backwards,
+     * and forwards for criteria with inverse paths.
+     *
+     * @return the affected roots, or null if there are too many.
+     */
+    private Set<Resource> getCandidates(RepositoryConnection connection, Set<Resource> changed, int depth, boolean inverse) throws RepositoryException {
+        Set<Resource> candidates = new HashSet<>(changed);
+        Set<Resource> frontier = changed;
+        for (int step = 0; step < depth && !frontier.isEmpty(); step++) {
+            Set<Resource> next = new HashSet<>();
+            for (Resource resource : frontier) {
+                RepositoryResult<Statement> incoming = connection.getStatements(null, null, resource, true);
+                try {
+                    while (incoming.hasNext()) {
+                        Resource subject = incoming.next().getSubject();
+                        if (candidates.add(subject)) {
+                            next.add(subject);
+                        }
+                    }
+                } finally {
+                    incoming.close();
+                }
+                if (inverse) {
+                    RepositoryResult<Statement> outgoing = connection.getStatements(resource, null, null, true);
+                    try {
+                        while (outgoing.hasNext()) {
+                            Value object = outgoing.next().getObject();
+                            if (object instanceof Resource && candidates.add((Resource) object)) {
+                                next.add((Resource) object);
+                            }
+                        }
+                    } finally {
+                        outgoing.close();
+                    }
+                }
+                if (candidates.size() > MAX_CANDIDATES) {
+                    return null;
+                }
+            }
+            frontier = next;
+        }
+        return candidates;
+    }
+
+    private void dispatch(final ChangeSet changes, final long commit) {
+        dispatcher().execute(new Runnable() {
+            @Override
+            public void run() {
+                evaluate(changes, commit);
+            }
+        });
+    }
+
+    /**
+     * Evaluates all standing queries after a commit.
+     *
+     * @param changes The changes of the commit, or null if they are unknown
+     */
+    private void evaluate(ChangeSet changes, long commit) {
+        try {
+            RepositoryConnection connection = repository.getConnection();
+            try {
+                for (StandingQuery query : queries) {
+                    Set<Resource> candidates = null;
+                    if (changes != null && !changes.unknown && query.getDepth() >= 0) {
+                        candidates = getCandidates(connection, changes.resources, query.getDepth(), query.isInverse());
+                    }
+                    if (candidates != null) {
+                        query.update(connection, candidates, commit);
+                    } else {
+                        query.refresh(connection, commit, true);
+                    }
+                }
+            } finally {
+                connection.close();
+            }
+        } catch (Exception e) {
+            logger.warn("Could not evaluate the standing queries after commit " + commit, e);
+        }
+    }
+
+    private void publish(ChangeSet changes) {
+        if (changes != null && !queries.isEmpty()) {
+            dispatch(changes, commits.incrementAndGet());
+        }
+    }
+
+    private boolean hasInverseQuery() {
+        for (StandingQuery query : queries) {
+            if (query.isInverse()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void changed(RepositoryConnection conn, Resource subject, Value object) {
+        if (queries.isEmpty()) {
+            return;
+        }
+        ChangeSet changes = new ChangeSet();
+        boolean active;
+        try {
+            active = conn.isActive();
+        } catch (RepositoryException e) {
+            active = false;
+        }
+        if (active) {
+            ChangeSet existing = pending.get(conn);
+            if (existing == null) {
+                pending.put(conn, changes);
+            } else {
+                changes = existing;
+            }
+        }
+        if (subject == null || object == null && hasInverseQuery()) {
+            // Without deltas, removals by pattern do not tell the objects, whose roots inverse paths start from
+            changes.unknown = true;
+        } else {
+            changes.resources.add(subject);
+        }
+        if (object instanceof Resource) {
+            changes.resources.add((Resource) object);
+        }
+        if (!active) {
+            publish(changes);
+        }
+    }
+
+    @Override
+    public void add(RepositoryConnection conn, Resource subject, URI predicate, Value object, Resource... contexts) {
+        changed(conn, subject, object);
+    }
+
+    @Override
+    public void remove(RepositoryConnection conn, Resource subject, URI predicate, Value object, Resource... contexts) {
+        changed(conn, subject, object);
+    }
+
+    @Override
+    public void clear(RepositoryConnection conn, Resource... contexts) {
+        changed(conn, null, null);
+    }
+
+    @Override
+    public void execute(RepositoryConnection conn, QueryLanguage ql, String update, String baseURI, Update operation) {
+        changed(conn, null, null);
+    }
+
+    @Override
+    public void commit(RepositoryConnection conn) {
+        publish(pending.remove(conn));
+    }
+
+    @Override
+    public void rollback(RepositoryConnection conn) {
+        pending.remove(conn);
+    }
+
+    @Override
+    public void close(RepositoryConnection conn) {
+        pending.remove(conn);
+    }
+
+    @Override
+    public void setAutoCommit(RepositoryConnection conn, boolean autoCommit) {
+        if (autoCommit) {
+            publish(pending.remove(conn));
+        }
+    }
+
+    @Override
+    public void begin(RepositoryConnection conn) {
+    }
+
+    @Override
+    public void setNamespace(RepositoryConnection conn, String prefix, String name) {
+    }
+
+    @Override
+    public void removeNamespace(RepositoryConnection conn, String prefix) {
+    }
+
+    @Override
+    public void clearNamespaces(RepositoryConnection conn) {
+    }
+
+    /**
+     * The resources changed by a transaction
+     */
+    private static class ChangeSet {
+
+        private final Set<Resource> resources = new HashSet<>();
+
+        /**
+         * Whether statements were changed without a known subject
+         */
+        private boolean unknown;
+    }
+
+    /**
+     * The complete evaluation of a newly registered query, without telling its listeners
+     */
+    private class Refresh implements Runnable {
+
+        private final StandingQuery query;
+
+        private final long commit;
+
+        Refresh(StandingQuery query, long commit) {
+            this.query = query;
+            this.commit = commit;
+        }
+
+        @Override
+        public void run() {
+            try {
+                RepositoryConnection connection = repository.getConnection();
+                try {
+                    query.refresh(connection, commit, false);
+                } finally {
+                    connection.close();
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.anno4j.querying.standing;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded queue of the changes of a {@link StandingQuery}, to be consumed by a thread of its own.
+ * The dispatching of changes is never blocked by a slow consumer: changes not fitting into the queue are dropped
+ * and counted. A consumer seeing dropped changes should read the current matches by
+ * {@link StandingQuery#getMatches()} or by executing the criteria.
+ */
+public class Subscription implements StandingQueryListener {
+
+    private final StandingQuery query;
+
+    private final BlockingQueue<MatchEvent> queue;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    Subscription(StandingQuery query, int capacity) {
+        this.query = query;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public void changed(StandingQuery query, List<MatchEvent> events) {
+        for (MatchEvent event : events) {
+            if (!queue.offer(event)) {
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @return the next change, or null if there is none.
+     */
+    public MatchEvent poll() {
+        return queue.poll();
+    }
+
+    /**
+     * Waits for the next change.
+     *
+     * @return the next change, or null if there was none in time.
+     */
+    public MatchEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.poll(timeout, unit);
+    }
+
+    /**
+     * Waits for the next change.
+     */
+    public MatchEvent take() throws InterruptedException {
+        return queue.take();
+    }
+
+    /**
+     * @return the number of changes dropped, as the queue was full.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Stops receiving the changes of the standing query.
+     */
+    public void close() {
+        query.removeListener(this);
+    }
+}
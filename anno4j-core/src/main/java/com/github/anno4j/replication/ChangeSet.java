@@ -0,0 +1,219 @@
+package com.github.anno4j.replication;
+
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.query.Binding;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.Dataset;
+import org.openrdf.query.MalformedQueryException;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.Update;
+import org.openrdf.query.UpdateExecutionException;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The changes of a transaction committed to the primary repository, in the order they were made.
+ * The version numbers the committed change sets in commit order, so replicas applying them in that order
+ * reach the states of the primary one after the other.
+ */
+public class ChangeSet {
+
+    private final List<Change> changes;
+
+    private long version;
+
+    private long committed;
+
+    public ChangeSet() {
+        this.changes = new ArrayList<>();
+    }
+
+    private ChangeSet(List<Change> changes, long version, long committed) {
+        this.changes = Collections.unmodifiableList(changes);
+        this.version = version;
+        this.committed = committed;
+    }
+
+    /**
+     * @return the committed change set with the given version, the recorded changes are cleared.
+     */
+    ChangeSet commit(long version) {
+        ChangeSet committed = new ChangeSet(new ArrayList<>(changes), version, System.currentTimeMillis());
+        changes.clear();
+        return committed;
+    }
+
+    void add(Resource subject, URI predicate, Value object, Resource... contexts) {
+        changes.add(new Add(subject, predicate, object, contexts));
+    }
+
+    void remove(Resource subject, URI predicate, Value object, Resource... contexts) {
+        changes.add(new Remove(subject, predicate, object, contexts));
+    }
+
+    void setNamespace(String prefix, String name) {
+        changes.add(new SetNamespace(prefix, name));
+    }
+
+    void removeNamespace(String prefix) {
+        changes.add(new SetNamespace(prefix, null));
+    }
+
+    void clearNamespaces() {
+        changes.add(new SetNamespace(null, null));
+    }
+
+    void update(QueryLanguage ql, String update, String baseURI, BindingSet bindings, Dataset dataset, boolean includeInferred) {
+        changes.add(new ExecuteUpdate(ql, update, baseURI, bindings, dataset, includeInferred));
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    public int size() {
+        return changes.size();
+    }
+
+    /**
+     * @return the commit number of the change set, starting at 1.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the time of the commit to the primary repository, in milliseconds.
+     */
+    public long getCommitted() {
+        return committed;
+    }
+
+    /**
+     * Applies the changes to the connection of a replica, in the order they were made.
+     *
+     * @param connection The connection to apply the changes to, within a transaction
+     */
+    public void apply(RepositoryConnection connection) throws RepositoryException {
+        for (Change change : changes) {
+            change.apply(connection);
+        }
+    }
+
+    private interface Change {
+
+        void apply(RepositoryConnection connection) throws RepositoryException;
+    }
+
+    private static class Add implements Change {
+
+        private final Resource subject;
+        private final URI predicate;
+        private final Value object;
+        private final Resource[] contexts;
+
+        Add(Resource subject, URI predicate, Value object, Resource... contexts) {
+            this.subject = subject;
+            this.predicate = predicate;
+            this.object = object;
+            this.contexts = contexts;
+        }
+
+        @Override
+        public void apply(RepositoryConnection connection) throws RepositoryException {
+            connection.add(subject, predicate, object, contexts);
+        }
+    }
+
+    /**
+     * Removes a pattern rather than the statements it matched on the primary repository, which are the same
+     * ones on a replica applying the change sets in order.
+     */
+    private static class Remove implements Change {
+
+        private final Resource subject;
+        private final URI predicate;
+        private final Value object;
+        private final Resource[] contexts;
+
+        Remove(Resource subject, URI predicate, Value object, Resource... contexts) {
+            this.subject = subject;
+            this.predicate = predicate;
+            this.object = object;
+            this.contexts = contexts;
+        }
+
+        @Override
+        public void apply(RepositoryConnection connection) throws RepositoryException {
+            connection.remove(subject, predicate, object, contexts);
+        }
+    }
+
+    private static class SetNamespace implements Change {
+
+        private final String prefix;
+        private final String name;
+
+        SetNamespace(String prefix, String name) {
+            this.prefix = prefix;
+            this.name = name;
+        }
+
+        @Override
+        public void apply(RepositoryConnection connection) throws RepositoryException {
+            if (prefix == null) {
+                connection.clearNamespaces();
+            } else if (name == null) {
+                connection.removeNamespace(prefix);
+            } else {
+                connection.setNamespace(prefix, name);
+            }
+        }
+    }
+
+    /**
+     * Executes a SPARQL update again with the same bindings. Updates using NOW(), RAND() or new blank nodes
+     * may differ from the primary repository.
+     */
+    private static class ExecuteUpdate implements Change {
+
+        private final QueryLanguage ql;
+        private final String update;
+        private final String baseURI;
+        private final List<Binding> bindings = new ArrayList<>();
+        private final Dataset dataset;
+        private final boolean includeInferred;
+
+        ExecuteUpdate(QueryLanguage ql, String update, String baseURI, BindingSet bindings, Dataset dataset, boolean includeInferred) {
+            this.ql = ql;
+            this.update = update;
+            this.baseURI = baseURI;
+            for (Binding binding : bindings) {
+                this.bindings.add(binding);
+            }
+            this.dataset = dataset;
+            this.includeInferred = includeInferred;
+        }
+
+        @Override
+        public void apply(RepositoryConnection connection) throws RepositoryException {
+            try {
+                Update operation = connection.prepareUpdate(ql, update, baseURI);
+                for (Binding binding : bindings) {
+                    operation.setBinding(binding.getName(), binding.getValue());
+                }
+                operation.setDataset(dataset);
+                operation.setIncludeInferred(includeInferred);
+                operation.execute();
+            } catch (MalformedQueryException | UpdateExecutionException e) {
+                throw new RepositoryException("Couldn't replicate update", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.github.anno4j.replication;
+
+import org.openrdf.repository.Repository;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.object.metrics.Instrumentation;
+import org.openrdf.repository.object.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A read replica of a {@link ReplicatedRepository}. The committed change sets of the primary repository are
+ * applied by a thread of the replica in commit order, one transaction per change set.
+ * <br/><br/>
+ * A change set the replica fails to apply stops the replication, as the following ones would be applied
+ * to a diverged state. A failed replica is not read from any more, and the change sets pending or shipped
+ * afterwards are discarded.
+ * <br/><br/>
+ * The time from the commit of a change set on the primary repository to its commit on the replica is recorded
+ * by the timer <code>anno4j.replication.lag</code> of the {@link Instrumentation}.
+ */
+public class Replica {
+
+    /**
+     * Maximum time to apply the pending change sets on shut down, in seconds
+     */
+    private static final long SHUTDOWN_TIMEOUT = 30;
+
+    private static final Timer LAG = Instrumentation.timer("anno4j.replication.lag");
+
+    private final Logger logger = LoggerFactory.getLogger(Replica.class);
+
+    private final Repository repository;
+
+    private final String name;
+
+    private final Queue<ChangeSet> pending = new ConcurrentLinkedQueue<>();
+
+    private final ExecutorService applier;
+
+    private volatile long version = 0;
+
+    private volatile boolean failed = false;
+
+    Replica(Repository repository, final String name) {
+        this.repository = repository;
+        this.name = name;
+        this.applier = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "anno4j-" + name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Queues the change set, which must be the successor of the one shipped before.
+     */
+    void ship(ChangeSet changeSet) {
+        if (failed) {
+            return;
+        }
+        pending.add(changeSet);
+        applier.execute(new Runnable() {
+            @Override
+            public void run() {
+                applyNext();
+            }
+        });
+    }
+
+    private void applyNext() {
+        if (failed) {
+            pending.clear();
+            return;
+        }
+        ChangeSet changeSet = pending.peek();
+        if (changeSet == null) {
+            return;
+        }
+        try {
+            RepositoryConnection connection = repository.getConnection();
+            try {
+                connection.begin();
+                changeSet.apply(connection);
+                connection.commit();
+            } catch (RepositoryException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.close();
+            }
+            version = changeSet.getVersion();
+            LAG.record(TimeUnit.MILLISECONDS.toNanos(Math.max(0, System.currentTimeMillis() - changeSet.getCommitted())));
+        } catch (RepositoryException | RuntimeException e) {
+            failed = true;
+            logger.error("Replica " + name + " failed to apply version " + changeSet.getVersion() + ", stopping replication", e);
+        } finally {
+            pending.poll();
+            if (failed) {
+                pending.clear();
+            }
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits until the replica applied the given version.
+     *
+     * @param version The version of the primary repository
+     * @param timeout The maximum time to wait, in milliseconds
+     * @return <code>true</code> iff the replica applied the version in time.
+     */
+    public synchronized boolean await(long version, long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        while (this.version < version && !failed) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return this.version >= version;
+    }
+
+    public Repository getRepository() {
+        return repository;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the version of the last change set applied by the replica.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the number of committed change sets not applied yet.
+     */
+    public int getPendingChangeSets() {
+        return pending.size();
+    }
+
+    /**
+     * @return the time since the oldest change set not applied yet was committed, in milliseconds,
+     * or 0 if the replica is up to date.
+     */
+    public long getLag() {
+        ChangeSet oldest = pending.peek();
+        return oldest == null ? 0 : Math.max(0, System.currentTimeMillis() - oldest.getCommitted());
+    }
+
+    /**
+     * @return <code>true</code> iff the replica failed to apply a change set.
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * Applies the pending change sets and shuts the repository of the replica down.
+     */
+    void shutDown() throws RepositoryException {
+        applier.shutdown();
+        try {
+            if (!applier.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                logger.warn("Replica {} shut down with {} change sets pending", name, pending.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        repository.shutDown();
+    }
+}
@@ -0,0 +1,231 @@
+package com.github.anno4j.replication;
+
+import org.openrdf.model.Namespace;
+import org.openrdf.model.Statement;
+import org.openrdf.repository.Repository;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.RepositoryResult;
+import org.openrdf.repository.base.RepositoryWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A repository writing to a primary repository and reading from local read replicas of it, so analytical queries
+ * do not compete with the commits for the locks of the primary store.
+ * <br/><br/>
+ * The changes of every transaction committed to the primary repository are shipped to all replicas as a
+ * {@link ChangeSet}, which the replicas apply asynchronously in commit order. Every connection reads from one
+ * replica, chosen round robin. By default, a connection reads its own writes and those committed before it was
+ * opened, as Anno4j opens a connection per operation: it reads from the primary repository while its transaction
+ * has changes or its replica has not applied these commits yet.
+ * See {@link ReplicatedRepositoryConnection#setReadYourWrites(boolean)}.
+ * <br/><br/>
+ * Replicas which are empty on initialization are filled with a copy of the primary repository.
+ */
+public class ReplicatedRepository extends RepositoryWrapper {
+
+    private final Logger logger = LoggerFactory.getLogger(ReplicatedRepository.class);
+
+    private final List<Replica> replicas;
+
+    /**
+     * Keeps the order of the shipped change sets the order of the commits to the primary repository.
+     */
+    private final Object commitLock = new Object();
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    private volatile long version = 0;
+
+    private volatile boolean initialized = false;
+
+    private boolean readYourWrites = true;
+
+    /**
+     * @param primary  The repository all writes go to
+     * @param replicas The repositories the reads are balanced across
+     */
+    public ReplicatedRepository(Repository primary, Repository... replicas) {
+        this(primary, Arrays.asList(replicas));
+    }
+
+    /**
+     * @param primary  The repository all writes go to
+     * @param replicas The repositories the reads are balanced across
+     */
+    public ReplicatedRepository(Repository primary, List<? extends Repository> replicas) {
+        super(primary);
+        List<Replica> list = new ArrayList<>(replicas.size());
+        for (Repository replica : replicas) {
+            list.add(new Replica(replica, "replica-" + list.size()));
+        }
+        this.replicas = Collections.unmodifiableList(list);
+    }
+
+    @Override
+    public void initialize() throws RepositoryException {
+        if (!getDelegate().isInitialized()) {
+            super.initialize();
+        }
+        synchronized (commitLock) {
+            for (Replica replica : replicas) {
+                if (!replica.getRepository().isInitialized()) {
+                    replica.getRepository().initialize();
+                }
+                copy(replica);
+            }
+        }
+        initialized = true;
+    }
+
+    private void copy(Replica replica) throws RepositoryException {
+        RepositoryConnection from = getDelegate().getConnection();
+        RepositoryConnection to = replica.getRepository().getConnection();
+        try {
+            if (!to.isEmpty() || from.isEmpty()) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            to.begin();
+            RepositoryResult<Statement> statements = from.getStatements(null, null, null, false);
+            try {
+                to.add(statements);
+            } finally {
+                statements.close();
+            }
+            RepositoryResult<Namespace> namespaces = from.getNamespaces();
+            try {
+                while (namespaces.hasNext()) {
+                    Namespace namespace = namespaces.next();
+                    to.setNamespace(namespace.getPrefix(), namespace.getName());
+                }
+            } finally {
+                namespaces.close();
+            }
+            to.commit();
+            logger.info("Copied the primary repository to {} in {} ms", replica.getName(), System.currentTimeMillis() - start);
+        } finally {
+            to.close();
+            from.close();
+        }
+    }
+
+    @Override
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    @Override
+    public void shutDown() throws RepositoryException {
+        initialized = false;
+        for (Replica replica : replicas) {
+            replica.shutDown();
+        }
+        super.shutDown();
+    }
+
+    @Override
+    public ReplicatedRepositoryConnection getConnection() throws RepositoryException {
+        ReplicatedRepositoryConnection connection = new ReplicatedRepositoryConnection(this, getDelegate().getConnection());
+        connection.setReadYourWrites(readYourWrites);
+        return connection;
+    }
+
+    /**
+     * @return the repository all writes go to.
+     */
+    public Repository getPrimary() {
+        return getDelegate();
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * @return the number of change sets committed to the primary repository.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the largest time since a change set not applied by a replica yet was committed, in milliseconds.
+     */
+    public long getReplicationLag() {
+        long lag = 0;
+        for (Replica replica : replicas) {
+            lag = Math.max(lag, replica.getLag());
+        }
+        return lag;
+    }
+
+    /**
+     * Waits until all replicas applied the change sets committed so far.
+     *
+     * @param timeout The maximum time to wait, in milliseconds
+     * @return <code>true</code> iff all replicas caught up in time.
+     */
+    public boolean awaitReplication(long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        long target = version;
+        for (Replica replica : replicas) {
+            if (!replica.await(target, Math.max(0, deadline - System.currentTimeMillis()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isReadYourWrites() {
+        return readYourWrites;
+    }
+
+    /**
+     * Sets whether connections created afterwards read their own writes.
+     */
+    public void setReadYourWrites(boolean readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
+    Object getCommitLock() {
+        return commitLock;
+    }
+
+    /**
+     * Ships the changes just committed to the primary repository. Must be called holding the commit lock.
+     *
+     * @return the version of the primary repository including the changes
+     */
+    long ship(ChangeSet changes) {
+        if (changes.isEmpty()) {
+            return version;
+        }
+        ChangeSet committed = changes.commit(version + 1);
+        version = committed.getVersion();
+        for (Replica replica : replicas) {
+            replica.ship(committed);
+        }
+        return version;
+    }
+
+    /**
+     * @return the next replica to read from round robin, or null if no replica is working.
+     */
+    Replica selectReplica() {
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((nextReplica.getAndIncrement() & Integer.MAX_VALUE) % replicas.size());
+            if (!replica.isFailed()) {
+                return replica;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,418 @@
+package com.github.anno4j.replication;
+
+import org.openrdf.model.Namespace;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.BooleanQuery;
+import org.openrdf.query.Dataset;
+import org.openrdf.query.GraphQuery;
+import org.openrdf.query.MalformedQueryException;
+import org.openrdf.query.Query;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.TupleQuery;
+import org.openrdf.query.Update;
+import org.openrdf.query.UpdateExecutionException;
+import org.openrdf.repository.DelegatingRepositoryConnection;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.RepositoryResult;
+import org.openrdf.repository.base.RepositoryConnectionWrapper;
+import org.openrdf.rio.RDFHandler;
+import org.openrdf.rio.RDFHandlerException;
+
+/**
+ * Connection of a {@link ReplicatedRepository}. Writes go to the connection of the primary repository and are
+ * recorded, reads go to a connection of a replica. On commit, the recorded changes are shipped to the replicas.
+ */
+public class ReplicatedRepositoryConnection extends RepositoryConnectionWrapper {
+
+    private final ReplicatedRepository repository;
+
+    /**
+     * Changes of the active transaction
+     */
+    private ChangeSet pending = new ChangeSet();
+
+    /**
+     * Version of the last commit this connection has to read, which is the version of the repository when the
+     * connection was opened or the version of its own last commit
+     */
+    private long lastVersion;
+
+    private Replica replica;
+
+    private RepositoryConnection replicaConnection;
+
+    private boolean readYourWrites = true;
+
+    ReplicatedRepositoryConnection(ReplicatedRepository repository, RepositoryConnection primary) {
+        super(repository, primary);
+        this.repository = repository;
+        this.lastVersion = repository.getVersion();
+    }
+
+    /**
+     * Finds the replicated connection a connection of Anno4j is wrapping.
+     *
+     * @param connection A connection, which may delegate to other connections
+     * @return the replicated connection or null if the repository is not replicated
+     */
+    public static ReplicatedRepositoryConnection find(RepositoryConnection connection) throws RepositoryException {
+        while (connection != null) {
+            if (connection instanceof ReplicatedRepositoryConnection) {
+                return (ReplicatedRepositoryConnection) connection;
+            }
+            connection = connection instanceof DelegatingRepositoryConnection
+                    ? ((DelegatingRepositoryConnection) connection).getDelegate()
+                    : null;
+        }
+        return null;
+    }
+
+    public boolean isReadYourWrites() {
+        return readYourWrites;
+    }
+
+    /**
+     * Sets whether the reads of this connection see its own writes and all writes committed before it was opened,
+     * like those of earlier transactions of the same Anno4j instance. If so, the connection reads from the primary
+     * repository while its transaction has changes or its replica has not applied these commits yet.
+     * Otherwise the reads may lag behind the writes.
+     */
+    public void setReadYourWrites(boolean readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
+    /**
+     * @return the replica this connection reads from, null if it did not read yet.
+     */
+    public Replica getReplica() {
+        return replica;
+    }
+
+    /**
+     * @return the connection the next read goes to.
+     */
+    protected RepositoryConnection getReadConnection() throws RepositoryException {
+        if (readYourWrites && !pending.isEmpty()) {
+            return getDelegate();
+        }
+        if (replica == null || replica.isFailed()) {
+            if (replicaConnection != null) {
+                replicaConnection.close();
+                replicaConnection = null;
+            }
+            replica = repository.selectReplica();
+            if (replica == null) {
+                return getDelegate();
+            }
+            replicaConnection = replica.getRepository().getConnection();
+        }
+        if (readYourWrites && replica.getVersion() < lastVersion) {
+            return getDelegate();
+        }
+        return replicaConnection;
+    }
+
+    @Override
+    protected boolean isDelegatingAdd() {
+        return false;
+    }
+
+    @Override
+    protected boolean isDelegatingRemove() {
+        return false;
+    }
+
+    @Override
+    protected void addWithoutCommit(Resource subject, URI predicate, Value object, Resource... contexts) throws RepositoryException {
+        boolean local = beginLocal();
+        getDelegate().add(subject, predicate, object, contexts);
+        pending.add(subject, predicate, object, contexts);
+        commitLocal(local);
+    }
+
+    @Override
+    protected void removeWithoutCommit(Resource subject, URI predicate, Value object, Resource... contexts) throws RepositoryException {
+        boolean local = beginLocal();
+        getDelegate().remove(subject, predicate, object, contexts);
+        pending.remove(subject, predicate, object, contexts);
+        commitLocal(local);
+    }
+
+    @Override
+    public void clear(Resource... contexts) throws RepositoryException {
+        remove((Resource) null, null, null, contexts);
+    }
+
+    @Override
+    public void setNamespace(String prefix, String name) throws RepositoryException {
+        boolean local = beginLocal();
+        getDelegate().setNamespace(prefix, name);
+        pending.setNamespace(prefix, name);
+        commitLocal(local);
+    }
+
+    @Override
+    public void removeNamespace(String prefix) throws RepositoryException {
+        boolean local = beginLocal();
+        getDelegate().removeNamespace(prefix);
+        pending.removeNamespace(prefix);
+        commitLocal(local);
+    }
+
+    @Override
+    public void clearNamespaces() throws RepositoryException {
+        boolean local = beginLocal();
+        getDelegate().clearNamespaces();
+        pending.clearNamespaces();
+        commitLocal(local);
+    }
+
+    @Override
+    public Update prepareUpdate(QueryLanguage ql, String update) throws RepositoryException, MalformedQueryException {
+        return prepareUpdate(ql, update, null);
+    }
+
+    @Override
+    public Update prepareUpdate(QueryLanguage ql, String update, String baseURI) throws RepositoryException, MalformedQueryException {
+        return new ReplicatedUpdate(getDelegate().prepareUpdate(ql, update, baseURI), ql, update, baseURI);
+    }
+
+    @Override
+    public void begin() throws RepositoryException {
+        super.begin();
+        pending = new ChangeSet();
+    }
+
+    /**
+     * Commits the transaction to the primary repository and ships its changes to the replicas.
+     */
+    @Override
+    public void commit() throws RepositoryException {
+        synchronized (repository.getCommitLock()) {
+            super.commit();
+            boolean changed = !pending.isEmpty();
+            long version = repository.ship(pending);
+            if (changed) {
+                lastVersion = version;
+            }
+        }
+    }
+
+    @Override
+    public void rollback() throws RepositoryException {
+        super.rollback();
+        pending = new ChangeSet();
+    }
+
+    @Override
+    @Deprecated
+    public void setAutoCommit(boolean autoCommit) throws RepositoryException {
+        if (autoCommit && isActive()) {
+            commit();
+        } else if (!autoCommit && !isActive()) {
+            begin();
+        }
+    }
+
+    @Override
+    public void close() throws RepositoryException {
+        try {
+            if (replicaConnection != null) {
+                replicaConnection.close();
+                replicaConnection = null;
+            }
+        } finally {
+            pending = new ChangeSet();
+            super.close();
+        }
+    }
+
+    private boolean beginLocal() throws RepositoryException {
+        if (!isActive()) {
+            begin();
+            return true;
+        }
+        return false;
+    }
+
+    private void commitLocal(boolean local) throws RepositoryException {
+        if (local) {
+            commit();
+        }
+    }
+
+    @Override
+    public RepositoryResult<Statement> getStatements(Resource subj, URI pred, Value obj, boolean includeInferred, Resource... contexts) throws RepositoryException {
+        return getReadConnection().getStatements(subj, pred, obj, includeInferred, contexts);
+    }
+
+    @Override
+    public boolean hasStatement(Resource subj, URI pred, Value obj, boolean includeInferred, Resource... contexts) throws RepositoryException {
+        return getReadConnection().hasStatement(subj, pred, obj, includeInferred, contexts);
+    }
+
+    @Override
+    public boolean hasStatement(Statement st, boolean includeInferred, Resource... contexts) throws RepositoryException {
+        return getReadConnection().hasStatement(st, includeInferred, contexts);
+    }
+
+    @Override
+    public void exportStatements(Resource subj, URI pred, Value obj, boolean includeInferred, RDFHandler handler, Resource... contexts) throws RepositoryException, RDFHandlerException {
+        getReadConnection().exportStatements(subj, pred, obj, includeInferred, handler, contexts);
+    }
+
+    @Override
+    public void export(RDFHandler handler, Resource... contexts) throws RepositoryException, RDFHandlerException {
+        getReadConnection().export(handler, contexts);
+    }
+
+    @Override
+    public long size(Resource... contexts) throws RepositoryException {
+        return getReadConnection().size(contexts);
+    }
+
+    @Override
+    public boolean isEmpty() throws RepositoryException {
+        return getReadConnection().isEmpty();
+    }
+
+    @Override
+    public RepositoryResult<Resource> getContextIDs() throws RepositoryException {
+        return getReadConnection().getContextIDs();
+    }
+
+    @Override
+    public RepositoryResult<Namespace> getNamespaces() throws RepositoryException {
+        return getReadConnection().getNamespaces();
+    }
+
+    @Override
+    public String getNamespace(String prefix) throws RepositoryException {
+        return getReadConnection().getNamespace(prefix);
+    }
+
+    @Override
+    public Query prepareQuery(QueryLanguage ql, String query) throws RepositoryException, MalformedQueryException {
+        return getReadConnection().prepareQuery(ql, query);
+    }
+
+    @Override
+    public Query prepareQuery(QueryLanguage ql, String query, String baseURI) throws RepositoryException, MalformedQueryException {
+        return getReadConnection().prepareQuery(ql, query, baseURI);
+    }
+
+    @Override
+    public TupleQuery prepareTupleQuery(QueryLanguage ql, String query) throws RepositoryException, MalformedQueryException {
+        return getReadConnection().prepareTupleQuery(ql, query);
+    }
+
+    @Override
+    public TupleQuery prepareTupleQuery(QueryLanguage ql, String query, String baseURI) throws RepositoryException, MalformedQueryException {
+        return getReadConnection().prepareTupleQuery(ql, query, baseURI);
+    }
+
+    @Override
+    public GraphQuery prepareGraphQuery(QueryLanguage ql, String query) throws RepositoryException, MalformedQueryException {
+        return getReadConnection().prepareGraphQuery(ql, query);
+    }
+
+    @Override
+    public GraphQuery prepareGraphQuery(QueryLanguage ql, String query, String baseURI) throws RepositoryException, MalformedQueryException {
+        return getReadConnection().prepareGraphQuery(ql, query, baseURI);
+    }
+
+    @Override
+    public BooleanQuery prepareBooleanQuery(QueryLanguage ql, String query) throws RepositoryException, MalformedQueryException {
+        return getReadConnection().prepareBooleanQuery(ql, query);
+    }
+
+    @Override
+    public BooleanQuery prepareBooleanQuery(QueryLanguage ql, String query, String baseURI) throws RepositoryException, MalformedQueryException {
+        return getReadConnection().prepareBooleanQuery(ql, query, baseURI);
+    }
+
+    /**
+     * Executes an update on the primary repository and records it for the replicas.
+     */
+    private class ReplicatedUpdate implements Update {
+
+        private final Update delegate;
+        private final QueryLanguage ql;
+        private final String update;
+        private final String baseURI;
+
+        ReplicatedUpdate(Update delegate, QueryLanguage ql, String update, String baseURI) {
+            this.delegate = delegate;
+            this.ql = ql;
+            this.update = update;
+            this.baseURI = baseURI;
+        }
+
+        @Override
+        public void execute() throws UpdateExecutionException {
+            try {
+                boolean local = beginLocal();
+                delegate.execute();
+                pending.update(ql, update, baseURI, delegate.getBindings(), delegate.getDataset(), delegate.getIncludeInferred());
+                commitLocal(local);
+            } catch (RepositoryException e) {
+                throw new UpdateExecutionException(e);
+            }
+        }
+
+        @Override
+        public void setBinding(String name, Value value) {
+            delegate.setBinding(name, value);
+        }
+
+        @Override
+        public void removeBinding(String name) {
+            delegate.removeBinding(name);
+        }
+
+        @Override
+        public void clearBindings() {
+            delegate.clearBindings();
+        }
+
+        @Override
+        public BindingSet getBindings() {
+            return delegate.getBindings();
+        }
+
+        @Override
+        public void setDataset(Dataset dataset) {
+            delegate.setDataset(dataset);
+        }
+
+        @Override
+        public Dataset getDataset() {
+            return delegate.getDataset();
+        }
+
+        @Override
+        public void setIncludeInferred(boolean includeInferred) {
+            delegate.setIncludeInferred(includeInferred);
+        }
+
+        @Override
+        public boolean getIncludeInferred() {
+            return delegate.getIncludeInferred();
+        }
+
+        @Override
+        public void setMaxExecutionTime(int maxExecTime) {
+            delegate.setMaxExecutionTime(maxExecTime);
+        }
+
+        @Override
+        public int getMaxExecutionTime() {
+            return delegate.getMaxExecutionTime();
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.github.anno4j.sail;
+
+import org.openrdf.model.Resource;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.sail.SailConnection;
+import org.openrdf.sail.SailException;
+import org.openrdf.sail.helpers.SailBase;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process triple store tuned for annotation-shaped data. Values are dictionary encoded, with the
+ * <code>urn:anno4j:</code> UUID URIs stored as two longs, and the quads are indexed by subject, by predicate and
+ * object, and by object in primitive int arrays. Connections see their own uncommitted changes, other connections
+ * see committed changes only.
+ * <br/><br/>
+ * If a data directory is set, the store is read from a snapshot file on initialization and written to it on shut
+ * down or {@link #snapshot()}. Setting offHeap keeps the values in direct byte buffers instead of the heap.
+ */
+public class AnnotationStore extends SailBase {
+
+    /**
+     * Name of the snapshot file in the data directory.
+     */
+    public static final String SNAPSHOT_FILE = "anno4j-store.dat";
+
+    private static final int SNAPSHOT_MAGIC = 0x414e4a53;
+
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final ValueFactory vf = ValueFactoryImpl.getInstance();
+
+    private final ValueDictionary dictionary;
+
+    private final QuadIndex index = new QuadIndex();
+
+    private final Map<String, String> namespaces = new LinkedHashMap<>();
+
+    /**
+     * Guards the index, readers copy their matches while holding it.
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public AnnotationStore() {
+        this(false);
+    }
+
+    /**
+     * @param offHeap Whether values are stored in direct byte buffers
+     */
+    public AnnotationStore(boolean offHeap) {
+        this.dictionary = new ValueDictionary(vf, offHeap);
+    }
+
+    /**
+     * @param dataDir Directory of the snapshot file
+     */
+    public AnnotationStore(File dataDir) {
+        this(dataDir, false);
+    }
+
+    /**
+     * @param dataDir Directory of the snapshot file
+     * @param offHeap Whether values are stored in direct byte buffers
+     */
+    public AnnotationStore(File dataDir, boolean offHeap) {
+        this(offHeap);
+        setDataDir(dataDir);
+    }
+
+    @Override
+    protected void initializeInternal() throws SailException {
+        File snapshot = getSnapshotFile();
+        if (snapshot != null && snapshot.exists()) {
+            lock.writeLock().lock();
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshot)))) {
+                if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                    throw new SailException("Not a snapshot of an AnnotationStore: " + snapshot);
+                }
+                dictionary.readFrom(in);
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    namespaces.put(in.readUTF(), in.readUTF());
+                }
+                index.readFrom(in);
+            } catch (IOException e) {
+                throw new SailException("Could not read the snapshot " + snapshot, e);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    protected void shutDownInternal() throws SailException {
+        snapshot();
+    }
+
+    /**
+     * Writes the committed statements and the namespaces to the snapshot file in the data directory, if one is set.
+     * The previous snapshot is replaced only once the new one is complete.
+     */
+    public void snapshot() throws SailException {
+        File snapshot = getSnapshotFile();
+        if (snapshot == null) {
+            return;
+        }
+        File temp = new File(snapshot.getParentFile(), SNAPSHOT_FILE + ".tmp");
+        snapshot.getParentFile().mkdirs();
+        lock.readLock().lock();
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                dictionary.writeTo(out);
+                synchronized (namespaces) {
+                    out.writeInt(namespaces.size());
+                    for (Map.Entry<String, String> namespace : namespaces.entrySet()) {
+                        out.writeUTF(namespace.getKey());
+                        out.writeUTF(namespace.getValue());
+                    }
+                }
+                index.writeTo(out);
+            }
+            Files.move(temp.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new SailException("Could not write the snapshot " + snapshot, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    protected SailConnection getConnectionInternal() throws SailException {
+        return new AnnotationStoreConnection(this);
+    }
+
+    @Override
+    public boolean isWritable() throws SailException {
+        return true;
+    }
+
+    @Override
+    public ValueFactory getValueFactory() {
+        return vf;
+    }
+
+    /**
+     * @return the number of values in the dictionary, including values of removed statements.
+     */
+    public int getDictionarySize() {
+        return dictionary.size();
+    }
+
+    ValueDictionary getDictionary() {
+        return dictionary;
+    }
+
+    Map<String, String> getNamespaceMap() {
+        return namespaces;
+    }
+
+    /**
+     * Copies the committed quads matching the pattern.
+     */
+    IntList match(int s, int p, int o, int[] contexts) {
+        IntList matches = new IntList();
+        lock.readLock().lock();
+        try {
+            index.match(s, p, o, contexts, matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return matches;
+    }
+
+    boolean contains(Quad quad) {
+        lock.readLock().lock();
+        try {
+            return index.contains(quad.s, quad.p, quad.o, quad.c);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size(int[] contexts) {
+        lock.readLock().lock();
+        try {
+            return index.size(contexts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int cardinality(int s, int p, int o) {
+        lock.readLock().lock();
+        try {
+            return index.cardinality(s, p, o);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    IntList contexts() {
+        lock.readLock().lock();
+        try {
+            return index.contexts();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Applies the changes of a transaction atomically.
+     */
+    void apply(Collection<Quad> removed, Collection<Quad> added) {
+        lock.writeLock().lock();
+        try {
+            for (Quad quad : removed) {
+                index.remove(quad.s, quad.p, quad.o, quad.c);
+            }
+            for (Quad quad : added) {
+                index.add(quad.s, quad.p, quad.o, quad.c);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the id of the value, 0 for null (the default graph) and -1 for values not in the store.
+     */
+    int lookup(Value value) {
+        if (value == null) {
+            return 0;
+        }
+        int id = dictionary.lookup(value);
+        return id != 0 ? id : -1;
+    }
+
+    /**
+     * Resolves the context ids of a pattern.
+     *
+     * @return null for all contexts, otherwise the ids of the contexts in the store, 0 for the default graph.
+     */
+    int[] lookupContexts(Resource... contexts) {
+        if (contexts == null || contexts.length == 0) {
+            return null;
+        }
+        IntList ids = new IntList(contexts.length);
+        for (Resource context : contexts) {
+            int id = lookup(context);
+            if (id >= 0) {
+                ids.add(id);
+            }
+        }
+        int[] result = new int[ids.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ids.get(i);
+        }
+        return result;
+    }
+
+    private File getSnapshotFile() {
+        File dataDir = getDataDir();
+        return dataDir != null ? new File(dataDir, SNAPSHOT_FILE) : null;
+    }
+}
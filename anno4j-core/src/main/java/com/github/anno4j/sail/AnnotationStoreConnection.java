@@ -0,0 +1,377 @@
+package com.github.anno4j.sail;
+
+import info.aduna.iteration.CloseableIteration;
+import info.aduna.iteration.CloseableIteratorIteration;
+import info.aduna.iteration.EmptyIteration;
+import info.aduna.iteration.LookAheadIteration;
+import org.openrdf.model.Namespace;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.NamespaceImpl;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.Dataset;
+import org.openrdf.query.QueryEvaluationException;
+import org.openrdf.query.algebra.QueryRoot;
+import org.openrdf.query.algebra.StatementPattern;
+import org.openrdf.query.algebra.TupleExpr;
+import org.openrdf.query.algebra.Var;
+import org.openrdf.query.algebra.evaluation.TripleSource;
+import org.openrdf.query.algebra.evaluation.federation.FederatedServiceResolverImpl;
+import org.openrdf.query.algebra.evaluation.impl.BindingAssigner;
+import org.openrdf.query.algebra.evaluation.impl.CompareOptimizer;
+import org.openrdf.query.algebra.evaluation.impl.ConjunctiveConstraintSplitter;
+import org.openrdf.query.algebra.evaluation.impl.ConstantOptimizer;
+import org.openrdf.query.algebra.evaluation.impl.DisjunctiveConstraintOptimizer;
+import org.openrdf.query.algebra.evaluation.impl.EvaluationStatistics;
+import org.openrdf.query.algebra.evaluation.impl.EvaluationStrategyImpl;
+import org.openrdf.query.algebra.evaluation.impl.FilterOptimizer;
+import org.openrdf.query.algebra.evaluation.impl.IterativeEvaluationOptimizer;
+import org.openrdf.query.algebra.evaluation.impl.OrderLimitOptimizer;
+import org.openrdf.query.algebra.evaluation.impl.QueryJoinOptimizer;
+import org.openrdf.query.algebra.evaluation.impl.QueryModelNormalizer;
+import org.openrdf.query.algebra.evaluation.impl.SameTermFilterOptimizer;
+import org.openrdf.query.impl.EmptyBindingSet;
+import org.openrdf.sail.SailException;
+import org.openrdf.sail.helpers.SailConnectionBase;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Connection of an {@link AnnotationStore}. The changes of a transaction are kept as sets of added and removed
+ * quads, which are laid over the committed quads when reading and applied to the store on commit. Added quads
+ * are resolved against the store on commit, so they are kept even if other transactions remove them meanwhile.
+ */
+class AnnotationStoreConnection extends SailConnectionBase {
+
+    private final AnnotationStore store;
+
+    private final ValueDictionary dictionary;
+
+    /**
+     * Quads added by the transaction, including those committed already
+     */
+    private final Set<Quad> added = new LinkedHashSet<>();
+
+    /**
+     * Committed quads removed by the transaction
+     */
+    private final Set<Quad> removed = new LinkedHashSet<>();
+
+    /**
+     * Resolves the SERVICE clauses of the queries, shut down with the connection
+     */
+    private final FederatedServiceResolverImpl serviceResolver = new FederatedServiceResolverImpl();
+
+    AnnotationStoreConnection(AnnotationStore store) {
+        super(store);
+        this.store = store;
+        this.dictionary = store.getDictionary();
+    }
+
+    @Override
+    protected void closeInternal() throws SailException {
+        added.clear();
+        removed.clear();
+        serviceResolver.shutDown();
+    }
+
+    @Override
+    protected CloseableIteration<? extends BindingSet, QueryEvaluationException> evaluateInternal(TupleExpr tupleExpr, Dataset dataset, BindingSet bindings, boolean includeInferred) throws SailException {
+        tupleExpr = tupleExpr.clone();
+        if (!(tupleExpr instanceof QueryRoot)) {
+            tupleExpr = new QueryRoot(tupleExpr);
+        }
+
+        EvaluationStrategyImpl strategy = new EvaluationStrategyImpl(new StoreTripleSource(), dataset, serviceResolver);
+
+        new BindingAssigner().optimize(tupleExpr, dataset, bindings);
+        new ConstantOptimizer(strategy).optimize(tupleExpr, dataset, bindings);
+        new CompareOptimizer().optimize(tupleExpr, dataset, bindings);
+        new ConjunctiveConstraintSplitter().optimize(tupleExpr, dataset, bindings);
+        new DisjunctiveConstraintOptimizer().optimize(tupleExpr, dataset, bindings);
+        new SameTermFilterOptimizer().optimize(tupleExpr, dataset, bindings);
+        new QueryModelNormalizer().optimize(tupleExpr, dataset, bindings);
+        // Joins are ordered by the sizes of the index blocks the patterns select
+        new QueryJoinOptimizer(new IndexStatistics()).optimize(tupleExpr, dataset, bindings);
+        new IterativeEvaluationOptimizer().optimize(tupleExpr, dataset, bindings);
+        new FilterOptimizer().optimize(tupleExpr, dataset, bindings);
+        new OrderLimitOptimizer().optimize(tupleExpr, dataset, bindings);
+
+        try {
+            return strategy.evaluate(tupleExpr, EmptyBindingSet.getInstance());
+        } catch (QueryEvaluationException e) {
+            throw new SailException(e);
+        }
+    }
+
+    @Override
+    protected CloseableIteration<? extends Resource, SailException> getContextIDsInternal() throws SailException {
+        Set<Resource> contexts = new LinkedHashSet<>();
+        IntList committed = store.contexts();
+        for (int i = 0; i < committed.size(); i++) {
+            int context = committed.get(i);
+            if (countRemoved(context) < store.size(new int[]{context})) {
+                contexts.add((Resource) dictionary.decode(context));
+            }
+        }
+        for (Quad quad : added) {
+            if (quad.c != 0) {
+                contexts.add((Resource) dictionary.decode(quad.c));
+            }
+        }
+        return new CloseableIteratorIteration<Resource, SailException>(contexts.iterator());
+    }
+
+    @Override
+    protected CloseableIteration<? extends Statement, SailException> getStatementsInternal(Resource subj, URI pred, Value obj, boolean includeInferred, Resource... contexts) throws SailException {
+        return statements(subj, pred, obj, contexts);
+    }
+
+    @Override
+    protected long sizeInternal(Resource... contexts) throws SailException {
+        int[] ids = store.lookupContexts(contexts);
+        if (ids != null && ids.length == 0) {
+            return 0;
+        }
+        long size = store.size(ids);
+        for (Quad quad : removed) {
+            if (quad.matches(0, 0, 0, ids)) {
+                size--;
+            }
+        }
+        for (Quad quad : added) {
+            if (quad.matches(0, 0, 0, ids) && !store.contains(quad)) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    protected void startTransactionInternal() throws SailException {
+        // Changes are collected from the first write on
+    }
+
+    @Override
+    protected void commitInternal() throws SailException {
+        store.apply(removed, added);
+        added.clear();
+        removed.clear();
+    }
+
+    @Override
+    protected void rollbackInternal() throws SailException {
+        added.clear();
+        removed.clear();
+    }
+
+    @Override
+    protected void addStatementInternal(Resource subj, URI pred, Value obj, Resource... contexts) throws SailException {
+        int s = dictionary.encode(subj);
+        int p = dictionary.encode(pred);
+        int o = dictionary.encode(obj);
+        if (contexts == null || contexts.length == 0) {
+            add(new Quad(s, p, o, 0));
+        } else {
+            for (Resource context : contexts) {
+                add(new Quad(s, p, o, context != null ? dictionary.encode(context) : 0));
+            }
+        }
+    }
+
+    @Override
+    protected void removeStatementsInternal(Resource subj, URI pred, Value obj, Resource... contexts) throws SailException {
+        int s = store.lookup(subj);
+        int p = store.lookup(pred);
+        int o = store.lookup(obj);
+        int[] ids = store.lookupContexts(contexts);
+        if (s < 0 || p < 0 || o < 0 || (ids != null && ids.length == 0)) {
+            return;
+        }
+        IntList matches = store.match(s, p, o, ids);
+        for (int i = 0; i < matches.size(); i += 4) {
+            removed.add(new Quad(matches.get(i), matches.get(i + 1), matches.get(i + 2), matches.get(i + 3)));
+        }
+        Iterator<Quad> pending = added.iterator();
+        while (pending.hasNext()) {
+            if (pending.next().matches(s, p, o, ids)) {
+                pending.remove();
+            }
+        }
+    }
+
+    @Override
+    protected void clearInternal(Resource... contexts) throws SailException {
+        removeStatementsInternal(null, null, null, contexts);
+    }
+
+    @Override
+    protected CloseableIteration<? extends Namespace, SailException> getNamespacesInternal() throws SailException {
+        Map<String, String> namespaces = store.getNamespaceMap();
+        List<Namespace> list = new ArrayList<>();
+        synchronized (namespaces) {
+            for (Map.Entry<String, String> namespace : namespaces.entrySet()) {
+                list.add(new NamespaceImpl(namespace.getKey(), namespace.getValue()));
+            }
+        }
+        return new CloseableIteratorIteration<Namespace, SailException>(list.iterator());
+    }
+
+    @Override
+    protected String getNamespaceInternal(String prefix) throws SailException {
+        Map<String, String> namespaces = store.getNamespaceMap();
+        synchronized (namespaces) {
+            return namespaces.get(prefix);
+        }
+    }
+
+    @Override
+    protected void setNamespaceInternal(String prefix, String name) throws SailException {
+        Map<String, String> namespaces = store.getNamespaceMap();
+        synchronized (namespaces) {
+            namespaces.put(prefix, name);
+        }
+    }
+
+    @Override
+    protected void removeNamespaceInternal(String prefix) throws SailException {
+        Map<String, String> namespaces = store.getNamespaceMap();
+        synchronized (namespaces) {
+            namespaces.remove(prefix);
+        }
+    }
+
+    @Override
+    protected void clearNamespacesInternal() throws SailException {
+        Map<String, String> namespaces = store.getNamespaceMap();
+        synchronized (namespaces) {
+            namespaces.clear();
+        }
+    }
+
+    private void add(Quad quad) {
+        // Adding a removed quad again revokes its removal, but is still applied in case of a concurrent removal
+        removed.remove(quad);
+        added.add(quad);
+    }
+
+    private int countRemoved(int context) {
+        int count = 0;
+        for (Quad quad : removed) {
+            if (quad.c == context) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The committed statements matching the pattern without the removed ones, followed by the matching added ones
+     * that are not among the committed.
+     */
+    private <X extends Exception> CloseableIteration<Statement, X> statements(Resource subj, URI pred, Value obj, Resource... contexts) {
+        int s = store.lookup(subj);
+        int p = store.lookup(pred);
+        int o = store.lookup(obj);
+        int[] ids = store.lookupContexts(contexts);
+        if (s < 0 || p < 0 || o < 0 || (ids != null && ids.length == 0)) {
+            return new EmptyIteration<Statement, X>();
+        }
+        final IntList matches = store.match(s, p, o, ids);
+        final Set<Quad> pending = new LinkedHashSet<>();
+        for (Quad quad : added) {
+            if (quad.matches(s, p, o, ids)) {
+                pending.add(quad);
+            }
+        }
+        final Set<Quad> excluded = removed.isEmpty() ? null : new HashSet<>(removed);
+        final ValueFactory vf = store.getValueFactory();
+        return new LookAheadIteration<Statement, X>() {
+
+            private int index;
+
+            private Iterator<Quad> next;
+
+            @Override
+            protected Statement getNextElement() {
+                while (index < matches.size()) {
+                    Quad quad = new Quad(matches.get(index), matches.get(index + 1), matches.get(index + 2), matches.get(index + 3));
+                    index += 4;
+                    if (excluded == null || !excluded.contains(quad)) {
+                        // Added quads which are committed already are returned once
+                        pending.remove(quad);
+                        return createStatement(vf, quad);
+                    }
+                }
+                if (next == null) {
+                    next = pending.iterator();
+                }
+                if (next.hasNext()) {
+                    return createStatement(vf, next.next());
+                }
+                return null;
+            }
+        };
+    }
+
+    private Statement createStatement(ValueFactory vf, Quad quad) {
+        Resource subj = (Resource) dictionary.decode(quad.s);
+        URI pred = (URI) dictionary.decode(quad.p);
+        Value obj = dictionary.decode(quad.o);
+        if (quad.c == 0) {
+            return vf.createStatement(subj, pred, obj);
+        }
+        return vf.createStatement(subj, pred, obj, (Resource) dictionary.decode(quad.c));
+    }
+
+    private class StoreTripleSource implements TripleSource {
+
+        @Override
+        public CloseableIteration<? extends Statement, QueryEvaluationException> getStatements(Resource subj, URI pred, Value obj, Resource... contexts) throws QueryEvaluationException {
+            return AnnotationStoreConnection.this.<QueryEvaluationException>statements(subj, pred, obj, contexts);
+        }
+
+        @Override
+        public ValueFactory getValueFactory() {
+            return store.getValueFactory();
+        }
+    }
+
+    /**
+     * Estimates the cardinality of a statement pattern by the sizes of the index blocks it selects.
+     */
+    private class IndexStatistics extends EvaluationStatistics {
+
+        @Override
+        protected CardinalityCalculator createCardinalityCalculator() {
+            return new IndexCardinalityCalculator();
+        }
+
+        private class IndexCardinalityCalculator extends CardinalityCalculator {
+
+            @Override
+            public double getCardinality(StatementPattern sp) {
+                int s = store.lookup(getValue(sp.getSubjectVar()));
+                int p = store.lookup(getValue(sp.getPredicateVar()));
+                int o = store.lookup(getValue(sp.getObjectVar()));
+                if (s < 0 || p < 0 || o < 0) {
+                    return 0;
+                }
+                return store.cardinality(s, p, o);
+            }
+
+            private Value getValue(Var var) {
+                return var != null && var.hasValue() ? var.getValue() : null;
+            }
+        }
+    }
+}
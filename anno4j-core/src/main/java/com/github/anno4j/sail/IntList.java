@@ -0,0 +1,46 @@
+package com.github.anno4j.sail;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints, used for the matches of statement patterns as consecutive quads.
+ */
+class IntList {
+
+    private int[] values;
+
+    private int size;
+
+    IntList() {
+        this(16);
+    }
+
+    IntList(int capacity) {
+        values = new int[Math.max(capacity, 4)];
+    }
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    void add(int a, int b, int c, int d) {
+        if (size + 4 > values.length) {
+            values = Arrays.copyOf(values, Math.max(size * 2, size + 4));
+        }
+        values[size++] = a;
+        values[size++] = b;
+        values[size++] = c;
+        values[size++] = d;
+    }
+
+    int get(int index) {
+        return values[index];
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.anno4j.sail;
+
+/**
+ * Dictionary encoded statement of a pending change. Context 0 is the default graph.
+ */
+final class Quad {
+
+    final int s;
+
+    final int p;
+
+    final int o;
+
+    final int c;
+
+    Quad(int s, int p, int o, int c) {
+        this.s = s;
+        this.p = p;
+        this.o = o;
+        this.c = c;
+    }
+
+    /**
+     * @param s        Subject id or 0 for any subject
+     * @param p        Predicate id or 0 for any predicate
+     * @param o        Object id or 0 for any object
+     * @param contexts Accepted context ids, or null for any context
+     * @return <code>true</code> iff the quad matches the pattern.
+     */
+    boolean matches(int s, int p, int o, int[] contexts) {
+        if ((s != 0 && s != this.s) || (p != 0 && p != this.p) || (o != 0 && o != this.o)) {
+            return false;
+        }
+        if (contexts == null) {
+            return true;
+        }
+        for (int context : contexts) {
+            if (context == c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Quad)) {
+            return false;
+        }
+        Quad quad = (Quad) o;
+        return s == quad.s && p == quad.p && this.o == quad.o && c == quad.c;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((s * 31 + p) * 31 + o) * 31 + c;
+    }
+}
@@ -0,0 +1,258 @@
+package com.github.anno4j.sail;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * SPO, POS and OSP indexes of dictionary encoded quads. Each index maps the leading component(s) to a block of
+ * the remaining ones, so the statements of a subject (the star-shaped subgraph of an annotation) are read from
+ * one int array. Context 0 is the default graph. Not thread-safe, the {@link AnnotationStore} guards it by a lock.
+ */
+class QuadIndex {
+
+    /**
+     * Subject to (predicate, object, context)
+     */
+    private final TupleMap spo = new TupleMap(3);
+
+    /**
+     * (Predicate, object) to (subject, context)
+     */
+    private final TupleMap pos = new TupleMap(2);
+
+    /**
+     * Object to (subject, predicate, context)
+     */
+    private final TupleMap osp = new TupleMap(3);
+
+    /**
+     * Predicate to its distinct objects, to find the POS blocks of a predicate
+     */
+    private final TupleMap objects = new TupleMap(1);
+
+    private final Map<Integer, Integer> predicateCounts = new HashMap<>();
+
+    private final Map<Integer, Integer> contextCounts = new HashMap<>();
+
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param contexts The context ids to count, or null for all contexts.
+     * @return the number of quads in the contexts.
+     */
+    int size(int[] contexts) {
+        if (contexts == null) {
+            return size;
+        }
+        int count = 0;
+        for (int context : contexts) {
+            Integer contextCount = contextCounts.get(context);
+            count += contextCount != null ? contextCount : 0;
+        }
+        return count;
+    }
+
+    boolean contains(int s, int p, int o, int c) {
+        return spo.contains(s, p, o, c);
+    }
+
+    boolean add(int s, int p, int o, int c) {
+        if (spo.contains(s, p, o, c)) {
+            return false;
+        }
+        spo.add(s, p, o, c);
+        if (pos.add(pair(p, o), s, c, 0)) {
+            objects.add(p, o, 0, 0);
+        }
+        osp.add(o, s, p, c);
+        increment(predicateCounts, p, 1);
+        increment(contextCounts, c, 1);
+        size++;
+        return true;
+    }
+
+    boolean remove(int s, int p, int o, int c) {
+        if (!spo.remove(s, p, o, c)) {
+            return false;
+        }
+        long key = pair(p, o);
+        pos.remove(key, s, c, 0);
+        if (pos.size(key) == 0) {
+            objects.remove(p, o, 0, 0);
+        }
+        osp.remove(o, s, p, c);
+        increment(predicateCounts, p, -1);
+        increment(contextCounts, c, -1);
+        size--;
+        return true;
+    }
+
+    /**
+     * Appends the matching quads to the list, four ints per quad.
+     *
+     * @param s        Subject id or 0 for any subject
+     * @param p        Predicate id or 0 for any predicate
+     * @param o        Object id or 0 for any object
+     * @param contexts Accepted context ids, or null for any context
+     * @param out      The list of matching quads
+     */
+    void match(int s, int p, int o, int[] contexts, IntList out) {
+        if (s != 0) {
+            int slot = spo.find(s);
+            if (slot >= 0) {
+                int[] block = spo.blockAt(slot);
+                int end = spo.sizeAt(slot) * 3;
+                for (int i = 0; i < end; i += 3) {
+                    if ((p == 0 || block[i] == p) && (o == 0 || block[i + 1] == o) && accept(block[i + 2], contexts)) {
+                        out.add(s, block[i], block[i + 1], block[i + 2]);
+                    }
+                }
+            }
+        } else if (p != 0 && o != 0) {
+            matchPredicateObject(p, o, contexts, out);
+        } else if (o != 0) {
+            int slot = osp.find(o);
+            if (slot >= 0) {
+                int[] block = osp.blockAt(slot);
+                int end = osp.sizeAt(slot) * 3;
+                for (int i = 0; i < end; i += 3) {
+                    if (accept(block[i + 2], contexts)) {
+                        out.add(block[i], block[i + 1], o, block[i + 2]);
+                    }
+                }
+            }
+        } else if (p != 0) {
+            int slot = objects.find(p);
+            if (slot >= 0) {
+                int[] block = objects.blockAt(slot);
+                int end = objects.sizeAt(slot);
+                for (int i = 0; i < end; i++) {
+                    matchPredicateObject(p, block[i], contexts, out);
+                }
+            }
+        } else {
+            for (int slot = 0; slot < spo.capacity(); slot++) {
+                int end = spo.sizeAt(slot) * 3;
+                if (end > 0) {
+                    int subject = (int) spo.keyAt(slot);
+                    int[] block = spo.blockAt(slot);
+                    for (int i = 0; i < end; i += 3) {
+                        if (accept(block[i + 2], contexts)) {
+                            out.add(subject, block[i], block[i + 1], block[i + 2]);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Estimates the number of quads matching the pattern by the smallest block any of its bound components selects.
+     *
+     * @return an upper bound of the number of matching quads.
+     */
+    int cardinality(int s, int p, int o) {
+        int cardinality = size;
+        if (s != 0) {
+            cardinality = Math.min(cardinality, spo.size(s));
+        }
+        if (p != 0 && o != 0) {
+            cardinality = Math.min(cardinality, pos.size(pair(p, o)));
+        } else if (p != 0) {
+            Integer count = predicateCounts.get(p);
+            cardinality = Math.min(cardinality, count != null ? count : 0);
+        }
+        if (o != 0) {
+            cardinality = Math.min(cardinality, osp.size(o));
+        }
+        return cardinality;
+    }
+
+    /**
+     * @return the ids of the named graphs holding at least one quad.
+     */
+    IntList contexts() {
+        IntList contexts = new IntList();
+        for (Map.Entry<Integer, Integer> entry : contextCounts.entrySet()) {
+            if (entry.getKey() != 0) {
+                contexts.add(entry.getKey());
+            }
+        }
+        return contexts;
+    }
+
+    void clear() {
+        IntList all = new IntList();
+        match(0, 0, 0, null, all);
+        for (int i = 0; i < all.size(); i += 4) {
+            remove(all.get(i), all.get(i + 1), all.get(i + 2), all.get(i + 3));
+        }
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int slot = 0; slot < spo.capacity(); slot++) {
+            int end = spo.sizeAt(slot) * 3;
+            int[] block = spo.blockAt(slot);
+            for (int i = 0; i < end; i += 3) {
+                out.writeInt((int) spo.keyAt(slot));
+                out.writeInt(block[i]);
+                out.writeInt(block[i + 1]);
+                out.writeInt(block[i + 2]);
+            }
+        }
+    }
+
+    void readFrom(DataInput in) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            add(in.readInt(), in.readInt(), in.readInt(), in.readInt());
+        }
+    }
+
+    private void matchPredicateObject(int p, int o, int[] contexts, IntList out) {
+        int slot = pos.find(pair(p, o));
+        if (slot >= 0) {
+            int[] block = pos.blockAt(slot);
+            int end = pos.sizeAt(slot) * 2;
+            for (int i = 0; i < end; i += 2) {
+                if (accept(block[i + 1], contexts)) {
+                    out.add(block[i], p, o, block[i + 1]);
+                }
+            }
+        }
+    }
+
+    private static boolean accept(int context, int[] contexts) {
+        if (contexts == null) {
+            return true;
+        }
+        for (int accepted : contexts) {
+            if (accepted == context) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long pair(int p, int o) {
+        return ((long) p << 32) | (o & 0xFFFFFFFFL);
+    }
+
+    private static void increment(Map<Integer, Integer> counts, int key, int delta) {
+        Integer count = counts.get(key);
+        int updated = (count != null ? count : 0) + delta;
+        if (updated > 0) {
+            counts.put(key, updated);
+        } else {
+            counts.remove(key);
+        }
+    }
+}
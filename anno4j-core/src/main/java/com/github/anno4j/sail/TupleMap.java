@@ -0,0 +1,196 @@
+package com.github.anno4j.sail;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from a positive long key to a block of int tuples of fixed width.
+ * Tuples are stored in primitive arrays, so a tuple costs width * 4 bytes without further object overhead.
+ * The order of the tuples of a key is not preserved on removal.
+ */
+class TupleMap {
+
+    private static final int INITIAL_SLOTS = 16;
+
+    private static final int INITIAL_BLOCK = 2;
+
+    private final int width;
+
+    private long[] keys = new long[INITIAL_SLOTS];
+
+    private int[][] blocks = new int[INITIAL_SLOTS][];
+
+    private int[] sizes = new int[INITIAL_SLOTS];
+
+    private int used;
+
+    /**
+     * @param width Number of ints of a tuple
+     */
+    TupleMap(int width) {
+        this.width = width;
+    }
+
+    /**
+     * @return the slot of the key, or -1 if the key has no tuples.
+     */
+    int find(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return sizes[slot] > 0 ? slot : -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    int size(long key) {
+        int slot = find(key);
+        return slot < 0 ? 0 : sizes[slot];
+    }
+
+    /**
+     * @return the number of slots, which can be iterated with {@link #keyAt(int)}, {@link #blockAt(int)} and
+     * {@link #sizeAt(int)}.
+     */
+    int capacity() {
+        return keys.length;
+    }
+
+    long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    int[] blockAt(int slot) {
+        return blocks[slot];
+    }
+
+    /**
+     * @return the number of tuples in the slot, zero for free slots.
+     */
+    int sizeAt(int slot) {
+        return sizes[slot];
+    }
+
+    boolean contains(long key, int a, int b, int c) {
+        int slot = find(key);
+        return slot >= 0 && indexOf(slot, a, b, c) >= 0;
+    }
+
+    /**
+     * Appends the tuple without checking for duplicates. Unused trailing components are ignored.
+     *
+     * @return <code>true</code> iff the key had no tuples before.
+     */
+    boolean add(long key, int a, int b, int c) {
+        int slot = slot(key);
+        int size = sizes[slot];
+        int[] block = blocks[slot];
+        if (block == null) {
+            block = blocks[slot] = new int[INITIAL_BLOCK * width];
+        } else if ((size + 1) * width > block.length) {
+            block = blocks[slot] = Arrays.copyOf(block, block.length * 2);
+        }
+        int offset = size * width;
+        block[offset] = a;
+        if (width > 1) {
+            block[offset + 1] = b;
+        }
+        if (width > 2) {
+            block[offset + 2] = c;
+        }
+        sizes[slot] = size + 1;
+        return size == 0;
+    }
+
+    /**
+     * Removes the tuple by moving the last tuple of the key in its place.
+     *
+     * @return <code>true</code> iff the tuple was removed.
+     */
+    boolean remove(long key, int a, int b, int c) {
+        int slot = find(key);
+        if (slot < 0) {
+            return false;
+        }
+        int index = indexOf(slot, a, b, c);
+        if (index < 0) {
+            return false;
+        }
+        int[] block = blocks[slot];
+        int last = (sizes[slot] - 1) * width;
+        System.arraycopy(block, last, block, index * width, width);
+        if (--sizes[slot] == 0) {
+            // Keeps the key, but releases the block of a subject which is likely not used again
+            blocks[slot] = null;
+        }
+        return true;
+    }
+
+    private int indexOf(int slot, int a, int b, int c) {
+        int[] block = blocks[slot];
+        int end = sizes[slot] * width;
+        for (int offset = 0; offset < end; offset += width) {
+            if (block[offset] == a
+                    && (width < 2 || block[offset + 1] == b)
+                    && (width < 3 || block[offset + 2] == c)) {
+                return offset / width;
+            }
+        }
+        return -1;
+    }
+
+    private int slot(long key) {
+        if ((used + 1) * 4 > keys.length * 3) {
+            int live = 0;
+            for (int size : sizes) {
+                if (size > 0) {
+                    live++;
+                }
+            }
+            // Only grows if the keys are not mostly emptied ones
+            rehash(live * 2 > keys.length / 2 ? keys.length * 2 : keys.length);
+        }
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        used++;
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[][] oldBlocks = blocks;
+        int[] oldSizes = sizes;
+        keys = new long[capacity];
+        blocks = new int[capacity][];
+        sizes = new int[capacity];
+        used = 0;
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            // Keys without tuples are dropped
+            if (oldKeys[i] != 0 && oldSizes[i] > 0) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                blocks[slot] = oldBlocks[i];
+                sizes[slot] = oldSizes[i];
+                used++;
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,87 @@
+package com.github.anno4j.sail;
+
+import org.openrdf.model.BNode;
+import org.openrdf.model.Literal;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+/**
+ * Binary encoding of RDF values, used for the off-heap segments and the snapshot file of the {@link AnnotationStore}.
+ */
+final class ValueCodec {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final byte URI_VALUE = 1;
+
+    private static final byte BNODE_VALUE = 2;
+
+    private static final byte LITERAL_VALUE = 3;
+
+    private static final byte LANGUAGE_LITERAL_VALUE = 4;
+
+    private static final byte TYPED_LITERAL_VALUE = 5;
+
+    private ValueCodec() {
+    }
+
+    static void write(DataOutput out, Value value) throws IOException {
+        if (value instanceof URI) {
+            out.writeByte(URI_VALUE);
+            writeString(out, value.stringValue());
+        } else if (value instanceof BNode) {
+            out.writeByte(BNODE_VALUE);
+            writeString(out, ((BNode) value).getID());
+        } else {
+            Literal literal = (Literal) value;
+            if (literal.getLanguage() != null) {
+                out.writeByte(LANGUAGE_LITERAL_VALUE);
+                writeString(out, literal.getLabel());
+                writeString(out, literal.getLanguage());
+            } else if (literal.getDatatype() != null) {
+                out.writeByte(TYPED_LITERAL_VALUE);
+                writeString(out, literal.getLabel());
+                writeString(out, literal.getDatatype().stringValue());
+            } else {
+                out.writeByte(LITERAL_VALUE);
+                writeString(out, literal.getLabel());
+            }
+        }
+    }
+
+    static Value read(DataInput in, ValueFactory vf) throws IOException {
+        byte kind = in.readByte();
+        switch (kind) {
+            case URI_VALUE:
+                return vf.createURI(readString(in));
+            case BNODE_VALUE:
+                return vf.createBNode(readString(in));
+            case LITERAL_VALUE:
+                return vf.createLiteral(readString(in));
+            case LANGUAGE_LITERAL_VALUE:
+                return vf.createLiteral(readString(in), readString(in));
+            case TYPED_LITERAL_VALUE:
+                return vf.createLiteral(readString(in), vf.createURI(readString(in)));
+            default:
+                throw new IOException("Unknown value kind " + kind);
+        }
+    }
+
+    private static void writeString(DataOutput out, String string) throws IOException {
+        byte[] bytes = string.getBytes(UTF8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, UTF8);
+    }
+}
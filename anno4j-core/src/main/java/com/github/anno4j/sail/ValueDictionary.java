@@ -0,0 +1,304 @@
+package com.github.anno4j.sail;
+
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Dictionary assigning int ids to RDF values. The <code>urn:anno4j:</code> URIs of the default IDGenerator are stored
+ * as the two longs of their UUID. Other values are kept on the heap, or encoded in direct byte buffers if the
+ * dictionary is off-heap, which leaves only primitive arrays and hash tables on the heap. Id 0 is never assigned.
+ * Values are not removed from the dictionary, when their last statement is removed.
+ */
+class ValueDictionary {
+
+    static final String UUID_PREFIX = "urn:anno4j:";
+
+    private static final int UUID_LENGTH = 36;
+
+    private static final int SEGMENT_SIZE = 1 << 20;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ValueFactory vf;
+
+    private final boolean offHeap;
+
+    /**
+     * The next id to assign
+     */
+    private int next = 1;
+
+    /**
+     * Per id: the index of its UUID in {@link #uuidBits}, or -1 if the value is no anno4j URN
+     */
+    private int[] uuidRefs = new int[INITIAL_CAPACITY];
+
+    /**
+     * Per id: the value, if the dictionary is on the heap
+     */
+    private Value[] values;
+
+    /**
+     * Per id: segment index and position of the encoded value, if the dictionary is off-heap
+     */
+    private long[] offsets;
+
+    /**
+     * Most and least significant bits of the UUIDs, two longs per UUID
+     */
+    private long[] uuidBits = new long[INITIAL_CAPACITY * 2];
+
+    private int uuids;
+
+    /**
+     * Open addressing table of the other values, with the hash code in the upper and the id in the lower half
+     */
+    private long[] valueTable = new long[INITIAL_CAPACITY * 2];
+
+    private int valueCount;
+
+    /**
+     * Open addressing table of the ids of the UUIDs
+     */
+    private int[] uuidTable = new int[INITIAL_CAPACITY * 2];
+
+    private final List<ByteBuffer> segments = new ArrayList<>();
+
+    ValueDictionary(ValueFactory vf, boolean offHeap) {
+        this.vf = vf;
+        this.offHeap = offHeap;
+        if (offHeap) {
+            offsets = new long[INITIAL_CAPACITY];
+        } else {
+            values = new Value[INITIAL_CAPACITY];
+        }
+    }
+
+    boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * @return the number of values in the dictionary.
+     */
+    synchronized int size() {
+        return next - 1;
+    }
+
+    /**
+     * @return the id of the value, or 0 if it is not in the dictionary.
+     */
+    synchronized int lookup(Value value) {
+        UUID uuid = parseUuid(value);
+        if (uuid != null) {
+            return uuidTable[findUuid(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits())];
+        }
+        int slot = findValue(value);
+        return (int) valueTable[slot];
+    }
+
+    /**
+     * @return the id of the value, which is assigned if it is not in the dictionary yet.
+     */
+    synchronized int encode(Value value) {
+        UUID uuid = parseUuid(value);
+        if (uuid != null) {
+            long msb = uuid.getMostSignificantBits();
+            long lsb = uuid.getLeastSignificantBits();
+            int slot = findUuid(msb, lsb);
+            if (uuidTable[slot] != 0) {
+                return uuidTable[slot];
+            }
+            int id = nextId();
+            if ((uuids + 1) * 2 > uuidBits.length) {
+                uuidBits = Arrays.copyOf(uuidBits, uuidBits.length * 2);
+            }
+            uuidBits[uuids * 2] = msb;
+            uuidBits[uuids * 2 + 1] = lsb;
+            uuidRefs[id] = uuids++;
+            uuidTable[slot] = id;
+            if (uuids * 4 > uuidTable.length * 3) {
+                rehashUuids();
+            }
+            return id;
+        }
+        int slot = findValue(value);
+        if (valueTable[slot] != 0) {
+            return (int) valueTable[slot];
+        }
+        int id = nextId();
+        uuidRefs[id] = -1;
+        if (offHeap) {
+            offsets[id] = store(value);
+        } else {
+            values[id] = value;
+        }
+        valueTable[slot] = ((long) value.hashCode() << 32) | id;
+        if (++valueCount * 4 > valueTable.length * 3) {
+            rehashValues();
+        }
+        return id;
+    }
+
+    synchronized Value decode(int id) {
+        int uuid = uuidRefs[id];
+        if (uuid >= 0) {
+            return vf.createURI(UUID_PREFIX + new UUID(uuidBits[uuid * 2], uuidBits[uuid * 2 + 1]));
+        }
+        return offHeap ? load(offsets[id]) : values[id];
+    }
+
+    synchronized void writeTo(DataOutput out) throws IOException {
+        out.writeInt(next - 1);
+        for (int id = 1; id < next; id++) {
+            ValueCodec.write(out, decode(id));
+        }
+    }
+
+    /**
+     * Reads the values written by {@link #writeTo(DataOutput)} into the empty dictionary, which assigns them the
+     * same ids again.
+     */
+    synchronized void readFrom(DataInput in) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            encode(ValueCodec.read(in, vf));
+        }
+    }
+
+    private int nextId() {
+        int id = next++;
+        if (id == uuidRefs.length) {
+            int capacity = uuidRefs.length * 2;
+            uuidRefs = Arrays.copyOf(uuidRefs, capacity);
+            if (offHeap) {
+                offsets = Arrays.copyOf(offsets, capacity);
+            } else {
+                values = Arrays.copyOf(values, capacity);
+            }
+        }
+        return id;
+    }
+
+    private int findValue(Value value) {
+        int hash = value.hashCode();
+        int mask = valueTable.length - 1;
+        int slot = mix(hash) & mask;
+        while (valueTable[slot] != 0) {
+            long entry = valueTable[slot];
+            if ((int) (entry >>> 32) == hash && decode((int) entry).equals(value)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int findUuid(long msb, long lsb) {
+        int mask = uuidTable.length - 1;
+        int slot = mix((int) (msb ^ (msb >>> 32) ^ lsb ^ (lsb >>> 32))) & mask;
+        while (uuidTable[slot] != 0) {
+            int uuid = uuidRefs[uuidTable[slot]];
+            if (uuidBits[uuid * 2] == msb && uuidBits[uuid * 2 + 1] == lsb) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehashValues() {
+        long[] old = valueTable;
+        valueTable = new long[old.length * 2];
+        int mask = valueTable.length - 1;
+        for (long entry : old) {
+            if (entry != 0) {
+                int slot = mix((int) (entry >>> 32)) & mask;
+                while (valueTable[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                valueTable[slot] = entry;
+            }
+        }
+    }
+
+    private void rehashUuids() {
+        int[] old = uuidTable;
+        uuidTable = new int[old.length * 2];
+        for (int id : old) {
+            if (id != 0) {
+                int uuid = uuidRefs[id];
+                uuidTable[findUuid(uuidBits[uuid * 2], uuidBits[uuid * 2 + 1])] = id;
+            }
+        }
+    }
+
+    private long store(Value value) {
+        byte[] bytes;
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            ValueCodec.write(new DataOutputStream(buffer), value);
+            bytes = buffer.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode " + value, e);
+        }
+        ByteBuffer segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment == null || segment.remaining() < bytes.length + 4) {
+            segment = ByteBuffer.allocateDirect(Math.max(SEGMENT_SIZE, bytes.length + 4));
+            segments.add(segment);
+        }
+        long offset = ((long) (segments.size() - 1) << 32) | segment.position();
+        segment.putInt(bytes.length);
+        segment.put(bytes);
+        return offset;
+    }
+
+    private Value load(long offset) {
+        ByteBuffer segment = segments.get((int) (offset >>> 32)).duplicate();
+        segment.position((int) offset);
+        byte[] bytes = new byte[segment.getInt()];
+        segment.get(bytes);
+        try {
+            return ValueCodec.read(new DataInputStream(new ByteArrayInputStream(bytes)), vf);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not decode the value at " + offset, e);
+        }
+    }
+
+    private static UUID parseUuid(Value value) {
+        if (!(value instanceof URI)) {
+            return null;
+        }
+        String uri = value.stringValue();
+        if (uri.length() != UUID_PREFIX.length() + UUID_LENGTH || !uri.startsWith(UUID_PREFIX)) {
+            return null;
+        }
+        String suffix = uri.substring(UUID_PREFIX.length());
+        try {
+            UUID uuid = UUID.fromString(suffix);
+            // Only the canonical form is restored by the two longs
+            return uuid.toString().equals(suffix) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.anno4j.sharding;
+
+import org.openrdf.model.URI;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Routes named graphs assigned by {@link #assign(URI, int)} to their shard, and all other graphs by a fallback router.
+ */
+public class ExplicitShardRouter implements ShardRouter {
+
+    private final Map<URI, Integer> assignments = new HashMap<>();
+
+    private final ShardRouter fallback;
+
+    public ExplicitShardRouter() {
+        this(new HashShardRouter());
+    }
+
+    /**
+     * @param fallback Router of the graphs, which are not assigned to a shard
+     */
+    public ExplicitShardRouter(ShardRouter fallback) {
+        this.fallback = fallback;
+    }
+
+    /**
+     * Assigns the graph to a shard. Triples already stored in another shard are not moved.
+     *
+     * @param context The named graph
+     * @param shard   The index of the shard
+     * @return itself to allow chaining.
+     */
+    public synchronized ExplicitShardRouter assign(URI context, int shard) {
+        assignments.put(context, shard);
+        return this;
+    }
+
+    @Override
+    public synchronized int route(URI context, int shards) {
+        Integer shard = assignments.get(context);
+        if (shard == null) {
+            return fallback.route(context, shards);
+        }
+        if (shard >= shards) {
+            throw new IllegalStateException("Graph " + context + " is assigned to shard " + shard + ", but there are only " + shards + " shards");
+        }
+        return shard;
+    }
+}
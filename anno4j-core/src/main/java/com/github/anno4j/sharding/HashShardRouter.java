@@ -0,0 +1,20 @@
+package com.github.anno4j.sharding;
+
+import org.openrdf.model.URI;
+
+/**
+ * Routes named graphs by the hash code of their URI. The default graph is stored in the first shard.
+ */
+public class HashShardRouter implements ShardRouter {
+
+    @Override
+    public int route(URI context, int shards) {
+        if (context == null) {
+            return 0;
+        }
+        int hash = context.stringValue().hashCode();
+        // Spreads the bits of similar graph names, e.g. with consecutive numbers
+        hash ^= hash >>> 16;
+        return (hash & Integer.MAX_VALUE) % shards;
+    }
+}
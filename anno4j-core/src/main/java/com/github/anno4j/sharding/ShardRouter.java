@@ -0,0 +1,16 @@
+package com.github.anno4j.sharding;
+
+import org.openrdf.model.URI;
+
+/**
+ * Assigns named graphs to the shards of a {@link ShardedAnno4j}. All triples of a graph are stored in the same shard.
+ */
+public interface ShardRouter {
+
+    /**
+     * @param context The named graph, null for the default graph
+     * @param shards  The number of shards
+     * @return the index of the shard owning the graph, between 0 and shards - 1.
+     */
+    int route(URI context, int shards);
+}
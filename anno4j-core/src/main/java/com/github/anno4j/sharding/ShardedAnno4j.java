@@ -0,0 +1,254 @@
+package com.github.anno4j.sharding;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.model.impl.ResourceObject;
+import com.github.anno4j.querying.QueryFuture;
+import com.github.anno4j.querying.QueryService;
+import org.apache.marmotta.ldpath.parser.ParseException;
+import org.openrdf.idGenerator.IDGenerator;
+import org.openrdf.idGenerator.IDGeneratorAnno4jURN;
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+import org.openrdf.query.MalformedQueryException;
+import org.openrdf.query.QueryEvaluationException;
+import org.openrdf.repository.Repository;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.config.RepositoryConfigException;
+import org.openrdf.repository.sail.SailRepository;
+import org.openrdf.result.NoResultException;
+import org.openrdf.sail.memory.MemoryStore;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Partitions the data of Anno4j across several repositories by named graph. Every graph is owned by one shard,
+ * chosen by a {@link ShardRouter}. Writes and reads of a graph go to its shard, reads without a graph are
+ * executed on all shards in parallel and merged.
+ * <br/><br/>
+ * Objects should be written to the graph they are created in, as each object is bound to the connection of its
+ * shard.
+ */
+public class ShardedAnno4j {
+
+    private final List<Anno4j> shards;
+
+    private final ShardRouter router;
+
+    /**
+     * @param repositories The repositories of the shards
+     * @param router       Assigns the named graphs to the shards
+     */
+    public ShardedAnno4j(List<? extends Repository> repositories, ShardRouter router) throws RepositoryException, RepositoryConfigException {
+        this(repositories, router, new IDGeneratorAnno4jURN());
+    }
+
+    /**
+     * @param repositories The repositories of the shards
+     * @param router       Assigns the named graphs to the shards
+     * @param idGenerator  Generates the ids of new objects in all shards
+     */
+    public ShardedAnno4j(List<? extends Repository> repositories, ShardRouter router, IDGenerator idGenerator) throws RepositoryException, RepositoryConfigException {
+        if (repositories.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        List<Anno4j> shards = new ArrayList<>(repositories.size());
+        for (Repository repository : repositories) {
+            shards.add(new Anno4j(repository, idGenerator));
+        }
+        this.shards = Collections.unmodifiableList(shards);
+        this.router = router;
+    }
+
+    /**
+     * Creates the given number of in-process MemoryStore shards, routed by the hash of their graph.
+     *
+     * @param shards The number of shards
+     * @return the sharded Anno4j
+     */
+    public static ShardedAnno4j createInMemory(int shards) throws RepositoryException, RepositoryConfigException {
+        List<Repository> repositories = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            repositories.add(new SailRepository(new MemoryStore()));
+        }
+        return new ShardedAnno4j(repositories, new HashShardRouter());
+    }
+
+    public List<Anno4j> getShards() {
+        return shards;
+    }
+
+    public ShardRouter getRouter() {
+        return router;
+    }
+
+    /**
+     * @param context The named graph, null for the default graph
+     * @return the Anno4j of the shard owning the graph.
+     */
+    public Anno4j getShard(URI context) {
+        return shards.get(router.route(context, shards.size()));
+    }
+
+    /**
+     * Sets the executor of the parallel reads and of the asynchronous calls of all shards.
+     *
+     * @param executor The executor, which should have a thread per shard at least
+     */
+    public void setExecutor(ExecutorService executor) {
+        for (Anno4j shard : shards) {
+            shard.setExecutor(executor);
+        }
+    }
+
+    /**
+     * Writes the resource object to the shard owning the graph.
+     *
+     * @param resource resource object to write
+     * @param context  Graph context of the resource
+     */
+    public void persist(ResourceObject resource, URI context) throws RepositoryException {
+        getShard(context).persist(resource, context);
+    }
+
+    /**
+     * Creates an instance of the given class in the shard owning the graph.
+     *
+     * @param clazz   Class of the instance to create. Can be an annotated interface.
+     * @param context The graph context where the triples are inserted into, can be null for default graph.
+     * @return A instance of the given class.
+     */
+    public <T> T createObject(Class<T> clazz, URI context) throws RepositoryException, IllegalAccessException, InstantiationException {
+        return getShard(context).createObject(clazz, context);
+    }
+
+    public <T> T createObject(Class<T> clazz, URI context, Resource id) throws RepositoryException, IllegalAccessException, InstantiationException {
+        return getShard(context).createObject(clazz, context, id);
+    }
+
+    /**
+     * Reads the object from the shard owning the graph.
+     *
+     * @param type    Type of the object
+     * @param id      Id of the object
+     * @param context Graph context of the object
+     * @return the object
+     */
+    public <T extends ResourceObject> T findByID(Class<T> type, String id, URI context) throws RepositoryException {
+        return getShard(context).findByID(type, id);
+    }
+
+    /**
+     * Reads the object from all shards in parallel.
+     *
+     * @param type Type of the object
+     * @param id   Id of the object
+     * @return the object of the first shard containing it
+     * @throws RepositoryException if no shard contains the object
+     */
+    public <T extends ResourceObject> T findByID(final Class<T> type, final String id) throws RepositoryException {
+        List<QueryFuture<T>> futures = new ArrayList<>(shards.size());
+        for (final Anno4j shard : shards) {
+            futures.add(submit(shard, new QueryFuture.Task<T>() {
+                @Override
+                public T call() throws Exception {
+                    try {
+                        return shard.findByID(type, id);
+                    } catch (RepositoryException e) {
+                        if (e.getCause() instanceof NoResultException) {
+                            return null;
+                        }
+                        throw e;
+                    }
+                }
+            }));
+        }
+        for (T object : gather(futures)) {
+            // A shard without the object returns one that only has the id
+            if (type.isInstance(object)) {
+                return object;
+            }
+        }
+        throw new RepositoryException("Couldn't find " + id + " in any shard", new NoResultException("No result"));
+    }
+
+    /**
+     * Reads the objects of the given type from all shards in parallel.
+     *
+     * @param type Type of the objects
+     * @return the distinct objects in shard order
+     */
+    public <T extends ResourceObject> List<T> findAll(final Class<T> type) throws RepositoryException {
+        List<QueryFuture<List<T>>> futures = new ArrayList<>(shards.size());
+        for (final Anno4j shard : shards) {
+            futures.add(submit(shard, new QueryFuture.Task<List<T>>() {
+                @Override
+                public List<T> call() throws Exception {
+                    return shard.findAll(type);
+                }
+            }));
+        }
+        Map<String, T> merged = new LinkedHashMap<>();
+        for (List<T> objects : gather(futures)) {
+            for (T object : objects) {
+                if (!merged.containsKey(object.getResourceAsString())) {
+                    merged.put(object.getResourceAsString(), object);
+                }
+            }
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    /**
+     * Reads the objects of the given type in the graph from its shard.
+     */
+    public <T extends ResourceObject> List<T> findAll(Class<T> type, URI context) throws RepositoryException {
+        return getShard(context).findAll(type, context);
+    }
+
+    /**
+     * Removes the graph from its shard.
+     */
+    public void clearContext(URI context) throws RepositoryException {
+        getShard(context).clearContext(context);
+    }
+
+    /**
+     * @return a QueryService querying all shards.
+     */
+    public ShardedQueryService createQueryService() throws RepositoryException {
+        List<QueryService> queryServices = new ArrayList<>(shards.size());
+        for (Anno4j shard : shards) {
+            queryServices.add(shard.createQueryService());
+        }
+        return new ShardedQueryService(queryServices);
+    }
+
+    /**
+     * @param context The graph to query
+     * @return a QueryService querying the graph on its shard only.
+     */
+    public ShardedQueryService createQueryService(URI context) throws RepositoryException {
+        List<QueryService> queryServices = new ArrayList<>(1);
+        queryServices.add(getShard(context).createQueryService(context));
+        return new ShardedQueryService(queryServices);
+    }
+
+    private static <V> QueryFuture<V> submit(Anno4j shard, QueryFuture.Task<V> task) {
+        QueryFuture<V> future = new QueryFuture<>(task);
+        shard.getExecutor().execute(future);
+        return future;
+    }
+
+    private static <V> List<V> gather(List<QueryFuture<V>> futures) throws RepositoryException {
+        try {
+            return ShardedQueryService.gather(futures);
+        } catch (ParseException | MalformedQueryException | QueryEvaluationException e) {
+            throw new RepositoryException(e);
+        }
+    }
+}
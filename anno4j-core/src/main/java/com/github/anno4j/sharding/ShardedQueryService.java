@@ -0,0 +1,226 @@
+package com.github.anno4j.sharding;
+
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.impl.ResourceObject;
+import com.github.anno4j.querying.Comparison;
+import com.github.anno4j.querying.Criteria;
+import com.github.anno4j.querying.QueryFuture;
+import com.github.anno4j.querying.QueryService;
+import org.apache.marmotta.ldpath.parser.ParseException;
+import org.openrdf.query.MalformedQueryException;
+import org.openrdf.query.QueryEvaluationException;
+import org.openrdf.repository.RepositoryException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Queries the shards of a {@link ShardedAnno4j} with the same criteria in parallel and merges their results.
+ * The results are ordered by shard. An object stored in several shards is contained once, so limit and offset
+ * apply to the distinct objects as they do for a single {@link QueryService}.
+ */
+public class ShardedQueryService {
+
+    private final List<QueryService> shards;
+
+    private Integer limit = null;
+
+    private Integer offset = null;
+
+    /**
+     * @param shards The QueryServices of the shards to query, in shard order
+     */
+    public ShardedQueryService(List<QueryService> shards) {
+        this.shards = shards;
+    }
+
+    /**
+     * @see QueryService#addCriteria(String, String, Comparison)
+     */
+    public ShardedQueryService addCriteria(String ldpath, String value, Comparison comparison) {
+        return addCriteria(new Criteria(ldpath, value, comparison));
+    }
+
+    /**
+     * @see QueryService#addCriteria(String, Number, Comparison)
+     */
+    public ShardedQueryService addCriteria(String ldpath, Number value, Comparison comparison) {
+        return addCriteria(new Criteria(ldpath, value, comparison));
+    }
+
+    /**
+     * @see QueryService#addCriteria(String, String)
+     */
+    public ShardedQueryService addCriteria(String ldpath, String value) {
+        return addCriteria(ldpath, value, Comparison.EQ);
+    }
+
+    /**
+     * @see QueryService#addCriteria(String, Number)
+     */
+    public ShardedQueryService addCriteria(String ldpath, Number value) {
+        return addCriteria(ldpath, value, Comparison.EQ);
+    }
+
+    /**
+     * @see QueryService#addCriteria(String)
+     */
+    public ShardedQueryService addCriteria(String ldpath) {
+        return addCriteria(new Criteria(ldpath, Comparison.EQ));
+    }
+
+    /**
+     * @see QueryService#addCriteria(Criteria)
+     */
+    public ShardedQueryService addCriteria(Criteria criteria) {
+        for (QueryService shard : shards) {
+            shard.addCriteria(criteria);
+        }
+        return this;
+    }
+
+    /**
+     * @see QueryService#addPrefix(String, String)
+     */
+    public ShardedQueryService addPrefix(String label, String url) {
+        for (QueryService shard : shards) {
+            shard.addPrefix(label, url);
+        }
+        return this;
+    }
+
+    /**
+     * @see QueryService#addPrefixes(HashMap)
+     */
+    public ShardedQueryService addPrefixes(HashMap<String, String> prefixes) {
+        for (QueryService shard : shards) {
+            shard.addPrefixes(prefixes);
+        }
+        return this;
+    }
+
+    /**
+     * Setting the limit value of the merged result.
+     *
+     * @param limit The limit value.
+     * @return itself to allow chaining.
+     */
+    public ShardedQueryService limit(Integer limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Setting the offset value of the merged result.
+     *
+     * @param offset The offset value.
+     * @return itself to allow chaining.
+     */
+    public ShardedQueryService offset(Integer offset) {
+        this.offset = offset;
+        return this;
+    }
+
+    /**
+     * @see QueryService#maxQueryTime(int)
+     */
+    public ShardedQueryService maxQueryTime(int seconds) {
+        for (QueryService shard : shards) {
+            shard.maxQueryTime(seconds);
+        }
+        return this;
+    }
+
+    /**
+     * @return the QueryServices of the queried shards.
+     */
+    public List<QueryService> getShards() {
+        return shards;
+    }
+
+    /**
+     * Executes the query on all shards and merges the annotations.
+     *
+     * @return the result set
+     */
+    public List<Annotation> execute() throws ParseException, RepositoryException, MalformedQueryException, QueryEvaluationException {
+        return execute(Annotation.class);
+    }
+
+    /**
+     * Executes the query on all shards in parallel and merges the distinct objects.
+     *
+     * @param type Type of the expected result.
+     * @param <T>  type Type of the expected result.
+     * @return the result set
+     */
+    public <T extends ResourceObject> List<T> execute(Class<T> type) throws ParseException, RepositoryException, MalformedQueryException, QueryEvaluationException {
+        if (shards.size() == 1) {
+            // Limit and offset are exact on a single shard
+            return shards.get(0).limit(limit).offset(offset).execute(type);
+        }
+
+        // Every shard returns the first offset + limit of its objects, which contain the page of the merged result
+        Integer shardLimit = limit != null ? limit + (offset != null ? offset : 0) : null;
+        List<QueryFuture<List<T>>> futures = new ArrayList<>(shards.size());
+        for (QueryService shard : shards) {
+            futures.add(shard.limit(shardLimit).offset(null).executeAsync(type));
+        }
+
+        Map<String, T> merged = new LinkedHashMap<>();
+        for (List<T> objects : gather(futures)) {
+            for (T object : objects) {
+                if (!merged.containsKey(object.getResourceAsString())) {
+                    merged.put(object.getResourceAsString(), object);
+                }
+            }
+        }
+
+        List<T> result = new ArrayList<>(merged.values());
+        int from = Math.min(offset != null ? offset : 0, result.size());
+        int to = limit != null ? Math.min(from + limit, result.size()) : result.size();
+        return new ArrayList<>(result.subList(from, to));
+    }
+
+    /**
+     * Waits for the results of all shards. If a shard fails, the queries of the other shards are cancelled.
+     *
+     * @return the results in shard order
+     */
+    static <V> List<V> gather(List<QueryFuture<V>> futures) throws ParseException, RepositoryException, MalformedQueryException, QueryEvaluationException {
+        List<V> results = new ArrayList<>(futures.size());
+        try {
+            for (QueryFuture<V> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryException("Interrupted while waiting for the shards", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ParseException) {
+                throw (ParseException) cause;
+            } else if (cause instanceof RepositoryException) {
+                throw (RepositoryException) cause;
+            } else if (cause instanceof MalformedQueryException) {
+                throw (MalformedQueryException) cause;
+            } else if (cause instanceof QueryEvaluationException) {
+                throw (QueryEvaluationException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RepositoryException("Query of a shard failed", cause);
+        } finally {
+            for (QueryFuture<V> future : futures) {
+                if (!future.isDone()) {
+                    future.cancel(true);
+                }
+            }
+        }
+    }
+}
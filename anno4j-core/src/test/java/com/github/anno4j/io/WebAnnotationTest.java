@@ -0,0 +1,157 @@
+package com.github.anno4j.io;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.Motivation;
+import com.github.anno4j.model.impl.body.TextualBody;
+import com.github.anno4j.model.namespaces.DCTERMS;
+import com.github.anno4j.model.namespaces.OADM;
+import org.junit.Test;
+import org.openrdf.model.Literal;
+import org.openrdf.model.Model;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.impl.LinkedHashModel;
+import org.openrdf.model.impl.URIImpl;
+import org.openrdf.model.util.ModelUtil;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.model.vocabulary.XMLSchema;
+import org.openrdf.repository.object.ObjectConnection;
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.helpers.StatementCollector;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URL;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link WebAnnotationParser} and the {@link WebAnnotationWriter}.
+ */
+public class WebAnnotationTest {
+
+    private final static URI ANNO1 = new URIImpl("http://example.org/anno1");
+
+    @Test
+    public void testParse() throws Exception {
+        Model model = parse(ANNOTATIONS);
+
+        assertTrue(model.contains(ANNO1, RDF.TYPE, new URIImpl(OADM.ANNOTATION)));
+        assertTrue(model.contains(ANNO1, new URIImpl(OADM.MOTIVATED_BY), new URIImpl(OADM.MOTIVATION_COMMENTING)));
+        assertTrue(model.contains(ANNO1, new URIImpl(DCTERMS.CREATED), null));
+        assertTrue(model.contains(new URIImpl("http://example.org/anno2"), RDF.TYPE, new URIImpl(OADM.ANNOTATION)));
+
+        // Dates are plain and numbers xsd:long, as in the model of Anno4j
+        Literal created = (Literal) model.filter(ANNO1, new URIImpl(DCTERMS.CREATED), null).objectValue();
+        assertEquals("2015-01-31T12:03:45Z", created.getLabel());
+        assertTrue(created.getDatatype() == null || XMLSchema.STRING.equals(created.getDatatype()));
+        Literal start = (Literal) model.filter(null, new URIImpl(OADM.START), null).objectValue();
+        assertEquals(XMLSchema.LONG, start.getDatatype());
+        assertEquals(12, start.longValue());
+
+        // Keys without a term are kept as absolute IRIs
+        Literal rating = (Literal) model.filter(null, new URIImpl("http://example.org/ns#rating"), null).objectValue();
+        assertEquals(XMLSchema.INTEGER, rating.getDatatype());
+    }
+
+    @Test
+    public void testGenericFallback() throws Exception {
+        Model model = parse(GENERIC);
+
+        URI anno = new URIImpl("http://example.org/anno3");
+        assertTrue(model.contains(anno, RDF.TYPE, new URIImpl(OADM.ANNOTATION)));
+        assertTrue(model.contains(anno, new URIImpl("http://example.org/ns#note"), null));
+
+        // Known predicates get the same datatypes as on the direct path
+        Literal created = (Literal) model.filter(anno, new URIImpl(DCTERMS.CREATED), null).objectValue();
+        assertEquals("2015-01-31T12:03:45Z", created.getLabel());
+        assertTrue(created.getDatatype() == null || XMLSchema.STRING.equals(created.getDatatype()));
+        Literal start = (Literal) model.filter(anno, new URIImpl(OADM.START), null).objectValue();
+        assertEquals(XMLSchema.LONG, start.getDatatype());
+        assertEquals(12, start.longValue());
+        Literal rating = (Literal) model.filter(anno, new URIImpl("http://example.org/ns#rating"), null).objectValue();
+        assertEquals(XMLSchema.INTEGER, rating.getDatatype());
+    }
+
+    @Test
+    public void testObjectsAndRoundTrip() throws Exception {
+        Anno4j anno4j = new Anno4j();
+        ObjectParser parser = new ObjectParser(anno4j);
+        List<Annotation> annotations = parser.parse(ANNOTATIONS, new URL("http://example.org/"), RDFFormat.JSONLD);
+        assertEquals(2, annotations.size());
+
+        Annotation annotation = anno4j.findByID(Annotation.class, ANNO1.stringValue());
+        TextualBody body = (TextualBody) annotation.getBodies().iterator().next();
+        assertEquals("I like this page!", body.getValue());
+        Motivation motivation = annotation.getMotivatedBy().iterator().next();
+        assertEquals(OADM.MOTIVATION_COMMENTING, motivation.getResourceAsString());
+
+        // Writing the parsed annotations and parsing them again results in the same statements
+        StringWriter out = new StringWriter();
+        ObjectConnection connection = anno4j.getObjectRepository().getConnection();
+        try (WebAnnotationWriter writer = new WebAnnotationWriter(out)) {
+            writer.startArray();
+            for (Annotation parsed : annotations) {
+                writer.write(connection, parsed.getResource());
+            }
+            writer.endArray();
+        } finally {
+            connection.close();
+        }
+        assertTrue(out.toString().contains("\"motivation\":\"commenting\""));
+        assertTrue(ModelUtil.equals(parse(ANNOTATIONS), parse(out.toString())));
+    }
+
+    private static Model parse(String json) throws Exception {
+        Model model = new LinkedHashModel();
+        WebAnnotationParser parser = new WebAnnotationParser();
+        parser.setRDFHandler(new StatementCollector(model));
+        parser.parse(new StringReader(json), "http://example.org/");
+        return model;
+    }
+
+    private final static String ANNOTATIONS = "[{\n" +
+            "  \"@context\": \"http://www.w3.org/ns/anno.jsonld\",\n" +
+            "  \"id\": \"http://example.org/anno1\",\n" +
+            "  \"type\": \"Annotation\",\n" +
+            "  \"motivation\": \"commenting\",\n" +
+            "  \"created\": \"2015-01-31T12:03:45Z\",\n" +
+            "  \"body\": {\n" +
+            "    \"id\": \"http://example.org/body1\",\n" +
+            "    \"type\": \"TextualBody\",\n" +
+            "    \"value\": \"I like this page!\",\n" +
+            "    \"format\": \"text/plain\",\n" +
+            "    \"language\": \"en\"\n" +
+            "  },\n" +
+            "  \"target\": {\n" +
+            "    \"type\": \"SpecificResource\",\n" +
+            "    \"source\": \"http://example.org/page1\",\n" +
+            "    \"selector\": {\n" +
+            "      \"type\": \"TextPositionSelector\",\n" +
+            "      \"start\": 12,\n" +
+            "      \"end\": 27\n" +
+            "    }\n" +
+            "  },\n" +
+            "  \"http://example.org/ns#rating\": 5\n" +
+            "}, {\n" +
+            "  \"@context\": \"http://www.w3.org/ns/anno.jsonld\",\n" +
+            "  \"id\": \"http://example.org/anno2\",\n" +
+            "  \"type\": \"Annotation\",\n" +
+            "  \"body\": \"http://example.org/post1\",\n" +
+            "  \"target\": \"http://example.org/page1\"\n" +
+            "}]";
+
+    private final static String GENERIC = "{\n" +
+            "  \"@context\": {\"ex\": \"http://example.org/ns#\", \"oa\": \"http://www.w3.org/ns/oa#\",\n" +
+            "    \"dcterms\": \"http://purl.org/dc/terms/\", \"xsd\": \"http://www.w3.org/2001/XMLSchema#\"},\n" +
+            "  \"@id\": \"http://example.org/anno3\",\n" +
+            "  \"@type\": \"oa:Annotation\",\n" +
+            "  \"ex:note\": \"generic\",\n" +
+            "  \"dcterms:created\": {\"@value\": \"2015-01-31T12:03:45Z\", \"@type\": \"xsd:dateTime\"},\n" +
+            "  \"oa:start\": 12,\n" +
+            "  \"ex:rating\": 5\n" +
+            "}";
+}
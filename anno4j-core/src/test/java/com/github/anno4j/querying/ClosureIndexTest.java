@@ -0,0 +1,177 @@
+package com.github.anno4j.querying;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.impl.ResourceObject;
+import com.github.anno4j.model.namespaces.OADM;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.URIImpl;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.model.vocabulary.RDFS;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.object.ObjectConnection;
+import org.openrdf.rio.RDFFormat;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for recursive paths over predicates of the ClosureIndex.
+ */
+public class ClosureIndexTest {
+
+    private static final String NS = "http://www.example.com/schema#";
+
+    private Anno4j anno4j;
+
+    private URI partOf;
+
+    private URI chapter;
+
+    private URI book;
+
+    @Before
+    public void setUp() throws Exception {
+        anno4j = new Anno4j();
+        ObjectConnection connection = anno4j.getObjectRepository().getConnection();
+        ValueFactory vf = connection.getValueFactory();
+
+        partOf = vf.createURI(NS, "partOf");
+        URI title = vf.createURI(NS, "title");
+        URI section = vf.createURI("urn:section");
+        chapter = vf.createURI("urn:chapter");
+        book = vf.createURI("urn:book");
+
+        // section -> chapter -> book, each of them annotated once
+        connection.begin();
+        connection.add(section, partOf, chapter);
+        connection.add(chapter, partOf, book);
+        connection.add(chapter, title, vf.createLiteral("Chapter"));
+        connection.add(book, title, vf.createLiteral("Book"));
+        for (URI target : new URI[]{section, chapter, book}) {
+            URI annotation = vf.createURI(target.stringValue() + ":annotation");
+            connection.add(annotation, RDF.TYPE, vf.createURI(OADM.ANNOTATION));
+            connection.add(annotation, vf.createURI(OADM.HAS_TARGET), target);
+        }
+        connection.commit();
+        connection.close();
+    }
+
+    @Test
+    public void testIndexedPaths() throws Exception {
+        assertPaths();
+
+        anno4j.getClosureIndex().addPredicate(partOf);
+        assertTrue(anno4j.getClosureIndex().isIndexed(partOf.stringValue()));
+
+        assertPaths();
+    }
+
+    @Test
+    public void testIncrementalMaintenance() throws Exception {
+        anno4j.getClosureIndex().addPredicate(partOf);
+
+        ObjectConnection connection = anno4j.getObjectRepository().getConnection();
+        try {
+            connection.remove(chapter, partOf, book);
+            assertEquals(0, query("oa:hasTarget/(ex:partOf)+/ex:title", "Book"));
+            assertEquals(1, query("oa:hasTarget/(ex:partOf)+/ex:title", "Chapter"));
+
+            connection.add(chapter, partOf, book);
+            assertEquals(2, query("oa:hasTarget/(ex:partOf)+/ex:title", "Book"));
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testClosureContext() throws Exception {
+        anno4j.getClosureIndex().addPredicate(partOf);
+        URI closure = ClosureIndex.getClosurePredicate(partOf);
+        URI section = new URIImpl("urn:section");
+        URI graph = new URIImpl("urn:graph");
+
+        ObjectConnection connection = anno4j.getObjectRepository().getConnection();
+        try {
+            assertTrue(connection.hasStatement(section, closure, book, false, ClosureIndex.CONTEXT));
+            assertFalse(connection.hasStatement(section, closure, book, false, (Resource) null));
+
+            // Exports leave out the closure
+            connection.add(section, RDF.TYPE, RDFS.RESOURCE);
+            String triples = connection.getObject(ResourceObject.class, section).getTriples(RDFFormat.NTRIPLES);
+            assertTrue(triples.contains(partOf.stringValue()));
+            assertFalse(triples.contains(closure.stringValue()));
+
+            // An edge stored in another context as well is still reachable after one of them is removed
+            connection.add(chapter, partOf, book, graph);
+            connection.remove(chapter, partOf, book, (Resource) null);
+            assertTrue(connection.hasStatement(section, closure, book, false, ClosureIndex.CONTEXT));
+            assertEquals(2, query("oa:hasTarget/(ex:partOf)+/ex:title", "Book"));
+
+            connection.clear(graph);
+            assertFalse(connection.hasStatement(section, closure, book, false, ClosureIndex.CONTEXT));
+            assertEquals(0, query("oa:hasTarget/(ex:partOf)+/ex:title", "Book"));
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testPatternRemoval() throws Exception {
+        anno4j.getClosureIndex().addPredicate(partOf);
+        URI broader = new URIImpl(NS + "broader");
+        anno4j.getClosureIndex().addPredicate(broader);
+        URI partOfClosure = ClosureIndex.getClosurePredicate(partOf);
+        URI broaderClosure = ClosureIndex.getClosurePredicate(broader);
+        URI section = new URIImpl("urn:section");
+
+        // Written to the underlying repository, a triple the closure of broader is not rebuilt from
+        RepositoryConnection underlying = anno4j.getRepository().getConnection();
+        try {
+            underlying.add(section, broaderClosure, book, ClosureIndex.CONTEXT);
+        } finally {
+            underlying.close();
+        }
+
+        ObjectConnection connection = anno4j.getObjectRepository().getConnection();
+        try {
+            // Removed like a property of a bean, the removed edges are maintained one by one
+            connection.remove(chapter, partOf, null);
+            assertFalse(connection.hasStatement(section, partOfClosure, book, false, ClosureIndex.CONTEXT));
+            assertTrue(connection.hasStatement(section, partOfClosure, chapter, false, ClosureIndex.CONTEXT));
+            assertTrue(connection.hasStatement(section, broaderClosure, book, false, ClosureIndex.CONTEXT));
+            assertEquals(0, query("oa:hasTarget/(ex:partOf)+/ex:title", "Book"));
+            assertEquals(1, query("oa:hasTarget/(ex:partOf)+/ex:title", "Chapter"));
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testCompositePaths() throws Exception {
+        // Two steps at once only reach the book from the section
+        assertEquals(1, query("oa:hasTarget/(ex:partOf/ex:partOf)+/ex:title", "Book"));
+        assertEquals(3, query("oa:hasTarget/(ex:partOf | ^ex:partOf)+/ex:title", "Chapter"));
+    }
+
+    private void assertPaths() throws Exception {
+        assertEquals(2, query("oa:hasTarget/(ex:partOf)+/ex:title", "Book"));
+        assertEquals(3, query("oa:hasTarget/(ex:partOf)*/ex:title", "Book"));
+        assertEquals(1, query("oa:hasTarget/(^ex:partOf)+/ex:title", "Chapter"));
+    }
+
+    private int query(String path, String value) throws Exception {
+        List<Annotation> list = anno4j.createQueryService()
+                .addPrefix("ex", NS)
+                .addCriteria(path, value)
+                .execute();
+        return list.size();
+    }
+}
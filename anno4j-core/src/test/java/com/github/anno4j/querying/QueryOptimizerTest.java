@@ -0,0 +1,100 @@
+package com.github.anno4j.querying;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.Transaction;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.Body;
+import com.github.anno4j.model.namespaces.OADM;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrdf.annotations.Iri;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for the cost-based join order of the QueryOptimizer.
+ */
+public class QueryOptimizerTest {
+
+    private static final String COMMON_BODY = "http://www.example.com/schema#commonBody";
+
+    private static final String RARE_BODY = "http://www.example.com/schema#rareBody";
+
+    private Anno4j anno4j;
+
+    @Before
+    public void setUp() throws Exception {
+        anno4j = new Anno4j();
+
+        for (int i = 0; i < 20; i++) {
+            anno4j.createObject(Annotation.class).addBody(anno4j.createObject(CommonBody.class));
+        }
+        anno4j.createObject(Annotation.class).addBody(anno4j.createObject(RareBody.class));
+        anno4j.getQueryStatistics().load();
+    }
+
+    @Test
+    public void testStatistics() throws Exception {
+        QueryStatistics statistics = anno4j.getQueryStatistics();
+
+        assertEquals(21, statistics.getTypeCount(OADM.ANNOTATION));
+        assertEquals(1, statistics.getTypeCount(RARE_BODY));
+        assertEquals(21, statistics.getPredicateCount(OADM.HAS_BODY));
+
+        // Counted without reading the repository again, once committed
+        anno4j.createObject(Annotation.class).addBody(anno4j.createObject(RareBody.class));
+
+        assertEquals(22, statistics.getTypeCount(OADM.ANNOTATION));
+        assertEquals(2, statistics.getTypeCount(RARE_BODY));
+        assertEquals(22, statistics.getPredicateCount(OADM.HAS_BODY));
+
+        // Rolled back statements are not counted
+        Transaction transaction = anno4j.createTransaction();
+        transaction.begin();
+        Annotation annotation = transaction.createObject(Annotation.class);
+        annotation.addBody(transaction.createObject(RareBody.class));
+        transaction.rollback();
+        transaction.close();
+
+        assertEquals(22, statistics.getTypeCount(OADM.ANNOTATION));
+        assertEquals(2, statistics.getTypeCount(RARE_BODY));
+    }
+
+    @Test
+    public void testJoinOrder() throws Exception {
+        String query = "SELECT ?root WHERE {\n" +
+                "  ?root a <" + OADM.ANNOTATION + "> .\n" +
+                "  ?root <" + OADM.HAS_BODY + "> ?body .\n" +
+                "  ?body a <" + COMMON_BODY + "> .\n" +
+                "  ?other a <" + RARE_BODY + "> .\n" +
+                "  ?root <" + OADM.HAS_BODY + "> ?other .\n" +
+                "}";
+
+        String optimized = QueryOptimizer.getInstance().optimizeJoinOrder(query, anno4j.getQueryStatistics());
+        String where = optimized.substring(optimized.indexOf('{'));
+
+        assertTrue(optimized, where.indexOf(RARE_BODY) < where.indexOf(OADM.ANNOTATION));
+        assertTrue(optimized, where.indexOf(RARE_BODY) < where.indexOf(COMMON_BODY));
+    }
+
+    @Test
+    public void testQuery() throws Exception {
+        List<Annotation> list = anno4j.createQueryService()
+                .addPrefix("ex", "http://www.example.com/schema#")
+                .addCriteria("oa:hasBody[is-a ex:rareBody]")
+                .execute();
+
+        assertEquals(1, list.size());
+    }
+
+    @Iri(COMMON_BODY)
+    public interface CommonBody extends Body {
+    }
+
+    @Iri(RARE_BODY)
+    public interface RareBody extends Body {
+    }
+}
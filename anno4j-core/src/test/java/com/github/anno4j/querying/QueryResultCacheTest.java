@@ -0,0 +1,99 @@
+package com.github.anno4j.querying;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.impl.body.TextualBody;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the hits, the predicate based invalidation and the bounds of the {@link QueryResultCache}.
+ */
+public class QueryResultCacheTest {
+
+    private Anno4j anno4j;
+
+    private QueryResultCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        anno4j = new Anno4j();
+        cache = anno4j.getQueryResultCache();
+        cache.setEnabled(true);
+        for (int i = 0; i < 3; i++) {
+            createAnnotation("value " + i);
+        }
+    }
+
+    @Test
+    public void testHit() throws Exception {
+        List<Annotation> first = query("value 1");
+        assertEquals(1, first.size());
+        assertEquals(1, cache.size());
+
+        List<Annotation> second = query("value 1");
+        assertEquals(1, second.size());
+        assertEquals(first.get(0).getResourceAsString(), second.get(0).getResourceAsString());
+        assertEquals("value 1", ((TextualBody) second.get(0).getBodies().iterator().next()).getValue());
+        assertSame(first.get(0).getClass(), second.get(0).getClass());
+
+        // Different criteria are cached separately
+        assertEquals(1, query("value 2").size());
+        assertEquals(2, cache.size());
+        assertEquals(2, cache.getWeight());
+    }
+
+    @Test
+    public void testInvalidation() throws Exception {
+        Annotation annotation = query("value 1").get(0);
+        long version = cache.getVersion();
+
+        // A write to a predicate the query doesn't read keeps the result
+        annotation.setGenerated("2016-01-01T12:00:00Z");
+        assertTrue(cache.getVersion() > version);
+        assertEquals(1, cache.size());
+        assertEquals(1, query("value 1").size());
+        version = cache.getVersion();
+
+        // A new body value invalidates it
+        createAnnotation("value 1");
+        assertEquals(2, query("value 1").size());
+        assertTrue(cache.getVersion() > version);
+
+        cache.invalidateAll();
+        assertEquals(2, query("value 1").size());
+    }
+
+    @Test
+    public void testBounds() throws Exception {
+        cache.setMaximumSize(2);
+        query("value 0");
+        query("value 1");
+        query("value 2");
+        assertEquals(2, cache.size());
+
+        cache.setMaximumWeight(1);
+        assertEquals(1, cache.size());
+
+        cache.setEnabled(false);
+        assertEquals(0, cache.size());
+        query("value 0");
+        assertEquals(0, cache.size());
+    }
+
+    private List<Annotation> query(String value) throws Exception {
+        return anno4j.createQueryService().addCriteria("oa:hasBody/rdf:value", value).execute();
+    }
+
+    private void createAnnotation(String value) throws Exception {
+        TextualBody body = anno4j.createObject(TextualBody.class);
+        body.setValue(value);
+        anno4j.createObject(Annotation.class).addBody(body);
+    }
+}
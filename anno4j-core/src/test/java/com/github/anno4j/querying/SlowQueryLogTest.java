@@ -0,0 +1,83 @@
+package com.github.anno4j.querying;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.impl.body.TextualBody;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the plans of {@link QueryService#explain(Class)} and the {@link SlowQueryLog}.
+ */
+public class SlowQueryLogTest {
+
+    private Anno4j anno4j;
+
+    @Before
+    public void setUp() throws Exception {
+        anno4j = new Anno4j();
+        for (int i = 0; i < 5; i++) {
+            TextualBody body = anno4j.createObject(TextualBody.class);
+            body.setValue(i % 2 == 0 ? "even" : "odd");
+            Annotation annotation = anno4j.createObject(Annotation.class);
+            annotation.addBody(body);
+        }
+    }
+
+    @Test
+    public void testExplain() throws Exception {
+        QueryPlan plan = anno4j.createQueryService()
+                .addCriteria("oa:hasBody/rdf:value", "even")
+                .explain();
+
+        assertEquals(3, plan.getResults());
+        assertEquals(1, plan.getCriteria().size());
+        assertTrue(plan.getInitialQuery().contains("SELECT"));
+        assertTrue(plan.getOptimizedQuery().contains("SELECT"));
+        assertNotNull(plan.getPlan());
+        assertTrue(plan.getPlan().contains("StatementPattern"));
+        assertTrue(plan.getPlan().contains("rows=3"));
+        assertTrue(plan.getTotalTime(TimeUnit.NANOSECONDS) > 0);
+        assertTrue(plan.getSummary().contains("oa:hasBody/rdf:value = \"even\""));
+    }
+
+    @Test
+    public void testSlowQueryLog() throws Exception {
+        SlowQueryLog log = new SlowQueryLog(1, TimeUnit.HOURS);
+        anno4j.setSlowQueryLog(log);
+
+        List<Annotation> annotations = anno4j.createQueryService().addCriteria("oa:hasBody/rdf:value", "odd").execute();
+        assertEquals(2, annotations.size());
+        assertTrue(log.getRecent().isEmpty());
+
+        // Every query spends some time materializing its results
+        log.setThreshold(QueryPlan.Phase.MATERIALIZE, 0, TimeUnit.NANOSECONDS);
+        anno4j.createQueryService().addCriteria("oa:hasBody/rdf:value", "odd").execute();
+        assertEquals(1, log.getRecent().size());
+        QueryPlan plan = log.getRecent().get(0);
+        assertEquals(2, plan.getResults());
+        assertEquals("oa:hasBody/rdf:value", plan.getCriteria().get(0).getLdpath());
+        assertNull(plan.getPlan());
+
+        log.setProfile(true);
+        log.setCapacity(1);
+        anno4j.createQueryService().addCriteria("oa:hasBody/rdf:value", "even").execute();
+        assertEquals(1, log.getRecent().size());
+        plan = log.getRecent().get(0);
+        assertEquals(3, plan.getResults());
+        assertNotNull(plan.getPlan());
+
+        log.clear();
+        anno4j.setSlowQueryLog(null);
+        anno4j.createQueryService().addCriteria("oa:hasBody/rdf:value", "even").execute();
+        assertTrue(log.getRecent().isEmpty());
+    }
+}
@@ -0,0 +1,163 @@
+package com.github.anno4j.querying.standing;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.Transaction;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.Body;
+import com.github.anno4j.model.impl.body.TextualBody;
+import com.github.anno4j.querying.Criteria;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the incremental evaluation of {@link StandingQuery}s after commits.
+ */
+public class StandingQueryTest {
+
+    private Anno4j anno4j;
+
+    private StandingQuery query;
+
+    @Before
+    public void setUp() throws Exception {
+        anno4j = new Anno4j();
+        createAnnotation("existing");
+        query = anno4j.getStandingQueryManager().register(
+                anno4j.createQueryService().addCriteria("oa:hasBody/rdf:value", "match"), Annotation.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        query.close();
+        anno4j.getStandingQueryManager().shutdown();
+    }
+
+    @Test
+    public void testAddedAndRemoved() throws Exception {
+        assertTrue(query.getMatches().isEmpty());
+        Subscription subscription = query.subscribe(10);
+
+        TextualBody body = createAnnotation("match");
+        MatchEvent added = subscription.poll(5, TimeUnit.SECONDS);
+        assertEquals(MatchEvent.Kind.ADDED, added.getKind());
+        assertEquals(1, query.getMatches().size());
+        assertEquals(added.getResource(), query.getMatches().iterator().next());
+
+        // The change of the body affects the annotation linking to it
+        body.setValue("no match");
+        MatchEvent removed = subscription.poll(5, TimeUnit.SECONDS);
+        assertEquals(MatchEvent.Kind.REMOVED, removed.getKind());
+        assertEquals(added.getResource(), removed.getResource());
+        assertTrue(removed.getCommit() > added.getCommit());
+        assertTrue(query.getMatches().isEmpty());
+
+        subscription.close();
+        createAnnotation("match");
+        assertNull(subscription.poll(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testInitialMatches() throws Exception {
+        StandingQuery existing = anno4j.getStandingQueryManager().register(
+                anno4j.createQueryService().addCriteria("oa:hasBody/rdf:value", "existing"), Annotation.class);
+        assertEquals(1, existing.getMatches().size());
+        existing.close();
+    }
+
+    @Test
+    public void testBatchedCandidates() throws Exception {
+        int count = 1200;
+        Transaction transaction = anno4j.createTransaction();
+        transaction.begin();
+        for (int i = 0; i < count; i++) {
+            TextualBody body = transaction.createObject(TextualBody.class);
+            body.setValue(i % 2 == 0 ? "match" : "other");
+            transaction.createObject(Annotation.class).addBody(body);
+        }
+        transaction.commit();
+        transaction.close();
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (query.getMatches().size() < count / 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(count / 2, query.getMatches().size());
+    }
+
+    @Test
+    public void testRegisterFromListener() throws Exception {
+        final AtomicReference<StandingQuery> registered = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        query.addListener(new StandingQueryListener() {
+            @Override
+            public void changed(StandingQuery changed, List<MatchEvent> events) {
+                try {
+                    registered.set(anno4j.getStandingQueryManager().register(
+                            anno4j.createQueryService().addCriteria("oa:hasBody/rdf:value", "existing"), Annotation.class));
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    done.countDown();
+                }
+            }
+        });
+
+        createAnnotation("match");
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, registered.get().getMatches().size());
+        registered.get().close();
+    }
+
+    @Test
+    public void testInverseLinkUnset() throws Exception {
+        StandingQuery bodies = anno4j.getStandingQueryManager().register(
+                anno4j.createQueryService().addCriteria("^oa:hasBody"), TextualBody.class);
+        Subscription subscription = bodies.subscribe(10);
+
+        TextualBody body = anno4j.createObject(TextualBody.class);
+        Annotation annotation = anno4j.createObject(Annotation.class);
+        annotation.addBody(body);
+        MatchEvent added = subscription.poll(5, TimeUnit.SECONDS);
+        assertEquals(MatchEvent.Kind.ADDED, added.getKind());
+        assertEquals(body.getResource(), added.getResource());
+
+        // The setter removes the links by pattern, the body they pointed to is affected
+        annotation.setBodies(Collections.<Body>emptySet());
+        MatchEvent removed = subscription.poll(5, TimeUnit.SECONDS);
+        assertEquals(MatchEvent.Kind.REMOVED, removed.getKind());
+        assertEquals(body.getResource(), removed.getResource());
+        assertFalse(bodies.getMatches().contains(body.getResource()));
+
+        subscription.close();
+        bodies.close();
+    }
+
+    @Test
+    public void testDepth() throws Exception {
+        assertEquals(2, StandingQueryManager.getDepth(Collections.singletonList(new Criteria("oa:hasBody/rdf:value"))));
+        assertEquals(3, StandingQueryManager.getDepth(Arrays.asList(new Criteria("oa:hasBody"),
+                new Criteria("oa:hasTarget/oa:hasSelector[rdf:value is \"match\"]"))));
+        assertEquals(-1, StandingQueryManager.getDepth(Collections.singletonList(new Criteria("oa:hasTarget+"))));
+        assertTrue(StandingQueryManager.isInverse(Collections.singletonList(new Criteria("^oa:hasBody"))));
+    }
+
+    private TextualBody createAnnotation(String value) throws Exception {
+        TextualBody body = anno4j.createObject(TextualBody.class);
+        body.setValue(value);
+        anno4j.createObject(Annotation.class).addBody(body);
+        return body;
+    }
+}
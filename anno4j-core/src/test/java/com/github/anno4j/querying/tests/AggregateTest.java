@@ -0,0 +1,160 @@
+package com.github.anno4j.querying.tests;
+
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.Body;
+import com.github.anno4j.querying.Aggregate;
+import com.github.anno4j.querying.QuerySetup;
+import org.apache.marmotta.ldpath.parser.ParseException;
+import org.junit.Test;
+import org.openrdf.annotations.Iri;
+import org.openrdf.model.Literal;
+import org.openrdf.model.Value;
+import org.openrdf.query.MalformedQueryException;
+import org.openrdf.query.QueryEvaluationException;
+import org.openrdf.repository.RepositoryException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Containing all tests, that count and aggregate instead of returning objects.
+ */
+public class AggregateTest extends QuerySetup {
+
+    @Test
+    /**
+     * Counting all annotations.
+     */
+    public void countTest() throws RepositoryException, QueryEvaluationException, MalformedQueryException, ParseException {
+        assertEquals(3, queryService.count());
+    }
+
+    @Test
+    /**
+     * Counting the annotations with bodies, where one annotation has two bodies.
+     */
+    public void countDistinctTest() throws RepositoryException, QueryEvaluationException, MalformedQueryException, ParseException {
+        queryService.addCriteria("oa:hasBody/ex:aggregateBodyScore");
+
+        assertEquals(queryService.execute().size(), queryService.count());
+        assertEquals(3, queryService.count());
+    }
+
+    @Test
+    /**
+     * Counting the annotations with news bodies.
+     */
+    public void countCriteriaTest() throws RepositoryException, QueryEvaluationException, MalformedQueryException, ParseException {
+        long count = queryService
+                .addCriteria("oa:hasBody/ex:aggregateBodyCategory", "news")
+                .count();
+
+        assertEquals(2, count);
+    }
+
+    @Test
+    /**
+     * Counting the annotations per body category, largest first.
+     */
+    public void countByTest() throws RepositoryException, QueryEvaluationException, MalformedQueryException, ParseException {
+        Map<Value, Long> counts = queryService.countBy("oa:hasBody/ex:aggregateBodyCategory");
+
+        assertEquals(3, counts.size());
+        List<String> categories = new ArrayList<>();
+        List<Long> values = new ArrayList<>();
+        for (Map.Entry<Value, Long> entry : counts.entrySet()) {
+            categories.add(entry.getKey().stringValue());
+            values.add(entry.getValue());
+        }
+        assertEquals("news", categories.get(0));
+        assertEquals(Long.valueOf(2), values.get(0));
+        assertEquals(Long.valueOf(1), values.get(1));
+        assertEquals(Long.valueOf(1), values.get(2));
+    }
+
+    @Test
+    /**
+     * Counting only the largest category.
+     */
+    public void countByLimitTest() throws RepositoryException, QueryEvaluationException, MalformedQueryException, ParseException {
+        Map<Value, Long> counts = queryService.limit(1).countBy("oa:hasBody/ex:aggregateBodyCategory");
+
+        assertEquals(1, counts.size());
+        assertEquals("news", counts.keySet().iterator().next().stringValue());
+    }
+
+    @Test
+    /**
+     * Summing up and taking the maximum of the body scores.
+     */
+    public void aggregateTest() throws RepositoryException, QueryEvaluationException, MalformedQueryException, ParseException {
+        assertEquals(10, ((Literal) queryService.aggregate(Aggregate.SUM, "oa:hasBody/ex:aggregateBodyScore")).intValue());
+        assertEquals(4, ((Literal) queryService.aggregate(Aggregate.MAX, "oa:hasBody/ex:aggregateBodyScore")).intValue());
+    }
+
+    @Test
+    /**
+     * Counting the distinct body categories, where news is the category of two annotations.
+     */
+    public void aggregateCountTest() throws RepositoryException, QueryEvaluationException, MalformedQueryException, ParseException {
+        assertEquals(3, ((Literal) queryService.aggregate(Aggregate.COUNT, "oa:hasBody/ex:aggregateBodyCategory")).intValue());
+    }
+
+    @Test
+    /**
+     * Taking the maximum body score per category. Both paths start at the annotation, so the sports
+     * category gets the largest score of any body of its annotation.
+     */
+    public void aggregateByTest() throws RepositoryException, QueryEvaluationException, MalformedQueryException, ParseException {
+        Map<Value, Value> max = queryService.aggregateBy(Aggregate.MAX, "oa:hasBody/ex:aggregateBodyScore", "oa:hasBody/ex:aggregateBodyCategory");
+
+        Map<String, Integer> scores = new HashMap<>();
+        for (Map.Entry<Value, Value> entry : max.entrySet()) {
+            scores.put(entry.getKey().stringValue(), ((Literal) entry.getValue()).intValue());
+        }
+        assertEquals(3, scores.size());
+        assertEquals(Integer.valueOf(4), scores.get("news"));
+        assertEquals(Integer.valueOf(3), scores.get("sports"));
+        assertEquals(Integer.valueOf(1), scores.get("blog"));
+    }
+
+    @Override
+    public void persistTestData() throws RepositoryException, InstantiationException, IllegalAccessException {
+        Annotation annotation = anno4j.createObject(Annotation.class);
+        annotation.addBody(createBody("news", 2));
+        annotation.addBody(createBody("sports", 3));
+
+        Annotation annotation1 = anno4j.createObject(Annotation.class);
+        annotation1.addBody(createBody("news", 4));
+
+        Annotation annotation2 = anno4j.createObject(Annotation.class);
+        annotation2.addBody(createBody("blog", 1));
+    }
+
+    private AggregateBody createBody(String category, int score) throws RepositoryException, InstantiationException, IllegalAccessException {
+        AggregateBody body = anno4j.createObject(AggregateBody.class);
+        body.setCategory(category);
+        body.setScore(score);
+        return body;
+    }
+
+    @Iri("http://www.example.com/schema#aggregateBody")
+    public static interface AggregateBody extends Body {
+
+        @Iri("http://www.example.com/schema#aggregateBodyCategory")
+        String getCategory();
+
+        @Iri("http://www.example.com/schema#aggregateBodyCategory")
+        void setCategory(String category);
+
+        @Iri("http://www.example.com/schema#aggregateBodyScore")
+        Integer getScore();
+
+        @Iri("http://www.example.com/schema#aggregateBodyScore")
+        void setScore(Integer score);
+    }
+}
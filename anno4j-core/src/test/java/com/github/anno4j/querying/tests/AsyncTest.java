@@ -0,0 +1,109 @@
+package com.github.anno4j.querying.tests;
+
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.querying.QueryFuture;
+import com.github.anno4j.querying.QuerySetup;
+import org.junit.Test;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.result.Result;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Containing all tests of asynchronous and streamed queries.
+ */
+public class AsyncTest extends QuerySetup {
+
+    @Test
+    /**
+     * Executing a query on the executor of Anno4j, with a maximum query time.
+     */
+    public void executeAsyncTest() throws Exception {
+        List<Annotation> annotations = queryService
+                .maxQueryTime(10)
+                .executeAsync()
+                .get(10, TimeUnit.SECONDS);
+
+        assertEquals(2, annotations.size());
+    }
+
+    @Test
+    /**
+     * Iterating the result of a query, which creates the objects on demand.
+     */
+    public void streamTest() throws Exception {
+        Result<Annotation> result = queryService.stream(Annotation.class);
+        int count = 0;
+        try {
+            while (result.hasNext()) {
+                assertTrue(result.next() != null);
+                count++;
+            }
+        } finally {
+            result.close();
+        }
+        assertEquals(2, count);
+    }
+
+    @Test
+    /**
+     * Cancelling a query waiting for a thread of the executor.
+     */
+    public void cancelTest() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        final CountDownLatch latch = new CountDownLatch(1);
+        try {
+            // Blocks the only thread of the executor
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        latch.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+
+            queryService.setExecutor(executor);
+            QueryFuture<List<Annotation>> future = queryService.executeAsync();
+            assertTrue(future.cancel(true));
+            latch.countDown();
+
+            try {
+                future.get();
+                fail("The query was cancelled");
+            } catch (CancellationException e) {
+                assertTrue(future.isCancelled());
+            }
+        } finally {
+            latch.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    /**
+     * Persisting and reading objects on the executor of Anno4j.
+     */
+    public void persistAsyncTest() throws Exception {
+        anno4j.persistAsync(anno4j.createObject(Annotation.class)).get(10, TimeUnit.SECONDS);
+
+        assertEquals(3, anno4j.findAllAsync(Annotation.class).get(10, TimeUnit.SECONDS).size());
+    }
+
+    @Override
+    public void persistTestData() throws RepositoryException, InstantiationException, IllegalAccessException {
+        anno4j.createObject(Annotation.class).setGenerated("2015-01-28T12:00:00Z");
+        anno4j.createObject(Annotation.class).setGenerated("2015-01-29T12:00:00Z");
+    }
+}
@@ -0,0 +1,116 @@
+package com.github.anno4j.querying.tests;
+
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.Body;
+import com.github.anno4j.model.impl.ResourceObject;
+import com.github.anno4j.model.impl.targets.SpecificResource;
+import com.github.anno4j.querying.ProjectionResult;
+import com.github.anno4j.querying.ProjectionRow;
+import com.github.anno4j.querying.QuerySetup;
+import org.apache.marmotta.ldpath.parser.ParseException;
+import org.junit.Test;
+import org.openrdf.annotations.Iri;
+import org.openrdf.model.URI;
+import org.openrdf.query.MalformedQueryException;
+import org.openrdf.query.QueryEvaluationException;
+import org.openrdf.repository.RepositoryException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Containing all tests, that select values of LDPaths instead of objects.
+ */
+public class ProjectionTest extends QuerySetup {
+
+    @Test
+    /**
+     * Selecting the text and the target source of all annotations.
+     */
+    public void selectTest() throws RepositoryException, QueryEvaluationException, MalformedQueryException, ParseException {
+        List<ProjectionRow> rows = queryService
+                .select("oa:hasBody/ex:projectionBodyText", "oa:hasTarget/oa:hasSource")
+                .asList();
+
+        assertEquals(2, rows.size());
+
+        Map<String, ProjectionRow> byText = new HashMap<>();
+        for (ProjectionRow row : rows) {
+            byText.put(row.get(0, String.class), row);
+        }
+        assertEquals("http://www.example.com/source", byText.get("first").get("oa:hasTarget/oa:hasSource", String.class));
+        assertTrue(byText.get("first").getValue(1) instanceof URI);
+        assertNull(byText.get("second").getValue("oa:hasTarget/oa:hasSource"));
+    }
+
+    @Test
+    /**
+     * Selecting the converted body number of the annotations with a certain text.
+     */
+    public void selectCriteriaTest() throws RepositoryException, QueryEvaluationException, MalformedQueryException, ParseException {
+        ProjectionResult result = queryService
+                .addCriteria("oa:hasBody/ex:projectionBodyText", "second")
+                .select("oa:hasBody/ex:projectionBodyNumber");
+
+        try {
+            assertTrue(result.hasNext());
+            assertEquals(Integer.valueOf(2), result.next().get(0, Integer.class));
+            assertTrue(!result.hasNext());
+        } finally {
+            result.close();
+        }
+    }
+
+    @Test
+    /**
+     * Selecting the annotations themselves, with a limit.
+     */
+    public void selectLimitTest() throws RepositoryException, QueryEvaluationException, MalformedQueryException, ParseException {
+        List<ProjectionRow> rows = queryService.limit(1).select().asList();
+
+        assertEquals(1, rows.size());
+        assertEquals(0, rows.get(0).getValues().length);
+    }
+
+    @Override
+    public void persistTestData() throws RepositoryException, InstantiationException, IllegalAccessException {
+        Annotation annotation = anno4j.createObject(Annotation.class);
+        annotation.addBody(createBody("first", 1));
+        SpecificResource target = anno4j.createObject(SpecificResource.class);
+        ResourceObject source = anno4j.createObject(ResourceObject.class);
+        source.setResourceAsString("http://www.example.com/source");
+        target.setSource(source);
+        annotation.addTarget(target);
+
+        Annotation annotation1 = anno4j.createObject(Annotation.class);
+        annotation1.addBody(createBody("second", 2));
+    }
+
+    private ProjectionBody createBody(String text, int number) throws RepositoryException, InstantiationException, IllegalAccessException {
+        ProjectionBody body = anno4j.createObject(ProjectionBody.class);
+        body.setText(text);
+        body.setNumber(number);
+        return body;
+    }
+
+    @Iri("http://www.example.com/schema#projectionBody")
+    public static interface ProjectionBody extends Body {
+
+        @Iri("http://www.example.com/schema#projectionBodyText")
+        String getText();
+
+        @Iri("http://www.example.com/schema#projectionBodyText")
+        void setText(String text);
+
+        @Iri("http://www.example.com/schema#projectionBodyNumber")
+        Integer getNumber();
+
+        @Iri("http://www.example.com/schema#projectionBodyNumber")
+        void setNumber(Integer number);
+    }
+}
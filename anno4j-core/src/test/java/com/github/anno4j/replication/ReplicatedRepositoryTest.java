@@ -0,0 +1,265 @@
+package com.github.anno4j.replication;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.Transaction;
+import com.github.anno4j.model.Annotation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.model.vocabulary.RDFS;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.repository.Repository;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.base.RepositoryConnectionWrapper;
+import org.openrdf.repository.base.RepositoryWrapper;
+import org.openrdf.repository.sail.SailRepository;
+import org.openrdf.sail.memory.MemoryStore;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the shipping of change sets to the replicas and the read-your-writes consistency of the
+ * {@link ReplicatedRepository}.
+ */
+public class ReplicatedRepositoryTest {
+
+    private static final String NS = "http://www.example.com/schema#";
+
+    private static final long TIMEOUT = 10000;
+
+    private Repository primary;
+
+    private Repository replica1;
+
+    private Repository replica2;
+
+    private ReplicatedRepository repository;
+
+    private ValueFactory vf;
+
+    @Before
+    public void setUp() throws Exception {
+        primary = new SailRepository(new MemoryStore());
+        replica1 = new SailRepository(new MemoryStore());
+        replica2 = new SailRepository(new MemoryStore());
+        repository = new ReplicatedRepository(primary, replica1, replica2);
+        repository.initialize();
+        vf = repository.getValueFactory();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        repository.shutDown();
+    }
+
+    @Test
+    public void testReplication() throws Exception {
+        URI subject = vf.createURI(NS, "subject");
+        URI graph = vf.createURI(NS, "graph");
+
+        RepositoryConnection connection = repository.getConnection();
+        try {
+            connection.begin();
+            connection.add(subject, RDF.TYPE, RDFS.RESOURCE, graph);
+            connection.add(subject, RDFS.LABEL, vf.createLiteral("label"));
+            connection.setNamespace("ex", NS);
+            connection.commit();
+
+            connection.prepareUpdate(QueryLanguage.SPARQL,
+                    "INSERT DATA { <" + subject + "> <" + RDFS.COMMENT + "> \"comment\" }").execute();
+            connection.remove(subject, RDFS.LABEL, null);
+        } finally {
+            connection.close();
+        }
+
+        assertEquals(3, repository.getVersion());
+        assertTrue(repository.awaitReplication(TIMEOUT));
+        assertEquals(0, repository.getReplicationLag());
+
+        for (Repository replica : new Repository[]{replica1, replica2}) {
+            RepositoryConnection replicaConnection = replica.getConnection();
+            try {
+                assertEquals(2, replicaConnection.size());
+                assertEquals(1, replicaConnection.size(graph));
+                assertTrue(replicaConnection.hasStatement(subject, RDFS.COMMENT, null, false));
+                assertFalse(replicaConnection.hasStatement(subject, RDFS.LABEL, null, false));
+                assertEquals(NS, replicaConnection.getNamespace("ex"));
+            } finally {
+                replicaConnection.close();
+            }
+        }
+    }
+
+    @Test
+    public void testReadYourWrites() throws Exception {
+        URI subject = vf.createURI(NS, "subject");
+
+        RepositoryConnection connection = repository.getConnection();
+        try {
+            connection.begin();
+            connection.add(subject, RDF.TYPE, RDFS.RESOURCE);
+            // Uncommitted changes are only visible on the primary repository
+            assertTrue(connection.hasStatement(subject, RDF.TYPE, RDFS.RESOURCE, false));
+            assertEquals(1, connection.size());
+            connection.rollback();
+            assertEquals(0, connection.size());
+
+            connection.add(subject, RDF.TYPE, RDFS.RESOURCE);
+            assertEquals(1, connection.size());
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testReadWritesOfEarlierConnections() throws Exception {
+        URI subject = vf.createURI(NS, "subject");
+        final CountDownLatch release = new CountDownLatch(1);
+        // A replica which doesn't apply the change sets until released
+        Repository lagging = new RepositoryWrapper(new SailRepository(new MemoryStore())) {
+            @Override
+            public RepositoryConnection getConnection() throws RepositoryException {
+                return new RepositoryConnectionWrapper(this, getDelegate().getConnection()) {
+                    @Override
+                    public void commit() throws RepositoryException {
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            throw new RepositoryException(e);
+                        }
+                        super.commit();
+                    }
+                };
+            }
+        };
+        ReplicatedRepository replicated = new ReplicatedRepository(new SailRepository(new MemoryStore()), lagging);
+        replicated.initialize();
+        try {
+            RepositoryConnection connection = replicated.getConnection();
+            connection.add(subject, RDF.TYPE, RDFS.RESOURCE);
+            connection.close();
+
+            // Read from the primary repository, as the replica has not applied the commit yet
+            ReplicatedRepositoryConnection reader = replicated.getConnection();
+            try {
+                assertTrue(reader.hasStatement(subject, RDF.TYPE, RDFS.RESOURCE, false));
+                assertEquals(0, reader.getReplica().getVersion());
+            } finally {
+                reader.close();
+            }
+
+            Anno4j anno4j = new Anno4j(replicated);
+            Annotation annotation = anno4j.createObject(Annotation.class);
+            assertEquals(annotation.getResourceAsString(),
+                    anno4j.findByID(Annotation.class, annotation.getResourceAsString()).getResourceAsString());
+            assertEquals(1, anno4j.findAll(Annotation.class).size());
+        } finally {
+            release.countDown();
+            assertTrue(replicated.awaitReplication(TIMEOUT));
+            replicated.shutDown();
+        }
+    }
+
+    @Test
+    public void testFailedReplica() throws Exception {
+        URI subject = vf.createURI(NS, "subject");
+        // A replica which fails to apply any change set
+        Repository failing = new RepositoryWrapper(new SailRepository(new MemoryStore())) {
+            @Override
+            public RepositoryConnection getConnection() throws RepositoryException {
+                return new RepositoryConnectionWrapper(this, getDelegate().getConnection()) {
+                    @Override
+                    public void commit() throws RepositoryException {
+                        throw new RepositoryException("failed");
+                    }
+                };
+            }
+        };
+        ReplicatedRepository replicated = new ReplicatedRepository(new SailRepository(new MemoryStore()), failing);
+        replicated.initialize();
+        try {
+            Replica replica = replicated.getReplicas().get(0);
+            RepositoryConnection connection = replicated.getConnection();
+            try {
+                connection.add(subject, RDF.TYPE, RDFS.RESOURCE);
+                assertFalse(replica.await(1, TIMEOUT));
+                assertTrue(replica.isFailed());
+
+                // The change sets committed afterwards are not queued for the failed replica
+                connection.add(subject, RDFS.LABEL, vf.createLiteral("label"));
+                connection.add(subject, RDFS.COMMENT, vf.createLiteral("comment"));
+            } finally {
+                connection.close();
+            }
+            assertEquals(0, replica.getPendingChangeSets());
+            assertEquals(0, replica.getLag());
+        } finally {
+            replicated.shutDown();
+        }
+    }
+
+    @Test
+    public void testLoadBalancing() throws Exception {
+        ReplicatedRepositoryConnection first = repository.getConnection();
+        ReplicatedRepositoryConnection second = repository.getConnection();
+        try {
+            first.size();
+            second.size();
+            assertNotSame(first.getReplica(), second.getReplica());
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+
+    @Test
+    public void testInitialCopy() throws Exception {
+        URI subject = vf.createURI(NS, "subject");
+        Repository filled = new SailRepository(new MemoryStore());
+        filled.initialize();
+        RepositoryConnection connection = filled.getConnection();
+        connection.add(subject, RDF.TYPE, RDFS.RESOURCE);
+        connection.close();
+
+        Repository copy = new SailRepository(new MemoryStore());
+        ReplicatedRepository replicated = new ReplicatedRepository(filled, copy);
+        replicated.initialize();
+        try {
+            connection = copy.getConnection();
+            assertTrue(connection.hasStatement(subject, RDF.TYPE, RDFS.RESOURCE, false));
+            connection.close();
+        } finally {
+            replicated.shutDown();
+        }
+    }
+
+    @Test
+    public void testAnno4j() throws Exception {
+        Anno4j anno4j = new Anno4j(repository);
+
+        Transaction transaction = anno4j.createTransaction();
+        transaction.begin();
+        Annotation annotation = transaction.createObject(Annotation.class);
+        annotation.setGenerated("2015-01-28T12:00:00Z");
+        assertEquals(1, transaction.findAll(Annotation.class).size());
+        transaction.commit();
+        assertEquals("2015-01-28T12:00:00Z", transaction.findByID(Annotation.class, annotation.getResourceAsString()).getGenerated());
+        transaction.close();
+
+        assertTrue(repository.awaitReplication(TIMEOUT));
+        transaction = anno4j.createTransaction();
+        transaction.setReadYourWrites(false);
+        assertFalse(transaction.isReadYourWrites());
+        assertEquals(1, transaction.findAll(Annotation.class).size());
+        transaction.close();
+    }
+}
@@ -0,0 +1,238 @@
+package com.github.anno4j.sail;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.model.Annotation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openrdf.model.Literal;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.model.vocabulary.RDFS;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.TupleQueryResult;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.sail.SailRepository;
+
+import java.io.File;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the reads, writes, transactions and snapshots of the {@link AnnotationStore}.
+ */
+public class AnnotationStoreTest {
+
+    private static final String NS = "http://www.example.com/schema#";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SailRepository repository;
+
+    private ValueFactory vf;
+
+    @Before
+    public void setUp() throws Exception {
+        repository = new SailRepository(new AnnotationStore());
+        repository.initialize();
+        vf = repository.getValueFactory();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        repository.shutDown();
+    }
+
+    @Test
+    public void testAddAndRemove() throws Exception {
+        URI anno = vf.createURI("urn:anno4j:" + UUID.randomUUID());
+        URI body = vf.createURI(NS, "body");
+        Literal value = vf.createLiteral("value", "en");
+
+        RepositoryConnection connection = repository.getConnection();
+        try {
+            connection.add(anno, RDF.TYPE, vf.createURI(NS, "Annotation"));
+            connection.add(anno, vf.createURI(NS, "hasBody"), body);
+            connection.add(body, RDF.VALUE, value);
+            connection.add(body, RDF.VALUE, value);
+
+            assertEquals(3, connection.size());
+            assertTrue(connection.hasStatement(anno, RDF.TYPE, null, false));
+            assertTrue(connection.hasStatement(null, RDF.VALUE, value, false));
+
+            List<Statement> statements = connection.getStatements(anno, null, null, false).asList();
+            assertEquals(2, statements.size());
+            for (Statement statement : statements) {
+                assertEquals(anno, statement.getSubject());
+            }
+
+            connection.remove(anno, null, null);
+            assertEquals(1, connection.size());
+            assertFalse(connection.hasStatement(anno, null, null, false));
+            assertEquals(value, connection.getStatements(body, RDF.VALUE, null, false).next().getObject());
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testContexts() throws Exception {
+        URI graph = vf.createURI("http://www.example.com/graph");
+        URI subject = vf.createURI(NS, "subject");
+
+        RepositoryConnection connection = repository.getConnection();
+        try {
+            connection.add(subject, RDF.TYPE, RDFS.RESOURCE);
+            connection.add(subject, RDF.TYPE, RDF.PROPERTY, graph);
+
+            assertEquals(2, connection.size());
+            assertEquals(1, connection.size(graph));
+            assertEquals(1, connection.getContextIDs().asList().size());
+            assertEquals(RDF.PROPERTY, connection.getStatements(subject, RDF.TYPE, null, false, graph).next().getObject());
+
+            connection.clear(graph);
+            assertEquals(1, connection.size());
+            assertEquals(0, connection.getContextIDs().asList().size());
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testTransactionIsolation() throws Exception {
+        URI subject = vf.createURI(NS, "subject");
+
+        RepositoryConnection writer = repository.getConnection();
+        RepositoryConnection reader = repository.getConnection();
+        try {
+            writer.begin();
+            writer.add(subject, RDF.TYPE, RDFS.RESOURCE);
+            assertEquals(1, writer.size());
+            assertEquals(0, reader.size());
+            writer.rollback();
+            assertEquals(0, writer.size());
+
+            writer.begin();
+            writer.add(subject, RDF.TYPE, RDFS.RESOURCE);
+            writer.commit();
+            assertEquals(1, reader.size());
+
+            writer.begin();
+            writer.remove(subject, null, null);
+            assertEquals(0, writer.size());
+            assertEquals(1, reader.size());
+            writer.commit();
+            assertEquals(0, reader.size());
+        } finally {
+            writer.close();
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testConcurrentRemoveBeforeCommit() throws Exception {
+        URI subject = vf.createURI(NS, "subject");
+
+        RepositoryConnection writer = repository.getConnection();
+        RepositoryConnection remover = repository.getConnection();
+        try {
+            writer.add(subject, RDF.TYPE, RDFS.RESOURCE);
+
+            // Adding a committed statement is visible once
+            writer.begin();
+            writer.add(subject, RDF.TYPE, RDFS.RESOURCE);
+            assertEquals(1, writer.size());
+            assertEquals(1, writer.getStatements(subject, null, null, false).asList().size());
+
+            // The statement is removed before the addition is committed
+            remover.remove(subject, RDF.TYPE, RDFS.RESOURCE);
+            assertEquals(0, remover.size());
+            assertEquals(1, writer.getStatements(subject, null, null, false).asList().size());
+
+            writer.commit();
+            assertEquals(1, remover.size());
+            assertTrue(remover.hasStatement(subject, RDF.TYPE, RDFS.RESOURCE, false));
+        } finally {
+            writer.close();
+            remover.close();
+        }
+    }
+
+    @Test
+    public void testQuery() throws Exception {
+        RepositoryConnection connection = repository.getConnection();
+        try {
+            for (int i = 0; i < 10; i++) {
+                URI anno = vf.createURI("urn:anno4j:" + UUID.randomUUID());
+                connection.add(anno, RDF.TYPE, vf.createURI(NS, "Annotation"));
+                connection.add(anno, RDF.VALUE, vf.createLiteral(i));
+            }
+
+            TupleQueryResult result = connection.prepareTupleQuery(QueryLanguage.SPARQL,
+                    "SELECT ?a WHERE { ?a a <" + NS + "Annotation> ; <" + RDF.VALUE + "> ?v . FILTER(?v > 6) }").evaluate();
+            int count = 0;
+            while (result.hasNext()) {
+                assertTrue(result.next().getValue("a").stringValue().startsWith("urn:anno4j:"));
+                count++;
+            }
+            result.close();
+            assertEquals(3, count);
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testSnapshot() throws Exception {
+        File dataDir = folder.newFolder();
+        URI anno = vf.createURI("urn:anno4j:" + UUID.randomUUID());
+        Literal label = vf.createLiteral("label");
+
+        for (boolean offHeap : new boolean[]{false, true}) {
+            SailRepository persistent = new SailRepository(new AnnotationStore(dataDir, offHeap));
+            persistent.initialize();
+            RepositoryConnection connection = persistent.getConnection();
+            connection.add(anno, RDF.VALUE, label);
+            connection.setNamespace("ex", NS);
+            connection.close();
+            persistent.shutDown();
+        }
+
+        SailRepository restored = new SailRepository(new AnnotationStore(dataDir));
+        restored.initialize();
+        RepositoryConnection connection = restored.getConnection();
+        try {
+            assertEquals(1, connection.size());
+            assertEquals(label, connection.getStatements(anno, RDF.VALUE, null, false).next().getObject());
+            assertEquals(NS, connection.getNamespace("ex"));
+        } finally {
+            connection.close();
+            restored.shutDown();
+        }
+    }
+
+    @Test
+    public void testAnno4j() throws Exception {
+        Anno4j anno4j = Anno4j.createWithAnnotationStore();
+        anno4j.createObject(Annotation.class).setGenerated("2015-01-28T12:00:00Z");
+        anno4j.createObject(Annotation.class).setGenerated("2015-01-29T12:00:00Z");
+
+        assertEquals(2, anno4j.findAll(Annotation.class).size());
+
+        List<Annotation> annotations = anno4j.createQueryService()
+                .addPrefix("dcterms", "http://purl.org/dc/terms/")
+                .addCriteria("dcterms:issued", "2015-01-28T12:00:00Z")
+                .execute();
+        assertEquals(1, annotations.size());
+        assertEquals("2015-01-28T12:00:00Z", annotations.get(0).getGenerated());
+    }
+}
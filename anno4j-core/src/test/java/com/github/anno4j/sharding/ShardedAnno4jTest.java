@@ -0,0 +1,119 @@
+package com.github.anno4j.sharding;
+
+import com.github.anno4j.model.Annotation;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrdf.model.URI;
+import org.openrdf.model.impl.URIImpl;
+import org.openrdf.repository.Repository;
+import org.openrdf.repository.sail.SailRepository;
+import org.openrdf.sail.memory.MemoryStore;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the routing and the scatter-gather queries of the {@link ShardedAnno4j} with in-process shards.
+ */
+public class ShardedAnno4jTest {
+
+    private final URI graph1 = new URIImpl("http://www.example.com/graph1");
+    private final URI graph2 = new URIImpl("http://www.example.com/graph2");
+    private final URI graph3 = new URIImpl("http://www.example.com/graph3");
+
+    private ShardedAnno4j anno4j;
+
+    @Before
+    public void setUp() throws Exception {
+        List<Repository> repositories = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            repositories.add(new SailRepository(new MemoryStore()));
+        }
+        anno4j = new ShardedAnno4j(repositories, new ExplicitShardRouter()
+                .assign(graph1, 0)
+                .assign(graph2, 1)
+                .assign(graph3, 2));
+    }
+
+    @Test
+    public void testRouting() throws Exception {
+        assertSame(anno4j.getShards().get(0), anno4j.getShard(graph1));
+        assertSame(anno4j.getShards().get(2), anno4j.getShard(graph3));
+        assertNotSame(anno4j.getShard(graph1), anno4j.getShard(graph2));
+
+        HashShardRouter router = new HashShardRouter();
+        for (int i = 0; i < 100; i++) {
+            int shard = router.route(new URIImpl("http://www.example.com/graph" + i), 4);
+            assertTrue(shard >= 0 && shard < 4);
+        }
+        assertEquals(0, router.route(null, 4));
+    }
+
+    @Test
+    public void testPersistAndFind() throws Exception {
+        Annotation annotation = anno4j.createObject(Annotation.class, graph2);
+        annotation.setGenerated("2015-01-28T12:00:00Z");
+
+        assertEquals(1, anno4j.getShard(graph2).findAll(Annotation.class).size());
+        assertEquals(0, anno4j.getShard(graph1).findAll(Annotation.class).size());
+
+        String id = annotation.getResourceAsString();
+        assertEquals("2015-01-28T12:00:00Z", anno4j.findByID(Annotation.class, id, graph2).getGenerated());
+        assertEquals("2015-01-28T12:00:00Z", anno4j.findByID(Annotation.class, id).getGenerated());
+
+        anno4j.clearContext(graph2);
+        assertEquals(0, anno4j.findAll(Annotation.class).size());
+    }
+
+    @Test
+    public void testScatterGather() throws Exception {
+        URI[] graphs = {graph1, graph2, graph3};
+        for (int i = 0; i < 9; i++) {
+            anno4j.createObject(Annotation.class, graphs[i % 3]).setSerializedAt("2015-01-28T12:00:00Z");
+        }
+
+        assertEquals(9, anno4j.findAll(Annotation.class).size());
+        assertEquals(9, query().execute().size());
+        assertEquals(3, anno4j.createQueryService(graph1)
+                .addPrefix("oa", "http://www.w3.org/ns/oa#")
+                .addCriteria("oa:serializedAt", "2015-01-28T12:00:00Z")
+                .execute().size());
+
+        // The pages of the merged result are disjoint and cover all annotations
+        Set<String> seen = new HashSet<>();
+        for (int offset = 0; offset < 9; offset += 4) {
+            List<Annotation> page = query().limit(4).offset(offset).execute();
+            assertEquals(Math.min(4, 9 - offset), page.size());
+            for (Annotation annotation : page) {
+                assertTrue(seen.add(annotation.getResourceAsString()));
+            }
+        }
+        assertEquals(9, seen.size());
+        assertEquals(0, query().offset(9).execute().size());
+    }
+
+    @Test
+    public void testDistinctAcrossShards() throws Exception {
+        Annotation annotation = anno4j.createObject(Annotation.class, graph1);
+        annotation.setSerializedAt("2015-01-28T12:00:00Z");
+        Annotation copy = anno4j.createObject(Annotation.class, graph3, annotation.getResource());
+        copy.setSerializedAt("2015-01-28T12:00:00Z");
+
+        assertEquals(1, anno4j.findAll(Annotation.class).size());
+        assertEquals(1, query().execute().size());
+        assertEquals(1, query().limit(2).execute().size());
+    }
+
+    private ShardedQueryService query() throws Exception {
+        return anno4j.createQueryService()
+                .addPrefix("oa", "http://www.w3.org/ns/oa#")
+                .addCriteria("oa:serializedAt", "2015-01-28T12:00:00Z");
+    }
+}
@@ -102,4 +102,47 @@ public class TransactionTest {
         assertEquals(1, anno4j.findAll(Annotation.class).size());
     }
 
+    @Test
+    public void unitOfWorkTest() throws Exception {
+        URI id = new URIImpl("http://www.example.com/unitOfWork");
+        Transaction transaction = anno4j.createTransaction();
+        transaction.beginUnitOfWork();
+        assertTrue(transaction.isUnitOfWork());
+
+        Annotation annotation = transaction.createObject(Annotation.class, id);
+        annotation.setGenerated("2015-01-28T12:00:00Z");
+        annotation.setGenerated("2015-01-29T12:00:00Z");
+
+        // the getter sees the pending value, the store does not
+        assertEquals("2015-01-29T12:00:00Z", annotation.getGenerated());
+        assertNull(anno4j.findByID(Annotation.class, id).getGenerated());
+
+        transaction.flush();
+        assertEquals("2015-01-29T12:00:00Z", anno4j.findByID(Annotation.class, id).getGenerated());
+
+        // setting the stored value again, then a new one
+        annotation.setGenerated("2015-01-29T12:00:00Z");
+        annotation.setGenerated("2015-01-30T12:00:00Z");
+        transaction.endUnitOfWork();
+        assertFalse(transaction.isUnitOfWork());
+
+        assertEquals("2015-01-30T12:00:00Z", anno4j.findByID(Annotation.class, id).getGenerated());
+        transaction.close();
+    }
+
+    @Test
+    public void unitOfWorkRollbackTest() throws Exception {
+        URI id = new URIImpl("http://www.example.com/unitOfWorkRollback");
+        Transaction transaction = anno4j.createTransaction();
+        transaction.begin();
+        transaction.beginUnitOfWork();
+
+        Annotation annotation = transaction.createObject(Annotation.class, id);
+        annotation.setGenerated("2015-01-28T12:00:00Z");
+        transaction.rollback();
+
+        assertEquals(0, anno4j.findAll(Annotation.class).size());
+        transaction.close();
+    }
+
 }
@@ -0,0 +1,132 @@
+package eu.mico.platform.anno4j.querying;
+
+import eu.mico.platform.anno4j.model.impl.body.ColorLayoutBody;
+
+import java.util.Arrays;
+
+/**
+ * The MPEG-7 colour layout coefficients of a {@link ColorLayoutBody}, decoded into a compact primitive form.
+ * Every channel holds its DC coefficient followed by its AC coefficients in zigzag order.
+ * <p/>
+ * The coefficients are quantized to 6 bit (DC) and 5 bit (AC) by the standard, so one byte per coefficient suffices.
+ */
+public class ColorLayoutDescriptor {
+
+    /**
+     * Weights of the leading Y, Cb and Cr coefficients recommended by the MPEG-7 standard, the remaining ones are
+     * weighted with 1.
+     */
+    private static final int[] Y_WEIGHTS = {2, 2, 2, 1, 1, 1};
+    private static final int[] CB_WEIGHTS = {2, 1, 1};
+    private static final int[] CR_WEIGHTS = {4, 2, 2};
+
+    private final byte[] y;
+
+    private final byte[] cb;
+
+    private final byte[] cr;
+
+    public ColorLayoutDescriptor(byte[] y, byte[] cb, byte[] cr) {
+        this.y = y;
+        this.cb = cb;
+        this.cr = cr;
+    }
+
+    /**
+     * Decodes the coefficient literals of the given body.
+     *
+     * @param body The colour layout body.
+     * @return The descriptor, or null if the body has no DC coefficients.
+     */
+    public static ColorLayoutDescriptor decode(ColorLayoutBody body) {
+        return decode(body.getYDC(), body.getYAC(), body.getCbDC(), body.getCbAC(), body.getCrDC(), body.getCrAC());
+    }
+
+    /**
+     * Decodes the given coefficient literals. AC literals hold the coefficients separated by whitespace or commas.
+     *
+     * @return The descriptor, or null if one of the DC coefficients is missing.
+     */
+    public static ColorLayoutDescriptor decode(String yDC, String yAC, String cbDC, String cbAC, String crDC, String crAC) {
+        if (yDC == null || cbDC == null || crDC == null) {
+            return null;
+        }
+        return new ColorLayoutDescriptor(channel(yDC, yAC), channel(cbDC, cbAC), channel(crDC, crAC));
+    }
+
+    private static byte[] channel(String dc, String ac) {
+        String[] acs = ac == null || ac.trim().isEmpty() ? new String[0] : ac.trim().split("[\\s,]+");
+        byte[] coefficients = new byte[1 + acs.length];
+        coefficients[0] = (byte) Integer.parseInt(dc.trim());
+        for (int i = 0; i < acs.length; i++) {
+            coefficients[i + 1] = (byte) Integer.parseInt(acs[i]);
+        }
+        return coefficients;
+    }
+
+    /**
+     * Computes the MPEG-7 colour layout distance, comparing the coefficients both descriptors have.
+     *
+     * @param other The descriptor to compare with.
+     * @return The distance, 0 for identical descriptors.
+     */
+    public double distance(ColorLayoutDescriptor other) {
+        return distance(y, other.y, Y_WEIGHTS) + distance(cb, other.cb, CB_WEIGHTS) + distance(cr, other.cr, CR_WEIGHTS);
+    }
+
+    /**
+     * Computes a lower bound of the distance from the DC coefficients only.
+     *
+     * @param other The descriptor to compare with.
+     * @return A value not greater than {@link #distance(ColorLayoutDescriptor)}.
+     */
+    public double dcDistance(ColorLayoutDescriptor other) {
+        return Math.sqrt(Y_WEIGHTS[0]) * Math.abs(y[0] - other.y[0])
+                + Math.sqrt(CB_WEIGHTS[0]) * Math.abs(cb[0] - other.cb[0])
+                + Math.sqrt(CR_WEIGHTS[0]) * Math.abs(cr[0] - other.cr[0]);
+    }
+
+    private static double distance(byte[] a, byte[] b, int[] weights) {
+        int length = Math.min(a.length, b.length);
+        long sum = 0;
+        for (int i = 0; i < length; i++) {
+            int diff = a[i] - b[i];
+            sum += (i < weights.length ? weights[i] : 1) * diff * diff;
+        }
+        return Math.sqrt(sum);
+    }
+
+    public byte[] getY() {
+        return y;
+    }
+
+    public byte[] getCb() {
+        return cb;
+    }
+
+    public byte[] getCr() {
+        return cr;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ColorLayoutDescriptor)) {
+            return false;
+        }
+        ColorLayoutDescriptor that = (ColorLayoutDescriptor) o;
+        return Arrays.equals(y, that.y) && Arrays.equals(cb, that.cb) && Arrays.equals(cr, that.cr);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Arrays.hashCode(y) + Arrays.hashCode(cb)) + Arrays.hashCode(cr);
+    }
+
+    @Override
+    public String toString() {
+        return "ColorLayoutDescriptor{Y=" + Arrays.toString(y) + ", Cb=" + Arrays.toString(cb) + ", Cr=" + Arrays.toString(cr) + "}";
+    }
+}
@@ -0,0 +1,451 @@
+package eu.mico.platform.anno4j.querying;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index of decoded {@link ColorLayoutDescriptor}s of keyframe annotations, memory-mapped from a file.
+ * <p/>
+ * Every descriptor occupies a fixed-size record of its version and one byte per coefficient, truncated to the
+ * configured number of luminance and chrominance coefficients. The version tells whether the source of an indexed
+ * descriptor changed since it was added. The annotation ids are appended to a file with the suffix
+ * <code>.ids</code> next to the index file, which is rewritten when descriptors are removed. Queries scan the
+ * records without touching the RDF repository, skipping records whose DC coefficients alone are already too far away.
+ * <p/>
+ * Queries may run concurrently, adding and removing descriptors is exclusive.
+ */
+public class ColorLayoutIndex implements Closeable {
+
+    private static final int MAGIC = 0x4d434c4a;
+
+    /**
+     * Magic number, coefficients per channel and number of records.
+     */
+    private static final int HEADER = 16;
+
+    private static final int INITIAL_CAPACITY = 4096;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final Comparator<ColorLayoutMatch> BY_DISTANCE = new Comparator<ColorLayoutMatch>() {
+        @Override
+        public int compare(ColorLayoutMatch o1, ColorLayoutMatch o2) {
+            return Double.compare(o1.getDistance(), o2.getDistance());
+        }
+    };
+
+    private final File file;
+
+    private final int yCoefficients;
+
+    private final int cCoefficients;
+
+    /**
+     * The version, two length bytes and the Y, Cb and Cr coefficients.
+     */
+    private final int recordSize;
+
+    private final File idFile;
+
+    private final RandomAccessFile raf;
+
+    private Writer idWriter;
+
+    private MappedByteBuffer buffer;
+
+    private int capacity;
+
+    private int size;
+
+    private final List<String> ids = new ArrayList<>();
+
+    private final Map<String, Integer> records = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Opens the index in the given file with the 6 luminance and 3 chrominance coefficients of the MICO ontology,
+     * or creates it if the file doesn't exist.
+     *
+     * @param file The index file.
+     */
+    public ColorLayoutIndex(File file) throws IOException {
+        this(file, 6, 3);
+    }
+
+    /**
+     * Opens the index in the given file, or creates it if the file doesn't exist.
+     *
+     * @param file          The index file.
+     * @param yCoefficients The number of luminance coefficients kept per descriptor, including the DC coefficient.
+     * @param cCoefficients The number of coefficients kept per chrominance channel, including the DC coefficient.
+     */
+    public ColorLayoutIndex(File file, int yCoefficients, int cCoefficients) throws IOException {
+        this.file = file;
+        this.yCoefficients = yCoefficients;
+        this.cCoefficients = cCoefficients;
+        this.recordSize = 6 + yCoefficients + 2 * cCoefficients;
+
+        idFile = new File(file.getParentFile(), file.getName() + ".ids");
+        boolean exists = file.exists() && idFile.exists();
+        if (exists) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(idFile), UTF8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    ids.add(line);
+                }
+            }
+        }
+
+        raf = new RandomAccessFile(file, "rw");
+        if (exists) {
+            capacity = (int) ((raf.length() - HEADER) / recordSize);
+            map();
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != yCoefficients || buffer.getInt(8) != cCoefficients) {
+                raf.close();
+                throw new IOException(file + " is not a colour layout index with " + yCoefficients + "/" + cCoefficients + " coefficients");
+            }
+            // Records whose id wasn't written completely are dropped
+            size = Math.min(buffer.getInt(12), ids.size());
+            while (ids.size() > size) {
+                ids.remove(ids.size() - 1);
+            }
+            for (int i = 0; i < size; i++) {
+                records.put(ids.get(i), i);
+            }
+        } else {
+            capacity = INITIAL_CAPACITY;
+            map();
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, yCoefficients);
+            buffer.putInt(8, cCoefficients);
+            buffer.putInt(12, 0);
+        }
+        idWriter = new OutputStreamWriter(new FileOutputStream(idFile, exists), UTF8);
+    }
+
+    private void map() throws IOException {
+        long length = HEADER + (long) capacity * recordSize;
+        raf.setLength(length);
+        buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+    }
+
+    /**
+     * Adds the descriptor of the given annotation, with its hash code as version. A descriptor already indexed for
+     * the id is overwritten.
+     *
+     * @param id         The id of the keyframe annotation.
+     * @param descriptor The decoded colour layout.
+     */
+    public void add(String id, ColorLayoutDescriptor descriptor) throws IOException {
+        add(id, descriptor, descriptor.hashCode());
+    }
+
+    /**
+     * Adds the descriptor of the given annotation. A descriptor already indexed for the id is overwritten.
+     *
+     * @param id         The id of the keyframe annotation.
+     * @param descriptor The decoded colour layout.
+     * @param version    The version of the descriptor, e.g. a hash of the literals it was decoded from.
+     */
+    public void add(String id, ColorLayoutDescriptor descriptor, int version) throws IOException {
+        lock.writeLock().lock();
+        try {
+            Integer record = records.get(id);
+            if (record == null) {
+                if (size == capacity) {
+                    capacity *= 2;
+                    map();
+                }
+                record = size;
+                write(record, descriptor, version);
+                ids.add(id);
+                records.put(id, record);
+                size++;
+                idWriter.write(id);
+                idWriter.write('\n');
+                idWriter.flush();
+                buffer.putInt(12, size);
+            } else {
+                write(record, descriptor, version);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the descriptor of the given annotation, e.g. of a deleted keyframe.
+     *
+     * @param id The id of the keyframe annotation.
+     * @return True if a descriptor was indexed for the id.
+     */
+    public boolean remove(String id) throws IOException {
+        return remove(Collections.singleton(id)) > 0;
+    }
+
+    /**
+     * Removes the descriptors of the given annotations. The last records are moved into the freed ones, so the id
+     * file is rewritten once for all of them.
+     *
+     * @param ids The ids of the keyframe annotations.
+     * @return The number of removed descriptors.
+     */
+    public int remove(Collection<String> ids) throws IOException {
+        lock.writeLock().lock();
+        try {
+            int removed = 0;
+            for (String id : ids) {
+                Integer record = records.remove(id);
+                if (record == null) {
+                    continue;
+                }
+                int last = size - 1;
+                if (record != last) {
+                    ByteBuffer source = buffer.duplicate();
+                    source.position(HEADER + last * recordSize).limit(HEADER + (last + 1) * recordSize);
+                    ByteBuffer target = buffer.duplicate();
+                    target.position(HEADER + record * recordSize);
+                    target.put(source);
+                    String moved = this.ids.get(last);
+                    this.ids.set(record, moved);
+                    records.put(moved, record);
+                }
+                this.ids.remove(last);
+                size--;
+                removed++;
+            }
+            if (removed > 0) {
+                buffer.putInt(12, size);
+                writeIds();
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the id file by the ids of the current records and reopens it for appending.
+     */
+    private void writeIds() throws IOException {
+        idWriter.close();
+        File tmp = new File(idFile.getParentFile(), idFile.getName() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), UTF8)) {
+            for (String id : ids) {
+                writer.write(id);
+                writer.write('\n');
+            }
+        }
+        Files.move(tmp.toPath(), idFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        idWriter = new OutputStreamWriter(new FileOutputStream(idFile, true), UTF8);
+    }
+
+    private void write(int record, ColorLayoutDescriptor descriptor, int version) {
+        int offset = HEADER + record * recordSize;
+        int y = Math.min(yCoefficients, descriptor.getY().length);
+        int c = Math.min(cCoefficients, Math.min(descriptor.getCb().length, descriptor.getCr().length));
+        buffer.putInt(offset, version);
+        buffer.put(offset + 4, (byte) y);
+        buffer.put(offset + 5, (byte) c);
+        for (int i = 0; i < yCoefficients; i++) {
+            buffer.put(offset + 6 + i, i < y ? descriptor.getY()[i] : 0);
+        }
+        for (int i = 0; i < cCoefficients; i++) {
+            buffer.put(offset + 6 + yCoefficients + i, i < c ? descriptor.getCb()[i] : 0);
+            buffer.put(offset + 6 + yCoefficients + cCoefficients + i, i < c ? descriptor.getCr()[i] : 0);
+        }
+    }
+
+    private ColorLayoutDescriptor read(int record) {
+        int offset = HEADER + record * recordSize;
+        byte[] y = new byte[buffer.get(offset + 4)];
+        byte[] cb = new byte[buffer.get(offset + 5)];
+        byte[] cr = new byte[cb.length];
+        for (int i = 0; i < y.length; i++) {
+            y[i] = buffer.get(offset + 6 + i);
+        }
+        for (int i = 0; i < cb.length; i++) {
+            cb[i] = buffer.get(offset + 6 + yCoefficients + i);
+            cr[i] = buffer.get(offset + 6 + yCoefficients + cCoefficients + i);
+        }
+        return new ColorLayoutDescriptor(y, cb, cr);
+    }
+
+    /**
+     * Checks whether a descriptor was indexed for the given annotation.
+     *
+     * @param id The id of the keyframe annotation.
+     */
+    public boolean contains(String id) {
+        lock.readLock().lock();
+        try {
+            return records.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the indexed descriptor of the given annotation.
+     *
+     * @param id The id of the keyframe annotation.
+     * @return The descriptor, or null if none was indexed.
+     */
+    public ColorLayoutDescriptor get(String id) {
+        lock.readLock().lock();
+        try {
+            Integer record = records.get(id);
+            return record == null ? null : read(record);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the version the descriptor of the given annotation was added with.
+     *
+     * @param id The id of the keyframe annotation.
+     * @return The version, or null if no descriptor was indexed.
+     */
+    public Integer getVersion(String id) {
+        lock.readLock().lock();
+        try {
+            Integer record = records.get(id);
+            return record == null ? null : buffer.getInt(HEADER + record * recordSize);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the ids of the annotations with an indexed descriptor.
+     *
+     * @return A copy of the ids.
+     */
+    public List<String> getIds() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of indexed descriptors.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the k descriptors nearest to the given one.
+     *
+     * @param query The descriptor to compare with.
+     * @param k     The maximum number of matches.
+     * @return The matches ordered by ascending distance.
+     */
+    public List<ColorLayoutMatch> nearest(ColorLayoutDescriptor query, int k) {
+        return search(query, k, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Finds all descriptors within the given distance of the given one, e.g. to detect near-duplicate keyframes.
+     *
+     * @param query       The descriptor to compare with.
+     * @param maxDistance The maximum distance, inclusive.
+     * @return The matches ordered by ascending distance.
+     */
+    public List<ColorLayoutMatch> within(ColorLayoutDescriptor query, double maxDistance) {
+        return search(query, Integer.MAX_VALUE, maxDistance);
+    }
+
+    private List<ColorLayoutMatch> search(ColorLayoutDescriptor query, int k, double maxDistance) {
+        PriorityQueue<ColorLayoutMatch> heap = new PriorityQueue<>(Math.min(k, 1024) + 1, Collections.reverseOrder(BY_DISTANCE));
+        double bound = maxDistance;
+        // Records are overwritten and moved in place, so the scan holds the read lock throughout
+        lock.readLock().lock();
+        try {
+            for (int record = 0; record < size; record++) {
+                ColorLayoutDescriptor candidate = read(record);
+                if (query.dcDistance(candidate) > bound) {
+                    continue;
+                }
+                double distance = query.distance(candidate);
+                if (distance > bound) {
+                    continue;
+                }
+                heap.add(new ColorLayoutMatch(ids.get(record), distance));
+                if (heap.size() > k) {
+                    heap.poll();
+                }
+                if (heap.size() == k) {
+                    bound = Math.min(maxDistance, heap.peek().getDistance());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<ColorLayoutMatch> result = new ArrayList<>(heap);
+        Collections.sort(result, BY_DISTANCE);
+        return result;
+    }
+
+    /**
+     * Writes the index to its file.
+     */
+    public void flush() {
+        lock.readLock().lock();
+        try {
+            buffer.force();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            buffer.force();
+            idWriter.close();
+            raf.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+}
@@ -0,0 +1,35 @@
+package eu.mico.platform.anno4j.querying;
+
+/**
+ * A keyframe annotation found by a {@link ColorLayoutIndex}, with the colour layout distance to the query.
+ */
+public class ColorLayoutMatch {
+
+    private final String annotationId;
+
+    private final double distance;
+
+    public ColorLayoutMatch(String annotationId, double distance) {
+        this.annotationId = annotationId;
+        this.distance = distance;
+    }
+
+    /**
+     * @return The id (url) of the annotation holding the colour layout body.
+     */
+    public String getAnnotationId() {
+        return annotationId;
+    }
+
+    /**
+     * @return The MPEG-7 colour layout distance, 0 for identical descriptors.
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    @Override
+    public String toString() {
+        return "ColorLayoutMatch{" + annotationId + "=" + distance + "}";
+    }
+}
@@ -0,0 +1,221 @@
+package eu.mico.platform.anno4j.querying;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.model.namespaces.OADM;
+import eu.mico.platform.anno4j.model.impl.body.ColorLayoutBody;
+import eu.mico.platform.anno4j.model.namespaces.MICO;
+import org.openrdf.model.Value;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.MalformedQueryException;
+import org.openrdf.query.QueryEvaluationException;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.TupleQueryResult;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The ColorLayoutQueryHelper finds keyframe annotations with a similar colour layout, e.g. to detect near-duplicate
+ * keyframes, using a {@link ColorLayoutIndex} instead of loading and parsing the {@link ColorLayoutBody} objects.
+ */
+public class ColorLayoutQueryHelper {
+
+    private static final String DESCRIPTOR_QUERY = "SELECT ?annotation ?ydc ?yac ?cbdc ?cbac ?crdc ?crac WHERE {\n"
+            + "  ?annotation <" + OADM.HAS_BODY + "> ?body .\n"
+            + "  ?body a <" + MICO.COLORLAYOUT_BODY + "> ;\n"
+            + "        <" + MICO.YDCCOEFF + "> ?ydc ;\n"
+            + "        <" + MICO.CBDCCOEFF + "> ?cbdc ;\n"
+            + "        <" + MICO.CRDCCOEFF + "> ?crdc .\n"
+            + "  OPTIONAL { ?body <" + MICO.YACCOEFF + "> ?yac }\n"
+            + "  OPTIONAL { ?body <" + MICO.CBACCOEFF + "> ?cbac }\n"
+            + "  OPTIONAL { ?body <" + MICO.CRACCOEFF + "> ?crac }\n"
+            + "}";
+
+    private final Logger logger = LoggerFactory.getLogger(ColorLayoutQueryHelper.class);
+
+    /**
+     * A configured instance of anno4j
+     */
+    private Anno4j anno4j;
+
+    /**
+     * The index of the decoded descriptors
+     */
+    private ColorLayoutIndex index;
+
+    public ColorLayoutQueryHelper(Anno4j anno4j, ColorLayoutIndex index) {
+        this.anno4j = anno4j;
+        this.index = index;
+    }
+
+    /**
+     * Brings the index up to date with the colour layout bodies in the repository. The coefficients are read with a
+     * single SPARQL query, without creating objects for the annotations. Only the annotations that are not indexed
+     * yet or whose coefficient literals changed since they were indexed are decoded, the descriptors of annotations
+     * that no longer have a colour layout body are removed.
+     *
+     * @return The number of newly indexed or re-indexed annotations.
+     *
+     * @throws RepositoryException
+     * @throws MalformedQueryException
+     * @throws QueryEvaluationException
+     */
+    public int updateIndex() throws RepositoryException, MalformedQueryException, QueryEvaluationException {
+        int added = 0;
+        Set<String> current = new HashSet<>();
+        RepositoryConnection connection = anno4j.getRepository().getConnection();
+        try {
+            TupleQueryResult result = connection.prepareTupleQuery(QueryLanguage.SPARQL, DESCRIPTOR_QUERY).evaluate();
+            try {
+                while (result.hasNext()) {
+                    BindingSet bindings = result.next();
+                    String annotationId = bindings.getValue("annotation").stringValue();
+                    String ydc = string(bindings.getValue("ydc"));
+                    String yac = string(bindings.getValue("yac"));
+                    String cbdc = string(bindings.getValue("cbdc"));
+                    String cbac = string(bindings.getValue("cbac"));
+                    String crdc = string(bindings.getValue("crdc"));
+                    String crac = string(bindings.getValue("crac"));
+                    int version = version(ydc, yac, cbdc, cbac, crdc, crac);
+                    Integer indexed = index.getVersion(annotationId);
+                    if (indexed != null && indexed == version) {
+                        current.add(annotationId);
+                        continue;
+                    }
+                    ColorLayoutDescriptor descriptor;
+                    try {
+                        descriptor = ColorLayoutDescriptor.decode(ydc, yac, cbdc, cbac, crdc, crac);
+                    } catch (NumberFormatException e) {
+                        logger.warn("Skipping malformed colour layout of {}", annotationId);
+                        continue;
+                    }
+                    index.add(annotationId, descriptor, version);
+                    current.add(annotationId);
+                    added++;
+                }
+            } finally {
+                result.close();
+            }
+
+            List<String> deleted = index.getIds();
+            deleted.removeAll(current);
+            index.remove(deleted);
+        } catch (IOException e) {
+            throw new RepositoryException("Couldn't write the colour layout index " + index.getFile(), e);
+        } finally {
+            connection.close();
+        }
+        index.flush();
+        return added;
+    }
+
+    /**
+     * Adds the colour layout of the given keyframe annotation to the index, e.g. right after it was persisted.
+     *
+     * @param annotationId The id (url) of the annotation.
+     * @param body         The colour layout body of the annotation.
+     *
+     * @throws RepositoryException
+     */
+    public void index(String annotationId, ColorLayoutBody body) throws RepositoryException {
+        ColorLayoutDescriptor descriptor = ColorLayoutDescriptor.decode(body);
+        if (descriptor != null) {
+            try {
+                index.add(annotationId, descriptor, version(body.getYDC(), body.getYAC(), body.getCbDC(),
+                        body.getCbAC(), body.getCrDC(), body.getCrAC()));
+            } catch (IOException e) {
+                throw new RepositoryException("Couldn't write the colour layout index " + index.getFile(), e);
+            }
+        }
+    }
+
+    /**
+     * Removes the colour layout of the given keyframe annotation from the index, e.g. right after it was deleted.
+     *
+     * @param annotationId The id (url) of the annotation.
+     * @return True if the annotation was indexed.
+     *
+     * @throws RepositoryException
+     */
+    public boolean remove(String annotationId) throws RepositoryException {
+        try {
+            return index.remove(annotationId);
+        } catch (IOException e) {
+            throw new RepositoryException("Couldn't write the colour layout index " + index.getFile(), e);
+        }
+    }
+
+    /**
+     * Allows to query for the keyframes with the most similar colour layout to an indexed keyframe.
+     *
+     * @param annotationId The id (url) of the indexed keyframe annotation.
+     * @param k            The maximum number of keyframes.
+     * @return The other keyframes ordered by ascending colour layout distance.
+     */
+    public List<ColorLayoutMatch> getNearestKeyFrames(String annotationId, int k) {
+        ColorLayoutDescriptor descriptor = index.get(annotationId);
+        if (descriptor == null) {
+            throw new IllegalArgumentException(annotationId + " has no indexed colour layout");
+        }
+        return withoutSelf(annotationId, index.nearest(descriptor, k + 1), k);
+    }
+
+    /**
+     * Allows to query for the keyframes with the most similar colour layout to the given body.
+     *
+     * @param body The colour layout body to compare with.
+     * @param k    The maximum number of keyframes.
+     * @return The keyframes ordered by ascending colour layout distance.
+     */
+    public List<ColorLayoutMatch> getNearestKeyFrames(ColorLayoutBody body, int k) {
+        ColorLayoutDescriptor descriptor = ColorLayoutDescriptor.decode(body);
+        if (descriptor == null) {
+            return new ArrayList<>();
+        }
+        return index.nearest(descriptor, k);
+    }
+
+    /**
+     * Allows to query for the near-duplicates of an indexed keyframe.
+     *
+     * @param annotationId The id (url) of the indexed keyframe annotation.
+     * @param maxDistance  The maximum colour layout distance of a near-duplicate.
+     * @return The other keyframes within the distance, ordered by ascending distance.
+     */
+    public List<ColorLayoutMatch> getNearDuplicates(String annotationId, double maxDistance) {
+        ColorLayoutDescriptor descriptor = index.get(annotationId);
+        if (descriptor == null) {
+            throw new IllegalArgumentException(annotationId + " has no indexed colour layout");
+        }
+        return withoutSelf(annotationId, index.within(descriptor, maxDistance), Integer.MAX_VALUE);
+    }
+
+    private static List<ColorLayoutMatch> withoutSelf(String annotationId, List<ColorLayoutMatch> matches, int k) {
+        List<ColorLayoutMatch> result = new ArrayList<>(matches.size());
+        for (ColorLayoutMatch match : matches) {
+            if (!match.getAnnotationId().equals(annotationId) && result.size() < k) {
+                result.add(match);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The version of an indexed descriptor, a hash of the coefficient literals it was decoded from.
+     */
+    private static int version(String ydc, String yac, String cbdc, String cbac, String crdc, String crac) {
+        return Arrays.hashCode(new String[]{ydc, yac, cbdc, cbac, crdc, crac});
+    }
+
+    private static String string(Value value) {
+        return value == null ? null : value.stringValue();
+    }
+}
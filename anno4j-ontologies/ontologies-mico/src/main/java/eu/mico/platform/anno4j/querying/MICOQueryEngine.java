@@ -0,0 +1,254 @@
+package eu.mico.platform.anno4j.querying;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.Transaction;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.namespaces.*;
+import eu.mico.platform.anno4j.model.namespaces.MICO;
+import info.aduna.iteration.CloseableIteration;
+import org.openrdf.model.Value;
+import org.openrdf.model.impl.URIImpl;
+import org.openrdf.model.vocabulary.OWL;
+import org.openrdf.model.vocabulary.RDFS;
+import org.openrdf.model.vocabulary.SKOS;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.MalformedQueryException;
+import org.openrdf.query.QueryEvaluationException;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.TupleQueryResult;
+import org.openrdf.query.impl.ListBindingSet;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.object.ObjectConnection;
+import org.openrdf.repository.object.result.ObjectCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates the queries of the {@link MICOQueryHelper} as single SPARQL queries.
+ * <p/>
+ * The annotations are selected by a sub query, which holds the anchor pattern and the type restrictions, so that the
+ * store can start with the most selective pattern. The outer query pulls in the bodies, the targets and their
+ * selectors together with their types in the same round trip. The rows are handed to the created objects, so that
+ * walking bodies, targets and selectors afterwards needs no further query.
+ * <p/>
+ * Like the queries of {@link Anno4j#createQueryService()}, each query is evaluated on a transaction of its own. The
+ * returned objects stay bound to it, so they can load the properties that were not fetched with the query.
+ */
+public class MICOQueryEngine {
+
+    private final Logger logger = LoggerFactory.getLogger(MICOQueryEngine.class);
+
+    private static final String PREFIXES;
+
+    /**
+     * Namespaces of the prefixes usable in types and ids, by prefix
+     */
+    private static final Map<String, String> NAMESPACES;
+
+    /**
+     * Characters that are not allowed in IRIs, which would end the IRI in a query
+     */
+    private static final String ILLEGAL = "<>\"{}|^`\\";
+
+    static {
+        Map<String, String> prefixes = new LinkedHashMap<>();
+        prefixes.put(OADM.PREFIX, OADM.NS);
+        prefixes.put(MICO.PREFIX, MICO.NS);
+        prefixes.put(CNT.PREFIX, CNT.NS);
+        prefixes.put(DC.PREFIX, DC.NS);
+        prefixes.put(DCTERMS.PREFIX, DCTERMS.NS);
+        prefixes.put(DCTYPES.PREFIX, DCTYPES.NS);
+        prefixes.put(FOAF.PREFIX, FOAF.NS);
+        prefixes.put(PROV.PREFIX, PROV.NS);
+        prefixes.put(RDF.PREFIX, RDF.NS);
+        prefixes.put(OWL.PREFIX, OWL.NAMESPACE);
+        prefixes.put(RDFS.PREFIX, RDFS.NAMESPACE);
+        prefixes.put(SKOS.PREFIX, SKOS.NAMESPACE);
+
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> prefix : prefixes.entrySet()) {
+            sb.append("PREFIX ").append(prefix.getKey()).append(": <").append(prefix.getValue()).append(">\n");
+        }
+        PREFIXES = sb.toString();
+        NAMESPACES = Collections.unmodifiableMap(prefixes);
+    }
+
+    /**
+     * Variable of the annotations. The variables of the prefetched properties are named after the binding and the
+     * property names of {@link Annotation} and {@link com.github.anno4j.model.impl.targets.SpecificResource}, which
+     * is how the object repository matches them to the properties.
+     */
+    private static final String ANNOTATION = "annotation";
+
+    private static final String PREFETCH = ""
+            + "  OPTIONAL { ?annotation a ?annotation_class }\n"
+            + "  {\n"
+            + "    ?annotation oa:hasBody ?annotation_bodies .\n"
+            + "    OPTIONAL { ?annotation_bodies a ?annotation_bodies_class }\n"
+            + "  } UNION {\n"
+            + "    ?annotation oa:hasTarget ?annotation_targets .\n"
+            + "    OPTIONAL { ?annotation_targets a ?annotation_targets_class }\n"
+            + "    OPTIONAL {\n"
+            + "      ?annotation_targets oa:hasSelector ?annotation_targets_selector .\n"
+            + "      OPTIONAL { ?annotation_targets_selector a ?annotation_targets_selector_class }\n"
+            + "    }\n"
+            + "  }\n";
+
+    private final Anno4j anno4j;
+
+    public MICOQueryEngine(Anno4j anno4j) {
+        this.anno4j = anno4j;
+    }
+
+    /**
+     * Selects the annotations matching the given pattern and type restrictions.
+     *
+     * @param pattern         SPARQL graph pattern binding the variable <code>?annotation</code>.
+     * @param bodyType        Required type of a body, or null.
+     * @param targetType      Required type of a target, or null.
+     * @param selectorType    Required type of a selector of a target, or null.
+     * @param limit           Maximum number of annotations, or null.
+     * @return The annotations, with bodies, targets and selectors already loaded.
+     */
+    public List<Annotation> evaluate(String pattern, String bodyType, String targetType, String selectorType, Integer limit)
+            throws RepositoryException, MalformedQueryException, QueryEvaluationException {
+        String query = createQuery(pattern, bodyType, targetType, selectorType, limit);
+        logger.debug("MICO query:\n{}", query);
+
+        ObjectConnection connection = getConnection();
+        TupleQueryResult result = connection.prepareTupleQuery(QueryLanguage.SPARQL, query).evaluate();
+        ObjectCursor cursor = new ObjectCursor(connection, new CompleteBindings(result), ANNOTATION);
+        try {
+            List<Annotation> annotations = new ArrayList<>();
+            while (cursor.hasNext()) {
+                annotations.add((Annotation) cursor.next());
+            }
+            return annotations;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    static String createQuery(String pattern, String bodyType, String targetType, String selectorType, Integer limit) {
+        StringBuilder sb = new StringBuilder(PREFIXES);
+        sb.append("SELECT ?annotation ?annotation_class")
+                .append(" ?annotation_bodies ?annotation_bodies_class")
+                .append(" ?annotation_targets ?annotation_targets_class")
+                .append(" ?annotation_targets_selector ?annotation_targets_selector_class\n");
+        sb.append("WHERE {\n");
+        sb.append("  {\n    SELECT DISTINCT ?annotation WHERE {\n");
+        sb.append("      ").append(pattern).append("\n");
+        if (bodyType != null) {
+            sb.append("      ?annotation oa:hasBody ?body . ?body a ").append(iri(bodyType)).append(" .\n");
+        }
+        if (targetType != null || selectorType != null) {
+            sb.append("      ?annotation oa:hasTarget ?target .\n");
+        }
+        if (targetType != null) {
+            sb.append("      ?target a ").append(iri(targetType)).append(" .\n");
+        }
+        if (selectorType != null) {
+            sb.append("      ?target oa:hasSelector ?selector . ?selector a ").append(iri(selectorType)).append(" .\n");
+        }
+        sb.append("    }");
+        if (limit != null) {
+            sb.append(" LIMIT ").append(limit);
+        }
+        sb.append("\n  }\n");
+        sb.append(PREFETCH);
+        // Rows of one object have to be adjacent for the object cursors
+        sb.append("}\nORDER BY ?annotation ?annotation_bodies ?annotation_targets ?annotation_targets_selector");
+        return sb.toString();
+    }
+
+    /**
+     * Turns a type or id given as prefixed name, e.g. "mico:AVQBody", or as absolute IRI, optionally enclosed in angle
+     * brackets, into a SPARQL IRI reference. Prefixed names are expanded with the prefixes of the queries.
+     *
+     * @throws IllegalArgumentException If the value is not an absolute IRI or prefixed name, or contains characters
+     *                                  that are not allowed in IRIs.
+     */
+    static String iri(String value) {
+        String iri = value;
+        if (iri.startsWith("<") && iri.endsWith(">")) {
+            iri = iri.substring(1, iri.length() - 1);
+        }
+        for (int i = 0; i < iri.length(); i++) {
+            char c = iri.charAt(i);
+            if (Character.isWhitespace(c) || Character.isISOControl(c) || ILLEGAL.indexOf(c) >= 0) {
+                throw new IllegalArgumentException("Illegal character '" + c + "' in IRI " + value);
+            }
+        }
+
+        int colon = iri.indexOf(':');
+        if (colon > 0 && !iri.startsWith("//", colon + 1)) {
+            String namespace = NAMESPACES.get(iri.substring(0, colon));
+            if (namespace != null) {
+                iri = namespace + iri.substring(colon + 1);
+            }
+        }
+        // Rejects relative IRIs
+        new URIImpl(iri);
+        return "<" + iri + ">";
+    }
+
+    /**
+     * Escapes a value for a SPARQL string literal.
+     */
+    static String literal(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n").replace("\r", "\\r") + "\"";
+    }
+
+    private ObjectConnection getConnection() throws RepositoryException {
+        Transaction transaction = anno4j.createTransaction();
+        if (anno4j.getDefaultContext() != null) {
+            transaction.setAllContexts(anno4j.getDefaultContext());
+        }
+        return transaction.getConnection();
+    }
+
+    /**
+     * Exposes every projected variable in each row, bound or not. The object repository only looks at the first row
+     * of an object to decide which properties were prefetched, which may belong to the other UNION branch.
+     */
+    private static class CompleteBindings implements CloseableIteration<BindingSet, QueryEvaluationException> {
+        private final TupleQueryResult result;
+        private final List<String> names;
+
+        CompleteBindings(TupleQueryResult result) throws QueryEvaluationException {
+            this.result = result;
+            this.names = result.getBindingNames();
+        }
+
+        @Override
+        public boolean hasNext() throws QueryEvaluationException {
+            return result.hasNext();
+        }
+
+        @Override
+        public BindingSet next() throws QueryEvaluationException {
+            BindingSet row = result.next();
+            Value[] values = new Value[names.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = row.getValue(names.get(i));
+            }
+            return new ListBindingSet(names, values);
+        }
+
+        @Override
+        public void remove() throws QueryEvaluationException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() throws QueryEvaluationException {
+            result.close();
+        }
+    }
+}
@@ -2,9 +2,6 @@ package eu.mico.platform.anno4j.querying;
 
 import com.github.anno4j.Anno4j;
 import com.github.anno4j.model.Annotation;
-import com.github.anno4j.model.namespaces.DCTERMS;
-import com.github.anno4j.querying.QueryService;
-import eu.mico.platform.anno4j.model.namespaces.MICO;
 import org.apache.marmotta.ldpath.parser.ParseException;
 import org.openrdf.query.MalformedQueryException;
 import org.openrdf.query.QueryEvaluationException;
@@ -15,6 +12,12 @@ import java.util.List;
 /**
  * The MICOQueryHelper provides shortcut functions to query specific items more easily,
  * e.g. all annotations related to a specific image.
+ * <p/>
+ * The type filters match the given type exactly, as far as the store doesn't infer super types. Ids and types are
+ * given as absolute IRIs or as prefixed names with the prefixes of the {@link MICOQueryEngine}, other values are
+ * rejected with an {@link IllegalArgumentException}.
+ * <p/>
+ * The bodies, targets and selectors of the returned annotations are fetched with them, in a single query.
  *
  * @author Andreas Eisenkolb
  */
@@ -36,12 +39,12 @@ public class MICOQueryHelper {
     private String targetTypeRestriction;
 
     /**
-     * A configured instance of anno4j
+     * Evaluates the queries of this helper
      */
-    private Anno4j anno4j;
+    private MICOQueryEngine engine;
 
     public MICOQueryHelper(Anno4j anno4j) {
-        this.anno4j = anno4j;
+        this.engine = new MICOQueryEngine(anno4j);
     }
 
 
@@ -57,13 +60,7 @@ public class MICOQueryHelper {
      * @throws ParseException
      */
     public List<Annotation> getAnnotationsOfContentItem(String contentItemId) throws RepositoryException, QueryEvaluationException, MalformedQueryException, ParseException {
-        QueryService qs = anno4j.createQueryService()
-                .addPrefix(MICO.PREFIX, MICO.NS)
-                .addCriteria("^mico:hasContent/^mico:hasContentPart", contentItemId);
-
-        processTypeRestriction(qs);
-
-        return qs.execute();
+        return execute(MICOQueryEngine.iri(contentItemId) + " mico:hasContentPart ?part . ?part mico:hasContent ?annotation .", null);
     }
 
     /**
@@ -72,19 +69,14 @@ public class MICOQueryHelper {
      * @param contentPartId The id (url) of the content part.
      * @return The annotation object of the given content part.
      *
+     * @throws IndexOutOfBoundsException If the content part has no annotation
      * @throws RepositoryException
      * @throws QueryEvaluationException
      * @throws MalformedQueryException
      * @throws ParseException
      */
     public Annotation getAnnotationOfContentPart(String contentPartId) throws RepositoryException, QueryEvaluationException, MalformedQueryException, ParseException {
-        QueryService qs = anno4j.createQueryService()
-                .addPrefix(MICO.PREFIX, MICO.NS)
-                .addCriteria("^mico:hasContent", contentPartId);
-
-        processTypeRestriction(qs);
-
-        return (Annotation) qs.execute().get(0);
+        return execute(MICOQueryEngine.iri(contentPartId) + " mico:hasContent ?annotation .", 1).get(0);
     }
 
     /**
@@ -100,14 +92,9 @@ public class MICOQueryHelper {
      * @throws ParseException
      */
     public List<Annotation> getAnnotationsByMIMEType(String mimeType) throws RepositoryException, QueryEvaluationException, MalformedQueryException, ParseException {
-        QueryService qs =  anno4j.createQueryService()
-                .addPrefix(MICO.PREFIX, MICO.NS)
-                .addPrefix(DCTERMS.PREFIX, DCTERMS.NS)
-                .addCriteria("^mico:hasContent/^mico:hasContentPart/mico:hasContentPart/dct:type", mimeType);
-
-        processTypeRestriction(qs);
-
-        return qs.execute();
+        return execute("?source dcterms:type ?type . FILTER (str(?type) = " + MICOQueryEngine.literal(mimeType) + ")"
+                + " ?item mico:hasContentPart ?source ; mico:hasContentPart ?part ."
+                + " ?part mico:hasContent ?annotation .", null);
     }
 
     /**
@@ -123,21 +110,16 @@ public class MICOQueryHelper {
      * @throws ParseException
      */
     public List<Annotation> getAnnotationsBySourceName(String sourceName) throws RepositoryException, QueryEvaluationException, MalformedQueryException, ParseException {
-        QueryService qs = anno4j.createQueryService()
-                .addPrefix(MICO.PREFIX, MICO.NS)
-                .addPrefix(DCTERMS.PREFIX, DCTERMS.NS)
-                .addCriteria("^mico:hasContent/^mico:hasContentPart/mico:hasContentPart/dct:source", sourceName);
-
-        processTypeRestriction(qs);
-
-        return qs.execute();
+        return execute("?source dcterms:source ?name . FILTER (str(?name) = " + MICOQueryEngine.literal(sourceName) + ")"
+                + " ?item mico:hasContentPart ?source ; mico:hasContentPart ?part ."
+                + " ?part mico:hasContent ?annotation .", null);
     }
 
     /**
      * @param type The type of the body as String, i.e. "mico:AVQBody"
      */
     public MICOQueryHelper filterBodyType(String type) {
-        this.bodyTypeRestriction = "[is-a "+ type + "]";
+        this.bodyTypeRestriction = MICOQueryEngine.iri(type);
         return this;
     }
 
@@ -145,7 +127,7 @@ public class MICOQueryHelper {
      * @param type The type of the selector as String, i.e. "oa:FragmentSelector"
      */
     public MICOQueryHelper filterSelectorType(String type) {
-        this.selectorTypeRestriction  = "[is-a "+ type + "]";
+        this.selectorTypeRestriction = MICOQueryEngine.iri(type);
         return this;
     }
 
@@ -153,27 +135,17 @@ public class MICOQueryHelper {
      * @param type The type of the target as String, i.e. "mico:IntialTarget"
      */
     public MICOQueryHelper filterTargetType(String type) {
-        this.targetTypeRestriction = "[is-a "+ type + "]";
+        this.targetTypeRestriction = MICOQueryEngine.iri(type);
         return this;
     }
 
     /**
-     * Checks if type restrictions were set and adds them to the QueryService object.
+     * Runs the query for the given pattern with the type restrictions set on this helper.
      *
-     * @param qs The anno4j QueryService object
+     * @param pattern SPARQL graph pattern binding ?annotation
+     * @param limit   Maximum number of annotations or null
      */
-    private void processTypeRestriction(QueryService qs) {
-        if(selectorTypeRestriction != null) {
-
-            qs.addCriteria("oa:hasTarget/oa:hasSelector" + selectorTypeRestriction);
-        }
-
-        if(bodyTypeRestriction != null) {
-            qs.addCriteria("oa:hasBody" + bodyTypeRestriction);
-        }
-
-        if(targetTypeRestriction != null) {
-            qs.addCriteria("oa:hasTarget" + targetTypeRestriction);
-        }
+    private List<Annotation> execute(String pattern, Integer limit) throws RepositoryException, QueryEvaluationException, MalformedQueryException {
+        return engine.evaluate(pattern, bodyTypeRestriction, targetTypeRestriction, selectorTypeRestriction, limit);
     }
 }
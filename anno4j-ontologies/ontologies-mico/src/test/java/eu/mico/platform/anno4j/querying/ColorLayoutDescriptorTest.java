@@ -0,0 +1,52 @@
+package eu.mico.platform.anno4j.querying;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the decoding and the distances of the {@link ColorLayoutDescriptor}.
+ */
+public class ColorLayoutDescriptorTest {
+
+    @Test
+    public void testDecode() {
+        ColorLayoutDescriptor descriptor = ColorLayoutDescriptor.decode(" 34 ", "16 12,15\t20  17", "20", "15, 16", "30", null);
+
+        assertArrayEquals(new byte[] {34, 16, 12, 15, 20, 17}, descriptor.getY());
+        assertArrayEquals(new byte[] {20, 15, 16}, descriptor.getCb());
+        assertArrayEquals(new byte[] {30}, descriptor.getCr());
+        assertEquals(descriptor, ColorLayoutDescriptor.decode("34", "16 12 15 20 17", "20", "15 16", "30", " "));
+    }
+
+    @Test
+    public void testDecodeMissingDC() {
+        assertNull(ColorLayoutDescriptor.decode(null, "16 12", "20", "15", "30", "10"));
+        assertNull(ColorLayoutDescriptor.decode("34", "16 12", "20", "15", null, "10"));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testDecodeMalformedDC() {
+        ColorLayoutDescriptor.decode("3.4", null, "20", null, "30", null);
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testDecodeMalformedAC() {
+        ColorLayoutDescriptor.decode("34", "16;12", "20", null, "30", null);
+    }
+
+    @Test
+    public void testDistance() {
+        ColorLayoutDescriptor a = ColorLayoutDescriptor.decode("34", "16 12", "20", "15", "30", "10");
+        ColorLayoutDescriptor b = ColorLayoutDescriptor.decode("35", "16 10", "20", "15", "32", "10 7");
+
+        assertEquals(0, a.distance(a), 0);
+        // Y: 2 * 1 + 2 * 4, Cr: 4 * 4, the extra coefficient of b is ignored
+        assertEquals(Math.sqrt(10) + Math.sqrt(16), a.distance(b), 1e-9);
+        assertEquals(a.distance(b), b.distance(a), 0);
+        assertTrue(a.dcDistance(b) <= a.distance(b));
+    }
+}
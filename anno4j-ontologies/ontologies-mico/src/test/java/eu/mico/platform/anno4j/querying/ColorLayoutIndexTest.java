@@ -0,0 +1,182 @@
+package eu.mico.platform.anno4j.querying;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link ColorLayoutIndex} and the {@link ColorLayoutMatch}es it finds.
+ */
+public class ColorLayoutIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testAddAndGet() throws Exception {
+        try (ColorLayoutIndex index = new ColorLayoutIndex(folder.newFile("index"))) {
+            assertEquals(0, index.size());
+            assertFalse(index.contains("a"));
+            assertNull(index.get("a"));
+
+            index.add("a", descriptor(10));
+            index.add("b", descriptor(12));
+            assertEquals(2, index.size());
+            assertEquals(descriptor(10), index.get("a"));
+
+            // Overwrites the record of the id
+            index.add("a", descriptor(11));
+            assertEquals(2, index.size());
+            assertEquals(descriptor(11), index.get("a"));
+        }
+    }
+
+    @Test
+    public void testVersion() throws Exception {
+        try (ColorLayoutIndex index = new ColorLayoutIndex(folder.newFile("index"))) {
+            assertNull(index.getVersion("a"));
+            index.add("a", descriptor(10), 42);
+            assertEquals(Integer.valueOf(42), index.getVersion("a"));
+            assertEquals(descriptor(10), index.get("a"));
+
+            index.add("a", descriptor(11));
+            assertEquals(Integer.valueOf(descriptor(11).hashCode()), index.getVersion("a"));
+        }
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        File file = folder.newFile("index");
+        try (ColorLayoutIndex index = new ColorLayoutIndex(file)) {
+            for (int i = 0; i < 5; i++) {
+                index.add("id" + i, descriptor(i), i);
+            }
+            assertFalse(index.remove("other"));
+            assertTrue(index.remove("id1"));
+            assertEquals(2, index.remove(Arrays.asList("id0", "id4", "id0")));
+
+            assertEquals(2, index.size());
+            assertFalse(index.contains("id1"));
+            // The last record moved into the freed one keeps its descriptor and version
+            assertEquals(descriptor(3), index.get("id3"));
+            assertEquals(Integer.valueOf(3), index.getVersion("id3"));
+            assertEquals(2, index.nearest(descriptor(0), 10).size());
+
+            index.add("id5", descriptor(5));
+            index.flush();
+        }
+        try (ColorLayoutIndex reopened = new ColorLayoutIndex(file)) {
+            assertEquals(3, reopened.size());
+            assertEquals(descriptor(2), reopened.get("id2"));
+            assertEquals(descriptor(3), reopened.get("id3"));
+            assertEquals(descriptor(5), reopened.get("id5"));
+            assertNull(reopened.get("id1"));
+        }
+    }
+
+    @Test
+    public void testTruncation() throws Exception {
+        try (ColorLayoutIndex index = new ColorLayoutIndex(folder.newFile("index"), 2, 1)) {
+            index.add("a", ColorLayoutDescriptor.decode("34", "16 12 15", "20", "15", "30", "10"));
+            assertEquals(ColorLayoutDescriptor.decode("34", "16", "20", null, "30", null), index.get("a"));
+        }
+    }
+
+    @Test
+    public void testReopenAfterFlush() throws Exception {
+        File file = folder.newFile("index");
+        ColorLayoutIndex index = new ColorLayoutIndex(file);
+        // Grows the file beyond the initial capacity
+        for (int i = 0; i < 5000; i++) {
+            index.add("id" + i, descriptor(i % 64));
+        }
+        index.flush();
+
+        ColorLayoutIndex reopened = new ColorLayoutIndex(file);
+        try {
+            assertEquals(5000, reopened.size());
+            assertEquals(descriptor(4999 % 64), reopened.get("id4999"));
+            assertEquals(index.nearest(descriptor(20), 10).size(), reopened.nearest(descriptor(20), 10).size());
+        } finally {
+            reopened.close();
+            index.close();
+        }
+
+        try (ColorLayoutIndex appended = new ColorLayoutIndex(file)) {
+            appended.add("new", descriptor(1));
+            assertEquals(5001, appended.size());
+        }
+        try (ColorLayoutIndex again = new ColorLayoutIndex(file)) {
+            assertEquals(5001, again.size());
+            assertEquals(descriptor(1), again.get("new"));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testReopenWithOtherCoefficients() throws Exception {
+        File file = folder.newFile("index");
+        new ColorLayoutIndex(file).close();
+        new ColorLayoutIndex(file, 4, 2);
+    }
+
+    @Test
+    public void testNearest() throws Exception {
+        try (ColorLayoutIndex index = new ColorLayoutIndex(folder.newFile("index"))) {
+            index.add("far", descriptor(13));
+            index.add("same", descriptor(10));
+            index.add("near", descriptor(11));
+            index.add("middle", descriptor(12));
+
+            List<ColorLayoutMatch> matches = index.nearest(descriptor(10), 3);
+            assertEquals(3, matches.size());
+            assertMatch("same", 0, matches.get(0));
+            assertMatch("near", 2, matches.get(1));
+            assertMatch("middle", 4, matches.get(2));
+
+            assertEquals(4, index.nearest(descriptor(10), 10).size());
+        }
+    }
+
+    @Test
+    public void testWithin() throws Exception {
+        try (ColorLayoutIndex index = new ColorLayoutIndex(folder.newFile("index"))) {
+            for (int i = 0; i < 10; i++) {
+                index.add("id" + i, descriptor(i));
+            }
+
+            // The distance is inclusive
+            List<ColorLayoutMatch> matches = index.within(descriptor(5), 4);
+            assertEquals(5, matches.size());
+            assertMatch("id5", 0, matches.get(0));
+            for (int i = 1; i < matches.size(); i++) {
+                assertTrue(matches.get(i - 1).getDistance() <= matches.get(i).getDistance());
+            }
+            assertEquals(4, matches.get(4).getDistance(), 0);
+
+            assertTrue(index.within(descriptor(40), 4).isEmpty());
+        }
+    }
+
+    private static void assertMatch(String id, double distance, ColorLayoutMatch match) {
+        assertEquals(id, match.getAnnotationId());
+        assertEquals(distance, match.getDistance(), 0);
+    }
+
+    /**
+     * @return A descriptor differing from the others only in the Cr DC coefficient, which is weighted with 4, so
+     * that the distance between two of them is twice the difference of the coefficients.
+     */
+    static ColorLayoutDescriptor descriptor(int crDC) {
+        return ColorLayoutDescriptor.decode("32", "16 16 16 16 16", "16", "16 16", String.valueOf(crDC), "16 16");
+    }
+}
@@ -0,0 +1,183 @@
+package eu.mico.platform.anno4j.querying;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.model.namespaces.OADM;
+import eu.mico.platform.anno4j.model.namespaces.MICO;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.repository.RepositoryConnection;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@link ColorLayoutQueryHelper} on colour layout bodies in the repository.
+ */
+public class ColorLayoutQueryHelperTest {
+
+    private static final String NS = "http://example.org/";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Anno4j anno4j;
+
+    private ColorLayoutIndex index;
+
+    private ColorLayoutQueryHelper helper;
+
+    @Before
+    public void setUp() throws Exception {
+        anno4j = new Anno4j();
+        index = new ColorLayoutIndex(folder.newFile("index"));
+        helper = new ColorLayoutQueryHelper(anno4j, index);
+
+        for (int i = 0; i < 5; i++) {
+            addKeyFrame("frame" + i, String.valueOf(10 + i));
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        index.close();
+        anno4j.getRepository().shutDown();
+    }
+
+    @Test
+    public void testUpdateIndex() throws Exception {
+        assertEquals(5, helper.updateIndex());
+        assertEquals(5, index.size());
+        assertEquals(ColorLayoutIndexTest.descriptor(12), index.get(NS + "annotation/frame2"));
+
+        // Only the new annotation is decoded, the unchanged ones are skipped
+        addKeyFrame("frame5", "15");
+        assertEquals(1, helper.updateIndex());
+        assertEquals(6, index.size());
+
+        assertEquals(0, helper.updateIndex());
+    }
+
+    @Test
+    public void testUpdateIndexChangedAndDeleted() throws Exception {
+        helper.updateIndex();
+
+        // A descriptor added from other coefficients is replaced by the one of the repository
+        index.add(NS + "annotation/frame0", ColorLayoutIndexTest.descriptor(50));
+        setCrDC("frame1", "40");
+        removeKeyFrame("frame2");
+        assertEquals(2, helper.updateIndex());
+        assertEquals(4, index.size());
+        assertEquals(ColorLayoutIndexTest.descriptor(10), index.get(NS + "annotation/frame0"));
+        assertEquals(ColorLayoutIndexTest.descriptor(40), index.get(NS + "annotation/frame1"));
+        assertFalse(index.contains(NS + "annotation/frame2"));
+        assertEquals(ColorLayoutIndexTest.descriptor(13), index.get(NS + "annotation/frame3"));
+
+        assertEquals(0, helper.updateIndex());
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        helper.updateIndex();
+
+        assertTrue(helper.remove(NS + "annotation/frame0"));
+        assertFalse(helper.remove(NS + "annotation/frame0"));
+        assertEquals(3, helper.getNearestKeyFrames(NS + "annotation/frame1", 10).size());
+        for (ColorLayoutMatch match : helper.getNearestKeyFrames(NS + "annotation/frame1", 10)) {
+            assertFalse(match.getAnnotationId().endsWith("frame0"));
+        }
+    }
+
+    @Test
+    public void testUpdateIndexSkipsMalformed() throws Exception {
+        addKeyFrame("malformed", "1O");
+        assertEquals(5, helper.updateIndex());
+        assertFalse(index.contains(NS + "annotation/malformed"));
+    }
+
+    @Test
+    public void testNearestKeyFramesWithoutSelf() throws Exception {
+        helper.updateIndex();
+
+        List<ColorLayoutMatch> matches = helper.getNearestKeyFrames(NS + "annotation/frame2", 2);
+        assertEquals(2, matches.size());
+        for (ColorLayoutMatch match : matches) {
+            assertFalse(match.getAnnotationId().endsWith("frame2"));
+            assertEquals(2, match.getDistance(), 0);
+        }
+
+        assertEquals(4, helper.getNearestKeyFrames(NS + "annotation/frame2", 10).size());
+    }
+
+    @Test
+    public void testNearDuplicatesWithoutSelf() throws Exception {
+        helper.updateIndex();
+
+        List<ColorLayoutMatch> matches = helper.getNearDuplicates(NS + "annotation/frame0", 4);
+        assertEquals(2, matches.size());
+        assertEquals(NS + "annotation/frame1", matches.get(0).getAnnotationId());
+        assertEquals(NS + "annotation/frame2", matches.get(1).getAnnotationId());
+
+        assertTrue(helper.getNearDuplicates(NS + "annotation/frame0", 1).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotIndexed() throws Exception {
+        helper.getNearestKeyFrames(NS + "annotation/frame0", 2);
+    }
+
+    private void setCrDC(String name, String crDC) throws Exception {
+        RepositoryConnection connection = anno4j.getRepository().getConnection();
+        try {
+            ValueFactory vf = connection.getValueFactory();
+            URI body = vf.createURI(NS + "body/" + name);
+            connection.remove(body, vf.createURI(MICO.CRDCCOEFF), null);
+            connection.add(body, vf.createURI(MICO.CRDCCOEFF), vf.createLiteral(crDC));
+        } finally {
+            connection.close();
+        }
+    }
+
+    private void removeKeyFrame(String name) throws Exception {
+        RepositoryConnection connection = anno4j.getRepository().getConnection();
+        try {
+            ValueFactory vf = connection.getValueFactory();
+            connection.remove(vf.createURI(NS + "annotation/" + name), null, null);
+            connection.remove(vf.createURI(NS + "body/" + name), null, null);
+        } finally {
+            connection.close();
+        }
+    }
+
+    /**
+     * Adds a keyframe annotation with the coefficients of {@link ColorLayoutIndexTest#descriptor(int)}.
+     */
+    private void addKeyFrame(String name, String crDC) throws Exception {
+        RepositoryConnection connection = anno4j.getRepository().getConnection();
+        try {
+            ValueFactory vf = connection.getValueFactory();
+            URI annotation = vf.createURI(NS + "annotation/" + name);
+            URI body = vf.createURI(NS + "body/" + name);
+            connection.add(annotation, RDF.TYPE, vf.createURI(OADM.ANNOTATION));
+            connection.add(annotation, vf.createURI(OADM.HAS_BODY), body);
+            connection.add(body, RDF.TYPE, vf.createURI(MICO.COLORLAYOUT_BODY));
+            connection.add(body, vf.createURI(MICO.YDCCOEFF), vf.createLiteral("32"));
+            connection.add(body, vf.createURI(MICO.YACCOEFF), vf.createLiteral("16 16 16 16 16"));
+            connection.add(body, vf.createURI(MICO.CBDCCOEFF), vf.createLiteral("16"));
+            connection.add(body, vf.createURI(MICO.CBACCOEFF), vf.createLiteral("16 16"));
+            connection.add(body, vf.createURI(MICO.CRDCCOEFF), vf.createLiteral(crDC));
+            connection.add(body, vf.createURI(MICO.CRACCOEFF), vf.createLiteral("16 16"));
+        } finally {
+            connection.close();
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package eu.mico.platform.anno4j.querying;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.Body;
+import com.github.anno4j.model.Target;
+import com.github.anno4j.model.namespaces.DCTERMS;
+import com.github.anno4j.model.impl.targets.SpecificResource;
+import com.github.anno4j.model.namespaces.OADM;
+import eu.mico.platform.anno4j.model.namespaces.MICO;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.query.BooleanQuery;
+import org.openrdf.query.GraphQuery;
+import org.openrdf.query.MalformedQueryException;
+import org.openrdf.query.Query;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.TupleQuery;
+import org.openrdf.repository.Repository;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.RepositoryResult;
+import org.openrdf.repository.base.RepositoryConnectionWrapper;
+import org.openrdf.repository.base.RepositoryWrapper;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the lookups and type filters of the {@link MICOQueryHelper}.
+ */
+public class MICOQueryHelperTest {
+
+    private static final String NS = "http://example.org/";
+
+    private Anno4j anno4j;
+
+    private MICOQueryHelper helper;
+
+    /**
+     * Two content items: item1 with the source video and the parts of the annotations face and animal, item2 with
+     * the part of the annotation text. Face has a fragment selector, text an SVG selector, animal an initial target
+     * without selector.
+     */
+    @Before
+    public void setUp() throws Exception {
+        anno4j = new Anno4j();
+        helper = new MICOQueryHelper(anno4j);
+
+        RepositoryConnection connection = anno4j.getRepository().getConnection();
+        ValueFactory vf = connection.getValueFactory();
+        connection.begin();
+
+        URI item1 = vf.createURI(NS + "item1");
+        URI source = vf.createURI(NS + "source");
+        connection.add(item1, vf.createURI(MICO.HAS_CONTENT_PART), source);
+        connection.add(source, vf.createURI(DCTERMS.NS + "type"), vf.createLiteral("video/mp4"));
+        connection.add(source, vf.createURI(DCTERMS.NS + "source"), vf.createLiteral("holiday.mp4"));
+
+        addAnnotation(connection, item1, "face", MICO.FACE_DETECTION_BODY, OADM.SPECIFIC_RESOURCE, OADM.FRAGMENT_SELECTOR);
+        addAnnotation(connection, item1, "animal", MICO.ANIMAL_DETECTION_BODY, MICO.INITIAL_TARGET, null);
+        addAnnotation(connection, vf.createURI(NS + "item2"), "text", MICO.FACE_DETECTION_BODY, OADM.SPECIFIC_RESOURCE, OADM.SVG_SELECTOR);
+
+        connection.commit();
+        connection.close();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        anno4j.getRepository().shutDown();
+    }
+
+    @Test
+    public void testAnnotationsOfContentItem() throws Exception {
+        assertEquals(ids("face", "animal"), ids(helper.getAnnotationsOfContentItem(NS + "item1")));
+        assertEquals(ids("text"), ids(helper.getAnnotationsOfContentItem("<" + NS + "item2>")));
+        assertTrue(helper.getAnnotationsOfContentItem(NS + "item3").isEmpty());
+    }
+
+    @Test
+    public void testAnnotationOfContentPart() throws Exception {
+        Annotation annotation = helper.getAnnotationOfContentPart(NS + "part/face");
+        assertEquals(NS + "annotation/face", annotation.getResourceAsString());
+        assertEquals(1, annotation.getBodies().size());
+        assertEquals(1, annotation.getTargets().size());
+
+        try {
+            helper.getAnnotationOfContentPart(NS + "part/none");
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testSingleRoundTrip() throws Exception {
+        final AtomicInteger queries = new AtomicInteger();
+        // Counts the queries and statement lookups of the object repository
+        Repository counting = new RepositoryWrapper(anno4j.getRepository()) {
+            @Override
+            public RepositoryConnection getConnection() throws RepositoryException {
+                return new RepositoryConnectionWrapper(this, getDelegate().getConnection()) {
+                    @Override
+                    public Query prepareQuery(QueryLanguage ql, String query, String baseURI) throws MalformedQueryException, RepositoryException {
+                        queries.incrementAndGet();
+                        return super.prepareQuery(ql, query, baseURI);
+                    }
+
+                    @Override
+                    public TupleQuery prepareTupleQuery(QueryLanguage ql, String query, String baseURI) throws MalformedQueryException, RepositoryException {
+                        queries.incrementAndGet();
+                        return super.prepareTupleQuery(ql, query, baseURI);
+                    }
+
+                    @Override
+                    public GraphQuery prepareGraphQuery(QueryLanguage ql, String query, String baseURI) throws MalformedQueryException, RepositoryException {
+                        queries.incrementAndGet();
+                        return super.prepareGraphQuery(ql, query, baseURI);
+                    }
+
+                    @Override
+                    public BooleanQuery prepareBooleanQuery(QueryLanguage ql, String query, String baseURI) throws MalformedQueryException, RepositoryException {
+                        queries.incrementAndGet();
+                        return super.prepareBooleanQuery(ql, query, baseURI);
+                    }
+
+                    @Override
+                    public RepositoryResult<Statement> getStatements(Resource subj, URI pred, Value obj, boolean includeInferred, Resource... contexts) throws RepositoryException {
+                        queries.incrementAndGet();
+                        return super.getStatements(subj, pred, obj, includeInferred, contexts);
+                    }
+                };
+            }
+        };
+        MICOQueryHelper counted = new MICOQueryHelper(new Anno4j(counting));
+
+        queries.set(0);
+        List<Annotation> annotations = counted.getAnnotationsOfContentItem(NS + "item1");
+        assertEquals(1, queries.get());
+
+        // Bodies, targets and selectors are fetched with the annotations. The size of a property set is not taken
+        // from the fetched rows, so the bodies are iterated.
+        for (Annotation annotation : annotations) {
+            int bodies = 0;
+            for (Body body : annotation.getBodies()) {
+                assertNotNull(body);
+                bodies++;
+            }
+            assertEquals(1, bodies);
+            for (Target target : annotation.getTargets()) {
+                if (target instanceof SpecificResource) {
+                    ((SpecificResource) target).getSelector();
+                }
+            }
+        }
+        assertEquals(1, queries.get());
+    }
+
+    @Test
+    public void testAnnotationsByMIMETypeAndSourceName() throws Exception {
+        assertEquals(ids("face", "animal"), ids(helper.getAnnotationsByMIMEType("video/mp4")));
+        assertTrue(helper.getAnnotationsByMIMEType("image/png").isEmpty());
+
+        assertEquals(ids("face", "animal"), ids(helper.getAnnotationsBySourceName("holiday.mp4")));
+        assertTrue(helper.getAnnotationsBySourceName("\" . ?s ?p ?o . FILTER (\"\" = \"").isEmpty());
+    }
+
+    @Test
+    public void testBodyFilter() throws Exception {
+        helper.filterBodyType("mico:FaceDetectionBody");
+        assertEquals(ids("face"), ids(helper.getAnnotationsOfContentItem(NS + "item1")));
+
+        helper.filterBodyType(MICO.ANIMAL_DETECTION_BODY);
+        assertEquals(ids("animal"), ids(helper.getAnnotationsOfContentItem(NS + "item1")));
+
+        // Exact types only
+        helper.filterBodyType(MICO.DETECTION_BODY);
+        assertTrue(helper.getAnnotationsOfContentItem(NS + "item1").isEmpty());
+    }
+
+    @Test
+    public void testTargetFilter() throws Exception {
+        helper.filterTargetType("mico:InitialTarget");
+        assertEquals(ids("animal"), ids(helper.getAnnotationsOfContentItem(NS + "item1")));
+
+        helper.filterTargetType("oa:SpecificResource");
+        assertEquals(ids("face"), ids(helper.getAnnotationsOfContentItem(NS + "item1")));
+    }
+
+    @Test
+    public void testSelectorFilter() throws Exception {
+        helper.filterSelectorType("oa:FragmentSelector");
+        assertEquals(ids("face"), ids(helper.getAnnotationsOfContentItem(NS + "item1")));
+        assertTrue(helper.getAnnotationsOfContentItem(NS + "item2").isEmpty());
+
+        helper.filterSelectorType(OADM.SVG_SELECTOR);
+        assertEquals(ids("text"), ids(helper.getAnnotationsOfContentItem(NS + "item2")));
+    }
+
+    @Test
+    public void testLimit() throws Exception {
+        String pattern = "?annotation a oa:Annotation .";
+        MICOQueryEngine engine = new MICOQueryEngine(anno4j);
+        assertEquals(3, engine.evaluate(pattern, null, null, null, null).size());
+        assertEquals(2, engine.evaluate(pattern, null, null, null, 2).size());
+        // The limit counts annotations, not the rows of their bodies and targets
+        assertEquals(1, engine.evaluate(pattern, null, null, null, 1).get(0).getTargets().size());
+    }
+
+    @Test
+    public void testIllegalIds() throws Exception {
+        String[] illegal = {
+                NS + "item1> ?p ?o . <" + NS + "x",
+                NS + "item 1",
+                NS + "item{1}",
+                "item1",
+                "<" + NS + "item1"
+        };
+        for (String id : illegal) {
+            try {
+                helper.getAnnotationsOfContentItem(id);
+                fail("Accepted " + id);
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+
+        try {
+            helper.filterBodyType("mico:FaceDetectionBody . ?annotation ?p ?o");
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    private static void addAnnotation(RepositoryConnection connection, URI item, String name, String bodyType,
+                                      String targetType, String selectorType) throws Exception {
+        ValueFactory vf = connection.getValueFactory();
+        URI part = vf.createURI(NS + "part/" + name);
+        URI annotation = vf.createURI(NS + "annotation/" + name);
+        URI body = vf.createURI(NS + "body/" + name);
+        URI target = vf.createURI(NS + "target/" + name);
+
+        connection.add(item, vf.createURI(MICO.HAS_CONTENT_PART), part);
+        connection.add(part, vf.createURI(MICO.HAS_CONTENT), annotation);
+        connection.add(annotation, RDF.TYPE, vf.createURI(OADM.ANNOTATION));
+        connection.add(annotation, vf.createURI(OADM.HAS_BODY), body);
+        connection.add(body, RDF.TYPE, vf.createURI(bodyType));
+        connection.add(annotation, vf.createURI(OADM.HAS_TARGET), target);
+        connection.add(target, RDF.TYPE, vf.createURI(targetType));
+        if (selectorType != null) {
+            URI selector = vf.createURI(NS + "selector/" + name);
+            connection.add(target, vf.createURI(OADM.HAS_SELECTOR), selector);
+            connection.add(selector, RDF.TYPE, vf.createURI(selectorType));
+        }
+    }
+
+    private static Set<String> ids(String... names) {
+        Set<String> ids = new HashSet<>();
+        for (String name : names) {
+            ids.add(NS + "annotation/" + name);
+        }
+        return ids;
+    }
+
+    private static Set<String> ids(List<Annotation> annotations) {
+        Set<String> ids = new HashSet<>();
+        for (Annotation annotation : annotations) {
+            ids.add(annotation.getResourceAsString());
+        }
+        return ids;
+    }
+}
@@ -3,12 +3,21 @@ package com.github.anno4j.recommendation;
 import com.github.anno4j.Anno4j;
 import com.github.anno4j.model.Annotation;
 import com.github.anno4j.model.impl.targets.SpecificResource;
+import com.github.anno4j.recommendation.index.LSHIndex;
+import com.github.anno4j.recommendation.index.Neighbour;
 import com.github.anno4j.recommendation.model.SimilarityStatement;
 import org.openrdf.repository.RepositoryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Class represents a suite to generate similarity annotations. Several algorithms can be registered and then used
@@ -16,6 +25,8 @@ import java.util.Map;
  */
 public class RecommendationService {
 
+    private final Logger logger = LoggerFactory.getLogger(RecommendationService.class);
+
     /**
      * A map of registered algorithms for this RecommendationService
      */
@@ -23,6 +34,11 @@ public class RecommendationService {
 
     private Anno4j anno4j;
 
+    /**
+     * The nearest-neighbour indexes of the registered {@link VectorizingSimilarityAlgorithm}s, created on first use.
+     */
+    private final Map<String, LSHIndex> indexes = new HashMap<>();
+
     /**
      * Basic constructor.
      */
@@ -62,6 +78,202 @@ public class RecommendationService {
         }
     }
 
+    /**
+     * Generates the similarity annotations between all pairs of the given annotations for every registered algorithm.
+     * The similarities are computed in parallel by a {@link SimilarityEngine} and persisted in batches.
+     *
+     * @param candidates The annotations to compare with each other.
+     * @return The computed similarities.
+     */
+    public List<SimilarityResult> generateAllSimilarities(List<? extends Annotation> candidates) throws RepositoryException {
+        SimilarityEngine engine = new SimilarityEngine(this.anno4j, this.algorithms);
+        try {
+            List<SimilarityResult> results = engine.computePairwise(candidates);
+            engine.persist(results);
+            return results;
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    /**
+     * Generates the similarity annotations between every given annotation and its k most similar other annotations,
+     * for every registered algorithm.
+     *
+     * @param candidates The annotations to compare with each other.
+     * @param k          The number of most similar annotations to keep per annotation and algorithm.
+     * @return The computed similarities.
+     */
+    public List<SimilarityResult> generateTopSimilarities(List<? extends Annotation> candidates, int k) throws RepositoryException {
+        SimilarityEngine engine = new SimilarityEngine(this.anno4j, this.algorithms);
+        try {
+            List<SimilarityResult> results = engine.computeTopK(candidates, k);
+            engine.persist(results);
+            return results;
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    /**
+     * Persists the given annotation and adds it to the nearest-neighbour indexes of all registered
+     * {@link VectorizingSimilarityAlgorithm}s.
+     *
+     * @param annotation The annotation to persist.
+     */
+    public void persist(Annotation annotation) throws RepositoryException {
+        this.anno4j.persist(annotation);
+        index(annotation);
+    }
+
+    /**
+     * Adds the given, already persisted annotation to the nearest-neighbour indexes of all registered
+     * {@link VectorizingSimilarityAlgorithm}s, replacing its previous embeddings.
+     *
+     * @param annotation The annotation to index.
+     */
+    public void index(Annotation annotation) throws RepositoryException {
+        for (Map.Entry<String, SimilarityAlgorithm> entry : this.algorithms.entrySet()) {
+            if (entry.getValue() instanceof VectorizingSimilarityAlgorithm) {
+                float[] vector = ((VectorizingSimilarityAlgorithm) entry.getValue()).vectorize(annotation);
+                if (vector != null) {
+                    try {
+                        getIndex(entry.getKey()).add(annotation.getResourceAsString(), vector);
+                    } catch (IOException e) {
+                        throw new RepositoryException("Couldn't index " + annotation.getResourceAsString(), e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the given annotation from the nearest-neighbour indexes of all registered
+     * {@link VectorizingSimilarityAlgorithm}s, e.g. after it was deleted, so that it is no longer found as similar.
+     *
+     * @param annotation The annotation to remove.
+     * @return True if the annotation was indexed for at least one algorithm.
+     */
+    public boolean unindex(Annotation annotation) throws RepositoryException {
+        return unindex(annotation.getResourceAsString());
+    }
+
+    /**
+     * Removes the annotation with the given id from the nearest-neighbour indexes of all registered
+     * {@link VectorizingSimilarityAlgorithm}s.
+     *
+     * @param annotationId The id (url) of the annotation.
+     * @return True if the annotation was indexed for at least one algorithm.
+     */
+    public boolean unindex(String annotationId) throws RepositoryException {
+        boolean removed = false;
+        for (Map.Entry<String, SimilarityAlgorithm> entry : this.algorithms.entrySet()) {
+            if (entry.getValue() instanceof VectorizingSimilarityAlgorithm) {
+                removed |= getIndex(entry.getKey()).remove(annotationId);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Adds all annotations of the repository to the nearest-neighbour indexes.
+     */
+    public void rebuildIndexes() throws RepositoryException {
+        for (Annotation annotation : this.anno4j.findAll(Annotation.class)) {
+            index(annotation);
+        }
+    }
+
+    /**
+     * Finds the k annotations most similar to the given one for every registered
+     * {@link VectorizingSimilarityAlgorithm}, using the nearest-neighbour indexes instead of scoring all annotations.
+     *
+     * @param annotation The annotation to find similar annotations for.
+     * @param k          The number of similar annotations per algorithm.
+     * @return The similarities ordered by the key of the algorithm and descending similarity.
+     */
+    public List<SimilarityResult> findSimilar(Annotation annotation, int k) throws RepositoryException {
+        List<SimilarityResult> results = new ArrayList<>();
+        for (Map.Entry<String, SimilarityAlgorithm> entry : new TreeMap<>(this.algorithms).entrySet()) {
+            if (entry.getValue() instanceof VectorizingSimilarityAlgorithm) {
+                results.addAll(findSimilar(annotation, k, entry.getKey()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Finds the k annotations most similar to the given one for the given {@link VectorizingSimilarityAlgorithm}.
+     *
+     * @param annotation    The annotation to find similar annotations for.
+     * @param k             The number of similar annotations.
+     * @param algorithmName The key of the registered algorithm.
+     * @return The similarities ordered by descending similarity.
+     */
+    public List<SimilarityResult> findSimilar(Annotation annotation, int k, String algorithmName) throws RepositoryException {
+        SimilarityAlgorithm algorithm = this.algorithms.get(algorithmName);
+        if (!(algorithm instanceof VectorizingSimilarityAlgorithm)) {
+            throw new IllegalArgumentException(algorithmName + " is not a registered VectorizingSimilarityAlgorithm");
+        }
+        List<SimilarityResult> results = new ArrayList<>();
+        float[] vector = ((VectorizingSimilarityAlgorithm) algorithm).vectorize(annotation);
+        if (vector == null) {
+            return results;
+        }
+        String id = annotation.getResourceAsString();
+        for (Neighbour neighbour : getIndex(algorithmName).search(vector, k + 1)) {
+            if (!neighbour.getId().equals(id) && results.size() < k) {
+                Annotation object = this.anno4j.findByID(Annotation.class, neighbour.getId());
+                results.add(new SimilarityResult(annotation, 0, object, results.size(), algorithmName, neighbour.getSimilarity()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Closes the nearest-neighbour indexes, writing them next to the repository if it has a data directory.
+     */
+    public void close() throws RepositoryException {
+        synchronized (this.indexes) {
+            try {
+                for (LSHIndex index : this.indexes.values()) {
+                    index.close();
+                }
+            } catch (IOException e) {
+                throw new RepositoryException("Couldn't close the similarity indexes", e);
+            } finally {
+                this.indexes.clear();
+            }
+        }
+    }
+
+    /**
+     * Gets the nearest-neighbour index of the given algorithm. If the repository has a data directory, the index is
+     * stored in its subdirectory <code>recommendation</code>, otherwise it is kept in memory.
+     */
+    private LSHIndex getIndex(String algorithmName) throws RepositoryException {
+        synchronized (this.indexes) {
+            LSHIndex index = this.indexes.get(algorithmName);
+            if (index == null) {
+                int dimension = ((VectorizingSimilarityAlgorithm) this.algorithms.get(algorithmName)).getDimension();
+                File dataDir = this.anno4j.getRepository().getDataDir();
+                if (dataDir == null) {
+                    index = new LSHIndex(dimension);
+                } else {
+                    File dir = new File(dataDir, "recommendation");
+                    dir.mkdirs();
+                    try {
+                        index = new LSHIndex(dimension, new File(dir, algorithmName.replaceAll("[^\\w.-]", "_") + ".vec"));
+                    } catch (IOException e) {
+                        throw new RepositoryException("Couldn't open the similarity index of " + algorithmName, e);
+                    }
+                }
+                this.indexes.put(algorithmName, index);
+            }
+            return index;
+        }
+    }
+
     private Annotation createSimilarityAnnotation(Annotation subject, Annotation object, double similarity) throws RepositoryException, IllegalAccessException, InstantiationException {
         Annotation similarityAnnotation = anno4j.createObject(Annotation.class);
 
@@ -95,6 +307,16 @@ public class RecommendationService {
      */
     public void removeAlgorithm(String key) {
         this.algorithms.remove(key);
+        synchronized (this.indexes) {
+            LSHIndex index = this.indexes.remove(key);
+            if (index != null) {
+                try {
+                    index.close();
+                } catch (IOException e) {
+                    logger.warn("Couldn't close the similarity index of " + key, e);
+                }
+            }
+        }
     }
 
     /**
@@ -0,0 +1,418 @@
+package com.github.anno4j.recommendation;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.Transaction;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.impl.targets.SpecificResource;
+import com.github.anno4j.recommendation.model.SimilarityStatement;
+import org.openrdf.query.QueryEvaluationException;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.object.ObjectConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Batch computation of similarities between a set of candidate annotations for all algorithms registered at a
+ * {@link RecommendationService}.
+ * <p/>
+ * The pairwise similarity matrix is split into square blocks of {@link #getBlockSize()} candidates, which are
+ * evaluated on a bounded fork-join pool. If the algorithms are symmetric (the default), only the upper triangle of
+ * the matrix is computed. Every worker thread reads the candidates through its own connection, as the beans of one
+ * connection must not be shared between threads.
+ * <p/>
+ * The results can then be persisted as similarity annotations in transactions of {@link #getBatchSize()}
+ * annotations each.
+ */
+public class SimilarityEngine {
+
+    /**
+     * Logger of this class.
+     */
+    private final Logger logger = LoggerFactory.getLogger(SimilarityEngine.class);
+
+    private final Anno4j anno4j;
+
+    private final Map<String, SimilarityAlgorithm> algorithms;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Number of candidates per side of a block of the similarity matrix.
+     */
+    private int blockSize = 64;
+
+    /**
+     * Number of similarity annotations persisted per transaction.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Whether sim(a, b) = sim(b, a) holds for all algorithms.
+     */
+    private boolean symmetric = true;
+
+    /**
+     * Creates an engine using one worker per available processor.
+     *
+     * @param anno4j     The Anno4j instance to read the candidates from and to write the similarities to.
+     * @param algorithms The algorithms by their registered key.
+     */
+    public SimilarityEngine(Anno4j anno4j, Map<String, SimilarityAlgorithm> algorithms) {
+        this(anno4j, algorithms, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates an engine using the given number of workers.
+     *
+     * @param anno4j      The Anno4j instance to read the candidates from and to write the similarities to.
+     * @param algorithms  The algorithms by their registered key.
+     * @param parallelism The maximum number of worker threads.
+     */
+    public SimilarityEngine(Anno4j anno4j, Map<String, SimilarityAlgorithm> algorithms, int parallelism) {
+        this.anno4j = anno4j;
+        this.algorithms = algorithms;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Computes the similarity of all pairs of candidates for every registered algorithm.
+     * For symmetric algorithms each unordered pair is reported once, with the candidate that comes first in the list
+     * as subject.
+     *
+     * @param candidates The annotations to compare.
+     * @return The similarities ordered by subject, object and algorithm.
+     */
+    public List<SimilarityResult> computePairwise(final List<? extends Annotation> candidates) throws RepositoryException {
+        final Collection<SimilarityResult> results = new ConcurrentLinkedQueue<>();
+        compute(candidates, new Sink() {
+            @Override
+            public void accept(int i, int j, String algorithm, double similarity) {
+                results.add(new SimilarityResult(candidates.get(i), i, candidates.get(j), j, algorithm, similarity));
+            }
+        });
+        List<SimilarityResult> list = new ArrayList<>(results);
+        Collections.sort(list);
+        return list;
+    }
+
+    /**
+     * Computes the k most similar other candidates of every candidate for every registered algorithm.
+     *
+     * @param candidates The annotations to compare.
+     * @param k          The number of neighbours to keep per candidate and algorithm.
+     * @return The similarities ordered by subject, object and algorithm.
+     */
+    public List<SimilarityResult> computeTopK(final List<? extends Annotation> candidates, final int k) throws RepositoryException {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive, was " + k);
+        }
+        final Map<String, List<PriorityQueue<SimilarityResult>>> neighbours = new ConcurrentHashMap<>();
+        for (String algorithm : algorithms.keySet()) {
+            List<PriorityQueue<SimilarityResult>> heaps = new ArrayList<>(candidates.size());
+            for (int i = 0; i < candidates.size(); i++) {
+                heaps.add(new PriorityQueue<SimilarityResult>(k + 1, BY_SIMILARITY));
+            }
+            neighbours.put(algorithm, heaps);
+        }
+        compute(candidates, new Sink() {
+            @Override
+            public void accept(int i, int j, String algorithm, double similarity) {
+                List<PriorityQueue<SimilarityResult>> heaps = neighbours.get(algorithm);
+                offer(heaps.get(i), new SimilarityResult(candidates.get(i), i, candidates.get(j), j, algorithm, similarity), k);
+                if (symmetric) {
+                    offer(heaps.get(j), new SimilarityResult(candidates.get(j), j, candidates.get(i), i, algorithm, similarity), k);
+                }
+            }
+        });
+        List<SimilarityResult> list = new ArrayList<>();
+        for (List<PriorityQueue<SimilarityResult>> heaps : neighbours.values()) {
+            for (PriorityQueue<SimilarityResult> heap : heaps) {
+                list.addAll(heap);
+            }
+        }
+        Collections.sort(list);
+        return list;
+    }
+
+    /**
+     * Persists the given similarities as similarity annotations, targeting the subject and holding a
+     * {@link SimilarityStatement} as body. The annotations are written in transactions of
+     * {@link #getBatchSize()} annotations.
+     *
+     * @param results The similarities to persist.
+     */
+    public void persist(Collection<SimilarityResult> results) throws RepositoryException {
+        Transaction transaction = anno4j.createTransaction();
+        transaction.setAllContexts(anno4j.getDefaultContext());
+        try {
+            int pending = 0;
+            transaction.begin();
+            for (SimilarityResult result : results) {
+                createSimilarityAnnotation(transaction, result);
+                if (++pending == batchSize) {
+                    transaction.commit();
+                    transaction.begin();
+                    pending = 0;
+                }
+            }
+            transaction.commit();
+        } catch (IllegalAccessException | InstantiationException e) {
+            transaction.rollback();
+            throw new RepositoryException("Couldn't create similarity annotation", e);
+        } catch (RepositoryException e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw e;
+        } finally {
+            transaction.close();
+        }
+    }
+
+    /**
+     * Stops the worker threads of this engine.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private void createSimilarityAnnotation(Transaction transaction, SimilarityResult result) throws RepositoryException, InstantiationException, IllegalAccessException {
+        Annotation similarityAnnotation = transaction.createObject(Annotation.class);
+
+        SpecificResource specificResource = transaction.createObject(SpecificResource.class);
+        specificResource.setSource(result.getSubject());
+        similarityAnnotation.addTarget(specificResource);
+
+        SimilarityStatement statement = transaction.createObject(SimilarityStatement.class);
+        statement.setSubject(result.getSubject());
+        statement.setObject(result.getObject());
+        statement.setSimilarity(result.getSimilarity());
+        similarityAnnotation.addBody(statement);
+    }
+
+    private void compute(List<? extends Annotation> candidates, Sink sink) throws RepositoryException {
+        int blocks = (candidates.size() + blockSize - 1) / blockSize;
+        if (blocks == 0 || algorithms.isEmpty()) {
+            return;
+        }
+        Map<Thread, Worker> workers = new ConcurrentHashMap<>();
+        long start = System.currentTimeMillis();
+        try {
+            pool.invoke(new BlockTask(candidates, sink, workers, 0, blocks, blocks));
+        } catch (WorkerException e) {
+            throw e.getCause();
+        } finally {
+            for (Worker worker : workers.values()) {
+                worker.close();
+            }
+        }
+        logger.debug("Compared {} candidates with {} algorithms in {} ms", candidates.size(), algorithms.size(), System.currentTimeMillis() - start);
+    }
+
+    private static void offer(PriorityQueue<SimilarityResult> heap, SimilarityResult result, int k) {
+        synchronized (heap) {
+            if (heap.size() < k) {
+                heap.add(result);
+            } else if (BY_SIMILARITY.compare(result, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(result);
+            }
+        }
+    }
+
+    /**
+     * Orders results by ascending similarity, ties broken by the candidate order.
+     */
+    private static final java.util.Comparator<SimilarityResult> BY_SIMILARITY = new java.util.Comparator<SimilarityResult>() {
+        @Override
+        public int compare(SimilarityResult o1, SimilarityResult o2) {
+            int cmp = Double.compare(o1.getSimilarity(), o2.getSimilarity());
+            if (cmp != 0) {
+                return cmp;
+            }
+            return o2.compareTo(o1);
+        }
+    };
+
+    /**
+     * Receives every computed similarity of a pair (i, j) of candidate indices.
+     */
+    private interface Sink {
+        void accept(int i, int j, String algorithm, double similarity);
+    }
+
+    /**
+     * The connection and the candidate beans of one worker thread.
+     */
+    private class Worker {
+        private final Transaction transaction;
+        private final Annotation[] beans;
+
+        Worker(int size) throws RepositoryException {
+            transaction = anno4j.createTransaction();
+            transaction.setAllContexts(anno4j.getDefaultContext());
+            beans = new Annotation[size];
+        }
+
+        Annotation get(List<? extends Annotation> candidates, int i) throws RepositoryException {
+            if (beans[i] == null) {
+                ObjectConnection connection = transaction.getConnection();
+                try {
+                    beans[i] = connection.getObject(Annotation.class, candidates.get(i).getResource());
+                } catch (QueryEvaluationException e) {
+                    throw new RepositoryException("Couldn't load candidate " + candidates.get(i).getResource(), e);
+                }
+            }
+            return beans[i];
+        }
+
+        void close() {
+            try {
+                transaction.close();
+            } catch (RepositoryException e) {
+                logger.warn("Couldn't close worker connection", e);
+            }
+        }
+    }
+
+    /**
+     * Carries a checked exception out of a fork-join task.
+     */
+    private static class WorkerException extends RuntimeException {
+        WorkerException(RepositoryException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized RepositoryException getCause() {
+            return (RepositoryException) super.getCause();
+        }
+    }
+
+    /**
+     * Computes the rows of blocks [from, to) of the similarity matrix, splitting the range in half until a single
+     * row of blocks is left.
+     */
+    private class BlockTask extends RecursiveAction {
+        private final List<? extends Annotation> candidates;
+        private final Sink sink;
+        private final Map<Thread, Worker> workers;
+        private final int from;
+        private final int to;
+        private final int blocks;
+
+        BlockTask(List<? extends Annotation> candidates, Sink sink, Map<Thread, Worker> workers, int from, int to, int blocks) {
+            this.candidates = candidates;
+            this.sink = sink;
+            this.workers = workers;
+            this.from = from;
+            this.to = to;
+            this.blocks = blocks;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new BlockTask(candidates, sink, workers, from, mid, blocks),
+                        new BlockTask(candidates, sink, workers, mid, to, blocks));
+                return;
+            }
+            try {
+                Worker worker = workers.get(Thread.currentThread());
+                if (worker == null) {
+                    worker = new Worker(candidates.size());
+                    workers.put(Thread.currentThread(), worker);
+                }
+                for (int column = symmetric ? from : 0; column < blocks; column++) {
+                    computeBlock(worker, from, column);
+                }
+            } catch (RepositoryException e) {
+                throw new WorkerException(e);
+            }
+        }
+
+        private void computeBlock(Worker worker, int row, int column) throws RepositoryException {
+            int rowEnd = Math.min((row + 1) * blockSize, candidates.size());
+            int columnEnd = Math.min((column + 1) * blockSize, candidates.size());
+            for (int i = row * blockSize; i < rowEnd; i++) {
+                int j = (symmetric && row == column) ? i + 1 : column * blockSize;
+                for (; j < columnEnd; j++) {
+                    if (i == j) {
+                        continue;
+                    }
+                    Annotation subject = worker.get(candidates, i);
+                    Annotation object = worker.get(candidates, j);
+                    for (Map.Entry<String, SimilarityAlgorithm> algorithm : algorithms.entrySet()) {
+                        sink.accept(i, j, algorithm.getKey(), algorithm.getValue().calculateSimilarity(subject, object));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of candidates per side of a block of the similarity matrix.
+     *
+     * @return Value of blockSize.
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Sets the number of candidates per side of a block of the similarity matrix.
+     *
+     * @param blockSize New value of blockSize.
+     */
+    public void setBlockSize(int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Gets the number of similarity annotations persisted per transaction.
+     *
+     * @return Value of batchSize.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets the number of similarity annotations persisted per transaction.
+     *
+     * @param batchSize New value of batchSize.
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Gets whether the algorithms are symmetric, so that only one half of the pairs is computed.
+     *
+     * @return Value of symmetric.
+     */
+    public boolean isSymmetric() {
+        return symmetric;
+    }
+
+    /**
+     * Sets whether the algorithms are symmetric, so that only one half of the pairs is computed.
+     *
+     * @param symmetric New value of symmetric.
+     */
+    public void setSymmetric(boolean symmetric) {
+        this.symmetric = symmetric;
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.anno4j.recommendation;
+
+import com.github.anno4j.model.Annotation;
+
+/**
+ * A similarity value computed by a {@link SimilarityEngine} for one pair of annotations and one algorithm,
+ * before it is persisted as a {@link com.github.anno4j.recommendation.model.SimilarityStatement}.
+ */
+public class SimilarityResult implements Comparable<SimilarityResult> {
+
+    private final Annotation subject;
+
+    private final Annotation object;
+
+    private final String algorithm;
+
+    private final double similarity;
+
+    /**
+     * Position of subject and object in the candidate list, used for a stable ordering.
+     */
+    private final int subjectIndex;
+
+    private final int objectIndex;
+
+    SimilarityResult(Annotation subject, int subjectIndex, Annotation object, int objectIndex, String algorithm, double similarity) {
+        this.subject = subject;
+        this.subjectIndex = subjectIndex;
+        this.object = object;
+        this.objectIndex = objectIndex;
+        this.algorithm = algorithm;
+        this.similarity = similarity;
+    }
+
+    /**
+     * Gets the annotation the similarity was computed for.
+     *
+     * @return Value of subject.
+     */
+    public Annotation getSubject() {
+        return subject;
+    }
+
+    /**
+     * Gets the annotation the subject was compared with.
+     *
+     * @return Value of object.
+     */
+    public Annotation getObject() {
+        return object;
+    }
+
+    /**
+     * Gets the key of the registered algorithm that computed the similarity.
+     *
+     * @return Value of algorithm.
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Gets the computed similarity value.
+     *
+     * @return Value of similarity.
+     */
+    public double getSimilarity() {
+        return similarity;
+    }
+
+    int getSubjectIndex() {
+        return subjectIndex;
+    }
+
+    int getObjectIndex() {
+        return objectIndex;
+    }
+
+    @Override
+    public int compareTo(SimilarityResult other) {
+        if (subjectIndex != other.subjectIndex) {
+            return subjectIndex < other.subjectIndex ? -1 : 1;
+        }
+        if (objectIndex != other.objectIndex) {
+            return objectIndex < other.objectIndex ? -1 : 1;
+        }
+        return algorithm.compareTo(other.algorithm);
+    }
+
+    @Override
+    public String toString() {
+        return "SimilarityResult{" + subject.getResourceAsString() + " -> " + object.getResourceAsString()
+                + ", " + algorithm + "=" + similarity + "}";
+    }
+}
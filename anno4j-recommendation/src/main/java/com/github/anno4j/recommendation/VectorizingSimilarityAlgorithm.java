@@ -0,0 +1,26 @@
+package com.github.anno4j.recommendation;
+
+import com.github.anno4j.model.Annotation;
+
+/**
+ * A similarity algorithm that maps annotations to fixed-size embeddings. The similarity of two annotations is the
+ * cosine similarity of their embeddings, which allows the {@link RecommendationService} to find the most similar
+ * annotations in an approximate nearest-neighbour index instead of scoring all of them.
+ */
+public interface VectorizingSimilarityAlgorithm extends SimilarityAlgorithm {
+
+    /**
+     * Gets the number of components of the embeddings created by this algorithm.
+     *
+     * @return The dimension of the embeddings.
+     */
+    public int getDimension();
+
+    /**
+     * Creates the embedding of the given annotation.
+     *
+     * @param annotation The annotation to embed.
+     * @return An array of {@link #getDimension()} components, or null if the annotation can't be embedded.
+     */
+    public float[] vectorize(Annotation annotation);
+}
@@ -0,0 +1,367 @@
+package com.github.anno4j.recommendation.index;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Approximate nearest-neighbour index for the cosine similarity, based on locality-sensitive hashing with random
+ * hyperplanes.
+ * <p/>
+ * Every vector is hashed into one bucket per table, each bit of the hash telling on which side of a random hyperplane
+ * the vector lies. Similar vectors are likely to share a bucket in at least one table. A query collects the vectors of
+ * its own buckets, and of the buckets differing in one bit if these are not enough, and ranks them by their exact
+ * similarity. The normalized vectors are kept off-heap in a {@link VectorStore}, the hash tables only hold slot
+ * numbers and are rebuilt from the store when an existing index is opened. The slots of removed and replaced vectors
+ * are dropped from the tables right away and from the file of the store when it is opened again.
+ * <p/>
+ * Adding and removing vectors is incremental and may happen concurrently with queries.
+ */
+public class LSHIndex implements Closeable {
+
+    private static final long SEED = 0x616e6e6f346aL;
+
+    /**
+     * Ranks candidates by ascending similarity, so that the least similar is on top of a bounded heap.
+     */
+    private static final Comparator<Neighbour> BY_SIMILARITY = new Comparator<Neighbour>() {
+        @Override
+        public int compare(Neighbour o1, Neighbour o2) {
+            return Double.compare(o1.getSimilarity(), o2.getSimilarity());
+        }
+    };
+
+    private final VectorStore store;
+
+    private final int tables;
+
+    private final int bits;
+
+    /**
+     * The hyperplane normals, tables * bits vectors of the store's dimension.
+     */
+    private final float[][] hyperplanes;
+
+    private final List<Map<Integer, Bucket>> buckets;
+
+    private final Map<String, Integer> slots = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Creates an index in memory with 8 tables of 12 bit hashes.
+     *
+     * @param dimension The number of components of the vectors.
+     */
+    public LSHIndex(int dimension) {
+        this(new VectorStore(dimension), 8, 12);
+    }
+
+    /**
+     * Opens the index stored in the given file with 8 tables of 12 bit hashes, or creates it if it doesn't exist.
+     *
+     * @param dimension The number of components of the vectors.
+     * @param file      The file of the vector store.
+     * @throws IOException If the store can't be opened.
+     */
+    public LSHIndex(int dimension, File file) throws IOException {
+        this(new VectorStore(dimension, file), 8, 12);
+    }
+
+    /**
+     * Creates an index over the given store.
+     *
+     * @param store  The store of the normalized vectors.
+     * @param tables The number of hash tables. More tables find more of the true neighbours at the cost of memory.
+     * @param bits   The number of bits per hash. More bits make the buckets smaller and the queries faster.
+     */
+    public LSHIndex(VectorStore store, int tables, int bits) {
+        if (bits < 1 || bits > 31) {
+            throw new IllegalArgumentException("bits must be between 1 and 31, was " + bits);
+        }
+        this.store = store;
+        this.tables = tables;
+        this.bits = bits;
+
+        Random random = new Random(SEED);
+        hyperplanes = new float[tables * bits][store.getDimension()];
+        for (float[] hyperplane : hyperplanes) {
+            for (int i = 0; i < hyperplane.length; i++) {
+                hyperplane[i] = (float) random.nextGaussian();
+            }
+        }
+
+        buckets = new ArrayList<>(tables);
+        for (int t = 0; t < tables; t++) {
+            buckets.add(new HashMap<Integer, Bucket>());
+        }
+
+        float[] vector = new float[store.getDimension()];
+        for (int slot = 0; slot < store.size(); slot++) {
+            if (!store.isRemoved(slot)) {
+                Integer previous = slots.put(store.getId(slot), slot);
+                if (previous != null) {
+                    delete(previous);
+                }
+                store.get(slot, vector);
+                insert(slot, vector);
+            }
+        }
+    }
+
+    /**
+     * Adds the vector with the given id, replacing a vector previously added with the same id.
+     *
+     * @param id     The id of the vector, e.g. the URI of an annotation.
+     * @param vector The vector.
+     * @throws IOException If the vector couldn't be stored.
+     */
+    public void add(String id, float[] vector) throws IOException {
+        float[] normalized = normalize(vector);
+        lock.writeLock().lock();
+        try {
+            Integer previous = slots.get(id);
+            if (previous != null) {
+                delete(previous);
+            }
+            int slot = store.add(id, normalized);
+            slots.put(id, slot);
+            insert(slot, normalized);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the vector with the given id.
+     *
+     * @param id The id of the vector.
+     * @return True if there was a vector with the given id.
+     */
+    public boolean remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slots.remove(id);
+            if (slot == null) {
+                return false;
+            }
+            delete(slot);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Checks whether a vector with the given id was added.
+     *
+     * @param id The id of the vector.
+     * @return True if the index contains the id.
+     */
+    public boolean contains(String id) {
+        lock.readLock().lock();
+        try {
+            return slots.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of vectors in this index.
+     *
+     * @return The number of ids.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the vectors with the highest cosine similarity to the given vector. The result is approximate: a vector
+     * sharing no bucket with the query is not found, unless the buckets hold less than k vectors altogether.
+     *
+     * @param query The query vector.
+     * @param k     The maximum number of neighbours.
+     * @return The neighbours ordered by descending similarity.
+     */
+    public List<Neighbour> search(float[] query, int k) {
+        float[] normalized = normalize(query);
+        lock.readLock().lock();
+        try {
+            BitSet candidates = new BitSet(store.size());
+            int[] hashes = new int[tables];
+            for (int t = 0; t < tables; t++) {
+                hashes[t] = hash(t, normalized);
+                collect(t, hashes[t], candidates);
+            }
+            // Multi-probe the buckets at Hamming distance one
+            for (int bit = 0; bit < bits && candidates.cardinality() < k; bit++) {
+                for (int t = 0; t < tables; t++) {
+                    collect(t, hashes[t] ^ (1 << bit), candidates);
+                }
+            }
+            if (candidates.cardinality() < k) {
+                for (int slot : slots.values()) {
+                    candidates.set(slot);
+                }
+            }
+
+            PriorityQueue<Neighbour> heap = new PriorityQueue<>(k + 1, BY_SIMILARITY);
+            for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                if (store.isRemoved(slot)) {
+                    continue;
+                }
+                double similarity = store.dot(slot, normalized);
+                if (heap.size() < k) {
+                    heap.add(new Neighbour(store.getId(slot), similarity));
+                } else if (similarity > heap.peek().getSimilarity()) {
+                    heap.poll();
+                    heap.add(new Neighbour(store.getId(slot), similarity));
+                }
+            }
+            List<Neighbour> result = new ArrayList<>(heap);
+            Collections.sort(result, Collections.reverseOrder(BY_SIMILARITY));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the vectors to the file of the store, if any.
+     */
+    public void flush() {
+        lock.readLock().lock();
+        try {
+            store.flush();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            store.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void insert(int slot, float[] vector) {
+        for (int t = 0; t < tables; t++) {
+            int hash = hash(t, vector);
+            Bucket bucket = buckets.get(t).get(hash);
+            if (bucket == null) {
+                bucket = new Bucket();
+                buckets.get(t).put(hash, bucket);
+            }
+            bucket.add(slot);
+        }
+    }
+
+    /**
+     * Drops the slot from its buckets and marks it as removed in the store.
+     */
+    private void delete(int slot) {
+        float[] vector = new float[store.getDimension()];
+        store.get(slot, vector);
+        for (int t = 0; t < tables; t++) {
+            int hash = hash(t, vector);
+            Bucket bucket = buckets.get(t).get(hash);
+            if (bucket != null && bucket.remove(slot) && bucket.size == 0) {
+                buckets.get(t).remove(hash);
+            }
+        }
+        store.remove(slot);
+    }
+
+    private void collect(int table, int hash, BitSet candidates) {
+        Bucket bucket = buckets.get(table).get(hash);
+        if (bucket != null) {
+            for (int i = 0; i < bucket.size; i++) {
+                candidates.set(bucket.slots[i]);
+            }
+        }
+    }
+
+    private int hash(int table, float[] vector) {
+        int hash = 0;
+        for (int b = 0; b < bits; b++) {
+            float[] hyperplane = hyperplanes[table * bits + b];
+            double dot = 0;
+            for (int i = 0; i < vector.length; i++) {
+                dot += hyperplane[i] * vector[i];
+            }
+            if (dot >= 0) {
+                hash |= 1 << b;
+            }
+        }
+        return hash;
+    }
+
+    private float[] normalize(float[] vector) {
+        if (vector.length != store.getDimension()) {
+            throw new IllegalArgumentException("Expected vector of dimension " + store.getDimension() + ", was " + vector.length);
+        }
+        double norm = 0;
+        for (float component : vector) {
+            if (Float.isNaN(component) || Float.isInfinite(component)) {
+                throw new IllegalArgumentException("Expected finite vector components, was " + component);
+            }
+            norm += component * component;
+        }
+        norm = Math.sqrt(norm);
+        float[] normalized = new float[vector.length];
+        if (norm > 0) {
+            for (int i = 0; i < vector.length; i++) {
+                normalized[i] = (float) (vector[i] / norm);
+            }
+        }
+        return normalized;
+    }
+
+    /**
+     * A growable array of slot numbers.
+     */
+    private static class Bucket {
+        private int[] slots = new int[4];
+        private int size;
+
+        void add(int slot) {
+            if (size == slots.length) {
+                int[] grown = new int[size * 2];
+                System.arraycopy(slots, 0, grown, 0, size);
+                slots = grown;
+            }
+            slots[size++] = slot;
+        }
+
+        boolean remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    slots[i] = slots[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
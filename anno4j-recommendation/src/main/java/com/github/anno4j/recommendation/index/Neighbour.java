@@ -0,0 +1,39 @@
+package com.github.anno4j.recommendation.index;
+
+/**
+ * An entry of a {@link LSHIndex} found for a query vector.
+ */
+public class Neighbour {
+
+    private final String id;
+
+    private final double similarity;
+
+    public Neighbour(String id, double similarity) {
+        this.id = id;
+        this.similarity = similarity;
+    }
+
+    /**
+     * Gets the id the vector was indexed with.
+     *
+     * @return Value of id.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Gets the cosine similarity between the query and the indexed vector.
+     *
+     * @return Value of similarity.
+     */
+    public double getSimilarity() {
+        return similarity;
+    }
+
+    @Override
+    public String toString() {
+        return "Neighbour{" + id + "=" + similarity + "}";
+    }
+}
@@ -0,0 +1,337 @@
+package com.github.anno4j.recommendation.index;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-dimension float vectors stored outside of the Java heap, addressed by a slot number.
+ * <p/>
+ * If a file is given, the vectors are memory-mapped from it and the ids of the slots are appended to a file with the
+ * suffix <code>.ids</code> next to it, so that the store survives a restart. Otherwise the vectors are kept in a
+ * direct buffer. Removed slots are marked by a NaN in their first component and are not reused, which is why vectors
+ * with NaN components are rejected. The removed slots of a file are dropped when it is opened again, moving the
+ * following vectors to lower slots.
+ * <p/>
+ * Reading methods may be called concurrently, but not concurrently with {@link #add(String, float[])}.
+ */
+public class VectorStore implements Closeable {
+
+    private static final int MAGIC = 0x414e5634;
+
+    /**
+     * Magic number, dimension and number of slots.
+     */
+    private static final int HEADER = 12;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final int dimension;
+
+    private final File file;
+
+    private RandomAccessFile raf;
+
+    private Writer idWriter;
+
+    private ByteBuffer buffer;
+
+    private FloatBuffer floats;
+
+    private int capacity;
+
+    private int size;
+
+    private final List<String> ids = new ArrayList<>();
+
+    /**
+     * Creates a store in a direct buffer.
+     *
+     * @param dimension The number of components of the vectors.
+     */
+    public VectorStore(int dimension) {
+        this.dimension = dimension;
+        this.file = null;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Opens the store in the given file, or creates it if the file doesn't exist.
+     *
+     * @param dimension The number of components of the vectors.
+     * @param file      The file to map the vectors from.
+     * @throws IOException If the file can't be read or was written with another dimension.
+     */
+    public VectorStore(int dimension, File file) throws IOException {
+        this.dimension = dimension;
+        this.file = file;
+        File idFile = getIdFile();
+        boolean exists = file.exists() && idFile.exists();
+        if (exists) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(idFile), UTF8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    ids.add(line);
+                }
+            }
+        }
+        raf = new RandomAccessFile(file, "rw");
+        if (exists) {
+            capacity = (int) ((raf.length() - HEADER) / (4L * dimension));
+            map();
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != dimension) {
+                close();
+                throw new IOException(file + " is not a vector store of dimension " + dimension);
+            }
+            // Slots whose id wasn't written completely are dropped
+            size = Math.min(buffer.getInt(8), ids.size());
+            while (ids.size() > size) {
+                ids.remove(ids.size() - 1);
+            }
+            compact();
+        } else {
+            capacity = INITIAL_CAPACITY;
+            map();
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, dimension);
+            buffer.putInt(8, 0);
+        }
+        idWriter = new OutputStreamWriter(new FileOutputStream(idFile, exists), UTF8);
+        if (!exists) {
+            idWriter.flush();
+        }
+    }
+
+    private File getIdFile() {
+        return new File(file.getParentFile(), file.getName() + ".ids");
+    }
+
+    /**
+     * Moves the vectors to the lowest slots, dropping removed ones. The magic number is cleared meanwhile, so that a
+     * store whose compaction was interrupted is rejected instead of mixing up the ids of the slots.
+     */
+    private void compact() throws IOException {
+        int live = 0;
+        for (int slot = 0; slot < size; slot++) {
+            if (!isRemoved(slot)) {
+                live++;
+            }
+        }
+        if (live == size) {
+            return;
+        }
+
+        buffer.putInt(0, 0);
+        flush();
+        List<String> kept = new ArrayList<>(live);
+        float[] vector = new float[dimension];
+        for (int slot = 0; slot < size; slot++) {
+            if (!isRemoved(slot)) {
+                if (kept.size() != slot) {
+                    get(slot, vector);
+                    floats.position(kept.size() * dimension);
+                    floats.put(vector);
+                }
+                kept.add(ids.get(slot));
+            }
+        }
+        File tmp = new File(file.getParentFile(), file.getName() + ".ids.tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), UTF8)) {
+            for (String id : kept) {
+                writer.write(id);
+                writer.write('\n');
+            }
+        }
+        flush();
+        Files.move(tmp.toPath(), getIdFile().toPath(), StandardCopyOption.REPLACE_EXISTING);
+        ids.clear();
+        ids.addAll(kept);
+        size = live;
+        buffer.putInt(8, size);
+        buffer.putInt(0, MAGIC);
+        flush();
+    }
+
+    private void allocate(int capacity) {
+        ByteBuffer grown = ByteBuffer.allocateDirect(HEADER + 4 * capacity * dimension).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer != null) {
+            buffer.clear();
+            grown.put(buffer);
+        }
+        this.capacity = capacity;
+        this.buffer = grown;
+        this.floats = slice(grown);
+    }
+
+    private void map() throws IOException {
+        long length = HEADER + 4L * capacity * dimension;
+        raf.setLength(length);
+        MappedByteBuffer mapped = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+        this.buffer = mapped;
+        this.floats = slice(mapped);
+    }
+
+    private static FloatBuffer slice(ByteBuffer buffer) {
+        ByteOrder order = buffer.order();
+        buffer.position(HEADER);
+        FloatBuffer floats = buffer.slice().order(order).asFloatBuffer();
+        buffer.position(0);
+        return floats;
+    }
+
+    /**
+     * Appends a vector.
+     *
+     * @param id     The id of the vector.
+     * @param vector The vector of {@link #getDimension()} components.
+     * @return The slot of the vector.
+     * @throws IOException If the store couldn't be grown.
+     * @throws IllegalArgumentException If the vector has another dimension or a NaN component.
+     */
+    public int add(String id, float[] vector) throws IOException {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("Expected vector of dimension " + dimension + ", was " + vector.length);
+        }
+        for (float component : vector) {
+            if (Float.isNaN(component)) {
+                throw new IllegalArgumentException("The vector of " + id + " has a NaN component");
+            }
+        }
+        if (size == capacity) {
+            if (file == null) {
+                allocate(capacity * 2);
+            } else {
+                capacity *= 2;
+                map();
+            }
+        }
+        int slot = size;
+        floats.position(slot * dimension);
+        floats.put(vector);
+        ids.add(id);
+        size++;
+        if (file != null) {
+            idWriter.write(id);
+            idWriter.write('\n');
+            idWriter.flush();
+        }
+        buffer.putInt(8, size);
+        return slot;
+    }
+
+    /**
+     * Marks the given slot as removed.
+     *
+     * @param slot The slot of the vector.
+     */
+    public void remove(int slot) {
+        floats.put(slot * dimension, Float.NaN);
+    }
+
+    /**
+     * Checks whether the given slot was removed.
+     *
+     * @param slot The slot of the vector.
+     * @return True if the slot holds no vector anymore.
+     */
+    public boolean isRemoved(int slot) {
+        return Float.isNaN(floats.get(slot * dimension));
+    }
+
+    /**
+     * Copies the vector of the given slot.
+     *
+     * @param slot   The slot of the vector.
+     * @param target The array of {@link #getDimension()} components to copy the vector into.
+     */
+    public void get(int slot, float[] target) {
+        int offset = slot * dimension;
+        for (int i = 0; i < dimension; i++) {
+            target[i] = floats.get(offset + i);
+        }
+    }
+
+    /**
+     * Computes the dot product of the given vector with the vector in the given slot without copying it.
+     *
+     * @param slot   The slot of the vector.
+     * @param vector The vector of {@link #getDimension()} components.
+     * @return The dot product.
+     */
+    public double dot(int slot, float[] vector) {
+        int offset = slot * dimension;
+        double sum = 0;
+        for (int i = 0; i < dimension; i++) {
+            sum += floats.get(offset + i) * vector[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Gets the id the vector in the given slot was added with.
+     *
+     * @param slot The slot of the vector.
+     * @return The id.
+     */
+    public String getId(int slot) {
+        return ids.get(slot);
+    }
+
+    /**
+     * Gets the number of slots, including removed ones.
+     *
+     * @return Value of size.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of components of the vectors.
+     *
+     * @return Value of dimension.
+     */
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Writes the mapped vectors to the file.
+     */
+    public void flush() {
+        if (file != null) {
+            ((MappedByteBuffer) buffer).force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        if (idWriter != null) {
+            idWriter.close();
+        }
+        if (raf != null) {
+            raf.close();
+        }
+    }
+}
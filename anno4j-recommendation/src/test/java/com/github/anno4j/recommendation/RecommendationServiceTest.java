@@ -15,9 +15,16 @@ import org.openrdf.repository.RepositoryException;
 import org.openrdf.repository.sail.SailRepository;
 import org.openrdf.sail.memory.MemoryStore;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Suite to test the {@link com.github.anno4j.recommendation.RecommendationService}
@@ -119,4 +126,61 @@ public class RecommendationServiceTest {
         SimilarityStatement statement2 = (SimilarityStatement) annotation2.getBodies().iterator().next();
         assertEquals(new Double(1.0), (Double) statement2.getSimilarity());
     }
+
+    @Test
+    public void testFindSimilar() throws Exception {
+        RecommendationService recommendationService = new RecommendationService(this.anno4j);
+
+        // Embed annotations as points on the unit circle
+        final Map<String, float[]> embeddings = new HashMap<>();
+        recommendationService.addAlgorithm("angle", new VectorizingSimilarityAlgorithm() {
+            @Override
+            public int getDimension() {
+                return 2;
+            }
+
+            @Override
+            public float[] vectorize(Annotation annotation) {
+                return embeddings.get(annotation.getResourceAsString());
+            }
+
+            @Override
+            public double calculateSimilarity(Annotation anno1, Annotation anno2) {
+                float[] v1 = vectorize(anno1);
+                float[] v2 = vectorize(anno2);
+                return v1[0] * v2[0] + v1[1] * v2[1];
+            }
+        });
+
+        List<Annotation> annotations = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Annotation annotation = anno4j.createObject(Annotation.class);
+            double angle = i * Math.PI / 10;
+            embeddings.put(annotation.getResourceAsString(), new float[]{(float) Math.cos(angle), (float) Math.sin(angle)});
+            recommendationService.index(annotation);
+            annotations.add(annotation);
+        }
+
+        List<SimilarityResult> similar = recommendationService.findSimilar(annotations.get(5), 2);
+        assertEquals(2, similar.size());
+        Set<String> neighbours = new HashSet<>();
+        for (SimilarityResult result : similar) {
+            assertEquals("angle", result.getAlgorithm());
+            neighbours.add(result.getObject().getResourceAsString());
+        }
+        assertTrue(neighbours.contains(annotations.get(4).getResourceAsString()));
+        assertTrue(neighbours.contains(annotations.get(6).getResourceAsString()));
+
+        // A removed annotation is no longer found
+        assertTrue(recommendationService.unindex(annotations.get(4)));
+        assertFalse(recommendationService.unindex(annotations.get(4)));
+        neighbours.clear();
+        for (SimilarityResult result : recommendationService.findSimilar(annotations.get(5), 2)) {
+            neighbours.add(result.getObject().getResourceAsString());
+        }
+        assertFalse(neighbours.contains(annotations.get(4).getResourceAsString()));
+        assertTrue(neighbours.contains(annotations.get(6).getResourceAsString()));
+
+        recommendationService.close();
+    }
 }
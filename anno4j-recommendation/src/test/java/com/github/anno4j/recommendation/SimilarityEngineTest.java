@@ -0,0 +1,116 @@
+package com.github.anno4j.recommendation;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.querying.QueryService;
+import com.github.anno4j.recommendation.impl.SimpleSimilarityAlgorithm;
+import com.github.anno4j.recommendation.ontologies.ANNO4JREC;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrdf.repository.sail.SailRepository;
+import org.openrdf.sail.memory.MemoryStore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Suite to test the {@link com.github.anno4j.recommendation.SimilarityEngine}
+ */
+public class SimilarityEngineTest {
+
+    private Anno4j anno4j;
+    private List<Annotation> candidates;
+    private Map<String, Integer> positions;
+    private Map<String, SimilarityAlgorithm> algorithms;
+    private SimilarityEngine engine;
+
+    @Before
+    public void setUp() throws Exception {
+        SailRepository repository = new SailRepository(new MemoryStore());
+        repository.initialize();
+
+        anno4j = new Anno4j();
+        anno4j.setRepository(repository);
+
+        candidates = new ArrayList<>();
+        positions = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            Annotation annotation = anno4j.createObject(Annotation.class);
+            candidates.add(annotation);
+            positions.put(annotation.getResourceAsString(), i);
+        }
+
+        algorithms = new HashMap<>();
+        algorithms.put("simple", new SimpleSimilarityAlgorithm());
+        // Candidates are the more similar the closer they are in the list
+        algorithms.put("distance", new SimilarityAlgorithm() {
+            @Override
+            public double calculateSimilarity(Annotation anno1, Annotation anno2) {
+                return -Math.abs(positions.get(anno1.getResourceAsString()) - positions.get(anno2.getResourceAsString()));
+            }
+        });
+
+        engine = new SimilarityEngine(anno4j, algorithms, 4);
+        engine.setBlockSize(3);
+    }
+
+    @After
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    public void testPairwiseSymmetric() throws Exception {
+        List<SimilarityResult> results = engine.computePairwise(candidates);
+
+        // One result per unordered pair and algorithm
+        assertEquals(20 * 19 / 2 * 2, results.size());
+        for (SimilarityResult result : results) {
+            assertTrue(result.getSubjectIndex() < result.getObjectIndex());
+        }
+    }
+
+    @Test
+    public void testPairwiseAsymmetric() throws Exception {
+        engine.setSymmetric(false);
+        List<SimilarityResult> results = engine.computePairwise(candidates);
+
+        // One result per ordered pair and algorithm
+        assertEquals(20 * 19 * 2, results.size());
+        SimilarityResult first = results.get(0);
+        assertEquals(candidates.get(0).getResourceAsString(), first.getSubject().getResourceAsString());
+        assertEquals(candidates.get(1).getResourceAsString(), first.getObject().getResourceAsString());
+    }
+
+    @Test
+    public void testTopK() throws Exception {
+        List<SimilarityResult> results = engine.computeTopK(candidates, 2);
+
+        assertEquals(20 * 2 * 2, results.size());
+        for (SimilarityResult result : results) {
+            if ("distance".equals(result.getAlgorithm())) {
+                // The nearest neighbours are at most two positions away
+                assertTrue(result.getSimilarity() >= -2);
+            }
+        }
+    }
+
+    @Test
+    public void testGenerateTopSimilarities() throws Exception {
+        RecommendationService recommendationService = new RecommendationService(anno4j);
+        recommendationService.setAlgorithms(algorithms);
+
+        List<SimilarityResult> results = recommendationService.generateTopSimilarities(candidates, 3);
+
+        QueryService queryService = anno4j.createQueryService();
+        queryService.addPrefix(ANNO4JREC.PREFIX, ANNO4JREC.NS);
+        List<Annotation> persisted = queryService.addCriteria("oa:hasBody[is-a arec:SimilarityStatement]").execute();
+        assertEquals(results.size(), persisted.size());
+    }
+}
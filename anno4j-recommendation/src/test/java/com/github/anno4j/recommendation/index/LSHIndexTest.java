@@ -0,0 +1,205 @@
+package com.github.anno4j.recommendation.index;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Suite to test the {@link com.github.anno4j.recommendation.index.LSHIndex}
+ */
+public class LSHIndexTest {
+
+    private static final int DIMENSION = 32;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRecall() throws Exception {
+        Random random = new Random(1);
+        float[][] vectors = new float[5000][];
+        LSHIndex index = new LSHIndex(DIMENSION);
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = randomVector(random);
+            index.add("urn:" + i, vectors[i]);
+        }
+        assertEquals(vectors.length, index.size());
+
+        // Queries close to indexed vectors must find them
+        int found = 0;
+        for (int i = 0; i < 100; i++) {
+            float[] query = vectors[i].clone();
+            for (int j = 0; j < DIMENSION; j++) {
+                query[j] += 0.05f * random.nextGaussian();
+            }
+            List<Neighbour> neighbours = index.search(query, 10);
+            assertTrue(neighbours.size() <= 10);
+            for (int n = 1; n < neighbours.size(); n++) {
+                assertTrue(neighbours.get(n - 1).getSimilarity() >= neighbours.get(n).getSimilarity());
+            }
+            if (!neighbours.isEmpty() && neighbours.get(0).getId().equals("urn:" + i)) {
+                found++;
+            }
+        }
+        assertTrue("Recall was " + found + "%", found >= 90);
+    }
+
+    @Test
+    public void testSmallIndexIsExhaustive() throws Exception {
+        LSHIndex index = new LSHIndex(2);
+        index.add("a", new float[]{1, 0});
+        index.add("b", new float[]{0, 1});
+        index.add("c", new float[]{-1, 0});
+
+        List<Neighbour> neighbours = index.search(new float[]{1, 0.1f}, 3);
+        assertEquals(3, neighbours.size());
+        assertEquals("a", neighbours.get(0).getId());
+        assertEquals("b", neighbours.get(1).getId());
+        assertEquals("c", neighbours.get(2).getId());
+    }
+
+    @Test
+    public void testUpdateAndRemove() throws Exception {
+        LSHIndex index = new LSHIndex(2);
+        index.add("a", new float[]{1, 0});
+        index.add("b", new float[]{0, 1});
+        index.add("a", new float[]{0, 2});
+        assertEquals(2, index.size());
+
+        List<Neighbour> neighbours = index.search(new float[]{0, 1}, 2);
+        assertEquals(1.0, neighbours.get(0).getSimilarity(), 1e-6);
+        assertEquals(1.0, neighbours.get(1).getSimilarity(), 1e-6);
+
+        assertTrue(index.remove("b"));
+        assertFalse(index.remove("b"));
+        assertFalse(index.contains("b"));
+        assertEquals(1, index.search(new float[]{0, 1}, 2).size());
+    }
+
+    @Test
+    public void testNonFiniteVectors() throws Exception {
+        LSHIndex index = new LSHIndex(2);
+        for (float[] vector : new float[][]{{Float.NaN, 1}, {1, Float.POSITIVE_INFINITY}}) {
+            try {
+                index.add("a", vector);
+                fail();
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+        assertEquals(0, index.size());
+
+        // Removed slots are marked with a NaN, so the store rejects it as well
+        VectorStore store = new VectorStore(2);
+        try {
+            store.add("a", new float[]{Float.NaN, 0});
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void testPersistence() throws Exception {
+        File file = new File(folder.getRoot(), "index.vec");
+        Random random = new Random(2);
+        float[][] vectors = new float[3000][];
+
+        LSHIndex index = new LSHIndex(DIMENSION, file);
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = randomVector(random);
+            index.add("urn:" + i, vectors[i]);
+        }
+        index.remove("urn:0");
+        index.close();
+
+        index = new LSHIndex(DIMENSION, file);
+        assertEquals(vectors.length - 1, index.size());
+        assertFalse(index.contains("urn:0"));
+        Set<String> ids = new HashSet<>();
+        for (Neighbour neighbour : index.search(vectors[1], 1)) {
+            ids.add(neighbour.getId());
+        }
+        assertTrue(ids.contains("urn:1"));
+
+        // The reopened index stays incremental
+        index.add("urn:new", vectors[0]);
+        assertEquals("urn:new", index.search(vectors[0], 1).get(0).getId());
+        index.close();
+    }
+
+    @Test
+    public void testRemovedSlotsAreNotCandidates() throws Exception {
+        LSHIndex index = new LSHIndex(2);
+        for (int i = 0; i < 100; i++) {
+            index.add("a", new float[]{1, i});
+        }
+        index.add("b", new float[]{1, 0.1f});
+        for (int i = 0; i < 100; i++) {
+            index.add("urn:" + i, new float[]{-1, i});
+            index.remove("urn:" + i);
+        }
+
+        // The full scan only visits the two live vectors
+        List<Neighbour> neighbours = index.search(new float[]{1, 0}, 5);
+        assertEquals(2, neighbours.size());
+        assertEquals("b", neighbours.get(0).getId());
+        assertEquals("a", neighbours.get(1).getId());
+    }
+
+    @Test
+    public void testCompactionOnReopen() throws Exception {
+        File file = new File(folder.getRoot(), "index.vec");
+        Random random = new Random(3);
+        float[] kept = randomVector(random);
+
+        LSHIndex index = new LSHIndex(DIMENSION, file);
+        for (int i = 0; i < 100; i++) {
+            index.add("urn:" + i, randomVector(random));
+        }
+        for (int i = 0; i < 100; i += 2) {
+            index.remove("urn:" + i);
+        }
+        index.add("urn:1", kept);
+        index.close();
+
+        VectorStore store = new VectorStore(DIMENSION, file);
+        assertEquals(50, store.size());
+        for (int slot = 0; slot < store.size(); slot++) {
+            assertFalse(store.isRemoved(slot));
+        }
+        assertEquals("urn:1", store.getId(store.size() - 1));
+        store.close();
+
+        index = new LSHIndex(DIMENSION, file);
+        assertEquals(50, index.size());
+        assertEquals("urn:1", index.search(kept, 1).get(0).getId());
+        index.add("urn:new", kept);
+        index.close();
+
+        store = new VectorStore(DIMENSION, file);
+        assertEquals(51, store.size());
+        assertEquals("urn:new", store.getId(50));
+        store.close();
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}